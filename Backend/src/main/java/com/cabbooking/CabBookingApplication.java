@@ -1,14 +1,21 @@
 package com.cabbooking;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.TypeExcludeFilter;
 import org.springframework.context.annotation.ComponentScan; // FIX: Import ComponentScan
+import org.springframework.context.annotation.FilterType;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
 // FIX: Add this annotation to ensure all controllers, services, etc., are found.
-@ComponentScan(basePackages = "com.cabbooking") 
+// The exclude filters are the ones of @SpringBootApplication, so test slices
+// (@DataJpaTest, @WebMvcTest) can still narrow the scan.
+@ComponentScan(basePackages = "com.cabbooking", excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+        @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class) })
 public class CabBookingApplication {
 
     public static void main(String[] args) {
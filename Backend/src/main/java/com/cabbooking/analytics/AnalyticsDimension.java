@@ -0,0 +1,27 @@
+package com.cabbooking.analytics;
+
+/**
+ * AnalyticsDimension enum listing the columns an analytics query can group by.
+ */
+public enum AnalyticsDimension {
+    /**
+     * The car type of the trip (e.g., Sedan, SUV).
+     */
+    CAR_TYPE,
+    /**
+     * The final status of the trip (COMPLETED or CANCELLED).
+     */
+    STATUS,
+    /**
+     * The hour of the day the trip started (0-23).
+     */
+    HOUR,
+    /**
+     * The day the trip started.
+     */
+    DAY,
+    /**
+     * The driver assigned to the trip.
+     */
+    DRIVER
+}
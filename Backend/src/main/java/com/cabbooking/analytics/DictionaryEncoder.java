@@ -0,0 +1,92 @@
+package com.cabbooking.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DictionaryEncoder maps low-cardinality string values (car types, trip
+ * statuses) to small integer codes, so the column store can keep them in
+ * primitive arrays and compare them with a single array lookup.
+ *
+ * Codes are assigned in first-seen order and never change. Reads are lock
+ * free; only the assignment of a new code is synchronized.
+ */
+public class DictionaryEncoder {
+
+    /*
+     * Largest number of distinct values, so codes fit into a short column.
+     */
+    public static final int MAX_VALUES = Short.MAX_VALUE;
+
+    /*
+     * Value to code lookup used when encoding.
+     */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    /*
+     * Code to value lookup used when decoding. Replaced on every new value so
+     * readers never see a partially grown list.
+     */
+    private volatile List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the code of a value, assigning a new one if the value has not
+     * been seen before.
+     *
+     * @param value The value to encode (null is encoded as an empty string).
+     * @return The code of the value.
+     * @throws IllegalStateException if the dictionary is full.
+     */
+    public int encode(String value) {
+        String key = value != null ? value : "";
+        Integer code = codes.get(key);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(key);
+            if (code != null) {
+                return code;
+            }
+            if (values.size() >= MAX_VALUES) {
+                throw new IllegalStateException("Dictionary is full, cannot encode: " + key);
+            }
+            List<String> grown = new ArrayList<>(values);
+            grown.add(key);
+            code = grown.size() - 1;
+            values = grown;
+            codes.put(key, code);
+            return code;
+        }
+    }
+
+    /**
+     * Returns the code of a value without assigning a new one.
+     *
+     * @param value The value to look up.
+     * @return The code of the value, or -1 if it has never been encoded.
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value != null ? value : "");
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Returns the value of a code.
+     *
+     * @param code The code to decode.
+     * @return The original value.
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * @return The number of distinct values encoded so far.
+     */
+    public int size() {
+        return values.size();
+    }
+}
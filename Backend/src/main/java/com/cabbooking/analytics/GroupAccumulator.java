@@ -0,0 +1,170 @@
+package com.cabbooking.analytics;
+
+import java.util.Arrays;
+
+/**
+ * GroupAccumulator collects the aggregates of one scan, keyed by a packed
+ * group key, in an open-addressing hash table over primitive arrays.
+ *
+ * Each fork-join task fills its own accumulator, and the partial results are
+ * merged pairwise when the tasks join, so no accumulator is ever shared
+ * between threads.
+ */
+final class GroupAccumulator {
+
+    /*
+     * Marks an unused slot. Packed keys are built from non-negative values,
+     * so they never collide with it.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] counts;
+    private double[] bills;
+    private double[] distances;
+    private long[] ratingSums;
+    private long[] ratingCounts;
+    private int groups;
+    private long scannedRows;
+
+    GroupAccumulator() {
+        allocate(16);
+    }
+
+    /**
+     * Adds one matching trip to its group.
+     */
+    void add(long key, float bill, float distance, int rating) {
+        int slot = slot(key);
+        counts[slot]++;
+        bills[slot] += bill;
+        distances[slot] += distance;
+        if (rating > 0) {
+            ratingSums[slot] += rating;
+            ratingCounts[slot]++;
+        }
+    }
+
+    /**
+     * Adds the number of rows a task looked at, matching or not.
+     */
+    void addScanned(long rows) {
+        scannedRows += rows;
+    }
+
+    /**
+     * Merges the groups of another accumulator into this one.
+     */
+    GroupAccumulator merge(GroupAccumulator other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == EMPTY) {
+                continue;
+            }
+            int slot = slot(other.keys[i]);
+            counts[slot] += other.counts[i];
+            bills[slot] += other.bills[i];
+            distances[slot] += other.distances[i];
+            ratingSums[slot] += other.ratingSums[i];
+            ratingCounts[slot] += other.ratingCounts[i];
+        }
+        scannedRows += other.scannedRows;
+        return this;
+    }
+
+    /*
+     * Helper method to find the slot of a key, inserting it if absent.
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        if ((groups + 1) * 2 > keys.length) {
+            grow();
+            return slot(key);
+        }
+        keys[i] = key;
+        groups++;
+        return i;
+    }
+
+    /*
+     * Helper method to double the table and re-insert all groups.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        double[] oldBills = bills;
+        double[] oldDistances = distances;
+        long[] oldRatingSums = ratingSums;
+        long[] oldRatingCounts = ratingCounts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = slot(oldKeys[i]);
+            counts[slot] = oldCounts[i];
+            bills[slot] = oldBills[i];
+            distances[slot] = oldDistances[i];
+            ratingSums[slot] = oldRatingSums[i];
+            ratingCounts[slot] = oldRatingCounts[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[capacity];
+        bills = new double[capacity];
+        distances = new double[capacity];
+        ratingSums = new long[capacity];
+        ratingCounts = new long[capacity];
+        groups = 0;
+    }
+
+    // ======= Accessors over the table slots =======
+    int capacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return keys[slot] != EMPTY;
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    long count(int slot) {
+        return counts[slot];
+    }
+
+    double bill(int slot) {
+        return bills[slot];
+    }
+
+    double distance(int slot) {
+        return distances[slot];
+    }
+
+    long ratingSum(int slot) {
+        return ratingSums[slot];
+    }
+
+    long ratingCount(int slot) {
+        return ratingCounts[slot];
+    }
+
+    int groups() {
+        return groups;
+    }
+
+    long scannedRows() {
+        return scannedRows;
+    }
+}
@@ -0,0 +1,215 @@
+package com.cabbooking.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+
+import com.cabbooking.dto.TripAnalyticsQuery;
+import com.cabbooking.dto.TripAnalyticsResult;
+import com.cabbooking.dto.TripAnalyticsRow;
+import com.cabbooking.model.TripStatus;
+
+/**
+ * TripColumnStore is an in-memory, column-oriented copy of all finished trips,
+ * used to answer ad-hoc admin aggregations without touching the database.
+ *
+ * Layout:
+ * - Trips are partitioned into one TripSegment per start day, kept in a sorted
+ *   map so a date range only visits the segments it needs.
+ * - Each segment stores its columns in primitive arrays; car type and status
+ *   are dictionary encoded.
+ *
+ * Queries split the selected segments into fixed-size chunks and scan them in
+ * parallel on a fork-join pool.
+ */
+public class TripColumnStore {
+
+    /*
+     * Maximum number of rows one fork-join leaf task scans.
+     */
+    static final int CHUNK_ROWS = 1 << 16;
+
+    private final NavigableMap<Long, TripSegment> segments = new ConcurrentSkipListMap<>();
+    private final DictionaryEncoder carTypes = new DictionaryEncoder();
+    private final DictionaryEncoder statuses = new DictionaryEncoder();
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool The fork-join pool the scans run on.
+     */
+    public TripColumnStore(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Appends a trip that is known not to be stored yet (bulk load).
+     *
+     * @param fact The trip.
+     */
+    public void append(TripFact fact) {
+        if (fact.getStartTime() == null) {
+            return;
+        }
+        segmentFor(fact).append(fact, carTypes.encode(fact.getCarType()), statuses.encode(fact.getStatus().name()));
+    }
+
+    /**
+     * Stores a trip, replacing its row if it is already stored (live update).
+     *
+     * @param fact The trip.
+     */
+    public void upsert(TripFact fact) {
+        if (fact.getStartTime() == null) {
+            return;
+        }
+        segmentFor(fact).upsert(fact, carTypes.encode(fact.getCarType()), statuses.encode(fact.getStatus().name()));
+    }
+
+    private TripSegment segmentFor(TripFact fact) {
+        long day = fact.getStartTime().toLocalDate().toEpochDay();
+        return segments.computeIfAbsent(day, TripSegment::new);
+    }
+
+    /**
+     * @return The total number of stored trips.
+     */
+    public long size() {
+        long total = 0;
+        for (TripSegment segment : segments.values()) {
+            total += segment.size();
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of day segments.
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Runs a filter/group-by/aggregate query.
+     *
+     * Workflow:
+     * - Selects the day segments within the date range.
+     * - Compiles the car type and status filters to code masks.
+     * - Splits the segments into chunks and scans them with a fork-join task.
+     * - Decodes the group keys into labelled rows.
+     *
+     * @param query The query; from and to must be set.
+     * @return The aggregated rows.
+     */
+    public TripAnalyticsResult query(TripAnalyticsQuery query) {
+        long started = System.nanoTime();
+
+        TripScanTask.Plan plan = new TripScanTask.Plan();
+        plan.carTypeMask = carTypeMask(query.getCarTypes());
+        plan.statusMask = statusMask(query.getStatuses());
+        plan.driverId = query.getDriverId() != null ? query.getDriverId() : 0;
+        if (query.getGroupBy() != null) {
+            plan.groupBy = query.getGroupBy().toArray(new AnalyticsDimension[0]);
+        }
+
+        List<TripScanTask.Chunk> chunks = new ArrayList<>();
+        for (TripSegment segment : segments.subMap(
+                query.getFrom().toEpochDay(), true, query.getTo().toEpochDay(), true).values()) {
+            TripSegment.Columns columns = segment.snapshot();
+            int size = columns.size;
+            for (int from = 0; from < size; from += CHUNK_ROWS) {
+                chunks.add(new TripScanTask.Chunk(columns, (int) segment.getEpochDay(), from,
+                        Math.min(size, from + CHUNK_ROWS)));
+            }
+        }
+
+        GroupAccumulator acc = pool.invoke(new TripScanTask(chunks, 0, chunks.size(), plan));
+
+        List<Integer> slots = new ArrayList<>(acc.groups());
+        for (int slot = 0; slot < acc.capacity(); slot++) {
+            if (acc.isUsed(slot)) {
+                slots.add(slot);
+            }
+        }
+        slots.sort(Comparator.comparingLong(acc::key));
+
+        List<TripAnalyticsRow> rows = new ArrayList<>(slots.size());
+        for (int slot : slots) {
+            Double averageRating = acc.ratingCount(slot) > 0
+                    ? (double) acc.ratingSum(slot) / acc.ratingCount(slot) : null;
+            rows.add(new TripAnalyticsRow(decode(plan.groupBy, acc.key(slot)), acc.count(slot),
+                    acc.bill(slot), acc.distance(slot), averageRating));
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        return new TripAnalyticsResult(rows, acc.scannedRows(), elapsedMillis);
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to compile a car type filter. Matching is case-insensitive,
+     * like the car type matching in trip booking.
+     */
+    private boolean[] carTypeMask(Collection<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[carTypes.size()];
+        for (int code = 0; code < mask.length; code++) {
+            String value = carTypes.decode(code);
+            for (String carType : wanted) {
+                if (value.equalsIgnoreCase(carType)) {
+                    mask[code] = true;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private boolean[] statusMask(Collection<TripStatus> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[statuses.size()];
+        for (TripStatus status : wanted) {
+            int code = statuses.lookup(status.name());
+            if (code >= 0) {
+                mask[code] = true;
+            }
+        }
+        return mask;
+    }
+
+    /*
+     * Helper method to turn a packed group key back into labelled values.
+     */
+    private Map<String, String> decode(AnalyticsDimension[] groupBy, long key) {
+        Map<String, String> group = new LinkedHashMap<>();
+        for (int d = 0; d < groupBy.length; d++) {
+            int shift = 32 * (groupBy.length - 1 - d);
+            int value = (int) (key >>> shift);
+            group.put(groupBy[d].name(), label(groupBy[d], value));
+        }
+        return group;
+    }
+
+    private String label(AnalyticsDimension dimension, int value) {
+        return switch (dimension) {
+            case CAR_TYPE -> carTypes.decode(value);
+            case STATUS -> statuses.decode(value);
+            case HOUR -> String.format("%02d:00", value);
+            case DAY -> LocalDate.ofEpochDay(value).toString();
+            case DRIVER -> value == 0 ? "NONE" : Integer.toString(value);
+        };
+    }
+}
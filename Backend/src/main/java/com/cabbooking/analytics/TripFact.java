@@ -0,0 +1,94 @@
+package com.cabbooking.analytics;
+
+import java.time.LocalDateTime;
+
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+
+/**
+ * TripFact is the flat, immutable snapshot of one finished trip as it is
+ * stored in the analytics column store.
+ *
+ * It is built either from a TripBooking entity (live updates) or from a
+ * projection row (bulk load), so the store never holds entity references.
+ */
+public class TripFact {
+
+    private final int tripId;
+    private final LocalDateTime startTime;
+    private final TripStatus status;
+    private final String carType;
+    private final int driverId;
+    private final float bill;
+    private final float distanceInKm;
+    private final int rating;
+
+    public TripFact(int tripId, LocalDateTime startTime, TripStatus status, String carType,
+            int driverId, float bill, float distanceInKm, int rating) {
+        this.tripId = tripId;
+        this.startTime = startTime;
+        this.status = status;
+        this.carType = carType;
+        this.driverId = driverId;
+        this.bill = bill;
+        this.distanceInKm = distanceInKm;
+        this.rating = rating;
+    }
+
+    /**
+     * Creates a fact from a trip entity.
+     *
+     * @param trip The trip.
+     * @return The snapshot of the trip.
+     */
+    public static TripFact of(TripBooking trip) {
+        return new TripFact(
+                trip.getTripBookingId(),
+                trip.getFromDateTime(),
+                trip.getStatus(),
+                trip.getCarType(),
+                trip.getDriver() != null ? trip.getDriver().getId() : 0,
+                trip.getBill(),
+                trip.getDistanceInKm(),
+                trip.getCustomerRating() != null ? trip.getCustomerRating() : 0);
+    }
+
+    // ======= Getters =======
+    public int getTripId() {
+        return tripId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public TripStatus getStatus() {
+        return status;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    /**
+     * @return The ID of the driver, or 0 if no driver was assigned.
+     */
+    public int getDriverId() {
+        return driverId;
+    }
+
+    public float getBill() {
+        return bill;
+    }
+
+    public float getDistanceInKm() {
+        return distanceInKm;
+    }
+
+    /**
+     * @return The customer rating (1-5), or 0 if the trip was not rated.
+     */
+    public int getRating() {
+        return rating;
+    }
+}
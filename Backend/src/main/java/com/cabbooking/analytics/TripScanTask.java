@@ -0,0 +1,128 @@
+package com.cabbooking.analytics;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * TripScanTask is a fork-join task that scans a range of segment chunks,
+ * applies the query filters and aggregates the matching trips.
+ *
+ * The chunk list is split in halves until a task owns a single chunk, which
+ * is then scanned sequentially over the primitive column arrays.
+ */
+final class TripScanTask extends RecursiveTask<GroupAccumulator> {
+
+    /**
+     * A contiguous row range of one segment snapshot.
+     */
+    static final class Chunk {
+        final TripSegment.Columns columns;
+        final int epochDay;
+        final int from;
+        final int to;
+
+        Chunk(TripSegment.Columns columns, int epochDay, int from, int to) {
+            this.columns = columns;
+            this.epochDay = epochDay;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * The compiled filters and grouping of a query.
+     */
+    static final class Plan {
+        /*
+         * Allowed car type codes, or null for all car types.
+         */
+        boolean[] carTypeMask;
+        /*
+         * Allowed status codes, or null for all statuses.
+         */
+        boolean[] statusMask;
+        /*
+         * The driver to restrict to, or 0 for all drivers.
+         */
+        int driverId;
+        /*
+         * The dimensions to group by (at most two).
+         */
+        AnalyticsDimension[] groupBy = new AnalyticsDimension[0];
+    }
+
+    private final List<Chunk> chunks;
+    private final int lo;
+    private final int hi;
+    private final Plan plan;
+
+    TripScanTask(List<Chunk> chunks, int lo, int hi, Plan plan) {
+        this.chunks = chunks;
+        this.lo = lo;
+        this.hi = hi;
+        this.plan = plan;
+    }
+
+    @Override
+    protected GroupAccumulator compute() {
+        if (hi - lo <= 1) {
+            GroupAccumulator acc = new GroupAccumulator();
+            if (hi > lo) {
+                scan(chunks.get(lo), acc);
+            }
+            return acc;
+        }
+        int mid = (lo + hi) >>> 1;
+        TripScanTask left = new TripScanTask(chunks, lo, mid, plan);
+        TripScanTask right = new TripScanTask(chunks, mid, hi, plan);
+        left.fork();
+        GroupAccumulator rightResult = right.compute();
+        return left.join().merge(rightResult);
+    }
+
+    /*
+     * Helper method to scan one chunk sequentially.
+     */
+    private void scan(Chunk chunk, GroupAccumulator acc) {
+        TripSegment.Columns c = chunk.columns;
+        boolean[] carTypeMask = plan.carTypeMask;
+        boolean[] statusMask = plan.statusMask;
+        int driverId = plan.driverId;
+        AnalyticsDimension[] groupBy = plan.groupBy;
+
+        for (int i = chunk.from; i < chunk.to; i++) {
+            if (statusMask != null && !matches(statusMask, c.statuses[i])) {
+                continue;
+            }
+            if (carTypeMask != null && !matches(carTypeMask, c.carTypes[i])) {
+                continue;
+            }
+            if (driverId != 0 && c.driverIds[i] != driverId) {
+                continue;
+            }
+            long key = 0;
+            for (AnalyticsDimension dimension : groupBy) {
+                key = (key << 32) | (value(dimension, c, i, chunk.epochDay) & 0xFFFFFFFFL);
+            }
+            acc.add(key, c.bills[i], c.distances[i], c.ratings[i]);
+        }
+        acc.addScanned(chunk.to - chunk.from);
+    }
+
+    private static boolean matches(boolean[] mask, int code) {
+        return code < mask.length && mask[code];
+    }
+
+    /*
+     * Helper method to read the value of a group-by dimension for a row.
+     */
+    private static int value(AnalyticsDimension dimension, TripSegment.Columns c, int i, int epochDay) {
+        return switch (dimension) {
+            case CAR_TYPE -> c.carTypes[i];
+            case STATUS -> c.statuses[i];
+            case HOUR -> c.secondOfDay[i] / 3600;
+            case DAY -> epochDay;
+            case DRIVER -> c.driverIds[i];
+        };
+    }
+}
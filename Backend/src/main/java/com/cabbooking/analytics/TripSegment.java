@@ -0,0 +1,149 @@
+package com.cabbooking.analytics;
+
+import java.util.Arrays;
+
+/**
+ * TripSegment holds all finished trips that started on one day, stored column
+ * by column in primitive arrays.
+ *
+ * Concurrency:
+ * - Writers (bulk load, live updates) are serialized on the segment.
+ * - Readers take a snapshot of the current column arrays and their size and
+ *   scan them without locking. A row becomes visible once the volatile size is
+ *   published, and growing the arrays publishes a new Columns object, so a
+ *   reader never sees a half written row or a torn array.
+ */
+public class TripSegment {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /*
+     * The day all trips in this segment started on, as an epoch day.
+     */
+    private final long epochDay;
+
+    /*
+     * The current column arrays.
+     */
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    public TripSegment(long epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    /**
+     * Column arrays of a segment. All arrays have the same length; only the
+     * first {@code size} entries are valid.
+     */
+    static final class Columns {
+        final int[] tripIds;
+        final int[] secondOfDay;
+        final short[] carTypes;
+        final byte[] statuses;
+        final int[] driverIds;
+        final float[] bills;
+        final float[] distances;
+        final byte[] ratings;
+        volatile int size;
+
+        Columns(int capacity) {
+            tripIds = new int[capacity];
+            secondOfDay = new int[capacity];
+            carTypes = new short[capacity];
+            statuses = new byte[capacity];
+            driverIds = new int[capacity];
+            bills = new float[capacity];
+            distances = new float[capacity];
+            ratings = new byte[capacity];
+        }
+
+        Columns(Columns source, int capacity) {
+            tripIds = Arrays.copyOf(source.tripIds, capacity);
+            secondOfDay = Arrays.copyOf(source.secondOfDay, capacity);
+            carTypes = Arrays.copyOf(source.carTypes, capacity);
+            statuses = Arrays.copyOf(source.statuses, capacity);
+            driverIds = Arrays.copyOf(source.driverIds, capacity);
+            bills = Arrays.copyOf(source.bills, capacity);
+            distances = Arrays.copyOf(source.distances, capacity);
+            ratings = Arrays.copyOf(source.ratings, capacity);
+            size = source.size;
+        }
+
+        int capacity() {
+            return tripIds.length;
+        }
+    }
+
+    /**
+     * Appends a trip without checking for an existing row. Used by the bulk
+     * load, where every trip is read exactly once.
+     *
+     * @param fact The trip.
+     * @param carTypeCode The dictionary code of the car type.
+     * @param statusCode The dictionary code of the status.
+     */
+    public synchronized void append(TripFact fact, int carTypeCode, int statusCode) {
+        Columns c = columns;
+        int i = c.size;
+        if (i == c.capacity()) {
+            c = new Columns(c, c.capacity() * 2);
+            columns = c;
+        }
+        c.tripIds[i] = fact.getTripId();
+        c.secondOfDay[i] = fact.getStartTime().toLocalTime().toSecondOfDay();
+        write(c, i, fact, carTypeCode, statusCode);
+        c.size = i + 1;
+    }
+
+    /**
+     * Updates the row of a trip if it is already stored, or appends it
+     * otherwise. Used by live updates, which may repeat a trip (e.g. a
+     * completed trip that is later rated).
+     *
+     * @param fact The trip.
+     * @param carTypeCode The dictionary code of the car type.
+     * @param statusCode The dictionary code of the status.
+     */
+    public synchronized void upsert(TripFact fact, int carTypeCode, int statusCode) {
+        Columns c = columns;
+        int[] ids = c.tripIds;
+        int tripId = fact.getTripId();
+        for (int i = c.size - 1; i >= 0; i--) {
+            if (ids[i] == tripId) {
+                write(c, i, fact, carTypeCode, statusCode);
+                return;
+            }
+        }
+        append(fact, carTypeCode, statusCode);
+    }
+
+    /*
+     * Helper method to write the mutable columns of a row.
+     */
+    private void write(Columns c, int i, TripFact fact, int carTypeCode, int statusCode) {
+        c.carTypes[i] = (short) carTypeCode;
+        c.statuses[i] = (byte) statusCode;
+        c.driverIds[i] = fact.getDriverId();
+        c.bills[i] = fact.getBill();
+        c.distances[i] = fact.getDistanceInKm();
+        c.ratings[i] = (byte) fact.getRating();
+    }
+
+    /**
+     * @return A consistent snapshot of the column arrays for scanning.
+     */
+    Columns snapshot() {
+        return columns;
+    }
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * @return The number of trips in the segment.
+     */
+    public int size() {
+        return columns.size;
+    }
+}
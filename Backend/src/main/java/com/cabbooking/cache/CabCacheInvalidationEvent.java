@@ -0,0 +1,23 @@
+package com.cabbooking.cache;
+
+/**
+ * Published after a transaction that changed a cab has committed.
+ *
+ * Within one application instance Hibernate keeps the cab cache consistent on
+ * its own. A deployment with several instances forwards this event to the
+ * other instances (for example over a message broker), which then call
+ * ICabCacheService.evictCab so their local caches drop the stale entry.
+ */
+public class CabCacheInvalidationEvent {
+
+    private final Integer cabId;
+
+    public CabCacheInvalidationEvent(Integer cabId) {
+        this.cabId = cabId;
+    }
+
+    // ======= Getters and Setters =======
+    public Integer getCabId() {
+        return cabId;
+    }
+}
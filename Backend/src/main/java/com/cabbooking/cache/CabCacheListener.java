@@ -0,0 +1,50 @@
+package com.cabbooking.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cabbooking.model.Cab;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that reports every change of a Cab, whichever code path
+ * made it (cab details, images, or availability changes during bookings).
+ *
+ * Workflow:
+ * - Hibernate calls the listener after inserting, updating or deleting a cab.
+ * - Once the surrounding transaction commits, a CabCacheInvalidationEvent is
+ *   published, so a rolled back change never invalidates anything.
+ *
+ * Instantiated by Hibernate through Spring's bean container, which injects the
+ * event publisher.
+ */
+public class CabCacheListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void cabChanged(Cab cab) {
+        if (eventPublisher == null || cab.getCabId() == null) {
+            return;
+        }
+        CabCacheInvalidationEvent event = new CabCacheInvalidationEvent(cab.getCabId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.cabbooking.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the Flyway schema migrations in db/migration.
+ *
+ * Databases created before the migrations were introduced already contain the
+ * tables (generated by Hibernate) but no Flyway history. Such a database is
+ * baselined at version 0, so V1 still runs on it; V1 only creates missing
+ * tables, and every later version applies as usual.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("0");
+    }
+}
@@ -0,0 +1,37 @@
+package com.cabbooking.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cabbooking.model.IdGenerators;
+
+/**
+ * Configuration of JDBC batching for bulk writes.
+ *
+ * - hibernate.jdbc.batch_size = 50: up to 50 inserts or updates of the same
+ *   statement are sent in one round-trip. This equals
+ *   IdGenerators.ALLOCATION_SIZE, so one ID reservation covers one batch.
+ * - hibernate.order_inserts / order_updates: statements are grouped by entity
+ *   so batches are not broken up by interleaved entity types.
+ * - The pooled-lo optimizer makes each id_generator row hold the first ID of
+ *   the next block, which is what the migration seeds.
+ *
+ * On MySQL, add rewriteBatchedStatements=true to the JDBC URL so the driver
+ * turns a batch into a single multi-row INSERT. Every value can still be
+ * overridden through spring.jpa.properties.*.
+ */
+@Configuration
+public class HibernateBatchingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatching() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(IdGenerators.ALLOCATION_SIZE));
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, "true");
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, "true");
+            properties.putIfAbsent(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled-lo");
+        };
+    }
+}
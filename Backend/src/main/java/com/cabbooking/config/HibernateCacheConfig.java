@@ -0,0 +1,33 @@
+package com.cabbooking.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the Hibernate second-level and query cache.
+ *
+ * Entities marked @Cacheable (currently Cab) are kept in local Caffeine caches
+ * through JCache; regions are created on first use. Statistics are enabled so
+ * the hit/miss counts can be reported at /api/admin/metrics/cache. Every value
+ * can still be overridden in application.properties through
+ * spring.jpa.properties.*.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+            properties.putIfAbsent(AvailableSettings.USE_QUERY_CACHE, "true");
+            properties.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.putIfAbsent(ConfigSettings.PROVIDER,
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            properties.putIfAbsent(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, "true");
+        };
+    }
+}
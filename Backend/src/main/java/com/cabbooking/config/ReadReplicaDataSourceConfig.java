@@ -0,0 +1,96 @@
+package com.cabbooking.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.cabbooking.datasource.ReadReplicaRoutingDataSource;
+import com.cabbooking.datasource.ReplicaLagGuard;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration of the primary and read replica connection pools.
+ *
+ * Only active when app.datasource.replica.urls is set, for example:
+ *
+ *   app.datasource.replica.urls=jdbc:mysql://replica-1:3306/cab_booking,jdbc:mysql://replica-2:3306/cab_booking
+ *   app.datasource.replica.username=reader          (defaults to spring.datasource.username)
+ *   app.datasource.replica.password=secret          (defaults to spring.datasource.password)
+ *   app.datasource.replica.stickiness-ms=5000
+ *
+ * Without it, Spring Boot's single data source is used unchanged. The primary
+ * pool keeps using the spring.datasource.* settings, so Flyway and every
+ * write keep running against it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReadReplicaDataSourceConfig implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaDataSourceConfig.class);
+
+    @Value("${app.datasource.replica.urls}")
+    private String[] replicaUrls;
+
+    @Value("${app.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replica.stickiness-ms:5000}")
+    private long stickinessMillis;
+
+    /*
+     * Pools created here, closed on shutdown.
+     */
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard() {
+        return new ReplicaLagGuard(stickinessMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, ReplicaLagGuard replicaLagGuard) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        pools.add(primary);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls[i].trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            if (properties.getDriverClassName() != null) {
+                replica.setDriverClassName(properties.getDriverClassName());
+            }
+            replica.setReadOnly(true);
+            pools.add(replica);
+            replicas.add(replica);
+        }
+        logger.info("Routing read-only transactions to {} replica(s).", replicas.size());
+
+        return new LazyConnectionDataSourceProxy(
+                new ReadReplicaRoutingDataSource(primary, replicas, replicaLagGuard));
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -20,7 +21,9 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.cabbooking.security.BoundedPasswordEncoder;
 import com.cabbooking.security.JwtAuthenticationFilter;
+import com.cabbooking.security.PasswordHashingExecutor;
 
 @Configuration
 @EnableWebSecurity
@@ -67,8 +70,22 @@ public class SecurityConfig {
         return source;
     }
 
+    /*
+     * The application's PasswordEncoder: BCrypt on the bounded password
+     * hashing pool, used for logins, registration and password resets.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    @Primary
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+        return new BoundedPasswordEncoder(bcryptPasswordEncoder(), passwordHashingExecutor);
+    }
+
+    /*
+     * BCrypt on the calling thread, for work that already runs on its own
+     * bounded pool (the driver import).
+     */
+    @Bean
+    public BCryptPasswordEncoder bcryptPasswordEncoder() {
         return new BCryptPasswordEncoder();
     }
 
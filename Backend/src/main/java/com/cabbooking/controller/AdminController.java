@@ -1,48 +1,115 @@
 package com.cabbooking.controller;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
-import com.cabbooking.dto.UserSummaryDTO;
-import com.cabbooking.model.Admin;
-import com.cabbooking.model.Driver;
+import com.cabbooking.dto.DriverImportResult;
+import com.cabbooking.dto.DriverLeaderboardEntry;
+import com.cabbooking.dto.TripAnalyticsQuery;
+import com.cabbooking.dto.TripAnalyticsResult;
+import com.cabbooking.dto.UserListingQuery;
+import com.cabbooking.dto.UserSummaryPage;
+import com.cabbooking.model.DailyCarTypeRollup;
+import com.cabbooking.model.DailyDriverRollup;
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.security.LoginThrottle;
+import com.cabbooking.security.PasswordHashingExecutor;
 import com.cabbooking.service.IAdminService;
 import com.cabbooking.service.IAdminVerificationService;
+import com.cabbooking.service.ICabCacheService;
+import com.cabbooking.service.IDriverImportService;
+import com.cabbooking.service.IDriverLeaderboardService;
 import com.cabbooking.service.IDriverService;
+import com.cabbooking.service.IEmailService;
+import com.cabbooking.service.IFleetStateService;
+import com.cabbooking.service.IOptimisticRetryService;
+import com.cabbooking.service.IRevenueRollupService;
+import com.cabbooking.service.ITripAnalyticsService;
+import com.cabbooking.service.ITripArchiveService;
+import com.cabbooking.service.ITripEventService;
+
+import jakarta.validation.Valid;
 
 /**
  * REST controller for handling admin-specific operations.
  * 
  * Endpoints:
- * - GET /api/admin/unverified/admins: Retrieve all unverified admin accounts.
+ * - GET /api/admin/unverified/admins: Retrieve a page of unverified admin summaries.
  * - POST /api/admin/verify/admins/{adminId}: Verify an admin account by ID.
- * - GET /api/admin/unverified/drivers: Retrieve all unverified driver accounts.
+ * - GET /api/admin/unverified/drivers: Retrieve a page of unverified driver summaries.
  * - POST /api/admin/verify/drivers/{driverId}: Verify a driver account by ID.
- * - GET /api/admin/customers: Retrieve a summary list of all customers.
- * - GET /api/admin/drivers: Retrieve a summary list of all drivers.
+ * - GET /api/admin/customers: Retrieve a page of customer summaries.
+ * - GET /api/admin/drivers: Retrieve a page of driver summaries.
+ * - GET /api/admin/customers/search: Retrieve a filtered page of customer summaries.
+ * - GET /api/admin/drivers/search: Retrieve a filtered page of driver summaries.
+ * - GET /api/admin/admins/search: Retrieve a filtered page of admin summaries.
+ * - GET /api/admin/reports/revenue: Retrieve daily revenue per car type.
+ * - GET /api/admin/reports/earnings: Retrieve daily earnings per driver.
+ * - POST /api/admin/reports/rebuild: Recompute the report rollups from raw trips.
+ * - POST /api/admin/analytics/trips: Run an ad-hoc aggregation over finished trips.
+ * - GET /api/admin/analytics/status: Retrieve the state of the analytics store.
+ * - POST /api/admin/analytics/reload: Reload the analytics store from the database.
+ * - POST /api/admin/trips/archive: Archive old finished trips now.
+ * - GET /api/admin/trips/{tripId}/events: Retrieve the lifecycle events of a trip.
+ * - GET /api/admin/drivers/{driverId}/timeline: Retrieve the recent trip events of a driver.
+ * - GET /api/admin/metrics/funnel: Retrieve the trip funnel and the open trips per status.
+ * - GET /api/admin/metrics/cache: Retrieve hit/miss statistics of the cab cache.
+ * - GET /api/admin/metrics/conflicts: Retrieve optimistic lock conflict counts per operation.
+ * - GET /api/admin/metrics/password-hashing: Retrieve the password hashing pool and login throttle metrics.
+ * - GET /api/admin/metrics/email-outbox: Retrieve the email outbox queue depth and delivery counters.
+ * - GET /api/admin/fleet/status: Retrieve the number of drivers per availability state.
+ * - POST /api/admin/cache/cabs/evict: Evict one or all cabs from the cache.
+ * - POST /api/admin/drivers/import: Bulk import drivers and their cabs from a CSV file.
+ * - GET /api/admin/drivers/leaderboard: Retrieve a page of the driver leaderboard.
+ * - GET /api/admin/drivers/best: Retrieve a page of the best drivers.
+ * - GET /api/admin/drivers/leaderboard/status: Retrieve the state of the leaderboard.
+ * - POST /api/admin/drivers/leaderboard/rebuild: Rebuild the leaderboard from the database.
  * 
  * Main Responsibilities:
  * - Manage verification of admin and driver accounts.
- * - Provide summary lists of customers and drivers.
+ * - Provide summary lists and paged listings of customers, drivers and admins.
  * - Access trip histories based on driver or date.
+ * - Serve revenue and earnings reports from the daily rollups.
+ * - Answer ad-hoc trip analytics from the in-memory column store.
+ * - Onboard drivers in bulk from CSV files.
+ * - Rank drivers on the in-memory leaderboard.
+ * - Trace trip lifecycles from the append-only trip event log.
  * 
  * Dependencies:
  * - IAdminVerificationService: Service for admin verification logic.
  * - IDriverService: Service for driver-related operations.
  * - IAdminService: Service for admin-related operations.
  * - ITripBookingService: Service for trip booking-related operations.
+ * - IRevenueRollupService: Service for the daily revenue and earnings rollups.
+ * - ITripAnalyticsService: Service for the in-memory trip analytics store.
+ * - ITripArchiveService: Service for archiving old finished trips.
+ * - ICabCacheService: Service for the second-level cab cache.
+ * - IDriverImportService: Service for the bulk driver import.
+ * - IDriverLeaderboardService: Service for the driver leaderboard.
+ * - IOptimisticRetryService: Service for retries on optimistic lock conflicts.
+ * - IFleetStateService: Service for the in-memory fleet availability state.
+ * - ITripEventService: Service for the trip lifecycle log and its projections.
  */
 @RestController
 @RequestMapping("/api/admin")
@@ -64,25 +131,73 @@ public class AdminController {
     @Autowired
     private IAdminService adminService;
 
+    // Service layer injected to read and rebuild the revenue rollups
+    @Autowired
+    private IRevenueRollupService revenueRollupService;
+
+    // Service layer injected to query the in-memory trip analytics store
+    @Autowired
+    private ITripAnalyticsService tripAnalyticsService;
+
+    // Service layer injected to archive old finished trips on demand
+    @Autowired
+    private ITripArchiveService tripArchiveService;
+
+    // Service layer injected to inspect and evict the second-level cab cache
+    @Autowired
+    private ICabCacheService cabCacheService;
+
+    // Service layer injected to import drivers in bulk from CSV files
+    @Autowired
+    private IDriverImportService driverImportService;
+
+    // Service layer injected to serve the driver leaderboard
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    // Service layer injected to report optimistic lock conflicts
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    // Service layer injected to report the fleet availability state
+    @Autowired
+    private IFleetStateService fleetStateService;
+
+    // Service layer injected to trace trips through the lifecycle log
+    @Autowired
+    private ITripEventService tripEventService;
+
+    // Password hashing pool and login admission control, for their metrics
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    // Email service, for the queue depth of its outbox
+    @Autowired
+    private IEmailService emailService;
+
     /**
-     * Endpoint to retrieve all unverified admin accounts.
+     * Endpoint to retrieve a page of unverified admin accounts.
      * 
-     * GET /api/admin/unverified/admins
+     * GET /api/admin/unverified/admins?page=0&size=20
      *  
      * Workflow: 
      * - Used by the superadmin to see which admins have registered but are pending verification. 
-     * - Calls the service layer to fetch all admins with verified == false. 
-     * - Returns the list as JSON.
+     * - Reads one page of summaries of the admins with verified == false with
+     *   a projection query, so no password hash is loaded or returned.
      *
-     * @return HTTP 200 with List<Admin> containing all unverified admins in the
-     * system.
+     * @param query The name filter, paging and sort order; the verification
+     * filter is always false.
+     * @return HTTP 200 with the page of unverified admin summaries, or HTTP
+     * 400 for invalid parameters.
      */
     @GetMapping("/unverified/admins")
-    public ResponseEntity<List<Admin>> getUnverifiedAdmins() {
+    public ResponseEntity<?> getUnverifiedAdmins(UserListingQuery query) {
         logger.info("Superadmin requested list of unverified admins");
-        List<Admin> unverifiedAdmins = verificationService.getUnverifiedAdmins();
-        logger.info("Found {} unverified admins", unverifiedAdmins.size());
-        return ResponseEntity.ok(unverifiedAdmins);
+        query.setVerified(false);
+        return userPage(() -> adminService.searchAdmins(query));
     }
 
     /**
@@ -117,23 +232,25 @@ public class AdminController {
     }
 
     /**
-     * Endpoint to retrieve a list of all drivers awaiting verification.
+     * Endpoint to retrieve a page of drivers awaiting verification.
      * 
-     * GET /api/admin/unverified/drivers
+     * GET /api/admin/unverified/drivers?page=0&size=20
      * 
      * Workflow: 
-     * - An admin calls this endpoint to get a list of drivers pending verification. 
-     * - Delegates to the driverService to fetch all drivers with verified = false.
-     * - Returns the list of drivers as a JSON array.
+     * - An admin calls this endpoint to get the drivers pending verification. 
+     * - Reads one page of summaries of the drivers with verified = false with
+     *   a projection query, so no password hash is loaded or returned.
      *
-     * @return ResponseEntity containing a list of unverified Driver objects.
+     * @param query The rating and name filters, paging and sort order; the
+     * verification filter is always false.
+     * @return ResponseEntity with the page of unverified driver summaries, or
+     * HTTP 400 for invalid parameters.
      */
     @GetMapping("/unverified/drivers")
-    public ResponseEntity<List<Driver>> getUnverifiedDrivers() {
+    public ResponseEntity<?> getUnverifiedDrivers(UserListingQuery query) {
         logger.info("Admin requested list of unverified drivers");
-        List<Driver> unverifiedDrivers = driverService.getUnverifiedDrivers();
-        logger.info("Found {} unverified drivers", unverifiedDrivers.size());
-        return ResponseEntity.ok(unverifiedDrivers);
+        query.setVerified(false);
+        return userPage(() -> adminService.searchDrivers(query));
     }
 
     /**
@@ -173,44 +290,538 @@ public ResponseEntity<Map<String, String>> verifyDriver(@PathVariable int driver
 
 
     /**
-     * Endpoint for an admin to retrieve a summary list of all customers. 
+     * Endpoint for an admin to retrieve a page of customer summaries. 
      * 
-     * GET /api/admin/customers 
+     * GET /api/admin/customers?page=0&size=20 
      * 
      * Workflow:
-     * - An admin calls this endpoint to get a list of all registered customers. 
-     * - Calls the adminService to fetch all customers from the database. 
-     * - Maps each Customer to a UserSummaryDTO to include only essential information. 
-     * - Returns the list of UserSummaryDTOs as a JSON array.
+     * - An admin calls this endpoint to list the registered customers. 
+     * - Reads one page of summaries with a projection query, at most 100
+     *   per page; the total is only counted with withTotal=true.
      *
-     * @return A ResponseEntity containing the list of all customers' summaries.
+     * @param query The name filter, paging and sort order.
+     * @return A ResponseEntity with the page, or HTTP 400 for invalid parameters.
      */
     @GetMapping("/customers")
-    public ResponseEntity<List<UserSummaryDTO>> getAllCustomers() {
-        logger.info("Admin requested a list of all customers.");
-        List<UserSummaryDTO> customers = adminService.getAllCustomers();
-        logger.info("Found {} customers", customers.size());
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<?> getAllCustomers(UserListingQuery query) {
+        logger.info("Admin requested a list of customers.");
+        return userPage(() -> adminService.searchCustomers(query));
     }
 
     /**
-     * Endpoint for an admin to retrieve a summary list of all drivers. 
+     * Endpoint for an admin to retrieve a page of driver summaries. 
      * 
-     * GET /api/admin/drivers 
+     * GET /api/admin/drivers?page=0&size=20 
      * 
      * Workflow: 
-     * - An admin calls this endpoint to get a list of all registered drivers. 
-     * - Calls the adminService to fetch all drivers from the database. 
-     * - Maps each Driver to a UserSummaryDTO to include only essential information. 
-     * - Returns the list of UserSummaryDTOs as a JSON array.
+     * - An admin calls this endpoint to list the registered drivers. 
+     * - Reads one page of summaries with a projection query, at most 100
+     *   per page; the total is only counted with withTotal=true.
      *
-     * @return A ResponseEntity containing the list of all drivers' summaries.
+     * @param query The verification, rating and name filters, paging and sort order.
+     * @return A ResponseEntity with the page, or HTTP 400 for invalid parameters.
      */
     @GetMapping("/drivers")
-    public ResponseEntity<List<UserSummaryDTO>> getAllDrivers() {
-        logger.info("Admin requested a list of all drivers.");
-        List<UserSummaryDTO> drivers = adminService.getAllDrivers();
-        logger.info("Found {} drivers", drivers.size());
-        return ResponseEntity.ok(drivers);
+    public ResponseEntity<?> getAllDrivers(UserListingQuery query) {
+        logger.info("Admin requested a list of drivers.");
+        return userPage(() -> adminService.searchDrivers(query));
+    }
+
+    /**
+     * Endpoint for an admin to page through customer summaries.
+     *
+     * GET /api/admin/customers/search?namePrefix=jo&page=0&size=20&sort=lastName,asc
+     *
+     * Workflow:
+     * - Reads one page of summaries with a projection query; the total is
+     *   only counted with withTotal=true.
+     *
+     * @param query The name filter, paging and sort order.
+     * @return A ResponseEntity with the page, or HTTP 400 for invalid parameters.
+     */
+    @GetMapping("/customers/search")
+    public ResponseEntity<?> searchCustomers(UserListingQuery query) {
+        return userPage(() -> adminService.searchCustomers(query));
+    }
+
+    /**
+     * Endpoint for an admin to page through driver summaries.
+     *
+     * GET /api/admin/drivers/search?verified=false&minRating=4&namePrefix=jo&page=0&size=20
+     *
+     * Workflow:
+     * - Filters by verification state, average rating range and name prefix
+     *   in the database and reads one page of summaries with a projection
+     *   query; the total is only counted with withTotal=true.
+     *
+     * @param query The verification, rating and name filters, paging and sort order.
+     * @return A ResponseEntity with the page, or HTTP 400 for invalid parameters.
+     */
+    @GetMapping("/drivers/search")
+    public ResponseEntity<?> searchDrivers(UserListingQuery query) {
+        return userPage(() -> adminService.searchDrivers(query));
+    }
+
+    /**
+     * Endpoint for an admin to page through admin summaries.
+     *
+     * GET /api/admin/admins/search?verified=false&page=0&size=20
+     *
+     * @param query The verification and name filters, paging and sort order.
+     * @return A ResponseEntity with the page, or HTTP 400 for invalid parameters.
+     */
+    @GetMapping("/admins/search")
+    public ResponseEntity<?> searchAdmins(UserListingQuery query) {
+        return userPage(() -> adminService.searchAdmins(query));
+    }
+
+    /**
+     * Endpoint for an admin to retrieve daily revenue per car type.
+     *
+     * GET /api/admin/reports/revenue?from=2025-01-01&to=2025-01-31
+     *
+     * Workflow:
+     * - Reads the pre-aggregated daily rollup rows for the range instead of
+     *   summing the raw trip table.
+     * - Returns one row per day and car type with trip count, total bill,
+     *   total distance and average rating.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A ResponseEntity containing the list of rollup rows.
+     */
+    @GetMapping("/reports/revenue")
+    public ResponseEntity<List<DailyCarTypeRollup>> getRevenueReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Admin requested revenue report from {} to {}", from, to);
+        return ResponseEntity.ok(revenueRollupService.getCarTypeRevenue(from, to));
+    }
+
+    /**
+     * Endpoint for an admin to retrieve daily earnings per driver.
+     *
+     * GET /api/admin/reports/earnings?from=2025-01-01&to=2025-01-31&driverId=7
+     *
+     * Workflow:
+     * - Reads the pre-aggregated daily rollup rows for the range.
+     * - Restricts the result to one driver when driverId is given.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @param driverId The ID of the driver (optional).
+     * @return A ResponseEntity containing the list of rollup rows.
+     */
+    @GetMapping("/reports/earnings")
+    public ResponseEntity<List<DailyDriverRollup>> getEarningsReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer driverId) {
+        logger.info("Admin requested earnings report from {} to {} (driver: {})", from, to, driverId);
+        return ResponseEntity.ok(revenueRollupService.getDriverEarnings(driverId, from, to));
+    }
+
+    /**
+     * Endpoint for an admin to recompute all report rollups from raw trips.
+     *
+     * POST /api/admin/reports/rebuild
+     *
+     * Workflow:
+     * - Normally run by the nightly job; this endpoint allows an immediate
+     *   rebuild, e.g. after a manual data correction.
+     * - Only one instance rebuilds at a time; a request while another
+     *   rebuild runs (or just ran) is skipped.
+     *
+     * @return A ResponseEntity with a confirmation message.
+     */
+    @PostMapping("/reports/rebuild")
+    public ResponseEntity<Map<String, String>> rebuildReports() {
+        logger.info("Admin requested a rebuild of the report rollups");
+        boolean rebuilt = revenueRollupService.rebuildRollups();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", rebuilt ? "Report rollups rebuilt successfully."
+                : "Report rollups are being rebuilt by another instance or were just rebuilt; try again later.");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint for an admin to run an ad-hoc aggregation over finished trips.
+     *
+     * POST /api/admin/analytics/trips
+     * Body example: {"from": "2025-03-01", "to": "2025-03-07",
+     *                "statuses": ["COMPLETED"], "groupBy": ["CAR_TYPE", "HOUR"]}
+     *
+     * Workflow:
+     * - Scans the in-memory column store in parallel; the database is not
+     *   queried.
+     * - Returns one row per group with trip count, total bill, total distance
+     *   and average rating.
+     * - Returns HTTP 503 while the store is still loading.
+     *
+     * @param query The filters and grouping of the query.
+     * @return A ResponseEntity containing the aggregated rows.
+     */
+    @PostMapping("/analytics/trips")
+    public ResponseEntity<?> queryTripAnalytics(@Valid @RequestBody TripAnalyticsQuery query) {
+        logger.info("Admin requested trip analytics grouped by {}", query.getGroupBy());
+        try {
+            TripAnalyticsResult result = tripAnalyticsService.query(query);
+            logger.info("Analytics query scanned {} trips in {} ms", result.getScannedTrips(), result.getElapsedMillis());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid analytics query: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("Analytics query rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint for an admin to check the state of the analytics store.
+     *
+     * GET /api/admin/analytics/status
+     *
+     * @return A ResponseEntity with the number of stored trips and segments and
+     * whether the store is ready.
+     */
+    @GetMapping("/analytics/status")
+    public ResponseEntity<Map<String, Object>> getTripAnalyticsStatus() {
+        return ResponseEntity.ok(tripAnalyticsService.getStoreStatus());
+    }
+
+    /**
+     * Endpoint for an admin to reload the analytics store from the database.
+     *
+     * POST /api/admin/analytics/reload
+     *
+     * Workflow:
+     * - Rebuilds the store synchronously; queries keep using the previous
+     *   store until the reload completes.
+     *
+     * @return A ResponseEntity with the state of the reloaded store.
+     */
+    @PostMapping("/analytics/reload")
+    public ResponseEntity<Map<String, Object>> reloadTripAnalytics() {
+        logger.info("Admin requested a reload of the trip analytics store");
+        tripAnalyticsService.reload();
+        return ResponseEntity.ok(tripAnalyticsService.getStoreStatus());
+    }
+
+    /**
+     * Endpoint for an admin to archive old finished trips immediately.
+     *
+     * POST /api/admin/trips/archive
+     *
+     * Workflow:
+     * - Normally run by the nightly job; moves completed and cancelled trips
+     *   older than the configured age from the live table to the archive.
+     *
+     * @return A ResponseEntity with the number of archived trips and the cutoff.
+     */
+    @PostMapping("/trips/archive")
+    public ResponseEntity<Map<String, Object>> archiveTrips() {
+        logger.info("Admin requested archival of old trips");
+        int archived = tripArchiveService.archiveOldTrips();
+        Map<String, Object> response = new HashMap<>();
+        response.put("archived", archived);
+        response.put("cutoff", tripArchiveService.getArchiveCutoff());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint to retrieve the lifecycle of a trip.
+     *
+     * GET /api/admin/trips/{tripId}/events
+     *
+     * Workflow:
+     * - Reads the trip's events from the trip lifecycle log, which also
+     *   covers archived trips; the trip row itself is not read.
+     *
+     * @param tripId The ID of the trip.
+     * @return A ResponseEntity with the events of the trip, oldest first
+     * (empty for an unknown trip).
+     */
+    @GetMapping("/trips/{tripId}/events")
+    public ResponseEntity<List<TripEvent>> getTripEvents(@PathVariable int tripId) {
+        return ResponseEntity.ok(tripEventService.getTripEvents(tripId));
+    }
+
+    /**
+     * Endpoint to retrieve what a driver did recently.
+     *
+     * GET /api/admin/drivers/{driverId}/timeline
+     *
+     * Workflow:
+     * - Served from the in-memory projections of the trip lifecycle log,
+     *   which keep the most recent events of every driver
+     *   (trip-events.timeline-size, default 100).
+     * - Lags the log by a few seconds (trip-events.settle-seconds).
+     *
+     * @param driverId The ID of the driver.
+     * @return A ResponseEntity with the events of the driver, oldest first.
+     */
+    @GetMapping("/drivers/{driverId}/timeline")
+    public ResponseEntity<List<TripEvent>> getDriverTimeline(@PathVariable int driverId) {
+        return ResponseEntity.ok(tripEventService.getDriverTimeline(driverId));
+    }
+
+    /**
+     * Endpoint to retrieve the trip funnel.
+     *
+     * GET /api/admin/metrics/funnel
+     *
+     * @return A ResponseEntity with the number of booked trips, how many
+     * reached each status, from which status trips were cancelled, the
+     * completion and cancellation rates, the open trips per status and the
+     * position of the projections in the log.
+     */
+    @GetMapping("/metrics/funnel")
+    public ResponseEntity<Map<String, Object>> getTripFunnel() {
+        return ResponseEntity.ok(tripEventService.getFunnel());
+    }
+
+    /**
+     * Endpoint for an admin to check the effectiveness of the cab cache.
+     *
+     * GET /api/admin/metrics/cache
+     *
+     * @return A ResponseEntity with hit, miss and put counts of the cab entity
+     * and query cache regions.
+     */
+    @GetMapping("/metrics/cache")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(cabCacheService.getCacheStatistics());
+    }
+
+    /**
+     * Endpoint for an admin to find contention hot spots: how often
+     * concurrent updates of trips, drivers and cabs conflicted.
+     *
+     * GET /api/admin/metrics/conflicts
+     *
+     * @return A ResponseEntity with the retry settings and, per operation,
+     * the executions, conflicts, retries, exhausted executions and the
+     * conflict rate since startup.
+     */
+    @GetMapping("/metrics/conflicts")
+    public ResponseEntity<Map<String, Object>> getConflictMetrics() {
+        return ResponseEntity.ok(optimisticRetryService.getConflictStats());
+    }
+
+    /**
+     * Endpoint for an admin to watch password hashing under login load.
+     *
+     * GET /api/admin/metrics/password-hashing
+     *
+     * @return A ResponseEntity with the utilization, queue length, queue wait
+     * times and rejected tasks of the password hashing pool, and the number
+     * of logins throttled or shed.
+     */
+    @GetMapping("/metrics/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pool", passwordHashingExecutor.getStatus());
+        metrics.put("loginThrottle", loginThrottle.getStatus());
+        return ResponseEntity.ok(metrics);
+    }
+
+    /**
+     * Endpoint for an admin to see whether emails are piling up, e.g.
+     * because the mail server is unreachable.
+     *
+     * GET /api/admin/metrics/email-outbox
+     *
+     * @return A ResponseEntity with the number of pending and failed emails,
+     * the age of the oldest pending one and the emails sent, retried and
+     * given up since startup.
+     */
+    @GetMapping("/metrics/email-outbox")
+    public ResponseEntity<Map<String, Object>> getEmailOutboxMetrics() {
+        return ResponseEntity.ok(emailService.getOutboxStats());
+    }
+
+    /**
+     * Endpoint to retrieve the in-memory fleet state.
+     *
+     * GET /api/admin/fleet/status
+     *
+     * @return A ResponseEntity with the number of drivers that are offline,
+     * available, offered a trip and on a trip, and the counters of the
+     * background writes of their availability.
+     */
+    @GetMapping("/fleet/status")
+    public ResponseEntity<Map<String, Object>> getFleetStatus() {
+        return ResponseEntity.ok(fleetStateService.getStatus());
+    }
+
+    /**
+     * Endpoint to evict cabs from the second-level cache.
+     *
+     * POST /api/admin/cache/cabs/evict
+     *
+     * Workflow:
+     * - Evicts the given cab, or all cabs when no ID is given, together with
+     *   the cached catalog queries.
+     * - Used after changing cab rows outside the application and by other
+     *   application instances forwarding a cab change.
+     *
+     * @param cabId The ID of the cab to evict (optional).
+     * @return A ResponseEntity with a confirmation message.
+     */
+    @PostMapping("/cache/cabs/evict")
+    public ResponseEntity<Map<String, String>> evictCabCache(@RequestParam(required = false) Integer cabId) {
+        logger.info("Admin requested eviction of cab {} from the cache", cabId != null ? cabId : "(all)");
+        if (cabId != null) {
+            cabCacheService.evictCab(cabId);
+        } else {
+            cabCacheService.evictAll();
+        }
+        return ResponseEntity.ok(Map.of("message", "Cab cache evicted."));
+    }
+
+    /**
+     * Endpoint to onboard drivers and their cabs in bulk from a CSV file.
+     *
+     * POST /api/admin/drivers/import
+     *
+     * Workflow:
+     * - Accepts a multipart CSV file whose header names the columns: username,
+     *   firstName, lastName, password, email, licenceNo and optionally address,
+     *   mobileNumber, carType, perKmRate, numberPlate.
+     * - Streams the file through the import service, which applies the
+     *   registration rules to every row.
+     * - Valid rows are created; invalid rows are skipped and reported with
+     *   their line number.
+     *
+     * @param file The CSV file.
+     * @param verified Whether the imported drivers are marked as verified
+     * (default false).
+     * @return A ResponseEntity with the import counts and row errors, or an
+     * error message if the file cannot be processed.
+     */
+    @PostMapping("/drivers/import")
+    public ResponseEntity<?> importDrivers(@RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean verified) {
+        logger.info("Admin requested bulk import of drivers from file {}", file.getOriginalFilename());
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "CSV file is empty."));
+        }
+        try {
+            DriverImportResult result = driverImportService.importDrivers(file.getInputStream(), verified);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Driver import rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Failed to read driver import file", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not read the uploaded file."));
+        }
+    }
+
+    /**
+     * Endpoint to retrieve a page of the driver leaderboard.
+     *
+     * GET /api/admin/drivers/leaderboard?carType=Sedan&page=0&size=20
+     *
+     * Workflow:
+     * - Served from the in-memory leaderboard, which ranks drivers by a
+     *   Bayesian-adjusted rating; the database is not queried.
+     * - Ranks within a car type when one is given.
+     * - Returns HTTP 503 while the leaderboard is still loading.
+     *
+     * @param carType The car type to rank within (optional).
+     * @param page The page number (0-based, default 0).
+     * @param size The page size (1-100, default 20).
+     * @return A ResponseEntity with the leaderboard rows of the page.
+     */
+    @GetMapping("/drivers/leaderboard")
+    public ResponseEntity<?> getDriverLeaderboard(@RequestParam(required = false) String carType,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        return leaderboardPage(() -> driverLeaderboardService.getLeaderboard(carType, page, size));
+    }
+
+    /**
+     * Endpoint to retrieve a page of the best drivers.
+     *
+     * GET /api/admin/drivers/best?carType=Sedan&page=0&size=20
+     *
+     * Workflow:
+     * - Same as the leaderboard, cut off at the minimum score of a best
+     *   driver (leaderboard.best-min-score, default 4.5).
+     *
+     * @param carType The car type to rank within (optional).
+     * @param page The page number (0-based, default 0).
+     * @param size The page size (1-100, default 20).
+     * @return A ResponseEntity with the leaderboard rows of the page.
+     */
+    @GetMapping("/drivers/best")
+    public ResponseEntity<?> getBestDrivers(@RequestParam(required = false) String carType,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        return leaderboardPage(() -> driverLeaderboardService.getBestDrivers(carType, page, size));
+    }
+
+    /**
+     * Endpoint for an admin to check the state of the driver leaderboard.
+     *
+     * GET /api/admin/drivers/leaderboard/status
+     *
+     * @return A ResponseEntity with the number of ranked drivers, the scoring
+     * parameters and whether the leaderboard is ready.
+     */
+    @GetMapping("/drivers/leaderboard/status")
+    public ResponseEntity<Map<String, Object>> getDriverLeaderboardStatus() {
+        return ResponseEntity.ok(driverLeaderboardService.getStatus());
+    }
+
+    /**
+     * Endpoint for an admin to rebuild the driver leaderboard from the
+     * database.
+     *
+     * POST /api/admin/drivers/leaderboard/rebuild
+     *
+     * Workflow:
+     * - Rebuilds synchronously and recomputes the prior mean; pages keep
+     *   using the previous leaderboard until the rebuild completes.
+     *
+     * @return A ResponseEntity with the state of the rebuilt leaderboard.
+     */
+    @PostMapping("/drivers/leaderboard/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDriverLeaderboard() {
+        logger.info("Admin requested a rebuild of the driver leaderboard");
+        driverLeaderboardService.rebuild();
+        return ResponseEntity.ok(driverLeaderboardService.getStatus());
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to serve a user listing page, mapping invalid parameters
+     * to 400.
+     */
+    private ResponseEntity<?> userPage(Supplier<UserSummaryPage> page) {
+        try {
+            return ResponseEntity.ok(page.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /*
+     * Helper method to serve a leaderboard page, mapping invalid paging to 400
+     * and a leaderboard that is not ready to 503.
+     */
+    private ResponseEntity<?> leaderboardPage(Supplier<List<DriverLeaderboardEntry>> page) {
+        try {
+            return ResponseEntity.ok(page.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
     }
 }
@@ -2,6 +2,7 @@ package com.cabbooking.controller;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
@@ -25,6 +26,7 @@ import com.cabbooking.dto.LoginRequest;
 import com.cabbooking.dto.LoginResponse;
 import com.cabbooking.dto.PasswordResetRequest;
 import com.cabbooking.dto.PasswordResetSubmission;
+import com.cabbooking.exception.PasswordHashingBusyException;
 import com.cabbooking.model.Admin;
 import com.cabbooking.model.Customer;
 import com.cabbooking.service.IAdminRegistrationService;
@@ -55,6 +57,7 @@ import jakarta.validation.Valid;
  * - POST /api/auth/forgot-password : Request password reset link
  * - POST /api/auth/reset-password : Reset password with token
  * - GET /api/auth/check/username/{username} : Check if username exists
+ * - GET /api/auth/check/username/{username}/suggestions : Suggest free usernames
  *
  * Main Responsibilities:
  * - Provides public endpoints for user login, logout, and registration.
@@ -143,6 +146,9 @@ public class AuthController {
             // Handle known validation or duplicate data errors
             logger.error("Admin registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PasswordHashingBusyException e) {
+            // Answered with 503 by the GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             // Handle unexpected errors
             logger.error("Unexpected error during admin registration", e);
@@ -192,6 +198,9 @@ public class AuthController {
                 response.put("success", false);
 
                 return ResponseEntity.badRequest().body(response);
+            } catch (PasswordHashingBusyException e) {
+                // Answered with 503 by the GlobalExceptionHandler
+                throw e;
             } catch (Exception e) {
                 // Handle unexpected errors
                 logger.error("Unexpected error during customer registration", e);
@@ -247,6 +256,9 @@ public class AuthController {
             response.put("success", false);
             
             return ResponseEntity.badRequest().body(response);
+        } catch (PasswordHashingBusyException e) {
+            // Answered with 503 by the GlobalExceptionHandler
+            throw e;
         } catch (Exception e) {
             // Handle unexpected errors
             logger.error("Unexpected error during driver registration", e);
@@ -269,18 +281,21 @@ public class AuthController {
      * - Validates the request data. 
      * - Calls the service layer to authenticate the user. 
      * - Returns a LoginResponse with user info and JWT if successful. 
-     * - Returns an error response if authentication fails.
+     * - Returns an error response if authentication fails, 429 if the
+     *   identifier or client address failed too often recently, and 503 if
+     *   password hashing is saturated.
      *
      * @param request LoginRequest DTO with username and password from the
      * client.
+     * @param httpRequest The request, for the client address.
      * @return ResponseEntity<LoginResponse> wrapping the login result, user
      * info, and JWT.
      */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         logger.info("Received login attempt for username: {}", request.getUsername());
         // Delegate authentication to ILoginService
-        LoginResponse response = loginService.login(request);
+        LoginResponse response = loginService.login(request, httpRequest.getRemoteAddr());
         logger.info("Login successful for username: {}", request.getUsername());
         // Return response to client with status 200
         return ResponseEntity.ok(response);
@@ -294,8 +309,9 @@ public class AuthController {
      * Workflow: 
      * - User sends a request with an Authorization header containing the Bearer token. 
      * - Extracts the token from the header. 
-     * - Calls the service layer to blacklist the token. 
-     * - Returns a success message if the token was blacklisted. 
+     * - Calls the service layer to revoke the token, which also revokes the
+     *   user's other tokens. 
+     * - Returns a success message if the token was revoked. 
      * - Returns an error response if the token is missing or invalid.
      *
      * @param request The incoming HttpServletRequest containing the
@@ -306,11 +322,11 @@ public class AuthController {
     public ResponseEntity<String> logout(HttpServletRequest request) {
         logger.info("Received logout request");
         final String authHeader = request.getHeader("Authorization");
-        // Check for Bearer token and blacklist it
+        // Check for Bearer token and revoke it
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             logoutService.blacklistToken(token);
-            logger.info("User successfully logged out and token blacklisted.");
+            logger.info("User successfully logged out and token revoked.");
         }
         return ResponseEntity.ok("Logged out successfully");
     }
@@ -485,4 +501,24 @@ public class AuthController {
         boolean exists = profileService.isUsernameTaken(username);
         return ResponseEntity.ok(exists);
     }
+
+    /**
+     * Endpoint to suggest free usernames when the wanted one is taken.
+     * 
+     * GET /api/auth/check/username/{username}/suggestions?limit=5
+     * 
+     * Workflow:
+     * - Receives the wanted username as a path variable.
+     * - Calls the profile service for up to limit free usernames made of it and a number.
+     * - Returns a 200 OK status with the suggestions, answered from memory.
+     *
+     * @param username The wanted username.
+     * @param limit The maximum number of suggestions (default 5, at most 20).
+     * @return ResponseEntity<List<String>> with the free usernames.
+     */
+    @GetMapping("/check/username/{username}/suggestions")
+    public ResponseEntity<List<String>> suggestUsernames(@PathVariable String username,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(profileService.suggestUsernames(username, limit));
+    }
 }
@@ -23,6 +23,7 @@ import com.cabbooking.dto.RatingRequest;
 import com.cabbooking.dto.TripBookingRequest;
 import com.cabbooking.dto.TripHistoryResponse;
 import com.cabbooking.model.TripBooking; // Already imported, which is correct
+import com.cabbooking.security.AuthenticatedUser;
 import com.cabbooking.service.ICabService;
 import com.cabbooking.service.ITripBookingService;
 
@@ -128,7 +129,7 @@ public class TripController {
     @PutMapping("/{tripId}/status")
     public ResponseEntity<TripBooking> updateTripStatus(@PathVariable Integer tripId, @RequestParam String status, Principal principal) {
         logger.info("Received request to update trip status.");
-        TripBooking updatedTrip = tripBookingService.updateTripStatus(tripId, status, principal.getName());
+        TripBooking updatedTrip = tripBookingService.updateTripStatus(tripId, status, AuthenticatedUser.of(principal));
         logger.info("Trip status updated successfully.");
         return ResponseEntity.ok(updatedTrip);
     }
@@ -149,7 +150,7 @@ public class TripController {
     @PutMapping("/{tripId}/complete")
     public ResponseEntity<TripBooking> completeTrip(@PathVariable Integer tripId, Principal principal) {
         logger.info("Received request to complete a trip.");
-        TripBooking completedTrip = tripBookingService.completeTrip(tripId, principal.getName());
+        TripBooking completedTrip = tripBookingService.completeTrip(tripId, AuthenticatedUser.of(principal));
         logger.info("Trip completed successfully.");
         return ResponseEntity.ok(completedTrip);
     }
@@ -243,7 +244,7 @@ public class TripController {
         
         logger.info("Customer '{}' trying to rate trip ID: {}", principal.getName(), tripId);
 
-        TripBooking ratedTrip = tripBookingService.rateTrip(tripId, ratingRequest, principal.getName());
+        TripBooking ratedTrip = tripBookingService.rateTrip(tripId, ratingRequest, AuthenticatedUser.of(principal));
 
         logger.info("Trip rated successfully.");
         return ResponseEntity.ok(ratedTrip);
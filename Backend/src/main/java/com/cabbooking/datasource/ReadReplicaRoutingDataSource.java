@@ -0,0 +1,86 @@
+package com.cabbooking.datasource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source that sends read-only transactions to replica pools and all
+ * other work to the primary pool.
+ *
+ * Routing rules:
+ * - Work outside a transaction goes to the primary.
+ * - Read-write transactions go to the primary and are reported to the
+ *   ReplicaLagGuard.
+ * - Read-only transactions declared by the application go to the replicas in
+ *   round-robin order, unless the lag guard asks for the primary.
+ * - Read-only transactions that Spring Data opens implicitly around single
+ *   repository calls (findAll, findById, ...) stay on the primary, since
+ *   services without their own transaction often read an entity, modify it
+ *   and save it, and a stale replica read would be written back.
+ *
+ * The routing decision is made when a connection is requested, so this data
+ * source must be wrapped in a LazyConnectionDataSourceProxy; otherwise the
+ * transaction manager fetches the connection before the read-only flag of the
+ * transaction is known.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    /*
+     * Prefix of the names Spring Data gives its implicit repository
+     * transactions.
+     */
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicas.get(i));
+            replicaKeys.add(key);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Picks the pool for the connection being requested.
+     *
+     * @return The lookup key of the primary or of one of the replicas.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            lagGuard.recordWrite();
+            return PRIMARY;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (replicaKeys.isEmpty()
+                || (transactionName != null && transactionName.startsWith(REPOSITORY_TRANSACTION_PREFIX))
+                || lagGuard.mustReadFromPrimary()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.cabbooking.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Keeps a user's reads on the primary database for a short time after the
+ * user wrote something, so replication lag never hides the user's own changes
+ * (for example a trip that was just booked missing from the trip history).
+ *
+ * Workflow:
+ * - The routing data source reports every read-write transaction of the
+ *   authenticated user.
+ * - Read-only transactions of that user go to the primary until the
+ *   stickiness window has passed, and to a replica afterwards.
+ *
+ * The window should be larger than the replica lag normally observed. The
+ * write times are kept in memory per application instance, so a deployment
+ * with several instances relies on requests of a user reaching the same
+ * instance, or on a window large enough to cover the lag anyway.
+ */
+public class ReplicaLagGuard {
+
+    /*
+     * Upper bound for the number of tracked users before expired entries are
+     * dropped.
+     */
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final long stickinessMillis;
+
+    /*
+     * Time of the last write per username.
+     */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(long stickinessMillis) {
+        this.stickinessMillis = stickinessMillis;
+    }
+
+    /**
+     * Records that the current user is writing to the primary.
+     */
+    public void recordWrite() {
+        String username = currentUsername();
+        if (username == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (lastWrites.size() >= MAX_TRACKED_USERS) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= stickinessMillis);
+        }
+        lastWrites.put(username, now);
+    }
+
+    /**
+     * Checks if the reads of the current user must stay on the primary because
+     * the user wrote within the stickiness window.
+     *
+     * @return True if the primary must be used, false if a replica is fine.
+     */
+    public boolean mustReadFromPrimary() {
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < stickinessMillis) {
+            return true;
+        }
+        lastWrites.remove(username, writtenAt);
+        return false;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,136 @@
+package com.cabbooking.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO describing the outcome of a bulk driver import.
+ *
+ * Rows are imported independently: a rejected row is reported with its line
+ * number and reason, and does not stop the rest of the file.
+ */
+public class DriverImportResult {
+
+    /**
+     * The number of data rows read from the file (the header excluded).
+     */
+    private long totalRows;
+
+    /**
+     * The number of drivers created.
+     */
+    private long importedRows;
+
+    /**
+     * The number of rows that were rejected.
+     */
+    private long failedRows;
+
+    /**
+     * The reasons rows were rejected, in file order. Capped, so a badly
+     * formatted file does not produce a huge response; failedRows always
+     * holds the full count.
+     */
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * The wall clock time the import took, in milliseconds.
+     */
+    private long elapsedMillis;
+
+    /**
+     * A rejected row.
+     */
+    public static class RowError {
+
+        /**
+         * The line of the file the row starts on (the header is line 1).
+         */
+        private long line;
+
+        /**
+         * The username of the row, if it could be read.
+         */
+        private String username;
+
+        /**
+         * Why the row was rejected.
+         */
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(long line, String username, String message) {
+            this.line = line;
+            this.username = username;
+            this.message = message;
+        }
+
+        // ======= Getters and Setters =======
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+
+    // ======= Getters and Setters =======
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    public void setFailedRows(long failedRows) {
+        this.failedRows = failedRows;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,142 @@
+package com.cabbooking.dto;
+
+/**
+ * DTO for one row of the driver leaderboard.
+ *
+ * A flat projection of the leaderboard, so listing top drivers never loads
+ * Driver entities.
+ */
+public class DriverLeaderboardEntry {
+
+    /*
+     * The position on the leaderboard (1 is best), within the car type if
+     * one was requested.
+     */
+    private int rank;
+
+    /*
+     * The ID of the driver.
+     */
+    private int driverId;
+
+    /*
+     * The username of the driver.
+     */
+    private String username;
+
+    /*
+     * The first name of the driver.
+     */
+    private String firstName;
+
+    /*
+     * The last name of the driver.
+     */
+    private String lastName;
+
+    /*
+     * The car type of the driver's cab, or null if not set up yet.
+     */
+    private String carType;
+
+    /*
+     * The plain average of the driver's ratings, or null if unrated.
+     */
+    private Float averageRating;
+
+    /*
+     * The number of ratings the driver has received.
+     */
+    private int totalRatings;
+
+    /*
+     * The Bayesian-adjusted rating the leaderboard is sorted by.
+     */
+    private double score;
+
+    public DriverLeaderboardEntry(int rank, int driverId, String username, String firstName, String lastName,
+            String carType, Float averageRating, int totalRatings, double score) {
+        this.rank = rank;
+        this.driverId = driverId;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.carType = carType;
+        this.averageRating = averageRating;
+        this.totalRatings = totalRatings;
+        this.score = score;
+    }
+
+    // ======= Getters and Setters =======
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public int getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(int driverId) {
+        this.driverId = driverId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public void setCarType(String carType) {
+        this.carType = carType;
+    }
+
+    public Float getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Float averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    public void setTotalRatings(int totalRatings) {
+        this.totalRatings = totalRatings;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cabbooking.dto;
+
+import java.util.Comparator;
+
+/**
+ * DTO for one available driver and their cab, read by a single join query.
+ *
+ * Driver matching and fare estimates read these flat rows instead of Driver
+ * entities: Driver.cab is the inverse side of a one-to-one, which Hibernate
+ * cannot load lazily, so every loaded Driver costs one extra cab query.
+ */
+public class FleetAvailabilityRow {
+
+    /*
+     * Orders rows by average rating, unrated drivers as 0.
+     */
+    public static final Comparator<FleetAvailabilityRow> BY_RATING =
+            Comparator.comparingDouble(row -> row.getRating() != null ? row.getRating() : 0f);
+
+    private final Integer driverId;
+    private final Double latitude;
+    private final Double longitude;
+    private final Long ratingSum;
+    private final Integer totalRatings;
+    private final Boolean verified;
+    private final Boolean available;
+    private final Integer cabId;
+    private final String carType;
+    private final Float perKmRate;
+
+    public FleetAvailabilityRow(Integer driverId, Double latitude, Double longitude, Long ratingSum,
+            Integer totalRatings, Boolean verified, Boolean available, Integer cabId, String carType,
+            Float perKmRate) {
+        this.driverId = driverId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.ratingSum = ratingSum;
+        this.totalRatings = totalRatings;
+        this.verified = verified;
+        this.available = available;
+        this.cabId = cabId;
+        this.carType = carType;
+        this.perKmRate = perKmRate;
+    }
+
+    /**
+     * @return The average rating of the driver, or null if unrated.
+     */
+    public Float getRating() {
+        if (totalRatings == null || totalRatings == 0) {
+            return null;
+        }
+        return (float) (ratingSum != null ? ratingSum : 0L) / totalRatings;
+    }
+
+    // ======= Getters =======
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public Integer getTotalRatings() {
+        return totalRatings;
+    }
+
+    public Boolean getVerified() {
+        return verified;
+    }
+
+    public Boolean getAvailable() {
+        return available;
+    }
+
+    public Integer getCabId() {
+        return cabId;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public Float getPerKmRate() {
+        return perKmRate;
+    }
+}
@@ -0,0 +1,98 @@
+package com.cabbooking.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.cabbooking.analytics.AnalyticsDimension;
+import com.cabbooking.model.TripStatus;
+
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for an ad-hoc admin analytics query over finished trips.
+ *
+ * All filters are optional. Without a date range the last 7 days are
+ * queried; without groupBy a single total row is returned.
+ */
+public class TripAnalyticsQuery {
+
+    /*
+     * The first start day of the trips to include (inclusive).
+     */
+    private LocalDate from;
+
+    /*
+     * The last start day of the trips to include (inclusive).
+     */
+    private LocalDate to;
+
+    /*
+     * Car types to include (case-insensitive), or empty for all car types.
+     */
+    private List<String> carTypes;
+
+    /*
+     * Statuses to include, or empty for all finished trips.
+     */
+    private List<TripStatus> statuses;
+
+    /*
+     * The driver to restrict the query to.
+     */
+    private Integer driverId;
+
+    /*
+     * The dimensions to group by, e.g. [CAR_TYPE, HOUR].
+     */
+    @Size(max = 2, message = "At most two group-by dimensions are supported")
+    private List<AnalyticsDimension> groupBy;
+
+    // ======= Getters and Setters =======
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public List<String> getCarTypes() {
+        return carTypes;
+    }
+
+    public void setCarTypes(List<String> carTypes) {
+        this.carTypes = carTypes;
+    }
+
+    public List<TripStatus> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<TripStatus> statuses) {
+        this.statuses = statuses;
+    }
+
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(Integer driverId) {
+        this.driverId = driverId;
+    }
+
+    public List<AnalyticsDimension> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<AnalyticsDimension> groupBy) {
+        this.groupBy = groupBy;
+    }
+}
@@ -0,0 +1,55 @@
+package com.cabbooking.dto;
+
+import java.util.List;
+
+/**
+ * DTO for the result of an analytics query.
+ */
+public class TripAnalyticsResult {
+
+    /*
+     * The aggregated groups, ordered by their group-by values.
+     */
+    private List<TripAnalyticsRow> rows;
+
+    /*
+     * The number of stored trips the query scanned.
+     */
+    private long scannedTrips;
+
+    /*
+     * The time the scan took, in milliseconds.
+     */
+    private long elapsedMillis;
+
+    public TripAnalyticsResult(List<TripAnalyticsRow> rows, long scannedTrips, long elapsedMillis) {
+        this.rows = rows;
+        this.scannedTrips = scannedTrips;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // ======= Getters and Setters =======
+    public List<TripAnalyticsRow> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<TripAnalyticsRow> rows) {
+        this.rows = rows;
+    }
+
+    public long getScannedTrips() {
+        return scannedTrips;
+    }
+
+    public void setScannedTrips(long scannedTrips) {
+        this.scannedTrips = scannedTrips;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cabbooking.dto;
+
+import java.util.Map;
+
+/**
+ * DTO for one group of an analytics query result.
+ */
+public class TripAnalyticsRow {
+
+    /*
+     * The values of the group-by dimensions, keyed by dimension name
+     * (empty when the query has no grouping).
+     */
+    private Map<String, String> group;
+
+    /*
+     * The number of trips in the group.
+     */
+    private long tripCount;
+
+    /*
+     * The sum of the bills of the trips in the group.
+     */
+    private double totalBill;
+
+    /*
+     * The sum of the distances of the trips in the group, in kilometers.
+     */
+    private double totalDistance;
+
+    /*
+     * The average customer rating of the rated trips in the group, or null if
+     * none were rated.
+     */
+    private Double averageRating;
+
+    public TripAnalyticsRow(Map<String, String> group, long tripCount, double totalBill,
+            double totalDistance, Double averageRating) {
+        this.group = group;
+        this.tripCount = tripCount;
+        this.totalBill = totalBill;
+        this.totalDistance = totalDistance;
+        this.averageRating = averageRating;
+    }
+
+    // ======= Getters and Setters =======
+    public Map<String, String> getGroup() {
+        return group;
+    }
+
+    public void setGroup(Map<String, String> group) {
+        this.group = group;
+    }
+
+    public long getTripCount() {
+        return tripCount;
+    }
+
+    public void setTripCount(long tripCount) {
+        this.tripCount = tripCount;
+    }
+
+    public double getTotalBill() {
+        return totalBill;
+    }
+
+    public void setTotalBill(double totalBill) {
+        this.totalBill = totalBill;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public void setTotalDistance(double totalDistance) {
+        this.totalDistance = totalDistance;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+}
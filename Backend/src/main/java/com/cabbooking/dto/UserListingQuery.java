@@ -0,0 +1,118 @@
+package com.cabbooking.dto;
+
+/**
+ * DTO for the filters and paging of an admin user listing, bound from the
+ * request parameters.
+ *
+ * All filters are optional. Filters that do not apply to a user type (e.g.
+ * the rating range for customers) are rejected.
+ */
+public class UserListingQuery {
+
+    /*
+     * Only users with this verification state (drivers and admins).
+     */
+    private Boolean verified;
+
+    /*
+     * Only drivers with an average rating of at least this value.
+     */
+    private Double minRating;
+
+    /*
+     * Only drivers with an average rating of at most this value.
+     */
+    private Double maxRating;
+
+    /*
+     * Only users whose username, first name or last name starts with this
+     * value.
+     */
+    private String namePrefix;
+
+    /*
+     * The page number (0-based).
+     */
+    private int page = 0;
+
+    /*
+     * The page size (1-100).
+     */
+    private int size = 20;
+
+    /*
+     * The sort order as "property" or "property,desc", e.g. "lastName,asc".
+     */
+    private String sort = "id";
+
+    /*
+     * Whether to count all matching users. Off by default, since the count
+     * costs a scan of every match while a page only reads one page of rows.
+     */
+    private boolean withTotal = false;
+
+    // ======= Getters and Setters =======
+    public Boolean getVerified() {
+        return verified;
+    }
+
+    public void setVerified(Boolean verified) {
+        this.verified = verified;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public void setMaxRating(Double maxRating) {
+        this.maxRating = maxRating;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean isWithTotal() {
+        return withTotal;
+    }
+
+    public void setWithTotal(boolean withTotal) {
+        this.withTotal = withTotal;
+    }
+}
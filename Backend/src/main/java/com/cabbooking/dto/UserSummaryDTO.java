@@ -68,6 +68,30 @@ public class UserSummaryDTO {
         this.verified = verified;
     }
 
+    /*
+     * Projection constructor for customer listings.
+     */
+    public UserSummaryDTO(Integer userId, String username, String firstName, String lastName, String email, String mobileNumber) {
+        this(userId, username, firstName, lastName, email, mobileNumber, null, null, null);
+    }
+
+    /*
+     * Projection constructor for admin listings.
+     */
+    public UserSummaryDTO(Integer userId, String username, String firstName, String lastName, String email, String mobileNumber, Boolean verified) {
+        this(userId, username, firstName, lastName, email, mobileNumber, null, null, verified);
+    }
+
+    /*
+     * Projection constructor for driver listings. The average rating is
+     * derived from the rating sum and count, 0.0 for an unrated driver.
+     */
+    public UserSummaryDTO(Integer userId, String username, String firstName, String lastName, String email, String mobileNumber, Long ratingSum, Integer totalRatings, String licenceNo, Boolean verified) {
+        this(userId, username, firstName, lastName, email, mobileNumber,
+                totalRatings != null && totalRatings > 0 ? (double) (ratingSum != null ? ratingSum : 0L) / totalRatings : 0.0,
+                licenceNo, verified);
+    }
+
     // ======= Getters and Setters =======
     public Integer getUserId() {
         return userId;
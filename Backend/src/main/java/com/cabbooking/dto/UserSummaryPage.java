@@ -0,0 +1,87 @@
+package com.cabbooking.dto;
+
+import java.util.List;
+
+/**
+ * DTO for one page of an admin user listing.
+ */
+public class UserSummaryPage {
+
+    /*
+     * The user summaries of the page.
+     */
+    private List<UserSummaryDTO> content;
+
+    /*
+     * The page number (0-based).
+     */
+    private int page;
+
+    /*
+     * The requested page size.
+     */
+    private int size;
+
+    /*
+     * Whether another page follows.
+     */
+    private boolean hasNext;
+
+    /*
+     * The number of matching users, or null if no count was requested.
+     */
+    private Long totalElements;
+
+    // ======= Constructors =======
+    public UserSummaryPage() {
+    }
+
+    public UserSummaryPage(List<UserSummaryDTO> content, int page, int size, boolean hasNext, Long totalElements) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.totalElements = totalElements;
+    }
+
+    // ======= Getters and Setters =======
+    public List<UserSummaryDTO> getContent() {
+        return content;
+    }
+
+    public void setContent(List<UserSummaryDTO> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
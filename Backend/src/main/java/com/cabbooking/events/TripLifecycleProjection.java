@@ -0,0 +1,185 @@
+package com.cabbooking.events;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.model.TripStatus;
+
+/**
+ * TripLifecycleProjection folds the trip lifecycle log into the read models
+ * served to admins, without reading or locking trip rows.
+ *
+ * Read models:
+ * - Current state: the status of every trip that is not completed or
+ *   cancelled yet, and the number of such trips per status.
+ * - Driver timelines: the most recent events of every driver, oldest first,
+ *   bounded to a fixed number per driver.
+ * - Funnel: how many trips were booked, how many reached each status, and
+ *   from which status trips were cancelled.
+ *
+ * Events must be applied exactly once and in (occurredAt, id) order. The projection is
+ * written by a single consumer and read by request threads; all methods are
+ * synchronized, and each one only touches in-memory maps.
+ */
+public class TripLifecycleProjection {
+
+    private final int timelineSize;
+
+    private final Map<Integer, TripStatus> openTrips = new HashMap<>();
+    private final Map<Integer, Deque<TripEvent>> timelines = new HashMap<>();
+    private final Map<TripStatus, Long> reached = new EnumMap<>(TripStatus.class);
+    private final Map<TripStatus, Long> cancelledFrom = new EnumMap<>(TripStatus.class);
+
+    private long booked;
+    private long appliedEvents;
+    private long lastEventId;
+    private LocalDateTime lastEventAt;
+
+    /**
+     * Creates an empty projection.
+     *
+     * @param timelineSize The number of events kept per driver.
+     */
+    public TripLifecycleProjection(int timelineSize) {
+        this.timelineSize = timelineSize;
+        for (TripStatus status : TripStatus.values()) {
+            reached.put(status, 0L);
+            cancelledFrom.put(status, 0L);
+        }
+    }
+
+    /**
+     * Applies the next event of the log.
+     *
+     * @param event The event, which must come after all applied events.
+     */
+    public synchronized void apply(TripEvent event) {
+        TripStatus status = event.getStatus();
+        if (event.getPreviousStatus() == null) {
+            booked++;
+        }
+        reached.merge(status, 1L, Long::sum);
+        if (status == TripStatus.CANCELLED && event.getPreviousStatus() != null) {
+            cancelledFrom.merge(event.getPreviousStatus(), 1L, Long::sum);
+        }
+
+        if (isFinished(status)) {
+            openTrips.remove(event.getTripBookingId());
+        } else {
+            openTrips.put(event.getTripBookingId(), status);
+        }
+
+        if (event.getDriverId() != null) {
+            Deque<TripEvent> timeline = timelines.computeIfAbsent(event.getDriverId(), id -> new ArrayDeque<>());
+            timeline.addLast(event);
+            if (timeline.size() > timelineSize) {
+                timeline.removeFirst();
+            }
+        }
+
+        appliedEvents++;
+        lastEventId = event.getId();
+        lastEventAt = event.getOccurredAt();
+    }
+
+    /**
+     * @param tripBookingId The ID of the trip.
+     * @return The status of the trip, or null if it is finished or unknown.
+     */
+    public synchronized TripStatus getOpenTripStatus(Integer tripBookingId) {
+        return openTrips.get(tripBookingId);
+    }
+
+    /**
+     * @return The number of open trips per status.
+     */
+    public synchronized Map<TripStatus, Integer> countOpenTrips() {
+        Map<TripStatus, Integer> counts = new EnumMap<>(TripStatus.class);
+        for (TripStatus status : TripStatus.values()) {
+            if (!isFinished(status)) {
+                counts.put(status, 0);
+            }
+        }
+        openTrips.values().forEach(status -> counts.merge(status, 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * @param driverId The ID of the driver.
+     * @return The most recent events of the driver, oldest first.
+     */
+    public synchronized List<TripEvent> getTimeline(Integer driverId) {
+        Deque<TripEvent> timeline = timelines.get(driverId);
+        return timeline == null ? List.of() : new ArrayList<>(timeline);
+    }
+
+    /**
+     * Returns the funnel metrics.
+     *
+     * Content:
+     * - booked: the number of trips created.
+     * - reached: per status, the number of trips that moved to it.
+     * - cancelledFrom: per status, the number of trips cancelled from it.
+     * - completionRate, cancellationRate: completed and cancelled trips as
+     *   a share of booked trips (0 while nothing is booked).
+     *
+     * @return The funnel metrics.
+     */
+    public synchronized Map<String, Object> getFunnel() {
+        Map<String, Object> funnel = new LinkedHashMap<>();
+        funnel.put("booked", booked);
+        funnel.put("reached", new EnumMap<>(reached));
+        funnel.put("cancelledFrom", new EnumMap<>(cancelledFrom));
+        funnel.put("completionRate", share(reached.get(TripStatus.COMPLETED)));
+        funnel.put("cancellationRate", share(reached.get(TripStatus.CANCELLED)));
+        return funnel;
+    }
+
+    /**
+     * @return The number of events applied.
+     */
+    public synchronized long getAppliedEvents() {
+        return appliedEvents;
+    }
+
+    /**
+     * @return The ID of the last event applied, or 0 if none was applied.
+     */
+    public synchronized long getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * @return The time of the last event applied, or null if none was applied.
+     */
+    public synchronized LocalDateTime getLastEventAt() {
+        return lastEventAt;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to check whether a status ends the lifecycle of a trip.
+     */
+    private static boolean isFinished(TripStatus status) {
+        return status == TripStatus.COMPLETED || status == TripStatus.CANCELLED;
+    }
+
+    /*
+     * Helper method to express a count as a share of the booked trips.
+     */
+    private double share(long count) {
+        return booked == 0 ? 0.0 : (double) count / booked;
+    }
+}
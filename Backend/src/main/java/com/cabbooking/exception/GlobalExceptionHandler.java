@@ -5,6 +5,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -82,6 +84,66 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
     }
 
+    /**
+     * Handles optimistic lock conflicts that persisted through every retry,
+     * i.e. the same trip, driver or cab kept being changed concurrently.
+     * Returns HTTP 409 Conflict, so the client can reload and try again.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(HttpServletRequest request, OptimisticLockingFailureException ex) {
+        logger.warn("Concurrent update conflict at [{} {}]: {}", request.getMethod(), request.getRequestURI(), ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            HttpStatus.CONFLICT.getReasonPhrase(),
+            "The record was changed concurrently. Please reload and try again.",
+            request.getRequestURI()
+        );
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles logins refused after too many failures for the identifier or
+     * from the client address.
+     * Returns HTTP 429 Too Many Requests with the seconds to wait in Retry-After.
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ErrorResponse> handleLoginThrottled(HttpServletRequest request, LoginThrottledException ex) {
+        logger.warn("Login throttled at [{} {}] from {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase(),
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handles requests shed because the password hashing pool is saturated.
+     * Returns HTTP 503 Service Unavailable, asking the client to retry in a second.
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingBusy(HttpServletRequest request, PasswordHashingBusyException ex) {
+        logger.warn("Password hashing saturated at [{} {}]", request.getMethod(), request.getRequestURI());
+
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+            ex.getMessage(),
+            request.getRequestURI()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     /**
      * Builds a detailed error message from the exception including the file and line number 
      * where the error originated, for easier troubleshooting.
@@ -0,0 +1,29 @@
+package com.cabbooking.exception;
+
+/**
+ * Thrown when a login is refused before the password is checked because
+ * there were too many failed logins for the identifier or from the client
+ * address recently.
+ *
+ * Caught by the GlobalExceptionHandler, which answers 429 Too Many Requests
+ * with a Retry-After header.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new LoginThrottledException.
+     *
+     * @param message The detail message explaining the cause of the exception.
+     * @param retryAfterSeconds The number of seconds after which a login may be accepted again.
+     */
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cabbooking.exception;
+
+/**
+ * Thrown when a password cannot be hashed or checked because the password
+ * hashing pool is saturated: its queue is full, or the task waited longer
+ * than allowed.
+ *
+ * Caught by the GlobalExceptionHandler, which answers 503 Service
+ * Unavailable with a Retry-After header.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    /**
+     * Constructs a new PasswordHashingBusyException with the specified message.
+     *
+     * @param message The detail message explaining the cause of the exception.
+     */
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
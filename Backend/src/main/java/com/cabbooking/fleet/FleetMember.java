@@ -0,0 +1,117 @@
+package com.cabbooking.fleet;
+
+import com.cabbooking.dto.FleetAvailabilityRow;
+
+/**
+ * FleetMember is the immutable snapshot of one driver and their cab in the
+ * FleetStateRegistry.
+ *
+ * It holds the fields driver matching and fare estimates need and the
+ * current FleetState, so availability is answered without entity
+ * references. Every change replaces the member with a new instance.
+ */
+public final class FleetMember {
+
+    private final int driverId;
+    private final Integer cabId;
+    private final String carType;
+    private final Float perKmRate;
+    private final Double latitude;
+    private final Double longitude;
+    private final long ratingSum;
+    private final int totalRatings;
+    private final boolean verified;
+    private final FleetState state;
+
+    public FleetMember(int driverId, Integer cabId, String carType, Float perKmRate, Double latitude,
+            Double longitude, long ratingSum, int totalRatings, boolean verified, FleetState state) {
+        this.driverId = driverId;
+        this.cabId = cabId;
+        this.carType = carType;
+        this.perKmRate = perKmRate;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.ratingSum = ratingSum;
+        this.totalRatings = totalRatings;
+        this.verified = verified;
+        this.state = state;
+    }
+
+    /**
+     * Checks if the driver can take trips at all: verified, located and
+     * with a cab whose car type and rate are set.
+     *
+     * @return True if the member may be AVAILABLE, false if it must stay OFFLINE.
+     */
+    public boolean isEligible() {
+        return verified && cabId != null && carType != null && perKmRate != null
+                && latitude != null && longitude != null;
+    }
+
+    /**
+     * @param newState The new state.
+     * @return A copy of this member in the given state.
+     */
+    public FleetMember withState(FleetState newState) {
+        return new FleetMember(driverId, cabId, carType, perKmRate, latitude, longitude, ratingSum, totalRatings,
+                verified, newState);
+    }
+
+    /**
+     * @param rating The rating value (1-5).
+     * @return A copy of this member with one more rating.
+     */
+    public FleetMember withRating(int rating) {
+        return new FleetMember(driverId, cabId, carType, perKmRate, latitude, longitude, ratingSum + rating,
+                totalRatings + 1, verified, state);
+    }
+
+    /**
+     * @return The member as a fleet row, as read by driver matching.
+     */
+    public FleetAvailabilityRow toRow() {
+        return new FleetAvailabilityRow(driverId, latitude, longitude, ratingSum, totalRatings, verified,
+                state == FleetState.AVAILABLE, cabId, carType, perKmRate);
+    }
+
+    // ======= Getters =======
+    public int getDriverId() {
+        return driverId;
+    }
+
+    public Integer getCabId() {
+        return cabId;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public Float getPerKmRate() {
+        return perKmRate;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public FleetState getState() {
+        return state;
+    }
+}
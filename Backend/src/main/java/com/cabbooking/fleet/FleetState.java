@@ -0,0 +1,42 @@
+package com.cabbooking.fleet;
+
+/**
+ * FleetState is the availability state of one driver and their cab.
+ *
+ * Allowed transitions:
+ * - OFFLINE -> AVAILABLE: the driver is verified and the cab details are complete.
+ * - AVAILABLE -> OFFERED: a booking or the scheduler claimed the driver.
+ * - AVAILABLE -> OFFLINE: the driver or cab can no longer take trips.
+ * - OFFERED -> ON_TRIP: the claiming transaction committed.
+ * - OFFERED -> AVAILABLE: the claiming transaction rolled back.
+ * - ON_TRIP -> AVAILABLE: the trip was completed or cancelled.
+ */
+public enum FleetState {
+    OFFLINE,
+    AVAILABLE,
+    OFFERED,
+    ON_TRIP;
+
+    /**
+     * Checks if this state may move to the given state.
+     *
+     * @param target The state to move to.
+     * @return True if the transition is allowed, false otherwise.
+     */
+    public boolean canTransitionTo(FleetState target) {
+        return switch (this) {
+            case OFFLINE -> target == AVAILABLE;
+            case AVAILABLE -> target == OFFERED || target == OFFLINE;
+            case OFFERED -> target == ON_TRIP || target == AVAILABLE;
+            case ON_TRIP -> target == AVAILABLE;
+        };
+    }
+
+    /**
+     * @return True if the driver and cab are taken by a trip, so both are
+     * stored as unavailable.
+     */
+    public boolean isBusy() {
+        return this == OFFERED || this == ON_TRIP;
+    }
+}
@@ -0,0 +1,224 @@
+package com.cabbooking.fleet;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * FleetStateRegistry holds the one authoritative FleetState of every driver
+ * and their cab, and validates every change against the allowed transitions.
+ *
+ * Structure:
+ * - A map from driver ID to the current FleetMember. Changes to one driver
+ *   run inside its map entry's compute, so a claim, a release and a profile
+ *   refresh of the same driver are serialized, while different drivers
+ *   change in parallel.
+ * - An index of the AVAILABLE drivers per car type (lower case), kept in
+ *   step inside the same compute, so matching reads only the candidates of
+ *   the requested car type.
+ *
+ * A reader iterating the index while a driver changes may still see that
+ * driver; callers that act on a candidate claim it with compareAndSet, which
+ * fails if it is no longer AVAILABLE.
+ */
+public class FleetStateRegistry {
+
+    private final Map<Integer, FleetMember> members = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> availableByCarType = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a member, or replaces the member with the same driver ID. The
+     * state of the new member is taken as given, without a transition check;
+     * used when loading and when adding a driver.
+     *
+     * @param member The member to store.
+     */
+    public void put(FleetMember member) {
+        members.compute(member.getDriverId(), (id, old) -> {
+            unindex(old);
+            index(member);
+            return member;
+        });
+    }
+
+    /**
+     * Removes a driver from the registry.
+     *
+     * @param driverId The ID of the driver.
+     * @return The removed member, or null if the driver was not registered.
+     */
+    public FleetMember remove(int driverId) {
+        FleetMember[] removed = new FleetMember[1];
+        members.computeIfPresent(driverId, (id, old) -> {
+            unindex(old);
+            removed[0] = old;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * @param driverId The ID of the driver.
+     * @return The current member, or null if the driver is not registered.
+     */
+    public FleetMember get(int driverId) {
+        return members.get(driverId);
+    }
+
+    /**
+     * Moves a driver from an expected state to a target state, if the driver
+     * is currently in the expected state.
+     *
+     * @param driverId The ID of the driver.
+     * @param expected The state the driver must be in.
+     * @param target The state to move to.
+     * @return True if the driver moved, false if they were missing or in
+     * another state.
+     * @throws IllegalArgumentException if expected may never move to target.
+     */
+    public boolean compareAndSet(int driverId, FleetState expected, FleetState target) {
+        if (!expected.canTransitionTo(target)) {
+            throw new IllegalArgumentException("A fleet member cannot move from " + expected + " to " + target + ".");
+        }
+        boolean[] moved = new boolean[1];
+        members.computeIfPresent(driverId, (id, old) -> {
+            if (old.getState() != expected) {
+                return old;
+            }
+            moved[0] = true;
+            FleetMember updated = old.withState(target);
+            unindex(old);
+            index(updated);
+            return updated;
+        });
+        return moved[0];
+    }
+
+    /**
+     * Moves a driver to a new state.
+     *
+     * @param driverId The ID of the driver.
+     * @param target The state to move to.
+     * @return The member in its new state.
+     * @throws IllegalStateException if the driver is not registered or their
+     * current state may not move to the target.
+     */
+    public FleetMember transition(int driverId, FleetState target) {
+        return update(driverId, member -> member.withState(target));
+    }
+
+    /**
+     * Replaces a driver's member with a changed copy. A change of state is
+     * checked against the allowed transitions.
+     *
+     * @param driverId The ID of the driver.
+     * @param change The change to apply to the current member.
+     * @return The member after the change.
+     * @throws IllegalStateException if the driver is not registered or the
+     * change moves them to a state that is not allowed.
+     */
+    public FleetMember update(int driverId, UnaryOperator<FleetMember> change) {
+        FleetMember updated = members.computeIfPresent(driverId, (id, old) -> {
+            FleetMember next = change.apply(old);
+            if (next.getState() != old.getState() && !old.getState().canTransitionTo(next.getState())) {
+                throw new IllegalStateException("Driver " + driverId + " cannot move from " + old.getState()
+                        + " to " + next.getState() + ".");
+            }
+            unindex(old);
+            index(next);
+            return next;
+        });
+        if (updated == null) {
+            throw new IllegalStateException("Driver " + driverId + " is not part of the fleet.");
+        }
+        return updated;
+    }
+
+    /**
+     * Returns the AVAILABLE members of a car type.
+     *
+     * @param carType The car type to match (case-insensitive), or null for
+     * all car types.
+     * @return The available members, in no particular order.
+     */
+    public List<FleetMember> available(String carType) {
+        List<FleetMember> result = new ArrayList<>();
+        if (carType == null) {
+            availableByCarType.values().forEach(ids -> collectAvailable(ids, result));
+        } else {
+            Set<Integer> ids = availableByCarType.get(carType.toLowerCase(Locale.ROOT));
+            if (ids != null) {
+                collectAvailable(ids, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the IDs of the drivers in a state.
+     *
+     * @param state The state to match.
+     * @return The driver IDs, in no particular order.
+     */
+    public List<Integer> idsInState(FleetState state) {
+        List<Integer> ids = new ArrayList<>();
+        members.values().forEach(member -> {
+            if (member.getState() == state) {
+                ids.add(member.getDriverId());
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * @return The number of members in each state.
+     */
+    public Map<FleetState, Integer> countByState() {
+        Map<FleetState, Integer> counts = new EnumMap<>(FleetState.class);
+        for (FleetState state : FleetState.values()) {
+            counts.put(state, 0);
+        }
+        members.values().forEach(member -> counts.merge(member.getState(), 1, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * @return The number of registered drivers.
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /*
+     * Adds the members of an index entry that are still AVAILABLE.
+     */
+    private void collectAvailable(Set<Integer> ids, List<FleetMember> result) {
+        for (Integer id : ids) {
+            FleetMember member = members.get(id);
+            if (member != null && member.getState() == FleetState.AVAILABLE) {
+                result.add(member);
+            }
+        }
+    }
+
+    private void index(FleetMember member) {
+        if (member.getState() == FleetState.AVAILABLE && member.getCarType() != null) {
+            availableByCarType.computeIfAbsent(member.getCarType().toLowerCase(Locale.ROOT),
+                    key -> ConcurrentHashMap.newKeySet()).add(member.getDriverId());
+        }
+    }
+
+    private void unindex(FleetMember member) {
+        if (member != null && member.getCarType() != null) {
+            Set<Integer> ids = availableByCarType.get(member.getCarType().toLowerCase(Locale.ROOT));
+            if (ids != null) {
+                ids.remove(member.getDriverId());
+            }
+        }
+    }
+}
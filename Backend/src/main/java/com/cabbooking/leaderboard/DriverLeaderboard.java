@@ -0,0 +1,207 @@
+package com.cabbooking.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+
+/**
+ * DriverLeaderboard keeps all drivers sorted by a Bayesian-adjusted rating,
+ * overall and per car type, and is updated incrementally on every rating.
+ *
+ * Scoring:
+ * - score = (priorWeight * priorMean + ratingSum) / (priorWeight + totalRatings)
+ * - Every driver starts at the prior mean and moves towards their own
+ *   average as ratings come in, so two 5-star ratings do not outrank a
+ *   veteran with hundreds of 4.8s.
+ *
+ * Structure:
+ * - One ConcurrentSkipListSet for the overall ranking and one per car type,
+ *   all ordered by DriverStanding's natural order (best first). Reads and
+ *   updates are O(log n) and never block each other.
+ * - A map from driver ID to the current standing. Changes to one driver run
+ *   inside its map entry's compute, so they are serialized per driver while
+ *   different drivers are updated in parallel.
+ *
+ * A reader iterating while a driver moves may briefly miss that driver or see
+ * them twice; leaderboard pages tolerate that.
+ */
+public class DriverLeaderboard {
+
+    private final double priorMean;
+    private final double priorWeight;
+
+    private final NavigableSet<DriverStanding> ranking = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<DriverStanding>> rankingByCarType = new ConcurrentHashMap<>();
+    private final Map<Integer, DriverStanding> standings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty leaderboard.
+     *
+     * @param priorMean The rating every driver starts from, normally the
+     * average of all ratings.
+     * @param priorWeight How many ratings the prior counts for.
+     */
+    public DriverLeaderboard(double priorMean, double priorWeight) {
+        this.priorMean = priorMean;
+        this.priorWeight = priorWeight;
+    }
+
+    /**
+     * Computes the Bayesian-adjusted score of a rating sum and count.
+     *
+     * @param ratingSum The sum of the ratings.
+     * @param totalRatings The number of ratings.
+     * @return The score.
+     */
+    public double score(long ratingSum, int totalRatings) {
+        return (priorWeight * priorMean + ratingSum) / (priorWeight + totalRatings);
+    }
+
+    /**
+     * Adds a driver, or replaces their profile fields if they are already on
+     * the leaderboard. The rating sum and count are only taken for a new
+     * driver; a known driver keeps the ratings the leaderboard has counted.
+     *
+     * @param driverId The ID of the driver.
+     * @param username The username of the driver.
+     * @param firstName The first name of the driver.
+     * @param lastName The last name of the driver.
+     * @param carType The car type of the driver's cab, or null.
+     * @param ratingSum The rating sum of a new driver.
+     * @param totalRatings The rating count of a new driver.
+     */
+    public void put(int driverId, String username, String firstName, String lastName, String carType,
+            long ratingSum, int totalRatings) {
+        change(driverId, old -> {
+            long sum = old != null ? old.getRatingSum() : ratingSum;
+            int count = old != null ? old.getTotalRatings() : totalRatings;
+            return new DriverStanding(driverId, username, firstName, lastName, carType, sum, count, score(sum, count));
+        });
+    }
+
+    /**
+     * Adds one rating to a driver and moves them to their new position.
+     *
+     * @param driverId The ID of the driver.
+     * @param rating The rating value (1-5).
+     * @return True if the driver is on the leaderboard, false otherwise.
+     */
+    public boolean addRating(int driverId, int rating) {
+        boolean[] found = new boolean[1];
+        change(driverId, old -> {
+            if (old == null) {
+                return null;
+            }
+            found[0] = true;
+            long sum = old.getRatingSum() + rating;
+            int count = old.getTotalRatings() + 1;
+            return new DriverStanding(driverId, old.getUsername(), old.getFirstName(), old.getLastName(),
+                    old.getCarType(), sum, count, score(sum, count));
+        });
+        return found[0];
+    }
+
+    /**
+     * Removes a driver from the leaderboard.
+     *
+     * @param driverId The ID of the driver.
+     */
+    public void remove(int driverId) {
+        change(driverId, old -> null);
+    }
+
+    /**
+     * Returns a page of the ranking, best first.
+     *
+     * @param carType The car type to rank within, or null for all drivers.
+     * @param minScore Standings below this score are not returned.
+     * @param offset The number of standings to skip.
+     * @param limit The maximum number of standings to return.
+     * @return The standings of the page.
+     */
+    public List<DriverStanding> page(String carType, double minScore, int offset, int limit) {
+        NavigableSet<DriverStanding> source = carType == null ? ranking : rankingByCarType.get(carType);
+        List<DriverStanding> page = new ArrayList<>(Math.min(limit, 256));
+        if (source == null) {
+            return page;
+        }
+        Iterator<DriverStanding> iterator = source.iterator();
+        int skipped = 0;
+        while (iterator.hasNext() && page.size() < limit) {
+            DriverStanding standing = iterator.next();
+            if (standing.getScore() < minScore) {
+                break;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(standing);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * @param driverId The ID of the driver.
+     * @return The current standing of the driver, or null if not on the
+     * leaderboard.
+     */
+    public DriverStanding get(int driverId) {
+        return standings.get(driverId);
+    }
+
+    /**
+     * @return The number of drivers on the leaderboard.
+     */
+    public int size() {
+        return standings.size();
+    }
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to replace a driver's standing in all rankings. The change
+     * runs inside the map's compute, so changes to one driver never interleave.
+     */
+    private void change(int driverId, UnaryOperator<DriverStanding> update) {
+        standings.compute(driverId, (id, old) -> {
+            DriverStanding next = update.apply(old);
+            if (old != null) {
+                ranking.remove(old);
+                if (old.getCarType() != null) {
+                    rankingByCarType.computeIfPresent(old.getCarType(), (type, set) -> {
+                        set.remove(old);
+                        return set.isEmpty() ? null : set;
+                    });
+                }
+            }
+            if (next != null) {
+                ranking.add(next);
+                if (next.getCarType() != null) {
+                    rankingByCarType.compute(next.getCarType(), (type, set) -> {
+                        NavigableSet<DriverStanding> target = set != null ? set : new ConcurrentSkipListSet<>();
+                        target.add(next);
+                        return target;
+                    });
+                }
+            }
+            return next;
+        });
+    }
+}
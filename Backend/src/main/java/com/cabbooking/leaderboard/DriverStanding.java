@@ -0,0 +1,89 @@
+package com.cabbooking.leaderboard;
+
+/**
+ * DriverStanding is the immutable snapshot of one driver's position in the
+ * DriverLeaderboard.
+ *
+ * It holds the rating sum and count, the Bayesian score derived from them
+ * and the few profile fields the leaderboard pages show, so the leaderboard
+ * never holds entity references.
+ *
+ * Standings are ordered best first: by score, then by number of ratings (a
+ * veteran wins a tie), then by driver ID so the order is total.
+ */
+public final class DriverStanding implements Comparable<DriverStanding> {
+
+    private final int driverId;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String carType;
+    private final long ratingSum;
+    private final int totalRatings;
+    private final double score;
+
+    public DriverStanding(int driverId, String username, String firstName, String lastName, String carType,
+            long ratingSum, int totalRatings, double score) {
+        this.driverId = driverId;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.carType = carType;
+        this.ratingSum = ratingSum;
+        this.totalRatings = totalRatings;
+        this.score = score;
+    }
+
+    @Override
+    public int compareTo(DriverStanding other) {
+        int byScore = Double.compare(other.score, score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byRatings = Integer.compare(other.totalRatings, totalRatings);
+        if (byRatings != 0) {
+            return byRatings;
+        }
+        return Integer.compare(driverId, other.driverId);
+    }
+
+    /**
+     * @return The plain average rating, or null if the driver is unrated.
+     */
+    public Float getAverageRating() {
+        return totalRatings > 0 ? (float) ratingSum / totalRatings : null;
+    }
+
+    // ======= Getters =======
+    public int getDriverId() {
+        return driverId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getTotalRatings() {
+        return totalRatings;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.TableGenerator;
 
 /**
  * Abstract base class for users in the cab booking system.
@@ -16,10 +17,14 @@ public abstract class AbstractUser {
 
     /**
      * Unique identifier for every user (primary key, auto-generated).
-     * Subclasses will inherit this ID as their table’s primary key.
+     * Subclasses will inherit this ID as their table’s primary key. All user
+     * types share one generator row, so IDs are unique across user types.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "app_user",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Integer id;
 
     /**
@@ -1,12 +1,20 @@
 package com.cabbooking.model;
 
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
 
 /*
  * BlacklistedToken entity to store invalidated tokens for security purposes.
+ *
+ * The table is the durable copy of the in-memory token blacklist: it is read
+ * on startup and polled by every instance, and rows are purged once their
+ * token has expired.
  */
 @Entity
 public class BlacklistedToken {
@@ -16,14 +24,45 @@ public class BlacklistedToken {
      * other security measures.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "blacklisted_token_id")
+    @TableGenerator(name = "blacklisted_token_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "blacklisted_token",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     /*
-     * The token itself.
+     * The token itself. Only set on rows written before tokens were stored
+     * as digests; such rows are converted on startup.
      */
     private String token;
 
+    /*
+     * The SHA-256 digest of the token (see TokenDigest).
+     */
+    @Column(length = 64)
+    private String tokenHash;
+
+    /*
+     * The expiry of the token; the row is purged after it.
+     */
+    private LocalDateTime expiresAt;
+
+    /*
+     * When the token was blacklisted. Other instances poll for new rows by
+     * this column.
+     */
+    private LocalDateTime blacklistedAt;
+
+    // Constructors
+    public BlacklistedToken() {
+    }
+
+    public BlacklistedToken(String tokenHash, LocalDateTime expiresAt, LocalDateTime blacklistedAt) {
+        this.tokenHash = tokenHash;
+        this.expiresAt = expiresAt;
+        this.blacklistedAt = blacklistedAt;
+    }
+
     // ======= Getters and Setters =======
     public Long getId() {
         return id;
@@ -40,4 +79,28 @@ public class BlacklistedToken {
     public void setToken(String token) {
         this.token = token;
     }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getBlacklistedAt() {
+        return blacklistedAt;
+    }
+
+    public void setBlacklistedAt(LocalDateTime blacklistedAt) {
+        this.blacklistedAt = blacklistedAt;
+    }
 }
@@ -2,11 +2,17 @@ package com.cabbooking.model;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.cabbooking.cache.CabCacheListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -14,19 +20,41 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 
 /**
  * Cab entity representing a vehicle in the cab booking system.
+ *
+ * Cabs are read on every booking, estimate, completion and catalog call but
+ * rarely change, so they are kept in the Hibernate second-level cache. The
+ * catalog queries are cached in a separate query region.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Cab.CACHE_REGION)
+@EntityListeners(CabCacheListener.class)
 public class Cab {
 
     /**
-     * The unique identifier for the cab. This is the primary key, automatically
-     * generated by the database.
+     * Second-level cache region holding Cab entities.
+     */
+    public static final String CACHE_REGION = "cab";
+
+    /**
+     * Query cache region holding the results of the cab catalog queries.
+     */
+    public static final String QUERY_CACHE_REGION = "cab-queries";
+
+    /**
+     * The unique identifier for the cab. This is the primary key, drawn from
+     * the table-backed ID generator.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cab_id")
+    @TableGenerator(name = "cab_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "cab",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Integer cabId;
 
     /**
@@ -74,6 +102,14 @@ public class Cab {
     @JsonIgnore // Prevents infinite loops when sending JSON responses
     private Driver driver;
 
+    /**
+     * Optimistic lock version. Bookings, completions and cab detail updates
+     * of the same cab conflict instead of overwriting each other.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // ======= Getters and Setters =======
     public Integer getCabId() {
         return cabId;
@@ -138,4 +174,12 @@ public class Cab {
     public void setDriver(Driver driver) {
         this.driver = driver;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,85 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/*
+ * ConsumedToken entity recording that a signed action token (email
+ * verification or password reset) was used.
+ *
+ * The token ID is the primary key, so the insert of a second use fails on
+ * every instance alike. Rows are purged once their token has expired; the
+ * signature check refuses the token from then on.
+ */
+@Entity
+public class ConsumedToken implements Persistable<String> {
+
+    /*
+     * The random ID carried by the token.
+     */
+    @Id
+    @Column(length = 32)
+    private String tokenId;
+
+    /*
+     * The expiry of the token; the row is purged after it.
+     */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /*
+     * Always inserted, never merged, so a second use is a duplicate key.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public ConsumedToken() {
+    }
+
+    public ConsumedToken(String tokenId, LocalDateTime expiresAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return tokenId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // ======= Getters and Setters =======
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
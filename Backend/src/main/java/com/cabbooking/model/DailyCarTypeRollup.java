@@ -0,0 +1,154 @@
+package com.cabbooking.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * DailyCarTypeRollup entity holding the pre-aggregated revenue figures of one
+ * car type for one day.
+ *
+ * Rows are incremented when a trip is completed or rated, so revenue reports
+ * read a handful of rollup rows instead of summing the trip table.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"rollupDate", "carType"}))
+public class DailyCarTypeRollup {
+
+    /**
+     * The unique identifier for the rollup row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "daily_car_type_rollup_id")
+    @TableGenerator(name = "daily_car_type_rollup_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "daily_car_type_rollup",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * The day the trips were completed on.
+     */
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+
+    /**
+     * The car type the figures belong to (e.g., "Sedan", "SUV").
+     */
+    @Column(nullable = false)
+    private String carType;
+
+    /**
+     * The number of trips completed on this day for this car type.
+     */
+    private long tripCount;
+
+    /**
+     * The sum of the bills of all completed trips.
+     */
+    private double totalBill;
+
+    /**
+     * The sum of the distances of all completed trips, in kilometers.
+     */
+    private double totalDistance;
+
+    /**
+     * The sum of all customer ratings given to these trips.
+     */
+    private long ratingSum;
+
+    /**
+     * The number of customer ratings given to these trips.
+     */
+    private long ratingCount;
+
+    // Constructors
+    public DailyCarTypeRollup() {
+    }
+
+    public DailyCarTypeRollup(LocalDate rollupDate, String carType) {
+        this.rollupDate = rollupDate;
+        this.carType = carType;
+    }
+
+    /**
+     * The average customer rating, derived from the rating sum and count.
+     *
+     * @return The average rating, or 0 if no ratings were given.
+     */
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    // ======= Getters and Setters =======
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public void setCarType(String carType) {
+        this.carType = carType;
+    }
+
+    public long getTripCount() {
+        return tripCount;
+    }
+
+    public void setTripCount(long tripCount) {
+        this.tripCount = tripCount;
+    }
+
+    public double getTotalBill() {
+        return totalBill;
+    }
+
+    public void setTotalBill(double totalBill) {
+        this.totalBill = totalBill;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public void setTotalDistance(double totalDistance) {
+        this.totalDistance = totalDistance;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+}
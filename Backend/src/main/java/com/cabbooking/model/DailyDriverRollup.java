@@ -0,0 +1,154 @@
+package com.cabbooking.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * DailyDriverRollup entity holding the pre-aggregated earnings figures of one
+ * driver for one day.
+ *
+ * The driver is referenced by id only, so rollups survive independently of
+ * the driver and trip rows they were computed from.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"rollupDate", "driverId"}))
+public class DailyDriverRollup {
+
+    /**
+     * The unique identifier for the rollup row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "daily_driver_rollup_id")
+    @TableGenerator(name = "daily_driver_rollup_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "daily_driver_rollup",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * The day the trips were completed on.
+     */
+    @Column(nullable = false)
+    private LocalDate rollupDate;
+
+    /**
+     * The ID of the driver the figures belong to.
+     */
+    @Column(nullable = false)
+    private Integer driverId;
+
+    /**
+     * The number of trips the driver completed on this day.
+     */
+    private long tripCount;
+
+    /**
+     * The sum of the bills of all completed trips.
+     */
+    private double totalBill;
+
+    /**
+     * The sum of the distances of all completed trips, in kilometers.
+     */
+    private double totalDistance;
+
+    /**
+     * The sum of all customer ratings given to these trips.
+     */
+    private long ratingSum;
+
+    /**
+     * The number of customer ratings given to these trips.
+     */
+    private long ratingCount;
+
+    // Constructors
+    public DailyDriverRollup() {
+    }
+
+    public DailyDriverRollup(LocalDate rollupDate, Integer driverId) {
+        this.rollupDate = rollupDate;
+        this.driverId = driverId;
+    }
+
+    /**
+     * The average customer rating, derived from the rating sum and count.
+     *
+     * @return The average rating, or 0 if no ratings were given.
+     */
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    // ======= Getters and Setters =======
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(Integer driverId) {
+        this.driverId = driverId;
+    }
+
+    public long getTripCount() {
+        return tripCount;
+    }
+
+    public void setTripCount(long tripCount) {
+        this.tripCount = tripCount;
+    }
+
+    public double getTotalBill() {
+        return totalBill;
+    }
+
+    public void setTotalBill(double totalBill) {
+        this.totalBill = totalBill;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public void setTotalDistance(double totalDistance) {
+        this.totalDistance = totalDistance;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+}
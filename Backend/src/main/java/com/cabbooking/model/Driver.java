@@ -1,9 +1,13 @@
 package com.cabbooking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Version;
 
 /**
  * Driver entity representing a driver in the cab booking system.
@@ -17,12 +21,6 @@ public class Driver extends AbstractUser {
      */
     private String licenceNo;
 
-    /**
-     * The driver's average rating, calculated from customer feedback. Used by
-     * the system to prioritize higher-quality drivers for bookings.
-     */
-    private Float rating;
-
     /**
      * Indicates if the driver's account has been approved by an admin. Defaults
      * to false upon registration.
@@ -36,9 +34,20 @@ public class Driver extends AbstractUser {
     private Boolean isAvailable = true;
 
     /**
-     * The total number of ratings the driver has received. Used to accurately
-     * calculate the new average rating.
+     * The sum of all ratings the driver has received. Together with
+     * totalRatings it yields the average rating, without float rounding drift.
+     *
+     * Only changed by the atomic increment in DriverRepository.addRating, so
+     * saving a stale Driver entity never overwrites concurrent ratings.
      */
+    @Column(nullable = false, updatable = false)
+    private Long ratingSum = 0L;
+
+    /**
+     * The total number of ratings the driver has received. Like ratingSum,
+     * only changed by DriverRepository.addRating.
+     */
+    @Column(nullable = false, updatable = false)
     private Integer totalRatings = 0;
 
     /**
@@ -64,6 +73,16 @@ public class Driver extends AbstractUser {
     @OneToOne(mappedBy = "driver", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Cab cab;
 
+    /**
+     * Optimistic lock version, checked and incremented by every update, so a
+     * concurrent update of the same row fails instead of being overwritten.
+     * Ratings are added by a bulk update that leaves the version alone, as
+     * they never conflict with other changes of the driver.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // ======= Getters and Setters =======
     public void setIsAvailable(Boolean isAvailable) {
         this.isAvailable = isAvailable;
@@ -81,12 +100,25 @@ public class Driver extends AbstractUser {
         this.licenceNo = licenceNo;
     }
 
+    /**
+     * The driver's average rating, derived from the rating sum and count. Used
+     * by the system to prioritize higher-quality drivers for bookings.
+     *
+     * @return The average rating, or null if the driver has not been rated.
+     */
     public Float getRating() {
-        return rating;
+        if (totalRatings == null || totalRatings == 0 || ratingSum == null) {
+            return null;
+        }
+        return (float) ratingSum / totalRatings;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
     }
 
-    public void setRating(Float rating) {
-        this.rating = rating;
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
     }
 
     public Boolean getVerified() {
@@ -136,4 +168,12 @@ public class Driver extends AbstractUser {
     public void setCab(Cab cab) {
         this.cab = cab;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
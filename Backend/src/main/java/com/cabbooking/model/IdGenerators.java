@@ -0,0 +1,27 @@
+package com.cabbooking.model;
+
+/**
+ * Shared settings of the table-backed ID generators used by the entities.
+ *
+ * Every entity draws its IDs from one row of the id_generator table. With the
+ * pooled-lo optimizer (see HibernateBatchingConfig) a single row update
+ * reserves ALLOCATION_SIZE IDs, so inserts no longer need the database to
+ * generate the key and Hibernate can send them as JDBC batches. IDs reserved
+ * but unused when the application stops are skipped, which leaves gaps.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generator";
+
+    public static final String PK_COLUMN = "sequence_name";
+
+    public static final String VALUE_COLUMN = "next_val";
+
+    /**
+     * Number of IDs reserved per round-trip; matches the JDBC batch size.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
@@ -0,0 +1,99 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/*
+ * JobLock entity recording which instance runs a scheduled job, and until
+ * when.
+ *
+ * The job name is the primary key, so the row of a job is created once.
+ * It is then claimed with a guarded update on locked_until, which only one
+ * instance at a time can pass.
+ */
+@Entity
+public class JobLock implements Persistable<String> {
+
+    /*
+     * The name of the job (e.g. "rollup.rebuild").
+     */
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    /*
+     * The end of the current claim; the job is free from then on.
+     */
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    /*
+     * The claim token of the instance that claimed the job last.
+     */
+    @Column(length = 36)
+    private String lockedBy;
+
+    /*
+     * Always inserted, never merged, so a concurrent creation is a duplicate key.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public JobLock() {
+    }
+
+    public JobLock(String name, LocalDateTime lockedUntil) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // ======= Getters and Setters =======
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+}
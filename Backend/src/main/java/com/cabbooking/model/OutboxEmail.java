@@ -0,0 +1,198 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
+
+/**
+ * OutboxEmail entity holding one email waiting to be sent.
+ *
+ * Emails are written in the transaction of the change that triggers them
+ * (e.g. a password reset request) and sent later by the outbox dispatcher
+ * of EmailServiceImpl. A sent email is deleted; an email that failed too
+ * often stays with status FAILED for an admin to look at.
+ */
+@Entity
+public class OutboxEmail {
+
+    /**
+     * The delivery state of a queued email.
+     */
+    public enum Status {
+        /**
+         * Waiting to be sent, at or after nextAttemptAt.
+         */
+        PENDING,
+        /**
+         * Every attempt failed; the email is no longer sent.
+         */
+        FAILED
+    }
+
+    /**
+     * The unique identifier for the email.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "outbox_email_id")
+    @TableGenerator(name = "outbox_email_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "outbox_email",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * The email address of the recipient.
+     */
+    @Column(nullable = false)
+    private String recipient;
+
+    /**
+     * The subject line.
+     */
+    @Column(nullable = false)
+    private String subject;
+
+    /**
+     * The plain text body.
+     */
+    @Column(nullable = false, length = 4000)
+    private String body;
+
+    /**
+     * Whether the email is still to be sent.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    /**
+     * The number of failed attempts so far.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * The date and time the email was queued.
+     */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * The earliest date and time of the next attempt.
+     */
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * The error of the last failed attempt, or null.
+     */
+    @Column(length = 512)
+    private String lastError;
+
+    /**
+     * The token of the dispatcher that claimed the email for its current
+     * batch, or null.
+     */
+    @Column(length = 36)
+    private String claimToken;
+
+    // Constructors
+    public OutboxEmail() {
+    }
+
+    public OutboxEmail(String recipient, String subject, String body, LocalDateTime createdAt) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.status = Status.PENDING;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    // ======= Getters and Setters =======
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+}
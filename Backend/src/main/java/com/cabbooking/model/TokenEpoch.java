@@ -0,0 +1,118 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/*
+ * TokenEpoch entity holding the token epoch of one user.
+ *
+ * A JWT is valid only while its epoch claim is not below the epoch of its
+ * user. A row exists only for users whose tokens were revoked at least once;
+ * all other users are at epoch 0.
+ */
+@Entity
+@IdClass(UserIdentity.Key.class)
+public class TokenEpoch implements Persistable<UserIdentity.Key> {
+
+    /*
+     * The type of the user: "Admin", "Driver" or "Customer".
+     */
+    @Id
+    @Column(length = 16)
+    private String userType;
+
+    /*
+     * The ID of the user in the table of their type.
+     */
+    @Id
+    private Integer userId;
+
+    /*
+     * The current epoch; tokens issued with a lower epoch are revoked.
+     */
+    @Column(nullable = false)
+    private int epoch;
+
+    /*
+     * When the epoch was last raised. Other instances poll for changes by
+     * this column.
+     */
+    private LocalDateTime changedAt;
+
+    /*
+     * Always inserted, never merged, so a row created concurrently is a
+     * duplicate key instead of being reset to a new epoch.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public TokenEpoch() {
+    }
+
+    public TokenEpoch(String userType, Integer userId, int epoch, LocalDateTime changedAt) {
+        this.userType = userType;
+        this.userId = userId;
+        this.epoch = epoch;
+        this.changedAt = changedAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public UserIdentity.Key getId() {
+        return new UserIdentity.Key(userType, userId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // ======= Getters and Setters =======
+
+    public String getUserType() {
+        return userType;
+    }
+
+    public void setUserType(String userType) {
+        this.userType = userType;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(int epoch) {
+        this.epoch = epoch;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
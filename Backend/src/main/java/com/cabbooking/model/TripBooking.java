@@ -14,6 +14,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 
 /**
  * TripBooking entity representing a cab trip booking in the system.
@@ -26,7 +28,10 @@ public class TripBooking {
      * The unique identifier for the trip booking.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "trip_booking_id")
+    @TableGenerator(name = "trip_booking_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "trip_booking",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Integer tripBookingId;
 
     /**
@@ -84,6 +89,14 @@ public class TripBooking {
     @Enumerated(EnumType.STRING)
     private TripStatus status;
 
+    /**
+     * The status the trip had before its last driver status update. Set by
+     * the guarded update itself, in the same statement as the new status.
+     */
+    @Enumerated(EnumType.STRING)
+    @JsonIgnore
+    private TripStatus previousStatus;
+
     /**
      * The total distance of the trip in kilometers.
      */
@@ -116,6 +129,15 @@ public class TripBooking {
      */
     private Double fromLongitude;
 
+    /**
+     * Optimistic lock version. Of two concurrent changes of a trip (status
+     * update, completion, rating, scheduler assignment) only the first
+     * commits; the other is re-run against the new state.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     // Constructors
     public TripBooking() {
     }
@@ -260,6 +282,22 @@ public class TripBooking {
         this.fromLongitude = fromLongitude;
     }
 
+    public TripStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(TripStatus previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "TripBooking{"
@@ -0,0 +1,357 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * TripBookingArchive entity holding a finished trip that has been moved out of
+ * the live trip_booking table by the archival job.
+ *
+ * The row keeps the original trip ID and stores the customer, driver and cab
+ * as plain IDs plus the names needed by the history views, so archived trips
+ * can be read without joins and survive independently of the user rows.
+ */
+@Entity
+@Table(name = "trip_booking_archive")
+public class TripBookingArchive implements Persistable<Integer> {
+
+    /**
+     * The original ID of the trip booking.
+     */
+    @Id
+    private Integer tripBookingId;
+
+    /**
+     * The ID of the customer who booked the trip.
+     */
+    private Integer customerId;
+
+    /**
+     * The customer's first name at the time of archival.
+     */
+    private String customerFirstName;
+
+    /**
+     * The customer's last name at the time of archival.
+     */
+    private String customerLastName;
+
+    /**
+     * The ID of the driver assigned to the trip, if any.
+     */
+    private Integer driverId;
+
+    /**
+     * The driver's first name at the time of archival.
+     */
+    private String driverFirstName;
+
+    /**
+     * The driver's last name at the time of archival.
+     */
+    private String driverLastName;
+
+    /**
+     * The ID of the cab used for the trip, if any.
+     */
+    private Integer cabId;
+
+    /**
+     * The starting location of the trip.
+     */
+    private String fromLocation;
+
+    /**
+     * The destination of the trip.
+     */
+    private String toLocation;
+
+    /**
+     * The date and time when the trip was booked or started.
+     */
+    private LocalDateTime fromDateTime;
+
+    /**
+     * The date and time when the trip was completed.
+     */
+    private LocalDateTime toDateTime;
+
+    /**
+     * The final status of the trip (COMPLETED or CANCELLED).
+     */
+    @Enumerated(EnumType.STRING)
+    private TripStatus status;
+
+    /**
+     * The total distance of the trip in kilometers.
+     */
+    private float distanceInKm;
+
+    /**
+     * The final calculated bill for the trip.
+     */
+    private float bill;
+
+    /**
+     * Customer rating for the trip (1-5 stars)
+     */
+    private Integer customerRating;
+
+    /**
+     * The type of car used for the trip.
+     */
+    private String carType;
+
+    /**
+     * From Location's latitude
+     */
+    private Double fromLatitude;
+
+    /**
+     * From Location's longitude
+     */
+    private Double fromLongitude;
+
+    /**
+     * The date and time when the trip was archived.
+     */
+    private LocalDateTime archivedAt;
+
+    /**
+     * True until the row has been persisted or loaded. The ID is assigned
+     * (copied from the live trip), so without this flag every save would
+     * first SELECT the row to decide between insert and merge.
+     */
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public TripBookingArchive() {
+    }
+
+    /**
+     * Creates an archive row from a live trip. The customer, driver and cab
+     * associations must be initialized.
+     *
+     * @param trip The trip to archive.
+     * @param archivedAt The archival time.
+     * @return The archive row.
+     */
+    public static TripBookingArchive from(TripBooking trip, LocalDateTime archivedAt) {
+        TripBookingArchive archive = new TripBookingArchive();
+        archive.tripBookingId = trip.getTripBookingId();
+        if (trip.getCustomer() != null) {
+            archive.customerId = trip.getCustomer().getId();
+            archive.customerFirstName = trip.getCustomer().getFirstName();
+            archive.customerLastName = trip.getCustomer().getLastName();
+        }
+        if (trip.getDriver() != null) {
+            archive.driverId = trip.getDriver().getId();
+            archive.driverFirstName = trip.getDriver().getFirstName();
+            archive.driverLastName = trip.getDriver().getLastName();
+        }
+        if (trip.getCab() != null) {
+            archive.cabId = trip.getCab().getCabId();
+        }
+        archive.fromLocation = trip.getFromLocation();
+        archive.toLocation = trip.getToLocation();
+        archive.fromDateTime = trip.getFromDateTime();
+        archive.toDateTime = trip.getToDateTime();
+        archive.status = trip.getStatus();
+        archive.distanceInKm = trip.getDistanceInKm();
+        archive.bill = trip.getBill();
+        archive.customerRating = trip.getCustomerRating();
+        archive.carType = trip.getCarType();
+        archive.fromLatitude = trip.getFromLatitude();
+        archive.fromLongitude = trip.getFromLongitude();
+        archive.archivedAt = archivedAt;
+        return archive;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public Integer getId() {
+        return tripBookingId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // ======= Getters and Setters =======
+    public Integer getTripBookingId() {
+        return tripBookingId;
+    }
+
+    public void setTripBookingId(Integer tripBookingId) {
+        this.tripBookingId = tripBookingId;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCustomerFirstName() {
+        return customerFirstName;
+    }
+
+    public void setCustomerFirstName(String customerFirstName) {
+        this.customerFirstName = customerFirstName;
+    }
+
+    public String getCustomerLastName() {
+        return customerLastName;
+    }
+
+    public void setCustomerLastName(String customerLastName) {
+        this.customerLastName = customerLastName;
+    }
+
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(Integer driverId) {
+        this.driverId = driverId;
+    }
+
+    public String getDriverFirstName() {
+        return driverFirstName;
+    }
+
+    public void setDriverFirstName(String driverFirstName) {
+        this.driverFirstName = driverFirstName;
+    }
+
+    public String getDriverLastName() {
+        return driverLastName;
+    }
+
+    public void setDriverLastName(String driverLastName) {
+        this.driverLastName = driverLastName;
+    }
+
+    public Integer getCabId() {
+        return cabId;
+    }
+
+    public void setCabId(Integer cabId) {
+        this.cabId = cabId;
+    }
+
+    public String getFromLocation() {
+        return fromLocation;
+    }
+
+    public void setFromLocation(String fromLocation) {
+        this.fromLocation = fromLocation;
+    }
+
+    public String getToLocation() {
+        return toLocation;
+    }
+
+    public void setToLocation(String toLocation) {
+        this.toLocation = toLocation;
+    }
+
+    public LocalDateTime getFromDateTime() {
+        return fromDateTime;
+    }
+
+    public void setFromDateTime(LocalDateTime fromDateTime) {
+        this.fromDateTime = fromDateTime;
+    }
+
+    public LocalDateTime getToDateTime() {
+        return toDateTime;
+    }
+
+    public void setToDateTime(LocalDateTime toDateTime) {
+        this.toDateTime = toDateTime;
+    }
+
+    public TripStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TripStatus status) {
+        this.status = status;
+    }
+
+    public float getDistanceInKm() {
+        return distanceInKm;
+    }
+
+    public void setDistanceInKm(float distanceInKm) {
+        this.distanceInKm = distanceInKm;
+    }
+
+    public float getBill() {
+        return bill;
+    }
+
+    public void setBill(float bill) {
+        this.bill = bill;
+    }
+
+    public Integer getCustomerRating() {
+        return customerRating;
+    }
+
+    public void setCustomerRating(Integer customerRating) {
+        this.customerRating = customerRating;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public void setCarType(String carType) {
+        this.carType = carType;
+    }
+
+    public Double getFromLatitude() {
+        return fromLatitude;
+    }
+
+    public void setFromLatitude(Double fromLatitude) {
+        this.fromLatitude = fromLatitude;
+    }
+
+    public Double getFromLongitude() {
+        return fromLongitude;
+    }
+
+    public void setFromLongitude(Double fromLongitude) {
+        this.fromLongitude = fromLongitude;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -0,0 +1,128 @@
+package com.cabbooking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.TableGenerator;
+
+/**
+ * TripEvent entity recording one status change of a trip in the append-only
+ * trip lifecycle log.
+ *
+ * Events are written once, in the transaction that changes the trip, and
+ * never updated. The trip, customer and driver are referenced by id only, so
+ * the log survives independently of the rows it describes (including trips
+ * moved to the archive).
+ */
+@Entity
+public class TripEvent {
+
+    /**
+     * The unique identifier for the event. Increases in the order events are
+     * appended by this application.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "trip_event_id")
+    @TableGenerator(name = "trip_event_id", table = IdGenerators.TABLE, pkColumnName = IdGenerators.PK_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "trip_event",
+            allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * The ID of the trip that changed.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer tripBookingId;
+
+    /**
+     * The status the trip moved to.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private TripStatus status;
+
+    /**
+     * The status the trip had before, or null for the event creating the trip.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
+    private TripStatus previousStatus;
+
+    /**
+     * The ID of the customer who booked the trip.
+     */
+    @Column(updatable = false)
+    private Integer customerId;
+
+    /**
+     * The ID of the driver assigned to the trip at the time, or null.
+     */
+    @Column(updatable = false)
+    private Integer driverId;
+
+    /**
+     * The car type requested for the trip.
+     */
+    @Column(updatable = false)
+    private String carType;
+
+    /**
+     * The date and time the change was made.
+     */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    // Constructors
+    protected TripEvent() {
+    }
+
+    public TripEvent(Integer tripBookingId, TripStatus status, TripStatus previousStatus, Integer customerId,
+            Integer driverId, String carType, LocalDateTime occurredAt) {
+        this.tripBookingId = tripBookingId;
+        this.status = status;
+        this.previousStatus = previousStatus;
+        this.customerId = customerId;
+        this.driverId = driverId;
+        this.carType = carType;
+        this.occurredAt = occurredAt;
+    }
+
+    // ======= Getters =======
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getTripBookingId() {
+        return tripBookingId;
+    }
+
+    public TripStatus getStatus() {
+        return status;
+    }
+
+    public TripStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public String getCarType() {
+        return carType;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
@@ -1,7 +1,25 @@
 package com.cabbooking.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * TripStatus enum representing the various states a trip can be in within the cab booking system.
+ *
+ * Allowed transitions:
+ * - SCHEDULED -> CONFIRMED: the scheduler assigned a driver.
+ * - SCHEDULED, CONFIRMED or IN_PROGRESS -> CANCELLED.
+ * - CONFIRMED -> IN_PROGRESS: the driver started the trip.
+ * - CONFIRMED or IN_PROGRESS -> COMPLETED: the driver completed the trip.
+ *
+ * The table below is the only place these are declared. Services check a
+ * change with {@link #canTransitionTo(TripStatus)}, and the guarded status
+ * update of {@code TripBookingRepository} accepts the statuses listed by
+ * {@link #sourcesOf(TripStatus)}.
  */
 public enum TripStatus {
     /**
@@ -24,5 +42,63 @@ public enum TripStatus {
     /**
      * The trip has been cancelled by either the customer or the driver.
      */
-    CANCELLED
+    CANCELLED;
+
+    /*
+     * The allowed transitions, from each status to the statuses it may move to.
+     */
+    private static final Map<TripStatus, Set<TripStatus>> TRANSITIONS = new EnumMap<>(TripStatus.class);
+
+    static {
+        allow(SCHEDULED, CONFIRMED, CANCELLED);
+        allow(CONFIRMED, IN_PROGRESS, COMPLETED, CANCELLED);
+        allow(IN_PROGRESS, COMPLETED, CANCELLED);
+        allow(COMPLETED);
+        allow(CANCELLED);
+    }
+
+    /**
+     * @param target The status to move to.
+     * @return True if a trip in this status may move to the target status.
+     */
+    public boolean canTransitionTo(TripStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * @return The statuses a trip in this status may move to, in declaration order.
+     */
+    public Set<TripStatus> nextStatuses() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
+
+    /**
+     * @return True if no transition leaves this status (COMPLETED and CANCELLED).
+     */
+    public boolean isFinal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
+
+    /**
+     * Lists the statuses a trip may be in to move to a target status, i.e.
+     * the guard of a conditional status update.
+     *
+     * @param target The status to move to.
+     * @return The source statuses, in declaration order.
+     */
+    public static List<TripStatus> sourcesOf(TripStatus target) {
+        return TRANSITIONS.entrySet().stream()
+                .filter(entry -> entry.getValue().contains(target))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /*
+     * Helper method to declare the transitions out of a status.
+     */
+    private static void allow(TripStatus from, TripStatus... to) {
+        Set<TripStatus> targets = EnumSet.noneOf(TripStatus.class);
+        Collections.addAll(targets, to);
+        TRANSITIONS.put(from, targets);
+    }
 }
@@ -0,0 +1,172 @@
+package com.cabbooking.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+
+/**
+ * UserIdentity entity holding what login needs to know about one admin,
+ * driver or customer.
+ *
+ * The directory is a copy of the user tables, keyed by user type and ID
+ * (IDs of different user types may overlap on old data). It is looked up by
+ * the normalized username or email, so one indexed query authenticates a
+ * user and resolves their role.
+ */
+@Entity
+@IdClass(UserIdentity.Key.class)
+public class UserIdentity {
+
+    /**
+     * The type of the user: "Admin", "Driver" or "Customer".
+     */
+    @Id
+    @Column(length = 16)
+    private String userType;
+
+    /**
+     * The ID of the user in the table of their type.
+     */
+    @Id
+    private Integer userId;
+
+    /**
+     * The username as registered; used as the JWT subject.
+     */
+    @Column(nullable = false)
+    private String username;
+
+    /**
+     * The trimmed, lower-case username.
+     */
+    @Column(nullable = false)
+    private String usernameKey;
+
+    /**
+     * The trimmed, lower-case email address.
+     */
+    @Column(nullable = false)
+    private String emailKey;
+
+    /**
+     * The password hash of the user.
+     */
+    @Column(nullable = false)
+    private String password;
+
+    /**
+     * Whether the user has verified their email address.
+     */
+    private Boolean emailVerified;
+
+    // Default constructor
+    public UserIdentity() {
+    }
+
+    public UserIdentity(String userType, Integer userId, String username, String usernameKey, String emailKey,
+            String password, Boolean emailVerified) {
+        this.userType = userType;
+        this.userId = userId;
+        this.username = username;
+        this.usernameKey = usernameKey;
+        this.emailKey = emailKey;
+        this.password = password;
+        this.emailVerified = emailVerified;
+    }
+
+    // ======= Getters and Setters =======
+
+    public String getUserType() {
+        return userType;
+    }
+
+    public void setUserType(String userType) {
+        this.userType = userType;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getUsernameKey() {
+        return usernameKey;
+    }
+
+    public void setUsernameKey(String usernameKey) {
+        this.usernameKey = usernameKey;
+    }
+
+    public String getEmailKey() {
+        return emailKey;
+    }
+
+    public void setEmailKey(String emailKey) {
+        this.emailKey = emailKey;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Boolean getEmailVerified() {
+        return emailVerified;
+    }
+
+    public void setEmailVerified(Boolean emailVerified) {
+        this.emailVerified = emailVerified;
+    }
+
+    /**
+     * The primary key of a UserIdentity: user type and user ID.
+     */
+    public static class Key implements Serializable {
+
+        private String userType;
+        private Integer userId;
+
+        public Key() {
+        }
+
+        public Key(String userType, Integer userId) {
+            this.userType = userType;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(userType, other.userType) && Objects.equals(userId, other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userType, userId);
+        }
+    }
+}
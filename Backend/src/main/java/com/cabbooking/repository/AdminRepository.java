@@ -1,9 +1,16 @@
 package com.cabbooking.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.cabbooking.dto.UserSummaryDTO;
 import com.cabbooking.model.Admin;
 
 /**
@@ -60,4 +67,83 @@ public interface AdminRepository extends JpaRepository<Admin, Integer> {
      * @return A list of unverified admins.
      */
     List<Admin> findByVerifiedFalse();
+
+    /**
+     * Finds which of the given usernames are already taken by an Admin, in
+     * a single query. Used by the bulk driver import to check a whole chunk
+     * of rows at once.
+     *
+     * @param usernames The usernames to check.
+     * @return The subset of usernames that already exist.
+     */
+    @Query("select a.username from Admin a where a.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Finds which of the given email addresses are already registered by an
+     * Admin, in a single query. Used by the bulk driver import.
+     *
+     * @param emails The email addresses to check.
+     * @return The subset of email addresses that already exist.
+     */
+    @Query("select a.email from Admin a where a.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Reads one page of admin summaries, selecting only the summary columns.
+     * Returns a Slice, so no count query is run.
+     *
+     * @param verified The verification state to match, or null for all.
+     * @param namePrefix A LIKE pattern matched against the username, first
+     * name and last name (with '!' as escape character), or null for all.
+     * Each name is matched in its own branch of a union of IDs, so every
+     * branch is a range of the index on that name.
+     * @param pageable The page, size and sort order.
+     * @return The admin summaries of the page.
+     */
+    @Query("select new com.cabbooking.dto.UserSummaryDTO(a.id, a.username, a.firstName, a.lastName, a.email, "
+            + "a.mobileNumber, a.verified) from Admin a "
+            + "where (:verified is null or a.verified = :verified) "
+            + "and (:namePrefix is null or a.id in ("
+            + "select n.id from Admin n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Admin n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Admin n where n.lastName like :namePrefix escape '!'))")
+    Slice<UserSummaryDTO> findSummaries(@Param("verified") Boolean verified, @Param("namePrefix") String namePrefix,
+            Pageable pageable);
+
+    /**
+     * Counts the admins matching the filters of findSummaries. Only run when
+     * a listing asks for the total.
+     *
+     * @param verified The verification state to match, or null for all.
+     * @param namePrefix A LIKE pattern as for findSummaries, or null for all.
+     * @return The number of matching admins.
+     */
+    @Query("select count(a) from Admin a where (:verified is null or a.verified = :verified) "
+            + "and (:namePrefix is null or a.id in ("
+            + "select n.id from Admin n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Admin n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Admin n where n.lastName like :namePrefix escape '!'))")
+    long countSummaries(@Param("verified") Boolean verified, @Param("namePrefix") String namePrefix);
+
+    /**
+     * Marks the email of an Admin as verified in one statement, by ID.
+     *
+     * @param id The ID of the admin.
+     * @return The number of rows updated (0 if the admin does not exist).
+     */
+    @Modifying
+    @Query("update Admin a set a.emailVerified = true where a.id = :id")
+    int markEmailVerified(@Param("id") Integer id);
+
+    /**
+     * Replaces the password hash of an Admin in one statement, by ID.
+     *
+     * @param id The ID of the admin.
+     * @param password The new password hash.
+     * @return The number of rows updated (0 if the admin does not exist).
+     */
+    @Modifying
+    @Query("update Admin a set a.password = :password where a.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
@@ -1,25 +1,56 @@
 package com.cabbooking.repository;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.cabbooking.model.BlacklistedToken;
 
 /**
  * BlacklistedTokenRepository interface for managing blacklisted JWT tokens.
+ *
+ * Requests are checked against the in-memory blacklist; this repository only
+ * persists it, loads it on startup and shares it between instances.
  */
 public interface BlacklistedTokenRepository extends JpaRepository<BlacklistedToken, Long> {
 
     /**
-     * Finds a blacklisted token by its unique token string.
+     * Finds the rows that still hold the token instead of its digest, written
+     * before tokens were stored as digests.
      *
-     * This method is a key part of the security check, allowing the system to
-     * determine if a presented JWT is still valid.
+     * @return The rows to convert.
+     */
+    List<BlacklistedToken> findByTokenHashIsNull();
+
+    /**
+     * Finds the blacklisted tokens that have not expired. Used to load the
+     * in-memory blacklist on startup.
+     *
+     * @param now The current time.
+     * @return The rows of unexpired tokens.
+     */
+    List<BlacklistedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Finds the tokens blacklisted since a given time, by any instance. Used
+     * to keep the in-memory blacklist of every instance up to date.
+     *
+     * @param since The time to read from (inclusive).
+     * @return The rows blacklisted since then.
+     */
+    List<BlacklistedToken> findByBlacklistedAtGreaterThanEqual(LocalDateTime since);
+
+    /**
+     * Deletes the rows of tokens that have expired.
      *
-     * @param token The JWT string to search for in the blacklist.
-     * @return An {@link Optional} containing the {@link BlacklistedToken} if
-     * found, otherwise empty.
+     * @param now The current time.
+     * @return The number of rows deleted.
      */
-    Optional<BlacklistedToken> findByToken(String token);
+    @Modifying
+    @Query("delete from BlacklistedToken b where b.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
 }
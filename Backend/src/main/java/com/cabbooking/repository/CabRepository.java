@@ -1,11 +1,18 @@
 package com.cabbooking.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.cabbooking.model.Cab;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * CabRepository interface for performing CRUD operations on Cab entities.
  */
@@ -18,11 +25,30 @@ public interface CabRepository extends JpaRepository<Cab, Integer> {
      * an admin wants to view all SUVs or a customer requests a specific type of
      * car.
      *
+     * The result is kept in the query cache until a cab changes.
+     *
      * @param carType The car type to search for (e.g., "Sedan", "SUV").
      * @return A list of {@link Cab} entities that match the specified car type.
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Cab.QUERY_CACHE_REGION)
+    })
     List<Cab> findByCarType(String carType);
 
+    /**
+     * Finds all cabs. Backs the cab catalog and the available cab listing, so
+     * the result is kept in the query cache until a cab changes.
+     *
+     * @return A list of all cabs.
+     */
+    @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Cab.QUERY_CACHE_REGION)
+    })
+    List<Cab> findAll();
+
     /**
      * Checks if a Cab with the given number plate already exists.
      *
@@ -30,4 +56,14 @@ public interface CabRepository extends JpaRepository<Cab, Integer> {
      * @return True if a cab with that number plate exists, false otherwise.
      */
     boolean existsByNumberPlate(String numberPlate);
+
+    /**
+     * Finds which of the given number plates are already registered, in a
+     * single query. Used by the bulk driver import.
+     *
+     * @param numberPlates The number plates to check.
+     * @return The subset of number plates that already exist.
+     */
+    @Query("select c.numberPlate from Cab c where c.numberPlate in :numberPlates")
+    List<String> findExistingNumberPlates(@Param("numberPlates") Collection<String> numberPlates);
 }
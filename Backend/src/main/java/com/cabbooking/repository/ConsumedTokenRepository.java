@@ -0,0 +1,26 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.ConsumedToken;
+
+/**
+ * ConsumedTokenRepository interface for the IDs of used action tokens.
+ */
+public interface ConsumedTokenRepository extends JpaRepository<ConsumedToken, String> {
+
+    /**
+     * Deletes the rows of tokens that have expired.
+     *
+     * @param now The current time.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Query("delete from ConsumedToken c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
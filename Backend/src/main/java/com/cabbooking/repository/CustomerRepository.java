@@ -1,7 +1,16 @@
 package com.cabbooking.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.cabbooking.dto.UserSummaryDTO;
 import com.cabbooking.model.Customer;
 
 /**
@@ -51,4 +60,77 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer> {
      * @param username The unique username of the customer to delete.
      */
     void deleteByUsername(String username);
+
+    /**
+     * Finds which of the given usernames are already taken by a Customer, in
+     * a single query. Used by the bulk driver import to check a whole chunk
+     * of rows at once.
+     *
+     * @param usernames The usernames to check.
+     * @return The subset of usernames that already exist.
+     */
+    @Query("select c.username from Customer c where c.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Finds which of the given email addresses are already registered by a
+     * Customer, in a single query. Used by the bulk driver import.
+     *
+     * @param emails The email addresses to check.
+     * @return The subset of email addresses that already exist.
+     */
+    @Query("select c.email from Customer c where c.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Reads one page of customer summaries, selecting only the summary
+     * columns. Returns a Slice, so no count query is run.
+     *
+     * @param namePrefix A LIKE pattern matched against the username, first
+     * name and last name (with '!' as escape character), or null for all.
+     * Each name is matched in its own branch of a union of IDs, so every
+     * branch is a range of the index on that name.
+     * @param pageable The page, size and sort order.
+     * @return The customer summaries of the page.
+     */
+    @Query("select new com.cabbooking.dto.UserSummaryDTO(c.id, c.username, c.firstName, c.lastName, c.email, "
+            + "c.mobileNumber) from Customer c where (:namePrefix is null or c.id in ("
+            + "select n.id from Customer n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Customer n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Customer n where n.lastName like :namePrefix escape '!'))")
+    Slice<UserSummaryDTO> findSummaries(@Param("namePrefix") String namePrefix, Pageable pageable);
+
+    /**
+     * Counts the customers matching the filters of findSummaries. Only run
+     * when a listing asks for the total.
+     *
+     * @param namePrefix A LIKE pattern as for findSummaries, or null for all.
+     * @return The number of matching customers.
+     */
+    @Query("select count(c) from Customer c where (:namePrefix is null or c.id in ("
+            + "select n.id from Customer n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Customer n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Customer n where n.lastName like :namePrefix escape '!'))")
+    long countSummaries(@Param("namePrefix") String namePrefix);
+
+    /**
+     * Marks the email of a Customer as verified in one statement, by ID.
+     *
+     * @param id The ID of the customer.
+     * @return The number of rows updated (0 if the customer does not exist).
+     */
+    @Modifying
+    @Query("update Customer c set c.emailVerified = true where c.id = :id")
+    int markEmailVerified(@Param("id") Integer id);
+
+    /**
+     * Replaces the password hash of a Customer in one statement, by ID.
+     *
+     * @param id The ID of the customer.
+     * @param password The new password hash.
+     * @return The number of rows updated (0 if the customer does not exist).
+     */
+    @Modifying
+    @Query("update Customer c set c.password = :password where c.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
@@ -0,0 +1,89 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.DailyCarTypeRollup;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * DailyCarTypeRollupRepository interface for reading and incrementing the
+ * daily per-car-type revenue rollups.
+ */
+public interface DailyCarTypeRollupRepository extends JpaRepository<DailyCarTypeRollup, Long> {
+
+    /**
+     * Finds all rollup rows within a date range, ordered by day and car type.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    List<DailyCarTypeRollup> findByRollupDateBetweenOrderByRollupDateAscCarTypeAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Finds the rollup rows of one day and locks them until the end of the
+     * transaction, so the rebuild of the day and the increments of the same
+     * rows run one after the other.
+     *
+     * @param rollupDate The day.
+     * @return The car type rollup rows of the day.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyCarTypeRollup> findByRollupDate(LocalDate rollupDate);
+
+    /**
+     * Finds the distinct days that have rollup rows.
+     *
+     * @return The days, in no particular order.
+     */
+    @Query("select distinct r.rollupDate from DailyCarTypeRollup r")
+    List<LocalDate> findRollupDates();
+
+    /**
+     * Checks if a rollup row already exists for a day and car type.
+     *
+     * @param rollupDate The day.
+     * @param carType The car type.
+     * @return True if the row exists, false otherwise.
+     */
+    boolean existsByRollupDateAndCarType(LocalDate rollupDate, String carType);
+
+    /**
+     * Adds one completed trip to an existing rollup row in a single atomic
+     * statement, so concurrent completions never lose an increment.
+     *
+     * @param date The completion day.
+     * @param carType The car type of the trip.
+     * @param bill The bill of the trip.
+     * @param distance The distance of the trip.
+     * @return The number of rows updated (0 if the row does not exist yet).
+     */
+    @Modifying
+    @Query("update DailyCarTypeRollup r set r.tripCount = r.tripCount + 1, "
+            + "r.totalBill = r.totalBill + :bill, r.totalDistance = r.totalDistance + :distance "
+            + "where r.rollupDate = :date and r.carType = :carType")
+    int addCompletedTrip(@Param("date") LocalDate date, @Param("carType") String carType,
+            @Param("bill") double bill, @Param("distance") double distance);
+
+    /**
+     * Adds one customer rating to an existing rollup row in a single atomic
+     * statement.
+     *
+     * @param date The completion day of the rated trip.
+     * @param carType The car type of the rated trip.
+     * @param rating The rating value (1-5).
+     * @return The number of rows updated (0 if the row does not exist yet).
+     */
+    @Modifying
+    @Query("update DailyCarTypeRollup r set r.ratingSum = r.ratingSum + :rating, r.ratingCount = r.ratingCount + 1 "
+            + "where r.rollupDate = :date and r.carType = :carType")
+    int addRating(@Param("date") LocalDate date, @Param("carType") String carType, @Param("rating") int rating);
+}
@@ -0,0 +1,99 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.DailyDriverRollup;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * DailyDriverRollupRepository interface for reading and incrementing the daily
+ * per-driver earnings rollups.
+ */
+public interface DailyDriverRollupRepository extends JpaRepository<DailyDriverRollup, Long> {
+
+    /**
+     * Finds all rollup rows within a date range, ordered by day and driver.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    List<DailyDriverRollup> findByRollupDateBetweenOrderByRollupDateAscDriverIdAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Finds the rollup rows of one driver within a date range, ordered by day.
+     *
+     * @param driverId The ID of the driver.
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    List<DailyDriverRollup> findByDriverIdAndRollupDateBetweenOrderByRollupDateAsc(Integer driverId, LocalDate from, LocalDate to);
+
+    /**
+     * Finds the rollup rows of one day and locks them until the end of the
+     * transaction, so the rebuild of the day and the increments of the same
+     * rows run one after the other.
+     *
+     * @param rollupDate The day.
+     * @return The driver rollup rows of the day.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyDriverRollup> findByRollupDate(LocalDate rollupDate);
+
+    /**
+     * Finds the distinct days that have rollup rows.
+     *
+     * @return The days, in no particular order.
+     */
+    @Query("select distinct r.rollupDate from DailyDriverRollup r")
+    List<LocalDate> findRollupDates();
+
+    /**
+     * Checks if a rollup row already exists for a day and driver.
+     *
+     * @param rollupDate The day.
+     * @param driverId The ID of the driver.
+     * @return True if the row exists, false otherwise.
+     */
+    boolean existsByRollupDateAndDriverId(LocalDate rollupDate, Integer driverId);
+
+    /**
+     * Adds one completed trip to an existing rollup row in a single atomic
+     * statement, so concurrent completions never lose an increment.
+     *
+     * @param date The completion day.
+     * @param driverId The ID of the driver.
+     * @param bill The bill of the trip.
+     * @param distance The distance of the trip.
+     * @return The number of rows updated (0 if the row does not exist yet).
+     */
+    @Modifying
+    @Query("update DailyDriverRollup r set r.tripCount = r.tripCount + 1, "
+            + "r.totalBill = r.totalBill + :bill, r.totalDistance = r.totalDistance + :distance "
+            + "where r.rollupDate = :date and r.driverId = :driverId")
+    int addCompletedTrip(@Param("date") LocalDate date, @Param("driverId") Integer driverId,
+            @Param("bill") double bill, @Param("distance") double distance);
+
+    /**
+     * Adds one customer rating to an existing rollup row in a single atomic
+     * statement.
+     *
+     * @param date The completion day of the rated trip.
+     * @param driverId The ID of the driver.
+     * @param rating The rating value (1-5).
+     * @return The number of rows updated (0 if the row does not exist yet).
+     */
+    @Modifying
+    @Query("update DailyDriverRollup r set r.ratingSum = r.ratingSum + :rating, r.ratingCount = r.ratingCount + 1 "
+            + "where r.rollupDate = :date and r.driverId = :driverId")
+    int addRating(@Param("date") LocalDate date, @Param("driverId") Integer driverId, @Param("rating") int rating);
+}
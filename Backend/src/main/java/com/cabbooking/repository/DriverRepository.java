@@ -1,9 +1,17 @@
 package com.cabbooking.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.cabbooking.dto.FleetAvailabilityRow;
+import com.cabbooking.dto.UserSummaryDTO;
 import com.cabbooking.model.Driver;
 
 /**
@@ -60,4 +68,248 @@ public interface DriverRepository extends JpaRepository<Driver, Integer> {
      * @return A list of unverified drivers.
      */
     List<Driver> findByVerifiedFalse();
+
+    /**
+     * Finds all verified drivers who are currently available. Used when
+     * matching drivers to immediate and scheduled trips and for fare estimates,
+     * so the remaining filters run on the small set of candidates only.
+     *
+     * @return A list of verified, available drivers.
+     */
+    List<Driver> findByVerifiedTrueAndIsAvailableTrue();
+
+    /**
+     * Reads the verified, available drivers that have a cab and a location,
+     * joined with their cab, as flat rows in a single query. Used for driver
+     * matching and fare estimates instead of loading Driver entities, each of
+     * which would load its cab with a separate query.
+     *
+     * @param carType The car type to match (case-insensitive), or null for
+     * all car types.
+     * @return The available fleet rows.
+     */
+    @Query("select new com.cabbooking.dto.FleetAvailabilityRow(d.id, d.latitude, d.longitude, d.ratingSum, "
+            + "d.totalRatings, d.verified, d.isAvailable, c.cabId, c.carType, c.perKmRate) "
+            + "from Driver d join d.cab c "
+            + "where d.verified = true and d.isAvailable = true "
+            + "and d.latitude is not null and d.longitude is not null "
+            + "and (:carType is null or lower(c.carType) = lower(:carType))")
+    List<FleetAvailabilityRow> findAvailableFleet(@Param("carType") String carType);
+
+    /**
+     * Reads every driver that has a cab, joined with the cab, as flat rows
+     * in ID order, starting after a given ID. Used to load the fleet state
+     * registry in keyset-paginated batches. A row is available unless the
+     * driver or the cab is stored as unavailable.
+     *
+     * @param afterId The last driver ID of the previous batch (0 for the first).
+     * @param pageable The batch size (the page number must be 0).
+     * @return The fleet rows of the batch.
+     */
+    @Query("select new com.cabbooking.dto.FleetAvailabilityRow(d.id, d.latitude, d.longitude, d.ratingSum, "
+            + "d.totalRatings, d.verified, "
+            + "case when d.isAvailable = false or c.isAvailable = false then false else true end, "
+            + "c.cabId, c.carType, c.perKmRate) "
+            + "from Driver d join d.cab c where d.id > :afterId order by d.id")
+    List<FleetAvailabilityRow> findFleetRowsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Loads the given drivers together with their cabs in a single query.
+     *
+     * @param ids The IDs of the drivers.
+     * @return The drivers found, in no particular order.
+     */
+    @Query("select d from Driver d left join fetch d.cab where d.id in :ids")
+    List<Driver> findAllWithCabByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Checks if a Driver with the given licence number already exists.
+     * Values are compared with the column collation, which is
+     * case-insensitive on MySQL.
+     *
+     * @param licenceNo The licence number to check.
+     * @return True if a driver with that licence number exists, false otherwise.
+     */
+    boolean existsByLicenceNo(String licenceNo);
+
+    /**
+     * Finds which of the given usernames are already taken by a Driver, in
+     * a single query. Used by the bulk driver import to check a whole chunk
+     * of rows at once.
+     *
+     * @param usernames The usernames to check.
+     * @return The subset of usernames that already exist.
+     */
+    @Query("select d.username from Driver d where d.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Finds which of the given email addresses are already registered by a
+     * Driver, in a single query. Used by the bulk driver import.
+     *
+     * @param emails The email addresses to check.
+     * @return The subset of email addresses that already exist.
+     */
+    @Query("select d.email from Driver d where d.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Finds which of the given licence numbers are already registered, in a
+     * single query. Used by the bulk driver import. Values are compared with
+     * the column collation, which is case-insensitive on MySQL.
+     *
+     * @param licenceNos The licence numbers to check.
+     * @return The subset of licence numbers that already exist.
+     */
+    @Query("select d.licenceNo from Driver d where d.licenceNo in :licenceNos")
+    List<String> findExistingLicenceNos(@Param("licenceNos") Collection<String> licenceNos);
+
+    /**
+     * Adds one customer rating to a driver in a single atomic statement, so
+     * concurrent ratings never lose an update and never block on a read of
+     * the driver row.
+     *
+     * @param driverId The ID of the driver.
+     * @param rating The rating value (1-5).
+     * @return The number of rows updated (0 if the driver does not exist).
+     */
+    @Modifying
+    @Query("update Driver d set d.ratingSum = d.ratingSum + :rating, d.totalRatings = d.totalRatings + 1 "
+            + "where d.id = :driverId")
+    int addRating(@Param("driverId") Integer driverId, @Param("rating") int rating);
+
+    /**
+     * Reads the leaderboard columns of drivers in ID order, starting after a
+     * given ID. Used to build the driver leaderboard in keyset-paginated
+     * batches without loading entities.
+     *
+     * Each row contains: driver ID, username, first name, last name, car type
+     * of the cab (or null), rating sum and rating count.
+     *
+     * @param afterId The last driver ID of the previous batch (0 for the first).
+     * @param pageable The batch size (the page number must be 0).
+     * @return A list of projection rows.
+     */
+    @Query("select d.id, d.username, d.firstName, d.lastName, c.carType, d.ratingSum, d.totalRatings "
+            + "from Driver d left join d.cab c where d.id > :afterId order by d.id")
+    List<Object[]> findLeaderboardRowsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Reads the leaderboard columns of the given drivers, in the same row
+     * layout as findLeaderboardRowsAfter. Used to refresh single drivers of
+     * the leaderboard from the committed state.
+     *
+     * @param driverIds The IDs of the drivers.
+     * @return A list of projection rows; drivers that no longer exist are missing.
+     */
+    @Query("select d.id, d.username, d.firstName, d.lastName, c.carType, d.ratingSum, d.totalRatings "
+            + "from Driver d left join d.cab c where d.id in :driverIds")
+    List<Object[]> findLeaderboardRows(@Param("driverIds") Collection<Integer> driverIds);
+
+    /**
+     * Reads one page of driver summaries, selecting only the summary columns.
+     * The rating range is compared against the rating sum and count, so it
+     * needs no per-row division; unrated drivers never match a rating range.
+     * Returns a Slice, so no count query is run.
+     *
+     * @param verified The verification state to match, or null for all.
+     * @param minRating The lowest average rating to match, or null.
+     * @param maxRating The highest average rating to match, or null.
+     * @param namePrefix A LIKE pattern matched against the username, first
+     * name and last name (with '!' as escape character), or null for all.
+     * Each name is matched in its own branch of a union of IDs, so every
+     * branch is a range of the index on that name.
+     * @param pageable The page, size and sort order.
+     * @return The driver summaries of the page.
+     */
+    @Query("select new com.cabbooking.dto.UserSummaryDTO(d.id, d.username, d.firstName, d.lastName, d.email, "
+            + "d.mobileNumber, d.ratingSum, d.totalRatings, d.licenceNo, d.verified) from Driver d "
+            + "where (:verified is null or d.verified = :verified) "
+            + "and (:minRating is null or (d.totalRatings > 0 and d.ratingSum >= cast(:minRating as Double) * d.totalRatings)) "
+            + "and (:maxRating is null or (d.totalRatings > 0 and d.ratingSum <= cast(:maxRating as Double) * d.totalRatings)) "
+            + "and (:namePrefix is null or d.id in ("
+            + "select n.id from Driver n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Driver n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Driver n where n.lastName like :namePrefix escape '!'))")
+    Slice<UserSummaryDTO> findSummaries(@Param("verified") Boolean verified, @Param("minRating") Double minRating,
+            @Param("maxRating") Double maxRating, @Param("namePrefix") String namePrefix, Pageable pageable);
+
+    /**
+     * Counts the drivers matching the filters of findSummaries. Only run when
+     * a listing asks for the total.
+     *
+     * @param verified The verification state to match, or null for all.
+     * @param minRating The lowest average rating to match, or null.
+     * @param maxRating The highest average rating to match, or null.
+     * @param namePrefix A LIKE pattern as for findSummaries, or null for all.
+     * @return The number of matching drivers.
+     */
+    @Query("select count(d) from Driver d "
+            + "where (:verified is null or d.verified = :verified) "
+            + "and (:minRating is null or (d.totalRatings > 0 and d.ratingSum >= cast(:minRating as Double) * d.totalRatings)) "
+            + "and (:maxRating is null or (d.totalRatings > 0 and d.ratingSum <= cast(:maxRating as Double) * d.totalRatings)) "
+            + "and (:namePrefix is null or d.id in ("
+            + "select n.id from Driver n where n.username like :namePrefix escape '!' "
+            + "union select n.id from Driver n where n.firstName like :namePrefix escape '!' "
+            + "union select n.id from Driver n where n.lastName like :namePrefix escape '!'))")
+    long countSummaries(@Param("verified") Boolean verified, @Param("minRating") Double minRating,
+            @Param("maxRating") Double maxRating, @Param("namePrefix") String namePrefix);
+
+    /**
+     * Takes an available driver for a trip, in the booking transaction. The
+     * status check and the change are one statement, so two bookings, even
+     * of different application instances, can never both take the driver.
+     *
+     * @param id The ID of the driver.
+     * @return The number of rows updated (0 if the driver is not available).
+     */
+    @Modifying
+    @Query("update Driver d set d.isAvailable = false, d.version = d.version + 1 "
+            + "where d.id = :id and (d.isAvailable = true or d.isAvailable is null)")
+    int markUnavailable(@Param("id") Integer id);
+
+    /**
+     * Makes a driver taken for a trip available again, in the transaction
+     * that completes or cancels the trip.
+     *
+     * @param id The ID of the driver.
+     * @return The number of rows updated (0 if the driver was not taken).
+     */
+    @Modifying
+    @Query("update Driver d set d.isAvailable = true, d.version = d.version + 1 "
+            + "where d.id = :id and d.isAvailable = false")
+    int markAvailable(@Param("id") Integer id);
+
+    /**
+     * Finds which of the given drivers are available in the database, for
+     * the refresh of the drivers another instance has released.
+     *
+     * @param ids The IDs of the drivers.
+     * @return The IDs of the available drivers among them.
+     */
+    @Query("select d.id from Driver d where d.id in :ids and d.isAvailable = true")
+    List<Integer> findAvailableIdsIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Marks the email of a Driver as verified in one statement, by ID.
+     * The version is raised, so a concurrent update of the driver loaded
+     * before fails instead of writing the old value back.
+     *
+     * @param id The ID of the driver.
+     * @return The number of rows updated (0 if the driver does not exist).
+     */
+    @Modifying
+    @Query("update Driver d set d.emailVerified = true, d.version = d.version + 1 where d.id = :id")
+    int markEmailVerified(@Param("id") Integer id);
+
+    /**
+     * Replaces the password hash of a Driver in one statement, by ID.
+     *
+     * @param id The ID of the driver.
+     * @param password The new password hash.
+     * @return The number of rows updated (0 if the driver does not exist).
+     */
+    @Modifying
+    @Query("update Driver d set d.password = :password, d.version = d.version + 1 where d.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
@@ -0,0 +1,45 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.JobLock;
+
+/**
+ * JobLockRepository interface for claiming and releasing scheduled jobs.
+ */
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    /**
+     * Claims a job whose last claim has run out. The check and the claim are
+     * one statement, so of several instances only one can take the job.
+     *
+     * @param name The name of the job.
+     * @param lockedBy The claim token of the claiming instance.
+     * @param lockedUntil The end of the new claim.
+     * @param now The current time.
+     * @return The number of rows updated (0 if the job is claimed elsewhere).
+     */
+    @Modifying
+    @Query("update JobLock l set l.lockedBy = :lockedBy, l.lockedUntil = :lockedUntil "
+            + "where l.name = :name and l.lockedUntil <= :now")
+    int claim(@Param("name") String name, @Param("lockedBy") String lockedBy,
+            @Param("lockedUntil") LocalDateTime lockedUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Ends a claim early, if it is still held by the given claimer.
+     *
+     * @param name The name of the job.
+     * @param lockedBy The claim token of the claiming instance.
+     * @param lockedUntil The new end of the claim.
+     * @return The number of rows updated (0 if the claim was taken over).
+     */
+    @Modifying
+    @Query("update JobLock l set l.lockedUntil = :lockedUntil where l.name = :name and l.lockedBy = :lockedBy")
+    int release(@Param("name") String name, @Param("lockedBy") String lockedBy,
+            @Param("lockedUntil") LocalDateTime lockedUntil);
+}
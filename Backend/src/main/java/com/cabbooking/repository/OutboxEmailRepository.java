@@ -0,0 +1,80 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.OutboxEmail;
+
+/**
+ * OutboxEmailRepository interface for the emails waiting to be sent.
+ */
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Finds the IDs of the emails in a given status whose next attempt is
+     * due, the longest waiting first. Used by the dispatcher to pick the
+     * rows of its next batch.
+     *
+     * @param status The status (normally PENDING).
+     * @param now Emails due at or before this time are selected.
+     * @param pageable The batch size (the page number must be 0).
+     * @return A list of due email IDs.
+     */
+    @Query("select e.id from OutboxEmail e where e.status = :status and e.nextAttemptAt <= :now "
+            + "order by e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("status") OutboxEmail.Status status, @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    /**
+     * Claims the given emails for one dispatcher, if they are still in the
+     * given status and due, in a single statement. The next attempt is moved to the end
+     * of the lease, so no other dispatcher picks the emails meanwhile.
+     *
+     * @param ids The IDs of the emails.
+     * @param status The status (normally PENDING).
+     * @param token The claim token of the dispatcher.
+     * @param now The time the emails were found due.
+     * @param leaseUntil When the emails become due again if they are
+     * neither sent nor rescheduled.
+     * @return The number of emails claimed.
+     */
+    @Modifying
+    @Query("update OutboxEmail e set e.claimToken = :token, e.nextAttemptAt = :leaseUntil "
+            + "where e.id in :ids and e.status = :status and e.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") OutboxEmail.Status status,
+            @Param("token") String token, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Finds the emails claimed with a given token, in the order they were
+     * queued.
+     *
+     * @param token The claim token.
+     * @return A list of claimed emails.
+     */
+    List<OutboxEmail> findByClaimTokenOrderByIdAsc(String token);
+
+    /**
+     * Counts the emails in a given status, i.e. the queue depth.
+     *
+     * @param status The status.
+     * @return The number of emails.
+     */
+    long countByStatus(OutboxEmail.Status status);
+
+    /**
+     * Finds when the oldest email in a given status was queued.
+     *
+     * @param status The status (normally PENDING).
+     * @return The creation time, or null if there is no such email.
+     */
+    @Query("select min(e.createdAt) from OutboxEmail e where e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") OutboxEmail.Status status);
+}
@@ -0,0 +1,47 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.TokenEpoch;
+import com.cabbooking.model.UserIdentity;
+
+/**
+ * TokenEpochRepository interface for the token epochs of users whose tokens
+ * were revoked.
+ *
+ * Requests are checked against the epochs held in memory; this repository
+ * persists them, loads them on startup and shares them between instances.
+ */
+public interface TokenEpochRepository extends JpaRepository<TokenEpoch, UserIdentity.Key> {
+
+    /**
+     * Finds the epochs raised since a given time, by any instance.
+     *
+     * @param since The time to read from (inclusive).
+     * @return The rows changed since then.
+     */
+    List<TokenEpoch> findByChangedAtGreaterThanEqual(LocalDateTime since);
+
+    /**
+     * Raises the epoch of a user in one statement, to one above the higher
+     * of the stored epoch and a given floor. Concurrent revocations of the
+     * same user, on any instance, each raise the epoch.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param floor The epoch the new epoch must be above (e.g. the one in memory).
+     * @param changedAt The time of the change.
+     * @return The number of rows updated (0 if the user has no row yet).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update TokenEpoch e set e.epoch = case when e.epoch < :floor then :floor + 1 else e.epoch + 1 end, "
+            + "e.changedAt = :changedAt where e.userType = :userType and e.userId = :userId")
+    int raise(@Param("userType") String userType, @Param("userId") Integer userId, @Param("floor") int floor,
+            @Param("changedAt") LocalDateTime changedAt);
+}
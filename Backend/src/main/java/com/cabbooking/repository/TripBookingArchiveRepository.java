@@ -0,0 +1,100 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.TripBookingArchive;
+import com.cabbooking.model.TripStatus;
+
+/**
+ * TripBookingArchiveRepository interface for reading archived trips.
+ */
+public interface TripBookingArchiveRepository extends JpaRepository<TripBookingArchive, Integer> {
+
+    /**
+     * Finds all archived trips of a customer.
+     *
+     * @param customerId The ID of the customer.
+     * @return A list of archived trips.
+     */
+    List<TripBookingArchive> findByCustomerId(Integer customerId);
+
+    /**
+     * Finds all archived trips of a driver.
+     *
+     * @param driverId The ID of the driver.
+     * @return A list of archived trips.
+     */
+    List<TripBookingArchive> findByDriverId(Integer driverId);
+
+    /**
+     * Finds all archived trips that started within a given date and time range.
+     *
+     * @param start The beginning of the range.
+     * @param end The end of the range.
+     * @return A list of archived trips.
+     */
+    List<TripBookingArchive> findByFromDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Aggregates archived trips of a given status per completion day and car
+     * type. Same row layout as TripBookingRepository.aggregateByDayAndCarType.
+     *
+     * @param status The trip status to aggregate (normally COMPLETED).
+     * @param from The start of the completion time range (inclusive).
+     * @param to The end of the completion time range (exclusive).
+     * @return A list of aggregate rows.
+     */
+    @Query("select cast(t.toDateTime as LocalDate), t.carType, count(t), sum(t.bill), sum(t.distanceInKm), "
+            + "sum(t.customerRating), count(t.customerRating) from TripBookingArchive t "
+            + "where t.status = :status and t.toDateTime >= :from and t.toDateTime < :to "
+            + "group by cast(t.toDateTime as LocalDate), t.carType")
+    List<Object[]> aggregateByDayAndCarType(@Param("status") TripStatus status, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Aggregates archived trips of a given status per completion day and
+     * driver. Same row layout as TripBookingRepository.aggregateByDayAndDriver.
+     *
+     * @param status The trip status to aggregate (normally COMPLETED).
+     * @param from The start of the completion time range (inclusive).
+     * @param to The end of the completion time range (exclusive).
+     * @return A list of aggregate rows.
+     */
+    @Query("select cast(t.toDateTime as LocalDate), t.driverId, count(t), sum(t.bill), sum(t.distanceInKm), "
+            + "sum(t.customerRating), count(t.customerRating) from TripBookingArchive t "
+            + "where t.status = :status and t.toDateTime >= :from and t.toDateTime < :to and t.driverId is not null "
+            + "group by cast(t.toDateTime as LocalDate), t.driverId")
+    List<Object[]> aggregateByDayAndDriver(@Param("status") TripStatus status, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Finds the distinct days on which archived trips of a given status were
+     * completed. Used to rebuild the rollups one day at a time.
+     *
+     * @param status The trip status (normally COMPLETED).
+     * @return The completion days, in no particular order.
+     */
+    @Query("select distinct cast(t.toDateTime as LocalDate) from TripBookingArchive t "
+            + "where t.status = :status and t.toDateTime is not null")
+    List<LocalDate> findCompletionDays(@Param("status") TripStatus status);
+
+    /**
+     * Reads the analytics columns of archived trips in ID order, starting
+     * after a given ID. Same row layout as
+     * TripBookingRepository.findAnalyticsRowsAfter.
+     *
+     * @param afterId The last trip ID of the previous batch (0 for the first).
+     * @param pageable The batch size (the page number must be 0).
+     * @return A list of projection rows.
+     */
+    @Query("select t.tripBookingId, t.fromDateTime, t.status, t.carType, t.driverId, t.bill, t.distanceInKm, "
+            + "t.customerRating from TripBookingArchive t where t.tripBookingId > :afterId order by t.tripBookingId")
+    List<Object[]> findAnalyticsRowsAfter(@Param("afterId") Integer afterId, Pageable pageable);
+}
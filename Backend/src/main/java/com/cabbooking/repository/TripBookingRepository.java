@@ -1,11 +1,18 @@
 package com.cabbooking.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
 
 /**
  * TripBookingRepository interface for performing CRUD operations on TripBooking
@@ -39,4 +46,145 @@ public interface TripBookingRepository extends JpaRepository<TripBooking, Intege
      * @return A list of trips that started on that day.
      */
     List<TripBooking> findByFromDateTimeBetween(LocalDateTime startOfDay, LocalDateTime endOfDay);
+
+    /**
+     * Finds all trips in a given status that start before a given time. Used
+     * by the scheduler to pick the scheduled trips that are due.
+     *
+     * @param status The trip status (normally SCHEDULED).
+     * @param before Trips that start before this time are selected.
+     * @return A list of matching trips.
+     */
+    List<TripBooking> findByStatusAndFromDateTimeBefore(TripStatus status, LocalDateTime before);
+
+    /**
+     * Aggregates trips of a given status per completion day and car type.
+     * Used to rebuild the revenue rollups from the raw trip table.
+     *
+     * Each row contains: completion day, car type, trip count, bill sum,
+     * distance sum, rating sum and rating count.
+     *
+     * @param status The trip status to aggregate (normally COMPLETED).
+     * @param from The start of the completion time range (inclusive).
+     * @param to The end of the completion time range (exclusive).
+     * @return A list of aggregate rows.
+     */
+    @Query("select cast(t.toDateTime as LocalDate), t.carType, count(t), sum(t.bill), sum(t.distanceInKm), "
+            + "sum(t.customerRating), count(t.customerRating) from TripBooking t "
+            + "where t.status = :status and t.toDateTime >= :from and t.toDateTime < :to "
+            + "group by cast(t.toDateTime as LocalDate), t.carType")
+    List<Object[]> aggregateByDayAndCarType(@Param("status") TripStatus status, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Aggregates trips of a given status per completion day and driver.
+     * Used to rebuild the earnings rollups from the raw trip table.
+     *
+     * Each row contains: completion day, driver ID, trip count, bill sum,
+     * distance sum, rating sum and rating count.
+     *
+     * @param status The trip status to aggregate (normally COMPLETED).
+     * @param from The start of the completion time range (inclusive).
+     * @param to The end of the completion time range (exclusive).
+     * @return A list of aggregate rows.
+     */
+    @Query("select cast(t.toDateTime as LocalDate), t.driver.id, count(t), sum(t.bill), sum(t.distanceInKm), "
+            + "sum(t.customerRating), count(t.customerRating) from TripBooking t "
+            + "where t.status = :status and t.toDateTime >= :from and t.toDateTime < :to and t.driver is not null "
+            + "group by cast(t.toDateTime as LocalDate), t.driver.id")
+    List<Object[]> aggregateByDayAndDriver(@Param("status") TripStatus status, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Finds the distinct days on which trips of a given status were
+     * completed. Used to rebuild the rollups one day at a time.
+     *
+     * @param status The trip status (normally COMPLETED).
+     * @return The completion days, in no particular order.
+     */
+    @Query("select distinct cast(t.toDateTime as LocalDate) from TripBooking t "
+            + "where t.status = :status and t.toDateTime is not null")
+    List<LocalDate> findCompletionDays(@Param("status") TripStatus status);
+
+    /**
+     * Reads the analytics columns of trips in the given statuses, in ID order,
+     * starting after a given ID. Used to bulk load the analytics column store
+     * in keyset-paginated batches without loading entities.
+     *
+     * Each row contains: trip ID, start time, status, car type, driver ID (or
+     * null), bill, distance and customer rating (or null).
+     *
+     * @param afterId The last trip ID of the previous batch (0 for the first).
+     * @param statuses The trip statuses to include.
+     * @param pageable The batch size (the page number must be 0).
+     * @return A list of projection rows.
+     */
+    @Query("select t.tripBookingId, t.fromDateTime, t.status, t.carType, d.id, t.bill, t.distanceInKm, "
+            + "t.customerRating from TripBooking t left join t.driver d "
+            + "where t.tripBookingId > :afterId and t.status in :statuses order by t.tripBookingId")
+    List<Object[]> findAnalyticsRowsAfter(@Param("afterId") Integer afterId,
+            @Param("statuses") Collection<TripStatus> statuses, Pageable pageable);
+
+    /**
+     * Finds the IDs of trips in the given statuses that started before a
+     * cutoff, in ID order. Used by the archival job to pick its next batch.
+     *
+     * @param statuses The trip statuses that may be archived.
+     * @param cutoff Trips that started before this time are selected.
+     * @param pageable The batch size (the page number must be 0).
+     * @return A list of trip IDs.
+     */
+    @Query("select t.tripBookingId from TripBooking t "
+            + "where t.status in :statuses and t.fromDateTime < :cutoff order by t.tripBookingId")
+    List<Integer> findArchivableIds(@Param("statuses") Collection<TripStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Finds trips by ID with their customer, driver and cab fetched in the
+     * same query, so a batch can be archived without N+1 lookups.
+     *
+     * @param ids The trip IDs.
+     * @return A list of trips.
+     */
+    @Query("select t from TripBooking t left join fetch t.customer left join fetch t.driver "
+            + "left join fetch t.cab where t.tripBookingId in :ids")
+    List<TripBooking> findAllWithPartiesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Deletes a trip only if it is unchanged since it was read. Used by the
+     * archival job after copying the trip, so a trip changed concurrently
+     * (e.g. rated) is neither lost nor archived with its old state.
+     *
+     * @param id The ID of the trip.
+     * @param version The version of the trip when it was read.
+     * @return The number of rows deleted (0 if the trip has changed).
+     */
+    @Modifying
+    @Query("delete from TripBooking t where t.tripBookingId = :id and t.version = :version")
+    int deleteIfUnchanged(@Param("id") Integer id, @Param("version") Long version);
+
+    /**
+     * Moves a trip of a given driver to another status in one statement. The
+     * status and driver conditions are the guard: of two concurrent
+     * transitions of the same trip only one updates the row, and unrelated
+     * changes of the trip do not get in the way. The old status is copied to
+     * previousStatus in the same statement (it is assigned first, so MySQL,
+     * which applies assignments left to right, copies the old value too).
+     * The version is raised, so a concurrent change of the trip loaded before
+     * (e.g. a completion) fails instead of overwriting the new status. The
+     * persistence context is cleared, so the trip is read again with its new
+     * status.
+     *
+     * @param tripId The ID of the trip.
+     * @param sources The statuses the trip may move from.
+     * @param to The new status.
+     * @param driverId The ID of the driver the trip must be assigned to.
+     * @return The number of rows updated: 1 if the trip moved, 0 if it does
+     * not exist, has another status or belongs to another driver.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update TripBooking t set t.previousStatus = t.status, t.status = :to, t.version = t.version + 1 "
+            + "where t.tripBookingId = :tripId and t.status in :sources and t.driver.id = :driverId")
+    int transition(@Param("tripId") Integer tripId, @Param("sources") Collection<TripStatus> sources,
+            @Param("to") TripStatus to, @Param("driverId") Integer driverId);
 }
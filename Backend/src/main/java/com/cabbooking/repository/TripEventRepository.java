@@ -0,0 +1,43 @@
+package com.cabbooking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.TripEvent;
+
+/**
+ * TripEventRepository interface for appending to and reading the trip
+ * lifecycle log.
+ */
+public interface TripEventRepository extends JpaRepository<TripEvent, Long> {
+
+    /**
+     * Reads the events after a given position in (occurredAt, id) order,
+     * up to a time. Used by the projection consumer to catch up with the log
+     * in keyset-paginated batches. IDs are not used as the position, because
+     * each instance takes them in blocks.
+     *
+     * @param afterTime The time of the last event already applied.
+     * @param afterId The ID of the last event already applied.
+     * @param settledBefore Only events that occurred before this time are read.
+     * @param pageable The batch size (the page number must be 0).
+     * @return The events of the batch.
+     */
+    @Query("select e from TripEvent e where e.occurredAt >= :afterTime and e.occurredAt < :settledBefore "
+            + "and (e.occurredAt > :afterTime or e.id > :afterId) order by e.occurredAt, e.id")
+    List<TripEvent> findSettledAfter(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+            @Param("settledBefore") LocalDateTime settledBefore, Pageable pageable);
+
+    /**
+     * Reads the full history of one trip in the order it happened.
+     *
+     * @param tripBookingId The ID of the trip.
+     * @return The events of the trip.
+     */
+    List<TripEvent> findByTripBookingIdOrderByIdAsc(Integer tripBookingId);
+}
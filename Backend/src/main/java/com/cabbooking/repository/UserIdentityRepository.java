@@ -0,0 +1,70 @@
+package com.cabbooking.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.cabbooking.model.UserIdentity;
+
+/**
+ * UserIdentityRepository interface for the identity directory used by login.
+ */
+public interface UserIdentityRepository extends JpaRepository<UserIdentity, UserIdentity.Key> {
+
+    /**
+     * Finds the users whose normalized username or email equals the key. The
+     * two conditions are separate selects so each one uses its own index.
+     *
+     * @param key The trimmed, lower-case username or email.
+     * @return The matching identities; more than one only if the key is the
+     * username of one user and the email of another, or on old data.
+     */
+    @Query("select u from UserIdentity u where u.usernameKey = :key "
+            + "union select u from UserIdentity u where u.emailKey = :key")
+    List<UserIdentity> findByLookupKey(@Param("key") String key);
+
+    /**
+     * @param usernameKey The trimmed, lower-case username.
+     * @return True if any user has this username.
+     */
+    boolean existsByUsernameKey(String usernameKey);
+
+    /**
+     * @param emailKey The trimmed, lower-case email.
+     * @return True if any user has this email.
+     */
+    boolean existsByEmailKey(String emailKey);
+
+    /**
+     * @param emailKey The trimmed, lower-case email.
+     * @return The users with this email; more than one only on old data.
+     */
+    List<UserIdentity> findByEmailKey(String emailKey);
+
+    /**
+     * Marks the email of a user as verified, by primary key.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @return The number of rows updated (0 if the user has no entry).
+     */
+    @Modifying
+    @Query("update UserIdentity u set u.emailVerified = true where u.userType = :userType and u.userId = :userId")
+    int markEmailVerified(@Param("userType") String userType, @Param("userId") Integer userId);
+
+    /**
+     * Replaces the password hash of a user, by primary key.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param password The new password hash.
+     * @return The number of rows updated (0 if the user has no entry).
+     */
+    @Modifying
+    @Query("update UserIdentity u set u.password = :password where u.userType = :userType and u.userId = :userId")
+    int updatePassword(@Param("userType") String userType, @Param("userId") Integer userId,
+            @Param("password") String password);
+}
@@ -0,0 +1,75 @@
+package com.cabbooking.security;
+
+import java.time.Instant;
+
+/**
+ * The verified contents of a signed email verification or password reset
+ * token (see ActionTokenSigner).
+ *
+ * The token names the user by type and ID, so using it needs no lookup by
+ * email, and carries its own expiry, so nothing is stored until it is used.
+ */
+public class ActionToken {
+
+    /**
+     * What a token may be used for. A token signed for one purpose is
+     * refused for the other.
+     */
+    public enum Purpose {
+        EMAIL_VERIFICATION,
+        PASSWORD_RESET
+    }
+
+    private final String tokenId;
+    private final Purpose purpose;
+    private final String userType;
+    private final Integer userId;
+    private final Instant expiresAt;
+    private final String fingerprint;
+
+    public ActionToken(String tokenId, Purpose purpose, String userType, Integer userId, Instant expiresAt,
+            String fingerprint) {
+        this.tokenId = tokenId;
+        this.purpose = purpose;
+        this.userType = userType;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.fingerprint = fingerprint;
+    }
+
+    // ======= Getters =======
+
+    /**
+     * @return The random ID of the token, remembered once it is used.
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Purpose getPurpose() {
+        return purpose;
+    }
+
+    /**
+     * @return The type of the user: "Admin", "Driver" or "Customer".
+     */
+    public String getUserType() {
+        return userType;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return A digest of the user state the token is bound to (the password
+     * hash for resets), or an empty string if it is not bound.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+}
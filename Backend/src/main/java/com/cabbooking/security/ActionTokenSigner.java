@@ -0,0 +1,160 @@
+package com.cabbooking.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Issues and checks the tokens sent in email verification and password
+ * reset links.
+ *
+ * A token is self-contained: the payload (purpose, user type, user ID,
+ * expiry, a random token ID and an optional fingerprint) followed by its
+ * HMAC-SHA256, both Base64url encoded and joined by a dot. Checking one is a
+ * signature check; nothing is stored when it is issued. Single use is
+ * enforced by ConsumedTokenGuard.
+ *
+ * The key is read from security.action-token.secret (at least 32 bytes).
+ * IMPORTANT: Set it in application.properties or the environment; the
+ * default is for development only.
+ */
+@Component
+public class ActionTokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /*
+     * Length of the digest prefix a token is bound to the password hash by.
+     */
+    private static final int FINGERPRINT_LENGTH = 16;
+
+    @Value("${security.action-token.secret:your-256-bit-secret-key-for-action-tokens-32-chars}")
+    private String secret = "your-256-bit-secret-key-for-action-tokens-32-chars";
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SecretKeySpec key;
+
+    /**
+     * Builds the signing key from the configured secret.
+     */
+    @PostConstruct
+    public void init() {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalStateException("security.action-token.secret must be at least 32 bytes.");
+        }
+        key = new SecretKeySpec(secretBytes, ALGORITHM);
+    }
+
+    /**
+     * Issues a signed token.
+     *
+     * @param purpose What the token may be used for.
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param fingerprint The fingerprint of the user state the token is bound
+     * to, or null.
+     * @param validity How long the token is valid.
+     * @return The token, safe to use in a URL.
+     */
+    public String sign(ActionToken.Purpose purpose, String userType, Integer userId, String fingerprint,
+            Duration validity) {
+        byte[] id = new byte[16];
+        random.nextBytes(id);
+        String payload = String.join("|", purpose.name(), userType, String.valueOf(userId),
+                String.valueOf(Instant.now().plus(validity).getEpochSecond()), ENCODER.encodeToString(id),
+                fingerprint == null ? "" : fingerprint);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(mac(payloadBytes));
+    }
+
+    /**
+     * Checks a token and reads its contents.
+     *
+     * Workflow:
+     * - Recomputes the HMAC of the payload and compares it in constant time.
+     * - Refuses a token issued for another purpose or past its expiry.
+     *
+     * @param token The token from the link.
+     * @param purpose The purpose it is used for.
+     * @return The contents of the token, or empty if it is malformed, forged,
+     * for another purpose or expired.
+     */
+    public Optional<ActionToken> verify(String token, ActionToken.Purpose purpose) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac(payloadBytes), signature)) {
+                return Optional.empty();
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", -1);
+            if (fields.length != 6 || !purpose.name().equals(fields[0])) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[3]));
+            if (!expiresAt.isAfter(Instant.now())) {
+                return Optional.empty();
+            }
+            return Optional.of(new ActionToken(fields[4], purpose, fields[1], Integer.valueOf(fields[2]), expiresAt,
+                    fields[5]));
+        } catch (IllegalArgumentException e) {
+            // Not Base64url, or a number field that does not parse
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Derives the fingerprint a password reset token is bound to, so the
+     * token stops working once the password has changed, even after a
+     * restart.
+     *
+     * @param passwordHash The current password hash of the user.
+     * @return A prefix of the SHA-256 digest of the hash.
+     */
+    public static String fingerprint(String passwordHash) {
+        return TokenDigest.of(passwordHash).substring(0, FINGERPRINT_LENGTH);
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to compute the HMAC of a payload. Mac instances are not
+     * thread-safe, so each call gets its own.
+     */
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
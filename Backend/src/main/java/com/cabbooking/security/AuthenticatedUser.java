@@ -0,0 +1,85 @@
+package com.cabbooking.security;
+
+import java.security.Principal;
+import java.util.Objects;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+
+/**
+ * The principal JwtAuthenticationFilter puts into the security context: the
+ * username, user type and user ID from the JWT claims.
+ *
+ * Services compare the user ID with foreign key columns (e.g. the driver
+ * and customer of a trip) instead of loading the user to compare usernames.
+ * The user ID is null for tokens issued before the "uid" claim existed.
+ */
+public final class AuthenticatedUser implements AuthenticatedPrincipal {
+
+    private final String username;
+    private final String userType;
+    private final Integer userId;
+
+    public AuthenticatedUser(String username, String userType, Integer userId) {
+        this.username = username;
+        this.userType = userType;
+        this.userId = userId;
+    }
+
+    /**
+     * Reads the typed principal of an authenticated request.
+     *
+     * @param principal The principal Spring MVC passes to a controller.
+     * @return The AuthenticatedUser set by JwtAuthenticationFilter, or one
+     * with only the username for any other kind of authentication.
+     */
+    public static AuthenticatedUser of(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return new AuthenticatedUser(principal.getName(), null, null);
+    }
+
+    /**
+     * @param type The user type, e.g. "Driver".
+     * @param id The user ID to compare with, e.g. the driver of a trip.
+     * @return True if the user has this type and ID. Always false for a user
+     * without an ID.
+     */
+    public boolean is(String type, Integer id) {
+        return userId != null && userId.equals(id) && Objects.equals(userType, type);
+    }
+
+    /**
+     * @return The username, as the JWT subject.
+     */
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    // ======= Getters =======
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return The user type: "Admin", "Driver" or "Customer".
+     */
+    public String getUserType() {
+        return userType;
+    }
+
+    /**
+     * @return The ID of the user, or null for tokens issued without one.
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,37 @@
+package com.cabbooking.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A PasswordEncoder that runs the hashing and checking of its delegate on
+ * the PasswordHashingExecutor instead of the calling (servlet) thread.
+ *
+ * It is the application's PasswordEncoder, so the login check of the
+ * AuthenticationManager and the encoding in the registration and password
+ * reset services all share the bounded pool.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
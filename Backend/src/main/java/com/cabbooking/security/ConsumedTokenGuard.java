@@ -0,0 +1,104 @@
+package com.cabbooking.security;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.ConsumedToken;
+import com.cabbooking.repository.ConsumedTokenRepository;
+
+/**
+ * Makes signed action tokens single use.
+ *
+ * Only tokens that were used are remembered, by token ID, and only until
+ * they expire; after that the signature check refuses them anyway. Unused
+ * tokens cost nothing, however many links are sent.
+ *
+ * The IDs are inserted into the consumed_token table, whose primary key
+ * refuses a second use on every instance and after a restart. consume runs
+ * the insert in its own transaction, so a refused use does not roll back
+ * the caller's transaction. consumeInTransaction runs it in the caller's
+ * transaction instead, for uses that change data: the token is only used
+ * up if the change commits, and a refused use rolls the change back.
+ */
+@Component
+public class ConsumedTokenGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumedTokenGuard.class);
+
+    /*
+     * Repository for the used token IDs.
+     */
+    @Autowired
+    private ConsumedTokenRepository consumedTokenRepository;
+
+    /*
+     * Transaction manager for the insert and the purge.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Marks a token as used, atomically across instances.
+     *
+     * @param token The verified token.
+     * @return True if this is the first use of the token, false if it was
+     * used before.
+     */
+    public boolean consume(ActionToken token) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> consumedTokenRepository.saveAndFlush(toRow(token)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks a token as used in the caller's transaction, so the use commits
+     * or rolls back together with the change the token authorizes.
+     *
+     * @param token The verified token.
+     * @throws DataIntegrityViolationException if the token was used before;
+     * the caller's transaction is then rolled back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consumeInTransaction(ActionToken token) {
+        consumedTokenRepository.saveAndFlush(toRow(token));
+    }
+
+    /**
+     * Forgets the tokens that have expired.
+     *
+     * @return The number of token IDs dropped.
+     */
+    @Scheduled(fixedDelayString = "${security.action-token.purge-ms:600000}")
+    public int purgeExpired() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Integer dropped = transactionTemplate.execute(status -> consumedTokenRepository.deleteExpired(LocalDateTime.now()));
+        if (dropped != null && dropped > 0) {
+            logger.debug("Dropped {} expired action token IDs.", dropped);
+        }
+        return dropped != null ? dropped : 0;
+    }
+
+    /*
+     * Helper method to build the row recording a used token until it expires.
+     */
+    private ConsumedToken toRow(ActionToken token) {
+        return new ConsumedToken(token.getTokenId(), LocalDateTime.ofInstant(token.getExpiresAt(), ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.cabbooking.security;
+
+import java.util.List;
+
+import org.springframework.security.core.userdetails.User;
+
+import com.cabbooking.model.UserIdentity;
+
+/**
+ * The UserDetails that LoginServiceImpl hands to Spring Security. Keeps the
+ * directory entry it was built from, so after authentication the login
+ * resolves the user type and ID from the principal instead of looking the
+ * user up again.
+ */
+public class DirectoryUserDetails extends User {
+
+    private final UserIdentity identity;
+
+    public DirectoryUserDetails(UserIdentity identity) {
+        super(identity.getUsername(), identity.getPassword(), List.of());
+        this.identity = identity;
+    }
+
+    public UserIdentity getIdentity() {
+        return identity;
+    }
+}
@@ -1,26 +1,37 @@
 package com.cabbooking.security;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.cabbooking.repository.BlacklistedTokenRepository;
+import com.cabbooking.service.ITokenBlacklistService;
+import com.cabbooking.service.ITokenEpochService;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+/**
+ * Authenticates requests carrying a JWT in the Authorization header.
+ *
+ * Workflow:
+ * - Rejects blacklisted (logged out) tokens with 401, checked in memory.
+ * - Takes the username and authorities from the VerifiedTokenCache, or
+ *   verifies the token once through JwtUtil and caches the result until the
+ *   token expires. Invalid tokens leave the request unauthenticated.
+ * - Rejects tokens issued before their user's tokens were revoked (token
+ *   epoch) with 401, also checked in memory.
+ * - Puts the authentication into the security context, with an
+ *   AuthenticatedUser (username, user type and ID from the claims) as the
+ *   principal.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -28,7 +39,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private BlacklistedTokenRepository blacklistedTokenRepository;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private ITokenBlacklistService tokenBlacklistService;
+
+    @Autowired
+    private ITokenEpochService tokenEpochService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -36,41 +53,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain) throws ServletException, IOException {
 
         final String header = request.getHeader("Authorization");
-        String username = null;
-        String token = null;
+        VerifiedToken verified = null;
 
         if (header != null && header.startsWith("Bearer ")) {
-            token = header.substring(7);
+            String token = header.substring(7);
+            String digest = TokenDigest.of(token);
 
-            var isBlacklisted = blacklistedTokenRepository.findByToken(token).isPresent();
-            if (isBlacklisted) {
+            if (tokenBlacklistService.isBlacklisted(digest)) {
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token is blacklisted");
                 return;
             }
 
-            try {
-                if (jwtUtil.validateToken(token)) {
-                    username = jwtUtil.getUsernameFromJWT(token);
-                }
-            } catch (Exception e) {
-                // Token validation errors can be logged here if needed
+            verified = resolve(token, digest);
+
+            if (verified != null && tokenEpochService.isRevoked(verified)) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token is revoked");
+                return;
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            Jws<Claims> claimsJws = jwtUtil.getClaimsFromJWT(token);
-            Claims claims = claimsJws.getBody();
-            String role = claims.get("role", String.class);
-
-            // --- THE FIX IS HERE ---
-            // Create a plain, uppercase authority WITHOUT the "ROLE_" prefix.
-            List<SimpleGrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority(role.toUpperCase()));
+        if (verified != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
+            // The authorities are plain, uppercase roles WITHOUT the "ROLE_" prefix.
             UsernamePasswordAuthenticationToken authentication
                     = new UsernamePasswordAuthenticationToken(
-                            username, null,
-                            authorities
+                            new AuthenticatedUser(verified.getUsername(), verified.getUserType(),
+                                    verified.getUserId()),
+                            null,
+                            verified.getAuthorities()
                     );
 
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -80,5 +90,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
 
+    /*
+     * Helper method to read a token from the cache, or verify and cache it.
+     * Returns null for an invalid token.
+     */
+    private VerifiedToken resolve(String token, String digest) {
+        VerifiedToken verified = verifiedTokenCache.get(digest);
+        if (verified != null) {
+            return verified;
+        }
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Malformed, tampered with or expired
+            return null;
+        }
+        verifiedTokenCache.put(digest, verified);
+        return verified;
+    }
+}
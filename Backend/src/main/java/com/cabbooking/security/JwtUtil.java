@@ -2,14 +2,17 @@ package com.cabbooking.security;
 
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
 
 import javax.crypto.SecretKey;
 
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -20,11 +23,16 @@ import io.jsonwebtoken.security.Keys;
  * - Generating new JWTs for authenticated users.
  * - Parsing and validating incoming JWTs.
  * - Extracting claims (like username and role) from tokens.
+ * - Embedding the user ID and token epoch, so all tokens of a user can be revoked
+ *   by raising the epoch (see ITokenEpochService).
  *
  * Workflow:
  * - After a user successfully logs in, the `LoginService` calls `generateToken` to create a JWT.
- * - For every subsequent request to a protected endpoint, the `JwtAuthenticationFilter` uses this utility
- * to validate the token and extract user details.
+ * - For every subsequent request to a protected endpoint, the `JwtAuthenticationFilter` calls `verify`
+ * once to check the signature and expiry and read the user details, unless the token is already in
+ * the `VerifiedTokenCache`.
+ *
+ * All tokens are parsed by one parser, built once; JJWT parsers are immutable and thread-safe.
  */
 @Component
 public class JwtUtil {
@@ -36,6 +44,9 @@ public class JwtUtil {
     // The validity duration for a token, set to 24 hours in milliseconds.
     private final long jwtExpirationInMs = 24 * 60 * 60 * 1000;
 
+    // The parser verifying the signature and expiry of incoming tokens, shared by all requests.
+    private final JwtParser jwtParser = Jwts.parserBuilder().setSigningKey(jwtSecret).build();
+
     /**
      * Generates a new JWT for a given user.
      *
@@ -56,6 +67,38 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Generates a new JWT for a given user that can be revoked by raising
+     * the user's token epoch.
+     *
+     * @param username The username of the user for whom the token is generated.
+     * @param role The user type (e.g., "Admin", "Customer"), added as the role claim.
+     * @param userId The ID of the user, added as the "uid" claim.
+     * @param epoch The current token epoch of the user, added as the "epoch" claim.
+     * @return A compact, URL-safe JWT string.
+     */
+    public String generateToken(String username, String role, Integer userId, int epoch) {
+        Instant now = Instant.now();
+        Instant expiry = now.plusMillis(jwtExpirationInMs);
+
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("role", role)
+                .claim("uid", userId)
+                .claim("epoch", epoch)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expiry))
+                .signWith(jwtSecret)
+                .compact();
+    }
+
+    /**
+     * @return How long a new token is valid, in milliseconds.
+     */
+    public long getExpirationInMs() {
+        return jwtExpirationInMs;
+    }
+
     /**
      * Extracts the username (subject) from a given JWT.
      *
@@ -63,11 +106,7 @@ public class JwtUtil {
      * @return The username contained within the token.
      */
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                            .setSigningKey(jwtSecret)
-                            .build()
-                            .parseClaimsJws(token)
-                            .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
         return claims.getSubject();
     }
 
@@ -79,7 +118,7 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(jwtSecret).build().parseClaimsJws(token);
+            jwtParser.parseClaimsJws(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             // You can log the specific error here for debugging if you want
@@ -95,9 +134,30 @@ public class JwtUtil {
      * @return A Jws object containing all the token's claims.
      */
     public Jws<Claims> getClaimsFromJWT(String token) {
-        return Jwts.parserBuilder()
-                   .setSigningKey(jwtSecret)
-                   .build()
-                   .parseClaimsJws(token);
+        return jwtParser.parseClaimsJws(token);
+    }
+
+    /**
+     * Verifies a JWT and reads everything an authenticated request needs
+     * from it, with a single parse.
+     *
+     * @param token The JWT string to verify.
+     * @return The username, authority, expiry, user ID and epoch of the
+     * token. The role is mapped to a plain, uppercase authority without the
+     * "ROLE_" prefix. Tokens without an epoch claim are at epoch 0.
+     * @throws JwtException if the token is malformed, tampered with or expired.
+     * @throws IllegalArgumentException if the token is empty.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        String role = claims.get("role", String.class);
+        Integer epoch = claims.get("epoch", Integer.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                role != null ? List.of(new SimpleGrantedAuthority(role.toUpperCase())) : List.of(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                role,
+                claims.get("uid", Integer.class),
+                epoch != null ? epoch : 0);
     }
 }
@@ -0,0 +1,170 @@
+package com.cabbooking.security;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cabbooking.exception.LoginThrottledException;
+import com.cabbooking.exception.PasswordHashingBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Admission control for logins, checked before any database lookup or
+ * password hashing.
+ *
+ * Workflow:
+ * - A login is refused with a LoginThrottledException (429) once its
+ *   identifier had security.login-throttle.max-identifier-failures failed
+ *   logins (default 5), or its client address had
+ *   security.login-throttle.max-address-failures (default 50), within
+ *   security.login-throttle.window-seconds (default 300) of the first one.
+ * - A successful login clears the failures of its identifier.
+ * - A login is refused with a PasswordHashingBusyException (503) while the
+ *   PasswordHashingExecutor queue is full, rather than being queued first.
+ *
+ * Failures are counted per instance, in bounded caches.
+ */
+@Component
+public class LoginThrottle {
+
+    /*
+     * Pool that checks passwords; logins are shed while it is saturated.
+     */
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Value("${security.login-throttle.max-identifier-failures:5}")
+    private int maxIdentifierFailures = 5;
+
+    @Value("${security.login-throttle.max-address-failures:50}")
+    private int maxAddressFailures = 50;
+
+    @Value("${security.login-throttle.window-seconds:300}")
+    private long windowSeconds = 300;
+
+    /*
+     * The largest number of identifiers and addresses tracked at once.
+     */
+    @Value("${security.login-throttle.max-tracked:100000}")
+    private long maxTracked = 100000;
+
+    private Cache<String, AtomicInteger> identifierFailures;
+    private Cache<String, AtomicInteger> addressFailures;
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * Builds the failure counters with the configured window.
+     */
+    @PostConstruct
+    public void init() {
+        identifierFailures = newCounters();
+        addressFailures = newCounters();
+    }
+
+    /**
+     * Admits or refuses a login attempt.
+     *
+     * @param identifier The username or email of the attempt.
+     * @param clientAddress The client address, or null if unknown.
+     * @throws LoginThrottledException if there were too many failures for
+     * the identifier or the address.
+     * @throws PasswordHashingBusyException if the password could not be
+     * checked now.
+     */
+    public void admit(String identifier, String clientAddress) {
+        if (failures(identifierFailures, normalize(identifier)) >= maxIdentifierFailures
+                || failures(addressFailures, clientAddress) >= maxAddressFailures) {
+            throttled.increment();
+            throw new LoginThrottledException("Too many failed logins, please try again later.", windowSeconds);
+        }
+        if (passwordHashingExecutor.isSaturated()) {
+            shed.increment();
+            throw new PasswordHashingBusyException("Too many logins in progress, please retry shortly.");
+        }
+    }
+
+    /**
+     * Counts a failed login against its identifier and address.
+     *
+     * @param identifier The username or email of the attempt.
+     * @param clientAddress The client address, or null if unknown.
+     */
+    public void recordFailure(String identifier, String clientAddress) {
+        increment(identifierFailures, normalize(identifier));
+        increment(addressFailures, clientAddress);
+    }
+
+    /**
+     * Clears the failures of an identifier after a successful login.
+     *
+     * @param identifier The username or email of the attempt.
+     */
+    public void recordSuccess(String identifier) {
+        String key = normalize(identifier);
+        if (key != null) {
+            identifierFailures.invalidate(key);
+        }
+    }
+
+    /**
+     * @return The limits, the number of tracked identifiers and addresses,
+     * and the number of logins throttled and shed since startup.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxIdentifierFailures", maxIdentifierFailures);
+        status.put("maxAddressFailures", maxAddressFailures);
+        status.put("windowSeconds", windowSeconds);
+        status.put("trackedIdentifiers", identifierFailures.estimatedSize());
+        status.put("trackedAddresses", addressFailures.estimatedSize());
+        status.put("throttled", throttled.sum());
+        status.put("shed", shed.sum());
+        return status;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to build a cache of failure counters that expire one
+     * window after the first failure.
+     */
+    private Cache<String, AtomicInteger> newCounters() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterWrite(Duration.ofSeconds(windowSeconds))
+                .build();
+    }
+
+    private int failures(Cache<String, AtomicInteger> counters, String key) {
+        if (key == null) {
+            return 0;
+        }
+        AtomicInteger count = counters.getIfPresent(key);
+        return count != null ? count.get() : 0;
+    }
+
+    private void increment(Cache<String, AtomicInteger> counters, String key) {
+        if (key != null) {
+            counters.get(key, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private String normalize(String identifier) {
+        return identifier != null ? identifier.trim().toLowerCase(Locale.ROOT) : null;
+    }
+}
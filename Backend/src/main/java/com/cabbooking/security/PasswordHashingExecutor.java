@@ -0,0 +1,199 @@
+package com.cabbooking.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cabbooking.exception.PasswordHashingBusyException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * A bounded worker pool that runs every BCrypt hash and check, so password
+ * work cannot take more than its share of the CPU away from other requests.
+ *
+ * Workflow:
+ * - security.password-hashing.threads workers (default half the processors,
+ *   at least one) take tasks from a queue of
+ *   security.password-hashing.queue-size (default 32).
+ * - A task submitted while the queue is full is rejected at once with a
+ *   PasswordHashingBusyException.
+ * - A task that waited in the queue longer than
+ *   security.password-hashing.max-wait-ms (default 2000) is dropped without
+ *   hashing, since its caller would rather get an answer than wait more.
+ * - The caller's thread blocks until its task is done, but uses no CPU
+ *   meanwhile.
+ *
+ * Counters for submitted, rejected and dropped tasks, queue wait times and
+ * busy time are exported by getStatus.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    /*
+     * The number of worker threads; 0 uses half the available processors.
+     */
+    @Value("${security.password-hashing.threads:0}")
+    private int threads;
+
+    /*
+     * The number of tasks that may wait for a worker.
+     */
+    @Value("${security.password-hashing.queue-size:32}")
+    private int queueSize = 32;
+
+    /*
+     * The longest a task may wait for a worker before it is dropped.
+     */
+    @Value("${security.password-hashing.max-wait-ms:2000}")
+    private long maxWaitMs = 2000;
+
+    private ThreadPoolExecutor pool;
+    private long startedNanos;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder busyNanos = new LongAdder();
+
+    /**
+     * Starts the worker threads.
+     */
+    @PostConstruct
+    public void start() {
+        int workers = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        startedNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the worker threads when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     *
+     * @param task The task, e.g. a BCrypt encode or match.
+     * @return The result of the task.
+     * @throws PasswordHashingBusyException if the queue is full or the task
+     * waited too long for a worker.
+     */
+    public <T> T call(Supplier<T> task) {
+        long enqueued = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> run(task, enqueued, result));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing is saturated, please retry shortly.");
+        }
+        submitted.increment();
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return True if the queue is full, i.e. a task submitted now would be
+     * rejected.
+     */
+    public boolean isSaturated() {
+        return pool.getQueue().remainingCapacity() == 0;
+    }
+
+    /**
+     * @return The pool size, active workers, queued tasks, utilization (busy
+     * time over worker time since startup), task counters and queue wait
+     * times.
+     */
+    public Map<String, Object> getStatus() {
+        int workers = pool.getMaximumPoolSize();
+        long elapsedNanos = Math.max(1, System.nanoTime() - startedNanos);
+        long tasks = completed.sum() + dropped.sum();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("threads", workers);
+        status.put("active", pool.getActiveCount());
+        status.put("queued", pool.getQueue().size());
+        status.put("queueCapacity", queueSize);
+        status.put("utilization", (double) busyNanos.sum() / ((double) elapsedNanos * workers));
+        status.put("submitted", submitted.sum());
+        status.put("completed", completed.sum());
+        status.put("rejected", rejected.sum());
+        status.put("dropped", dropped.sum());
+        status.put("averageWaitMs", tasks == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / tasks);
+        status.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return status;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method run by a worker: records the queue wait, then runs the
+     * task unless it waited too long. Counters are updated before the result
+     * is handed to the waiting caller.
+     */
+    private <T> void run(Supplier<T> task, long enqueued, CompletableFuture<T> result) {
+        long started = System.nanoTime();
+        long waited = started - enqueued;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (waited > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+            dropped.increment();
+            result.completeExceptionally(
+                    new PasswordHashingBusyException("Password hashing is saturated, please retry shortly."));
+            return;
+        }
+        T value = null;
+        RuntimeException failure = null;
+        try {
+            value = task.get();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        busyNanos.add(System.nanoTime() - started);
+        completed.increment();
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(value);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.cabbooking.security;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TokenBlacklist holds the digests of logged out JWTs until the tokens expire.
+ *
+ * Structure:
+ * - A TokenBloomFilter in front answers the common case, a token that was
+ *   never blacklisted, without touching the map.
+ * - A map from digest to token expiry is the exact answer for the tokens the
+ *   filter may contain. A token is blacklisted only until it expires; after
+ *   that the signature check rejects it anyway.
+ *
+ * Purging:
+ * - purgeExpired drops expired entries and rebuilds the filter from the rest,
+ *   since a Bloom filter cannot remove entries. Adds hold the read lock and
+ *   the rebuild holds the write lock, so no add lands in the filter being
+ *   replaced. Lookups take no lock.
+ */
+public class TokenBlacklist {
+
+    private final long minExpectedEntries;
+    private final double falsePositiveRate;
+
+    private final Map<String, Instant> expiries = new ConcurrentHashMap<>();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile TokenBloomFilter filter;
+
+    /**
+     * Creates an empty blacklist.
+     *
+     * @param minExpectedEntries The smallest number of entries the filter is
+     * sized for; a rebuild sizes it for twice the current entries if more.
+     * @param falsePositiveRate The target false positive rate of the filter.
+     */
+    public TokenBlacklist(long minExpectedEntries, double falsePositiveRate) {
+        this.minExpectedEntries = minExpectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new TokenBloomFilter(minExpectedEntries, falsePositiveRate);
+    }
+
+    /**
+     * Blacklists a token until it expires. Adding a known token keeps the
+     * later expiry.
+     *
+     * @param digest The TokenDigest of the token.
+     * @param expiresAt The expiry of the token.
+     */
+    public void add(String digest, Instant expiresAt) {
+        rebuildLock.readLock().lock();
+        try {
+            expiries.merge(digest, expiresAt, (a, b) -> a.isAfter(b) ? a : b);
+            filter.put(digest);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param digest The TokenDigest of the token.
+     * @param now The current time.
+     * @return True if the token is blacklisted and has not expired yet.
+     */
+    public boolean contains(String digest, Instant now) {
+        if (!filter.mightContain(digest)) {
+            return false;
+        }
+        Instant expiresAt = expiries.get(digest);
+        return expiresAt != null && expiresAt.isAfter(now);
+    }
+
+    /**
+     * Removes the tokens that have expired and rebuilds the filter.
+     *
+     * @param now The current time.
+     * @return The number of tokens removed.
+     */
+    public int purgeExpired(Instant now) {
+        rebuildLock.writeLock().lock();
+        try {
+            int before = expiries.size();
+            expiries.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+            TokenBloomFilter rebuilt = new TokenBloomFilter(
+                    Math.max(minExpectedEntries, 2L * expiries.size()), falsePositiveRate);
+            expiries.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+            return before - expiries.size();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of blacklisted tokens, including expired ones not
+     * purged yet.
+     */
+    public int size() {
+        return expiries.size();
+    }
+
+    /**
+     * @return The number of bits of the current filter.
+     */
+    public long getFilterBits() {
+        return filter.getBitCount();
+    }
+}
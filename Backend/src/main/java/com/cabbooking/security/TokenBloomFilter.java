@@ -0,0 +1,87 @@
+package com.cabbooking.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over token digests.
+ *
+ * Answers "definitely not added" or "maybe added" without allocating and
+ * without locks: bits are set with atomic updates, so adds and lookups run in
+ * parallel. The bit positions are derived from the first 32 hex characters of
+ * the digest (double hashing), which are already uniformly distributed.
+ *
+ * Sizing:
+ * - bits = -n * ln(p) / ln(2)^2 and hash functions = bits / n * ln(2), for
+ *   n expected entries and a false positive rate p.
+ * - More entries than expected only raise the false positive rate.
+ */
+public final class TokenBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedEntries The number of entries the filter is sized for.
+     * @param falsePositiveRate The target false positive rate at that size.
+     */
+    public TokenBloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter size: " + expectedEntries + ", "
+                    + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+    }
+
+    /**
+     * Adds a digest.
+     *
+     * @param digest A TokenDigest (at least 32 hex characters).
+     */
+    public void put(String digest) {
+        long h1 = Long.parseUnsignedLong(digest, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(digest, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    /**
+     * @param digest A TokenDigest (at least 32 hex characters).
+     * @return False if the digest was definitely never added, true if it may
+     * have been.
+     */
+    public boolean mightContain(String digest) {
+        long h1 = Long.parseUnsignedLong(digest, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(digest, 16, 32, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of bits of the filter.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return The number of bit positions per entry.
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cabbooking.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes the digest JWTs are identified by in the verified token cache and
+ * the token blacklist, so neither holds a usable credential. The filter
+ * computes it once per request and passes it to both.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+    }
+
+    /**
+     * @param token The JWT string.
+     * @return The SHA-256 digest of the token as 64 lowercase hex characters.
+     */
+    public static String of(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.cabbooking.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cabbooking.model.UserIdentity;
+
+/**
+ * UserNameIndex holds the normalized usernames and emails of all users in
+ * memory, so availability checks and username suggestions need no query.
+ *
+ * Structure:
+ * - One entry per user (user type and ID) with their username and email
+ *   keys, so indexing a user again after a password reset or an email
+ *   verification changes nothing, and a rename frees the old name.
+ * - One count per username key and per email key. A name is taken while
+ *   its count is above zero; on old data two users may share a name.
+ *
+ * Lookups take no lock. Changes are serialized, since they are rare and
+ * update the entry and both counts together.
+ */
+public class UserNameIndex {
+
+    /*
+     * How many numbered candidates suggest tries before giving up.
+     */
+    private static final int MAX_SUGGESTION_TRIES = 1000;
+
+    private final Map<UserIdentity.Key, Names> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> usernames = new ConcurrentHashMap<>();
+    private final Map<String, Integer> emails = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a user or replaces the names of a known user.
+     *
+     * @param owner The user type and ID.
+     * @param usernameKey The normalized username.
+     * @param emailKey The normalized email.
+     */
+    public synchronized void put(UserIdentity.Key owner, String usernameKey, String emailKey) {
+        Names previous = entries.put(owner, new Names(usernameKey, emailKey));
+        if (previous != null) {
+            release(usernames, previous.usernameKey);
+            release(emails, previous.emailKey);
+        }
+        usernames.merge(usernameKey, 1, Integer::sum);
+        emails.merge(emailKey, 1, Integer::sum);
+    }
+
+    /**
+     * Removes a user and frees their names unless another user shares them.
+     *
+     * @param owner The user type and ID.
+     */
+    public synchronized void remove(UserIdentity.Key owner) {
+        Names previous = entries.remove(owner);
+        if (previous != null) {
+            release(usernames, previous.usernameKey);
+            release(emails, previous.emailKey);
+        }
+    }
+
+    /**
+     * @param usernameKey The normalized username.
+     * @return True if a user has this username.
+     */
+    public boolean containsUsername(String usernameKey) {
+        return usernames.containsKey(usernameKey);
+    }
+
+    /**
+     * @param emailKey The normalized email.
+     * @return True if a user has this email.
+     */
+    public boolean containsEmail(String emailKey) {
+        return emails.containsKey(emailKey);
+    }
+
+    /**
+     * Suggests free usernames built from a wanted one by appending a number
+     * (e.g. "alex" gives "alex1", "alex2", ...), skipping taken ones.
+     *
+     * @param username The wanted username, trimmed; its case is kept.
+     * @param usernameKey The normalized wanted username.
+     * @param limit The maximum number of suggestions.
+     * @return Up to limit free usernames, in increasing order of the number.
+     */
+    public List<String> suggest(String username, String usernameKey, int limit) {
+        List<String> suggestions = new ArrayList<>(limit);
+        for (int n = 1; n <= MAX_SUGGESTION_TRIES && suggestions.size() < limit; n++) {
+            if (!usernames.containsKey(usernameKey + n)) {
+                suggestions.add(username + n);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return The number of indexed users.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to decrement the count of a name, dropping it at zero.
+     */
+    private static void release(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /*
+     * The names of one user.
+     */
+    private static final class Names {
+
+        private final String usernameKey;
+        private final String emailKey;
+
+        Names(String usernameKey, String emailKey) {
+            this.usernameKey = usernameKey;
+            this.emailKey = emailKey;
+        }
+    }
+}
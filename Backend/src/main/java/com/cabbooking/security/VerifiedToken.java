@@ -0,0 +1,77 @@
+package com.cabbooking.security;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The result of verifying a JWT: who the token belongs to, what they may do
+ * and until when, and the token epoch it was issued at. Immutable, so one instance can be cached and shared by
+ * every request carrying the same token.
+ */
+public final class VerifiedToken {
+
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+    private final Instant expiresAt;
+    private final String userType;
+    private final Integer userId;
+    private final int epoch;
+
+    public VerifiedToken(String username, List<? extends GrantedAuthority> authorities, Instant expiresAt) {
+        this(username, authorities, expiresAt, null, null, 0);
+    }
+
+    public VerifiedToken(String username, List<? extends GrantedAuthority> authorities, Instant expiresAt,
+            String userType, Integer userId, int epoch) {
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+        this.expiresAt = expiresAt;
+        this.userType = userType;
+        this.userId = userId;
+        this.epoch = epoch;
+    }
+
+    /**
+     * @param now The current time.
+     * @return True if the token has an expiry and it has not passed yet.
+     */
+    public boolean isValidAt(Instant now) {
+        return expiresAt != null && expiresAt.isAfter(now);
+    }
+
+    // ======= Getters =======
+    public String getUsername() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return The user type the token was issued to, as in the role claim.
+     */
+    public String getUserType() {
+        return userType;
+    }
+
+    /**
+     * @return The ID of the user, or null for tokens issued without one.
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return The token epoch of the user when the token was issued.
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+}
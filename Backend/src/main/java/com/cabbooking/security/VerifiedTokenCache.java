@@ -0,0 +1,108 @@
+package com.cabbooking.security;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * A bounded cache of verified JWTs, so a token sent again is not parsed and
+ * its HMAC signature is not checked again.
+ *
+ * Workflow:
+ * - Entries are keyed by the TokenDigest of the token, so the cache holds no
+ *   usable credentials.
+ * - Every entry expires exactly when its token does; tokens without an
+ *   expiry are never cached.
+ * - The cache holds at most security.token-cache.max-size entries (default
+ *   10000) and evicts the least recently used beyond that.
+ *
+ * Blacklisted (logged out) tokens are rejected by the JwtAuthenticationFilter
+ * before the cache is consulted.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /*
+     * The maximum number of cached tokens.
+     */
+    @Value("${security.token-cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    private Cache<String, VerifiedToken> cache;
+
+    /**
+     * Builds the cache with the configured size.
+     */
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /**
+     * Looks up a token that was verified before.
+     *
+     * @param tokenDigest The TokenDigest of the JWT.
+     * @return The verified token, or null if it is not cached or has expired.
+     */
+    public VerifiedToken get(String tokenDigest) {
+        VerifiedToken verified = cache.getIfPresent(tokenDigest);
+        return verified != null && verified.isValidAt(Instant.now()) ? verified : null;
+    }
+
+    /**
+     * Caches a token that has just been verified, until it expires.
+     *
+     * @param tokenDigest The TokenDigest of the JWT.
+     * @param verified The result of verifying it.
+     */
+    public void put(String tokenDigest, VerifiedToken verified) {
+        if (verified.isValidAt(Instant.now())) {
+            cache.put(tokenDigest, verified);
+        }
+    }
+
+    /**
+     * @return The approximate number of cached tokens.
+     */
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Expires every entry at the expiry of its token.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -3,12 +3,12 @@ package com.cabbooking.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.cabbooking.dto.AdminRegistrationRequest;
 import com.cabbooking.model.Admin;
 import com.cabbooking.repository.AdminRepository;
-import com.cabbooking.repository.CustomerRepository;
-import com.cabbooking.repository.DriverRepository;
 
 /**
  * Implementation of the IAdminRegistrationService interface.
@@ -27,9 +27,8 @@ import com.cabbooking.repository.DriverRepository;
  * - Creating and saving a new Admin entity from the registration data.
  * 
  * Dependencies:
- * - AdminRepository for database persistence and uniqueness checks.
- * - CustomerRepository for customer uniqueness checks.
- * - DriverRepository for driver uniqueness checks.
+ * - AdminRepository for database persistence.
+ * - IUserDirectoryService for username and email uniqueness checks.
  * - PasswordEncoder for securely hashing admin passwords.
  */
 @Service
@@ -43,38 +42,35 @@ public class AdminRegistrationServiceImpl implements IAdminRegistrationService {
     private AdminRepository adminRepository;
 
     /*
-     * Repository to handle CRUD operations for Customer entities.
-     * Provides methods to check for existing usernames and emails.
+     * PasswordEncoder for securely hashing admin passwords.
+     * Used for password storage and comparison.
      */
     @Autowired
-    private CustomerRepository customerRepository;
+    private PasswordEncoder passwordEncoder;
 
     /*
-     * Repository to handle CRUD operations for Driver entities.
-     * Provides methods to check for existing usernames and emails.
+     * Identity directory used by login and for uniqueness checks; new admins are added to it.
      */
     @Autowired
-    private DriverRepository driverRepository;
+    private IUserDirectoryService userDirectoryService;
 
     /*
-     * PasswordEncoder for securely hashing admin passwords.
-     * Used for password storage and comparison.
+     * Transaction manager for saving the admin and its directory entry together.
      */
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PlatformTransactionManager transactionManager;
 
     /**
      * Registers a new admin user.
      * 
      * Workflow:
-     * - Check if the username is already taken by querying all the repositories.
-     *    - If taken, throw IllegalArgumentException with error message.
-     * - Check if the email is already registered by querying all the repositories.
-     *    - If email exists, throw IllegalArgumentException.
+     * - Check that the username and email are not taken by any user, through the identity directory.
+     *    - If either is taken, throw IllegalArgumentException with error message.
      * - Create a new Admin entity and populate it with data from the request DTO.
      * - Hash the password before setting on the Admin entity.
      * - Set the "verified" flag to false to indicate that the admin is not activated yet.
-     * - Save the new Admin entity to the database and return it.
+     * - Save the new Admin entity to the database and add it to the identity directory in one
+     *   transaction, then return it.
      * 
      * Important Notes:
      * - Password hashing uses BCryptPasswordEncoder for security best practices.
@@ -86,19 +82,8 @@ public class AdminRegistrationServiceImpl implements IAdminRegistrationService {
     @Override
     public Admin registerAdmin(AdminRegistrationRequest request) {
 
-        // Check for existing username at the database level
-        if (adminRepository.existsByUsername(request.getUsername()) 
-        || customerRepository.existsByUsername(request.getUsername()) 
-        || driverRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("Username is already taken.");
-        }
-
-        // Check for existing email at the database level
-        if (adminRepository.existsByEmail(request.getEmail()) 
-        || customerRepository.existsByEmail(request.getEmail()) 
-        || driverRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email is already registered.");
-        }
+        // Check the username and email against the identity directory
+        userDirectoryService.checkAvailable(request.getUsername(), request.getEmail());
 
         // Create new Admin entity and populate fields
         Admin admin = new Admin();
@@ -117,7 +102,11 @@ public class AdminRegistrationServiceImpl implements IAdminRegistrationService {
         // Set the "verified" flag to false
         admin.setVerified(false);
 
-        // Save the entity to the database and return the persisted instance
-        return adminRepository.save(admin);
+        // Save the entity and its directory entry in one transaction and return the persisted instance
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Admin savedAdmin = adminRepository.save(admin);
+            userDirectoryService.index(savedAdmin);
+            return savedAdmin;
+        });
     }
 }
@@ -1,41 +1,83 @@
 package com.cabbooking.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.cabbooking.dto.UserListingQuery;
 import com.cabbooking.dto.UserSummaryDTO;
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.Driver;
+import com.cabbooking.dto.UserSummaryPage;
+import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
 
 /**
  * Implementation of the IAdminService for admin data operations.
- * 
- * Provides methods to retrieve customer and driver summaries.
- * 
+ *
+ * Provides methods to retrieve customer, driver and admin summaries.
+ *
  * Main Responsibilities:
- * - Fetch all customers and drivers from the database.
- * - Convert entities to UserSummaryDTOs for admin dashboard display.
+ * - Read customer, driver and admin summaries for the admin dashboard with
+ *   projection queries that select only the summary columns, so no entity is
+ *   loaded.
+ * - Serve paged, sorted and filtered listings. Pages are read as slices (one
+ *   extra row tells whether another page follows); the total is only counted
+ *   when a listing asks for it.
+ * - Validate filters, paging and sort order before querying.
  * - Log operations for monitoring and debugging.
- * - Handle potential null values gracefully.
- * - Ensure data integrity and consistency in the returned summaries.
- * - Facilitate easy integration with other services or components in the application.
- * 
+ *
  * Dependencies:
  * - CustomerRepository: For accessing customer data.
  * - DriverRepository: For accessing driver data.
+ * - AdminRepository: For accessing admin data.
  */
 @Service
 public class AdminServiceImpl implements IAdminService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminServiceImpl.class);
 
+    /*
+     * Largest page size served.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /*
+     * Most rows returned by the deprecated unpaged listings.
+     */
+    private static final int MAX_UNPAGED_SIZE = 1000;
+
+    /*
+     * Longest name prefix accepted.
+     */
+    private static final int MAX_NAME_PREFIX_LENGTH = 50;
+
+    /*
+     * Properties customer listings can be sorted by.
+     */
+    private static final Set<String> CUSTOMER_SORT_PROPERTIES =
+            Set.of("id", "username", "firstName", "lastName", "email");
+
+    /*
+     * Properties driver listings can be sorted by.
+     */
+    private static final Set<String> DRIVER_SORT_PROPERTIES =
+            Set.of("id", "username", "firstName", "lastName", "email", "verified", "totalRatings");
+
+    /*
+     * Properties admin listings can be sorted by.
+     */
+    private static final Set<String> ADMIN_SORT_PROPERTIES =
+            Set.of("id", "username", "firstName", "lastName", "email", "verified");
+
     /*
      * Provides access to customer data in the database.
      */
@@ -48,81 +90,223 @@ public class AdminServiceImpl implements IAdminService {
     @Autowired
     private DriverRepository driverRepository;
 
+    /*
+     * Provides access to admin data in the database.
+     */
+    @Autowired
+    private AdminRepository adminRepository;
+
     /**
      * Retrieves a list of customer summaries for the admin dashboard.
-     * 
+     *
      * Workflow:
-     * - Fetch all customers from the repository.
-     * - Map each Customer entity to a UserSummaryDTO.
-     * - Collect and return the list of UserSummaryDTOs.
-     * 
-     * @return List of UserSummaryDTO representing all customers.
-     * @throws RuntimeException if any error occurs during data retrieval or mapping.
+     * - Reads the summary columns of the first customers in ID order with a
+     *   projection query, at most MAX_UNPAGED_SIZE of them.
+     * - Logs a warning when more customers exist.
+     *
+     * @return List of UserSummaryDTO representing at most 1000 customers.
+     * @deprecated Use searchCustomers, which pages the listing.
      */
     @Override
+    @Deprecated
+    @Transactional(readOnly = true)
     public List<UserSummaryDTO> getAllCustomers() {
         logger.info("Fetching all customers for admin.");
-        return customerRepository.findAll()
-                .stream()
-                .map(this::mapCustomerToUserSummaryDTO)
-                .collect(Collectors.toList());
+        return capped(customerRepository.findSummaries(null, PageRequest.of(0, MAX_UNPAGED_SIZE, Sort.by("id"))),
+                "customers");
     }
 
     /**
      * Retrieves a list of driver summaries for the admin dashboard.
-     * 
+     *
      * Workflow:
-     * - Fetch all drivers from the repository.
-     * - Map each Driver entity to a UserSummaryDTO.
-     * - Collect and return the list of UserSummaryDTOs.
-     * 
-     * @return List of UserSummaryDTO representing all drivers.
-     * @throws RuntimeException if any error occurs during data retrieval or mapping.
+     * - Reads the summary columns of the first drivers in ID order with a
+     *   projection query, at most MAX_UNPAGED_SIZE of them.
+     * - Logs a warning when more drivers exist.
+     *
+     * @return List of UserSummaryDTO representing at most 1000 drivers.
+     * @deprecated Use searchDrivers, which pages the listing.
      */
     @Override
+    @Deprecated
+    @Transactional(readOnly = true)
     public List<UserSummaryDTO> getAllDrivers() {
         logger.info("Fetching all drivers for admin.");
-        return driverRepository.findAll()
-                .stream()
-                .map(this::mapDriverToUserSummaryDTO)
-                .collect(Collectors.toList());
+        return capped(driverRepository.findSummaries(null, null, null, null,
+                PageRequest.of(0, MAX_UNPAGED_SIZE, Sort.by("id"))), "drivers");
+    }
+
+    /**
+     * Retrieves one page of customer summaries.
+     *
+     * Workflow:
+     * - Rejects the driver and admin filters, which customers do not have.
+     * - Reads the page with a projection query and counts the matches only
+     *   if the total was requested.
+     *
+     * @param query The name filter, paging and sort order.
+     * @return The page of customer summaries.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSummaryPage searchCustomers(UserListingQuery query) {
+        if (query.getVerified() != null) {
+            throw new IllegalArgumentException("Customers cannot be filtered by verification state.");
+        }
+        rejectRatingFilter(query, "customers");
+        Pageable pageable = pageable(query, CUSTOMER_SORT_PROPERTIES);
+        String namePrefix = likePrefix(query.getNamePrefix());
+
+        Slice<UserSummaryDTO> slice = customerRepository.findSummaries(namePrefix, pageable);
+        Long total = query.isWithTotal() ? customerRepository.countSummaries(namePrefix) : null;
+        return toPage(slice, query, total);
+    }
+
+    /**
+     * Retrieves one page of driver summaries.
+     *
+     * Workflow:
+     * - Validates the rating range (0-5, min not above max).
+     * - Reads the page with a projection query and counts the matches only
+     *   if the total was requested.
+     *
+     * @param query The verification, rating and name filters, paging and sort order.
+     * @return The page of driver summaries.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSummaryPage searchDrivers(UserListingQuery query) {
+        Double minRating = query.getMinRating();
+        Double maxRating = query.getMaxRating();
+        validateRating(minRating, "minRating");
+        validateRating(maxRating, "maxRating");
+        if (minRating != null && maxRating != null && minRating > maxRating) {
+            throw new IllegalArgumentException("minRating must not be greater than maxRating.");
+        }
+        Pageable pageable = pageable(query, DRIVER_SORT_PROPERTIES);
+        String namePrefix = likePrefix(query.getNamePrefix());
+
+        Slice<UserSummaryDTO> slice = driverRepository.findSummaries(query.getVerified(), minRating, maxRating,
+                namePrefix, pageable);
+        Long total = query.isWithTotal()
+                ? driverRepository.countSummaries(query.getVerified(), minRating, maxRating, namePrefix)
+                : null;
+        return toPage(slice, query, total);
+    }
+
+    /**
+     * Retrieves one page of admin summaries.
+     *
+     * Workflow:
+     * - Rejects the rating filter, which admins do not have.
+     * - Reads the page with a projection query and counts the matches only
+     *   if the total was requested.
+     *
+     * @param query The verification and name filters, paging and sort order.
+     * @return The page of admin summaries.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserSummaryPage searchAdmins(UserListingQuery query) {
+        rejectRatingFilter(query, "admins");
+        Pageable pageable = pageable(query, ADMIN_SORT_PROPERTIES);
+        String namePrefix = likePrefix(query.getNamePrefix());
+
+        Slice<UserSummaryDTO> slice = adminRepository.findSummaries(query.getVerified(), namePrefix, pageable);
+        Long total = query.isWithTotal() ? adminRepository.countSummaries(query.getVerified(), namePrefix) : null;
+        return toPage(slice, query, total);
     }
-    
+
     /* ==============
      * HELPER METHODS
      * ==============
      */
 
+    /*
+     * Helper method to return the rows of a capped unpaged listing, warning
+     * when rows were left out.
+     */
+    private List<UserSummaryDTO> capped(Slice<UserSummaryDTO> slice, String users) {
+        if (slice.hasNext()) {
+            logger.warn("Listing of all {} was capped at {} rows; use the paged listing.", users, MAX_UNPAGED_SIZE);
+        }
+        return slice.getContent();
+    }
+
+    /**
+     * Helper method to build the page request of a listing. Sorting by any
+     * property other than the ID adds the ID as tie-breaker, so rows never
+     * move between pages.
+     */
+    private Pageable pageable(UserListingQuery query, Set<String> sortProperties) {
+        int page = query.getPage();
+        int size = query.getSize();
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative.");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is out of range.");
+        }
+
+        String sort = query.getSort() == null || query.getSort().isBlank() ? "id" : query.getSort().trim();
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (parts.length > 2 || !sortProperties.contains(property)) {
+            throw new IllegalArgumentException("Cannot sort by '" + sort + "'. Sortable properties: "
+                    + String.join(", ", sortProperties.stream().sorted().toList()) + ".");
+        }
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Sort direction must be 'asc' or 'desc'."));
+        }
+        Sort order = Sort.by(direction, property);
+        if (!property.equals("id")) {
+            order = order.and(Sort.by("id"));
+        }
+        return PageRequest.of(page, size, order);
+    }
+
+    /**
+     * Helper method to turn a name prefix into a LIKE pattern, escaping the
+     * wildcards with '!'. Returns null for a missing or blank prefix.
+     */
+    private String likePrefix(String namePrefix) {
+        if (namePrefix == null || namePrefix.isBlank()) {
+            return null;
+        }
+        String prefix = namePrefix.trim();
+        if (prefix.length() > MAX_NAME_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Name prefix must be at most " + MAX_NAME_PREFIX_LENGTH + " characters.");
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * Helper method to check a rating bound.
+     */
+    private void validateRating(Double rating, String name) {
+        if (rating != null && (rating.isNaN() || rating < 0 || rating > 5)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 5.");
+        }
+    }
+
     /**
-     * Helper method to convert a Customer entity into a UserSummaryDTO.
-     */
-    private UserSummaryDTO mapCustomerToUserSummaryDTO(Customer customer) {
-        UserSummaryDTO userSummary = new UserSummaryDTO();
-        userSummary.setUserId(customer.getId());
-        userSummary.setUsername(customer.getUsername());
-        userSummary.setEmail(customer.getEmail());
-        userSummary.setFirstName(customer.getFirstName());
-        userSummary.setLastName(customer.getLastName());
-        userSummary.setMobileNumber(customer.getMobileNumber());
-        return userSummary;
+     * Helper method to reject a rating filter for user types without ratings.
+     */
+    private void rejectRatingFilter(UserListingQuery query, String users) {
+        if (query.getMinRating() != null || query.getMaxRating() != null) {
+            throw new IllegalArgumentException("Only drivers can be filtered by rating, not " + users + ".");
+        }
     }
-    
+
     /**
-     * Helper method to convert a Driver entity into a UserSummaryDTO.
-     */
-    private UserSummaryDTO mapDriverToUserSummaryDTO(Driver driver) {
-        Double ratingAsDouble = (driver.getRating() != null) ? driver.getRating().doubleValue() : 0.0;
-
-        return new UserSummaryDTO(
-            driver.getId(),
-            driver.getUsername(),
-            driver.getFirstName(),
-            driver.getLastName(),
-            driver.getEmail(),
-            driver.getMobileNumber(),
-            ratingAsDouble, 
-            driver.getLicenceNo(),
-            driver.getVerified()
-        );
+     * Helper method to convert a slice into the listing response.
+     */
+    private UserSummaryPage toPage(Slice<UserSummaryDTO> slice, UserListingQuery query, Long total) {
+        return new UserSummaryPage(slice.getContent(), query.getPage(), query.getSize(), slice.hasNext(), total);
     }
-}
\ No newline at end of file
+}
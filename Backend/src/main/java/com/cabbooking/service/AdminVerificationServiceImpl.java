@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.cabbooking.model.Admin;
 import com.cabbooking.repository.AdminRepository;
@@ -49,6 +50,8 @@ public class AdminVerificationServiceImpl implements IAdminVerificationService {
      * @return List of unverified Admin users.
      */
     @Override
+    @Deprecated
+    @Transactional(readOnly = true)
     public List<Admin> getUnverifiedAdmins() {
         return adminRepository.findByVerifiedFalse();
     }
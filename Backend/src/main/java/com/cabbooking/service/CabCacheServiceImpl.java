@@ -0,0 +1,132 @@
+package com.cabbooking.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.cabbooking.cache.CabCacheInvalidationEvent;
+import com.cabbooking.model.Cab;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Implementation of the ICabCacheService interface.
+ *
+ * Main Responsibilities:
+ * - Evicts a cab and the cached catalog queries once a change to the cab has
+ *   committed, so the next read is guaranteed to see the committed row.
+ * - Offers eviction to other application instances, which call evictCab when
+ *   they receive a forwarded CabCacheInvalidationEvent.
+ * - Reports the hit/miss statistics Hibernate collects for the cab regions.
+ *
+ * Dependencies:
+ * - EntityManagerFactory, unwrapped to Hibernate's SessionFactory for the
+ *   cache and statistics APIs.
+ */
+@Service
+public class CabCacheServiceImpl implements ICabCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CabCacheServiceImpl.class);
+
+    /*
+     * Factory of the persistence unit holding the second-level cache.
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Evicts a cab after a committed change made by this instance.
+     *
+     * @param event The invalidation event published by CabCacheListener.
+     */
+    @EventListener
+    public void onCabChanged(CabCacheInvalidationEvent event) {
+        evictCab(event.getCabId());
+    }
+
+    /**
+     * Removes one cab from the entity cache and drops the cached catalog
+     * queries.
+     *
+     * @param cabId The ID of the changed cab.
+     */
+    @Override
+    public void evictCab(Integer cabId) {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(Cab.class, cabId);
+        cache.evictQueryRegion(Cab.QUERY_CACHE_REGION);
+        logger.debug("Evicted cab {} from the second-level cache.", cabId);
+    }
+
+    /**
+     * Removes all cabs and cached catalog queries.
+     */
+    @Override
+    public void evictAll() {
+        Cache cache = sessionFactory().getCache();
+        cache.evictEntityData(Cab.class);
+        cache.evictQueryRegion(Cab.QUERY_CACHE_REGION);
+        logger.info("Evicted all cabs from the second-level cache.");
+    }
+
+    /**
+     * Collects the hit, miss and put counts of the cab entity region and the
+     * cab query region.
+     *
+     * @return A map with one entry per region.
+     */
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put(Cab.CACHE_REGION, regionStatistics(entityRegionStatistics(statistics)));
+        result.put(Cab.QUERY_CACHE_REGION, regionStatistics(statistics.getQueryRegionStatistics(Cab.QUERY_CACHE_REGION)));
+        return result;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /*
+     * Helper method to look up the entity region statistics. Hibernate rejects
+     * the lookup when the region does not exist (second-level cache disabled).
+     */
+    private CacheRegionStatistics entityRegionStatistics(Statistics statistics) {
+        try {
+            return statistics.getDomainDataRegionStatistics(Cab.CACHE_REGION);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Helper method to flatten the statistics of one region. A region that
+     * has not been used yet has no statistics.
+     */
+    private Map<String, Object> regionStatistics(CacheRegionStatistics region) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long hits = region != null ? region.getHitCount() : 0L;
+        long misses = region != null ? region.getMissCount() : 0L;
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("puts", region != null ? region.getPutCount() : 0L);
+        result.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        return result;
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.cabbooking.dto.CabUpdateRequest;
 import com.cabbooking.dto.FareEstimateResponse;
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Driver;
 import com.cabbooking.repository.CabRepository;
@@ -33,6 +34,9 @@ import com.cabbooking.repository.DriverRepository;
  * - CabRepository for accessing cab data in the database.
  * - DriverRepository for accessing driver data in the database.
  * - IFileUploadService for handling file uploads.
+ * - IDriverLeaderboardService for keeping the driver leaderboard up to date.
+ * - IOptimisticRetryService for retrying cab updates on version conflicts.
+ * - IFleetStateService for the availability of drivers and cabs.
  */
 @Service
 public class CabServiceImpl implements ICabService {
@@ -60,6 +64,27 @@ public class CabServiceImpl implements ICabService {
     @Autowired
     private IFileUploadService fileUploadService;
 
+    /*
+     * Service for the in-memory driver leaderboard.
+     * Moves the driver to the ranking of the new car type.
+     */
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    /*
+     * Service running cab updates in their own transactions, retried on
+     * optimistic lock conflicts with concurrent bookings of the cab.
+     */
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    /*
+     * Service holding the availability of every driver and cab in memory.
+     * Fare estimates and the available cab listing are read from it.
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
     /*
      * Updates the details of a cab associated with a driver.
      * 
@@ -74,8 +99,15 @@ public class CabServiceImpl implements ICabService {
      * @return The updated Cab object
      */
     @Override
-    @Transactional
     public Cab updateCabDetails(int driverId, CabUpdateRequest request) {
+        return optimisticRetryService.execute("cab.updateDetails", () -> updateCabDetailsAttempt(driverId, request));
+    }
+
+    /*
+     * Helper method to update the details of a cab within one transaction
+     * attempt.
+     */
+    private Cab updateCabDetailsAttempt(int driverId, CabUpdateRequest request) {
         // Find the driver to ensure they exist
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new IllegalArgumentException("Driver with id " + driverId + " not found"));
@@ -90,10 +122,14 @@ public class CabServiceImpl implements ICabService {
         cabToUpdate.setNumberPlate(request.getNumberPlate());
         cabToUpdate.setCarType(request.getCarType());
         cabToUpdate.setPerKmRate(request.getPerKmRate());
-        cabToUpdate.setIsAvailable(true); // When details are added, make the cab available
 
-        // Save the updated cab
-        return cabRepository.save(cabToUpdate);
+        // Save the updated cab, rank the driver under the new car type and
+        // make them available once the details are complete (a driver on a
+        // trip stays on it)
+        Cab savedCab = cabRepository.save(cabToUpdate);
+        driverLeaderboardService.updateDriver(driver);
+        fleetStateService.updateDriver(driver);
+        return savedCab;
     }
 
     /**
@@ -110,6 +146,7 @@ public class CabServiceImpl implements ICabService {
      * @return A list of Cab entities matching the specified type.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Cab> getCabsOfType(String carType) {
         return cabRepository.findByCarType(carType);
     }
@@ -131,36 +168,33 @@ public class CabServiceImpl implements ICabService {
      */
     @Override
     public List<FareEstimateResponse> getAllFareEstimates(float distance, double fromLocationLat, double fromLocationLng) {
-        // Find all drivers who are available and have a location
-        List<Driver> availableDrivers = driverRepository.findAll().stream()
-                .filter(driver -> driver.getIsAvailable() && driver.getVerified() &&
-                                  driver.getLatitude() != null && driver.getLongitude() != null &&
-                                  driver.getCab() != null)
-                .toList();
+        // Read all drivers who are available and have a location, with their
+        // cabs, from the in-memory fleet state
+        List<FleetAvailabilityRow> availableFleet = fleetStateService.getAvailableFleet(null);
 
         // Filter the list to include only drivers who are nearby
-        List<Driver> nearbyDrivers = availableDrivers.stream()
-                .filter(driver -> calculateDistance(fromLocationLat, fromLocationLng, driver.getLatitude(), driver.getLongitude()) <= NEARBY_RADIUS_KM)
+        List<FleetAvailabilityRow> nearbyFleet = availableFleet.stream()
+                .filter(row -> calculateDistance(fromLocationLat, fromLocationLng, row.getLatitude(), row.getLongitude()) <= NEARBY_RADIUS_KM)
                 .toList();
         
         // Group the nearby drivers' cabs by car type
-        Map<String, List<Cab>> cabsByType = nearbyDrivers.stream()
-                .map(Driver::getCab)
-                .collect(Collectors.groupingBy(Cab::getCarType));
+        Map<String, List<FleetAvailabilityRow>> cabsByType = nearbyFleet.stream()
+                .filter(row -> row.getCarType() != null && row.getPerKmRate() != null)
+                .collect(Collectors.groupingBy(FleetAvailabilityRow::getCarType));
 
         // For each car type, calculate the min/max fare and create a response object
         return cabsByType.entrySet().stream()
                 .map(entry -> {
                     String carType = entry.getKey();
-                    List<Cab> cabs = entry.getValue();
+                    List<FleetAvailabilityRow> cabs = entry.getValue();
 
                     float minRate = cabs.stream()
-                            .map(Cab::getPerKmRate)
+                            .map(FleetAvailabilityRow::getPerKmRate)
                             .min(Float::compare)
                             .orElse(0.0f);
 
                     float maxRate = cabs.stream()
-                            .map(Cab::getPerKmRate)
+                            .map(FleetAvailabilityRow::getPerKmRate)
                             .max(Float::compare)
                             .orElse(0.0f);
 
@@ -199,6 +233,7 @@ public class CabServiceImpl implements ICabService {
      * @return An Optional<Cab> which contains the cab if it exists.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Cab> getCabById(int cabId) {
         return cabRepository.findById(cabId);
     }
@@ -213,6 +248,7 @@ public class CabServiceImpl implements ICabService {
      * @return A list of all Cab entities.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Cab> getAllCabs() {
         return cabRepository.findAll();
     }
@@ -221,17 +257,16 @@ public class CabServiceImpl implements ICabService {
      * Retrieves a list of all available cabs in the system.
      * 
      * Workflow: 
-     * - Calls the repository to find all cabs.
-     * - Filters the list to include only available cabs.
+     * - Reads the IDs of the available cabs from the fleet state.
+     * - Loads only those cabs.
      * - Returns the list of available cabs.
      *
      * @return A list of all available Cab entities.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Cab> getAllAvailableCabs() {
-        return cabRepository.findAll().stream()
-                .filter(Cab::getIsAvailable)
-                .collect(Collectors.toList());
+        return cabRepository.findAllById(fleetStateService.getAvailableCabIds());
     }
 
     /*
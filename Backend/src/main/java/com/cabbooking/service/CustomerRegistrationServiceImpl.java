@@ -3,12 +3,12 @@ package com.cabbooking.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.cabbooking.dto.CustomerRegistrationRequest;
 import com.cabbooking.model.Customer;
-import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
-import com.cabbooking.repository.DriverRepository;
 
 /**
  * Implementation of the ICustomerRegistrationService interface.
@@ -21,21 +21,13 @@ import com.cabbooking.repository.DriverRepository;
  * - Creating and saving a new Customer entity from the registration data.
  * 
  * Dependencies:
- * - AdminRepository for database persistence and uniqueness checks.
- * - CustomerRepository for customer uniqueness checks.
- * - DriverRepository for driver uniqueness checks.
+ * - CustomerRepository for database persistence.
+ * - IUserDirectoryService for username and email uniqueness checks.
  * - PasswordEncoder for securely hashing customer passwords.
  */
 @Service
 public class CustomerRegistrationServiceImpl implements ICustomerRegistrationService {
 
-    /**
-     * Repository to handle CRUD operations for Admin entity.
-     * Provides methods to check for existing usernames and emails.
-     */
-    @Autowired
-    private AdminRepository adminRepository;
-
     /*
      * Repository to handle CRUD operations for Customer entity.
      * Provides methods to check for existing usernames and emails.
@@ -43,13 +35,6 @@ public class CustomerRegistrationServiceImpl implements ICustomerRegistrationSer
     @Autowired
     private CustomerRepository customerRepository;
 
-    /*
-     * Repository to handle CRUD operations for Driver entity.
-     * Provides methods to check for existing usernames and emails.
-     */
-    @Autowired
-    private DriverRepository driverRepository;
-
     /**
      * PasswordEncoder provided by Spring Security.
      * Used here for securely hashing passwords before saving.
@@ -57,17 +42,28 @@ public class CustomerRegistrationServiceImpl implements ICustomerRegistrationSer
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /*
+     * Identity directory that login looks customers up in; also checks uniqueness.
+     */
+    @Autowired
+    private IUserDirectoryService userDirectoryService;
+
+    /*
+     * Transaction manager for saving the customer and its directory entry together.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     /**
      * Registers a new customer using the provided registration data.
      * 
      * Workflow:
-     * - Check if the username already exists by querying all repositories.
-     *    - If username is taken, throws IllegalArgumentException with appropriate message.
-     * - Check if the email is already registered by querying all repositories.
-     *    - If email is already registered, throws IllegalArgumentException with appropriate message.
+     * - Check that the username and email are not taken by any user, through the identity directory.
+     *    - If either is taken, throws IllegalArgumentException with appropriate message.
      * - Creates a new Customer entity and sets its fields based on the request DTO.
      * - Password is hashed before setting it on the entity to increase security.
-     * - Saves the Customer entity in the repository (database).
+     * - Saves the Customer entity in the repository (database) and adds it to the identity directory,
+     *   in one transaction, so neither is kept without the other.
      * - Returns the persisted Customer object.
      * 
      * @param request CustomerRegistrationRequest DTO containing user input.
@@ -77,19 +73,8 @@ public class CustomerRegistrationServiceImpl implements ICustomerRegistrationSer
     @Override
     public Customer registerCustomer(CustomerRegistrationRequest request) {
 
-        // Check if username already exists at the database level
-        if (adminRepository.existsByUsername(request.getUsername()) 
-        || customerRepository.existsByUsername(request.getUsername()) 
-        || driverRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("Username is already taken.");
-        }
-
-        // Check if email already registered at the database level
-        if (adminRepository.existsByEmail(request.getEmail()) 
-        || customerRepository.existsByEmail(request.getEmail()) 
-        || driverRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email is already registered.");
-        }
+        // Check the username and email against the identity directory
+        userDirectoryService.checkAvailable(request.getUsername(), request.getEmail());
 
         // Create new Customer entity and populate fields from request
         Customer customer = new Customer();
@@ -104,7 +89,11 @@ public class CustomerRegistrationServiceImpl implements ICustomerRegistrationSer
         customer.setAddress(request.getAddress());
         customer.setMobileNumber(request.getMobileNumber());
 
-        // Persist the Customer entity to the database
-        return customerRepository.save(customer);
+        // Persist the Customer entity and its directory entry in one transaction
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Customer savedCustomer = customerRepository.save(customer);
+            userDirectoryService.index(savedCustomer);
+            return savedCustomer;
+        });
     }
 }
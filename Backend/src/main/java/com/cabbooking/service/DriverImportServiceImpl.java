@@ -0,0 +1,563 @@
+package com.cabbooking.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.dto.DriverImportResult;
+import com.cabbooking.dto.DriverRegistrationRequest;
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.AdminRepository;
+import com.cabbooking.repository.CabRepository;
+import com.cabbooking.repository.CustomerRepository;
+import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.util.CsvReader;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Implementation of the IDriverImportService interface.
+ *
+ * Main Responsibilities:
+ * - Streams a CSV file of drivers record by record and processes it in
+ *   chunks, so memory use does not grow with the size of the file.
+ * - Applies the same rules as the driver registration to every row: field
+ *   validation, and uniqueness of username, email, licence number and number
+ *   plate.
+ * - Creates each valid driver together with its cab; rejected rows are
+ *   reported with their line number and do not stop the import.
+ *
+ * Performance:
+ * - Field validation and password hashing, the CPU heavy parts, run in
+ *   parallel on a bounded worker pool. At most one chunk of tasks is queued
+ *   at a time.
+ * - Uniqueness is checked with one IN query per column and repository per
+ *   chunk instead of several lookups per row, plus in-memory sets for
+ *   duplicates within the file.
+ * - Each chunk is saved with saveAll in its own transaction, so inserts are
+ *   sent as JDBC batches and the persistence context never grows beyond one
+ *   chunk. If a chunk fails (e.g. a concurrent registration took a username),
+ *   its rows are retried one by one to pin down the failing rows.
+ *
+ * Dependencies:
+ * - AdminRepository, CustomerRepository and DriverRepository for uniqueness
+ *   checks and persistence.
+ * - CabRepository for number plate uniqueness checks.
+ * - BCryptPasswordEncoder for hashing passwords on the worker pool.
+ * - IDriverLeaderboardService for ranking the imported drivers.
+ * - IFleetStateService for adding the imported drivers to the fleet.
+ * - Validator for the DriverRegistrationRequest constraints.
+ * - PlatformTransactionManager for the per-chunk transactions.
+ */
+@Service
+public class DriverImportServiceImpl implements IDriverImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverImportServiceImpl.class);
+
+    static final String COLUMN_USERNAME = "username";
+    static final String COLUMN_FIRST_NAME = "firstName";
+    static final String COLUMN_LAST_NAME = "lastName";
+    static final String COLUMN_PASSWORD = "password";
+    static final String COLUMN_EMAIL = "email";
+    static final String COLUMN_ADDRESS = "address";
+    static final String COLUMN_MOBILE_NUMBER = "mobileNumber";
+    static final String COLUMN_LICENCE_NO = "licenceNo";
+    static final String COLUMN_CAR_TYPE = "carType";
+    static final String COLUMN_PER_KM_RATE = "perKmRate";
+    static final String COLUMN_NUMBER_PLATE = "numberPlate";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(COLUMN_USERNAME, COLUMN_FIRST_NAME,
+            COLUMN_LAST_NAME, COLUMN_PASSWORD, COLUMN_EMAIL, COLUMN_LICENCE_NO);
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CabRepository cabRepository;
+
+    /*
+     * BCrypt on the calling thread: rows are hashed on the import's own
+     * worker pool, not on the shared password hashing pool.
+     */
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    /*
+     * Service for the in-memory driver leaderboard, which ranks imported
+     * drivers once their chunk is saved.
+     */
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    /*
+     * Service holding the availability of every driver and cab; imported
+     * drivers join the fleet once their chunk is saved.
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
+    /*
+     * Identity directory used by login; imported drivers can log in once
+     * their chunk is indexed.
+     */
+    @Autowired
+    private IUserDirectoryService userDirectoryService;
+
+    /*
+     * Bean validator used to apply the registration constraints to each row.
+     */
+    @Autowired
+    private Validator validator;
+
+    /*
+     * Transaction manager used to save every chunk in its own transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Number of rows validated, hashed and saved together. Matches a multiple
+     * of the JDBC batch size.
+     */
+    @Value("${driver-import.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /*
+     * Number of worker threads for validation and password hashing; 0 means
+     * one per available processor.
+     */
+    @Value("${driver-import.worker-threads:0}")
+    private int workerThreads;
+
+    /*
+     * Upper bound for the number of row errors returned to the caller.
+     */
+    @Value("${driver-import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    private ExecutorService workerPool;
+
+    /**
+     * Starts the worker pool used for validation and password hashing.
+     */
+    @PostConstruct
+    public void startWorkers() {
+        int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "driver-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops the worker pool when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdown();
+    }
+
+    /**
+     * Streams a CSV file of drivers and creates a driver (with its cab) for
+     * every valid row.
+     *
+     * Workflow:
+     * - Reads the header and maps the column names to positions.
+     * - Reads the records into chunks of driver-import.chunk-size rows.
+     * - For every chunk: validates the rows in parallel, checks uniqueness in
+     *   bulk, hashes the passwords in parallel and saves the drivers in one
+     *   batched transaction.
+     * - Returns the counts and the reasons rows were rejected.
+     *
+     * @param csv The CSV data, UTF-8 encoded.
+     * @param verified Whether the imported drivers are marked as verified.
+     * @return The outcome of the import.
+     * @throws IOException if the data cannot be read.
+     * @throws IllegalArgumentException if the file is empty or the header is
+     * missing a required column.
+     */
+    @Override
+    public DriverImportResult importDrivers(InputStream csv, boolean verified) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        DriverImportResult result = new DriverImportResult();
+        ImportState state = new ImportState();
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty.");
+            }
+            Map<String, Integer> columns = indexColumns(header);
+
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                if (isBlank(record)) {
+                    continue;
+                }
+                chunk.add(new ImportRow(reader.getRecordLine(), record, columns));
+                if (chunk.size() >= chunkSize) {
+                    importChunk(chunk, verified, state, result);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, verified, state, result);
+            }
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        logger.info("Driver import finished: {} rows, {} imported, {} rejected in {} ms.",
+                result.getTotalRows(), result.getImportedRows(), result.getFailedRows(), result.getElapsedMillis());
+        return result;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to run all steps for one chunk of rows and add the outcome
+     * to the result.
+     */
+    private void importChunk(List<ImportRow> chunk, boolean verified, ImportState state, DriverImportResult result) {
+        runInParallel(chunk, this::validate);
+        checkUniqueness(pending(chunk), state);
+        runInParallel(pending(chunk), row -> row.driver = toDriver(row, verified));
+        save(pending(chunk));
+        pending(chunk).forEach(row -> {
+            driverLeaderboardService.updateDriver(row.driver);
+            fleetStateService.updateDriver(row.driver);
+        });
+
+        for (ImportRow row : chunk) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            if (row.error == null) {
+                result.setImportedRows(result.getImportedRows() + 1);
+            } else {
+                result.setFailedRows(result.getFailedRows() + 1);
+                if (result.getErrors().size() < maxReportedErrors) {
+                    result.getErrors().add(new DriverImportResult.RowError(row.line,
+                            row.request.getUsername(), row.error));
+                }
+            }
+        }
+        logger.debug("Imported driver chunk ending on line {}.", chunk.get(chunk.size() - 1).line);
+    }
+
+    /*
+     * Helper method to apply the registration constraints and parse the
+     * numeric columns of a row.
+     */
+    private void validate(ImportRow row) {
+        if (row.error != null) {
+            return;
+        }
+        Set<ConstraintViolation<DriverRegistrationRequest>> violations = validator.validate(row.request);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return;
+        }
+        if (row.perKmRateText != null) {
+            try {
+                row.perKmRate = Float.valueOf(row.perKmRateText);
+            } catch (NumberFormatException e) {
+                row.error = "Per km rate must be a number.";
+                return;
+            }
+            if (row.perKmRate <= 0) {
+                row.error = "Per km rate must be positive.";
+            }
+        }
+    }
+
+    /*
+     * Helper method to reject rows whose username, email, licence number or
+     * number plate is already registered or appears earlier in the file.
+     * Values are compared case-insensitively, like the database collation.
+     */
+    private void checkUniqueness(List<ImportRow> rows, ImportState state) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Set<String> takenUsernames = existing(rows, row -> row.request.getUsername(),
+                adminRepository::findExistingUsernames, customerRepository::findExistingUsernames,
+                driverRepository::findExistingUsernames);
+        Set<String> takenEmails = existing(rows, row -> row.request.getEmail(),
+                adminRepository::findExistingEmails, customerRepository::findExistingEmails,
+                driverRepository::findExistingEmails);
+        Set<String> takenLicences = existing(rows, row -> row.request.getLicenceNo(),
+                driverRepository::findExistingLicenceNos);
+        Set<String> takenPlates = existing(rows, row -> row.numberPlate,
+                cabRepository::findExistingNumberPlates);
+
+        for (ImportRow row : rows) {
+            String username = lower(row.request.getUsername());
+            String email = lower(row.request.getEmail());
+            String licence = lower(row.request.getLicenceNo());
+            String plate = lower(row.numberPlate);
+
+            if (takenUsernames.contains(username)) {
+                row.error = "Username is already taken.";
+            } else if (takenEmails.contains(email)) {
+                row.error = "Email is already registered.";
+            } else if (takenLicences.contains(licence)) {
+                row.error = "Licence number is already registered.";
+            } else if (plate != null && takenPlates.contains(plate)) {
+                row.error = "Number plate is already registered.";
+            } else if (state.usernames.contains(username)) {
+                row.error = "Username appears more than once in the file.";
+            } else if (state.emails.contains(email)) {
+                row.error = "Email appears more than once in the file.";
+            } else if (state.licences.contains(licence)) {
+                row.error = "Licence number appears more than once in the file.";
+            } else if (plate != null && state.plates.contains(plate)) {
+                row.error = "Number plate appears more than once in the file.";
+            } else {
+                state.usernames.add(username);
+                state.emails.add(email);
+                state.licences.add(licence);
+                if (plate != null) {
+                    state.plates.add(plate);
+                }
+            }
+        }
+    }
+
+    /*
+     * Helper method to look up which values of a column already exist, with
+     * one query per repository. Returns the existing values in lower case.
+     */
+    @SafeVarargs
+    private Set<String> existing(List<ImportRow> rows, Function<ImportRow, String> column,
+            Function<Collection<String>, List<String>>... lookups) {
+        Set<String> values = rows.stream()
+                .map(column)
+                .filter(value -> value != null)
+                .collect(Collectors.toSet());
+        Set<String> existing = new HashSet<>();
+        if (values.isEmpty()) {
+            return existing;
+        }
+        for (Function<Collection<String>, List<String>> lookup : lookups) {
+            for (String value : lookup.apply(values)) {
+                existing.add(lower(value));
+            }
+        }
+        return existing;
+    }
+
+    /*
+     * Helper method to build the driver and its cab for a row. Hashes the
+     * password, so it runs on the worker pool.
+     */
+    private Driver toDriver(ImportRow row, boolean verified) {
+        DriverRegistrationRequest request = row.request;
+        Driver driver = new Driver();
+        driver.setUsername(request.getUsername());
+        driver.setFirstName(request.getFirstName());
+        driver.setLastName(request.getLastName());
+        driver.setPassword(passwordEncoder.encode(request.getPassword()));
+        driver.setEmail(request.getEmail());
+        driver.setAddress(request.getAddress());
+        driver.setMobileNumber(request.getMobileNumber());
+        driver.setLicenceNo(request.getLicenceNo());
+        driver.setVerified(verified);
+        driver.setRatingSum(0L);
+        driver.setTotalRatings(0);
+
+        Cab cab = new Cab();
+        cab.setCarType(row.carType);
+        cab.setPerKmRate(row.perKmRate);
+        cab.setNumberPlate(row.numberPlate);
+        cab.setIsAvailable(row.carType != null ? Boolean.TRUE : null);
+        cab.setDriver(driver);
+        driver.setCab(cab);
+        return driver;
+    }
+
+    /*
+     * Helper method to save the drivers of a chunk and their identity
+     * directory entries in one transaction. If the chunk is rejected by the
+     * database, retries the rows one by one so only the offending rows are
+     * reported.
+     */
+    private void save(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        try {
+            template.executeWithoutResult(status -> userDirectoryService.indexAll(
+                    driverRepository.saveAll(rows.stream().map(row -> row.driver).toList())));
+            return;
+        } catch (DataAccessException e) {
+            logger.warn("Saving a chunk of {} drivers failed, retrying row by row: {}", rows.size(), e.getMessage());
+        }
+
+        for (ImportRow row : rows) {
+            // Identifiers and versions assigned by the failed attempt were rolled back
+            row.driver.setId(null);
+            row.driver.setVersion(null);
+            row.driver.getCab().setCabId(null);
+            row.driver.getCab().setVersion(null);
+            try {
+                template.executeWithoutResult(status -> userDirectoryService.index(driverRepository.save(row.driver)));
+            } catch (DataAccessException e) {
+                row.error = "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            }
+        }
+    }
+
+    /*
+     * Helper method to run a task for every row on the worker pool and wait
+     * for all of them. A task that throws rejects its row only.
+     */
+    private void runInParallel(List<ImportRow> rows, Consumer<ImportRow> task) {
+        CompletableFuture.allOf(rows.stream()
+                .map(row -> CompletableFuture.runAsync(() -> {
+                    try {
+                        task.accept(row);
+                    } catch (RuntimeException e) {
+                        row.error = "Could not be processed: " + e.getMessage();
+                    }
+                }, workerPool))
+                .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    /*
+     * Helper method to map the header names to column positions.
+     */
+    private Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing required columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private List<ImportRow> pending(List<ImportRow> rows) {
+        return rows.stream().filter(row -> row.error == null).toList();
+    }
+
+    private boolean isBlank(List<String> record) {
+        return record.stream().allMatch(String::isBlank);
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /*
+     * Values accepted so far, to detect duplicates within the file.
+     */
+    private static class ImportState {
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> licences = new HashSet<>();
+        private final Set<String> plates = new HashSet<>();
+    }
+
+    /*
+     * One data row of the file and what became of it.
+     */
+    private static class ImportRow {
+        private final long line;
+        private final DriverRegistrationRequest request = new DriverRegistrationRequest();
+        private final String carType;
+        private final String perKmRateText;
+        private final String numberPlate;
+        private Float perKmRate;
+        private Driver driver;
+        private String error;
+
+        private ImportRow(long line, List<String> record, Map<String, Integer> columns) {
+            this.line = line;
+            request.setUsername(field(record, columns, COLUMN_USERNAME));
+            request.setFirstName(field(record, columns, COLUMN_FIRST_NAME));
+            request.setLastName(field(record, columns, COLUMN_LAST_NAME));
+            request.setPassword(rawField(record, columns, COLUMN_PASSWORD));
+            request.setEmail(field(record, columns, COLUMN_EMAIL));
+            request.setAddress(field(record, columns, COLUMN_ADDRESS));
+            request.setMobileNumber(field(record, columns, COLUMN_MOBILE_NUMBER));
+            request.setLicenceNo(field(record, columns, COLUMN_LICENCE_NO));
+            this.carType = field(record, columns, COLUMN_CAR_TYPE);
+            this.perKmRateText = field(record, columns, COLUMN_PER_KM_RATE);
+            this.numberPlate = field(record, columns, COLUMN_NUMBER_PLATE);
+        }
+
+        /*
+         * Reads a trimmed column value; empty and missing values are null.
+         */
+        private static String field(List<String> record, Map<String, Integer> columns, String column) {
+            String value = rawField(record, columns, column);
+            if (value == null) {
+                return null;
+            }
+            value = value.trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        /*
+         * Reads a column value as is, for passwords where spaces matter;
+         * empty and missing values are null.
+         */
+        private static String rawField(List<String> record, Map<String, Integer> columns, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+                return null;
+            }
+            return record.get(index);
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.cabbooking.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cabbooking.dto.DriverLeaderboardEntry;
+import com.cabbooking.leaderboard.DriverLeaderboard;
+import com.cabbooking.leaderboard.DriverStanding;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.DriverRepository;
+
+/**
+ * Implementation of the IDriverLeaderboardService interface.
+ *
+ * Main Responsibilities:
+ * - Builds a DriverLeaderboard from projection rows of all drivers once the
+ *   application is ready, on a background thread, and again every night so
+ *   the prior mean follows the overall rating level.
+ * - Applies ratings, new drivers, car type changes and deletions to the
+ *   leaderboard after the owning transaction commits.
+ * - Serves top-K and per-car-type leaderboard pages and the best drivers
+ *   from memory, without any database access.
+ *
+ * Consistency:
+ * - Drivers changed while a rebuild is running are remembered and read
+ *   again from the database once the bulk load is done, before the new
+ *   leaderboard replaces the old one. A change the bulk load has already
+ *   seen is therefore not counted twice, and none is lost.
+ * - A change whose transaction started before the new leaderboard was
+ *   swapped in, but committed after, refreshes the driver from the
+ *   database instead of being applied as a delta.
+ */
+@Service
+public class DriverLeaderboardServiceImpl implements IDriverLeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverLeaderboardServiceImpl.class);
+
+    /*
+     * Largest page size served.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /*
+     * Repository for Driver entity, used for the bulk load.
+     */
+    @Autowired
+    private DriverRepository driverRepository;
+
+    /*
+     * Whether the leaderboard is loaded and maintained at all.
+     */
+    @Value("${leaderboard.enabled:true}")
+    private boolean enabled = true;
+
+    /*
+     * How many ratings the prior mean counts for in the Bayesian score.
+     */
+    @Value("${leaderboard.prior-weight:10}")
+    private double priorWeight = 10;
+
+    /*
+     * Prior mean used while no driver has been rated at all.
+     */
+    @Value("${leaderboard.default-prior-mean:4.0}")
+    private double defaultPriorMean = 4.0;
+
+    /*
+     * Minimum score of a best driver.
+     */
+    @Value("${leaderboard.best-min-score:4.5}")
+    private double bestMinScore = 4.5;
+
+    /*
+     * Number of drivers read per batch during the bulk load.
+     */
+    @Value("${leaderboard.load-batch-size:10000}")
+    private int loadBatchSize = 10000;
+
+    /*
+     * Updates hold the read lock, so they run in parallel; the swap after a
+     * rebuild holds the write lock, so no update lands on the old leaderboard.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    /*
+     * The leaderboard queries are served from; null until the first load.
+     */
+    private volatile DriverLeaderboard leaderboard;
+
+    /*
+     * True while a (re)build is running.
+     */
+    private volatile boolean loading;
+
+    /*
+     * IDs of the drivers changed while a rebuild is running.
+     */
+    private final Set<Integer> touchedDrivers = ConcurrentHashMap.newKeySet();
+
+    /*
+     * Incremented whenever a leaderboard is swapped in. An update registered
+     * under an older generation may already be part of the swapped-in state.
+     */
+    private volatile long generation;
+
+    /**
+     * Starts the initial build on a background thread, so application startup
+     * is not delayed by a large driver table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            logger.info("Driver leaderboard is disabled.");
+            return;
+        }
+        Thread loader = new Thread(this::rebuild, "driver-leaderboard-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Adds a customer rating to the driver's standing after the current
+     * transaction commits. A driver missing from the leaderboard is read
+     * from the database then, with the rating already included.
+     *
+     * @param driverId The ID of the rated driver.
+     * @param rating The rating value (1-5).
+     */
+    @Override
+    public void recordRating(Integer driverId, int rating) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(driverId, board -> {
+            if (!board.addRating(driverId, rating)) {
+                refresh(board, List.of(driverId));
+            }
+        });
+    }
+
+    /**
+     * Adds a new driver, or refreshes the name and car type of a known one,
+     * after the current transaction commits.
+     *
+     * @param driver The driver (with their cab, if any).
+     */
+    @Override
+    public void updateDriver(Driver driver) {
+        if (!enabled) {
+            return;
+        }
+        int driverId = driver.getId();
+        Snapshot snapshot = new Snapshot(driver);
+        afterCommit(driverId, board -> board.put(driverId, snapshot.username, snapshot.firstName, snapshot.lastName,
+                snapshot.carType, snapshot.ratingSum, snapshot.totalRatings));
+    }
+
+    /**
+     * Removes a driver from the leaderboard after the current transaction
+     * commits.
+     *
+     * @param driverId The ID of the driver.
+     */
+    @Override
+    public void removeDriver(Integer driverId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(driverId, board -> board.remove(driverId));
+    }
+
+    /**
+     * Returns a page of the leaderboard, best first.
+     *
+     * @param carType The car type to rank within, or null for all drivers.
+     * @param page The page number (0-based).
+     * @param size The page size (1-100).
+     * @return The leaderboard rows of the page.
+     */
+    @Override
+    public List<DriverLeaderboardEntry> getLeaderboard(String carType, int page, int size) {
+        return pageOf(carType, Double.NEGATIVE_INFINITY, page, size);
+    }
+
+    /**
+     * Returns a page of the best drivers.
+     *
+     * @param carType The car type to rank within, or null for all drivers.
+     * @param page The page number (0-based).
+     * @param size The page size (1-100).
+     * @return The leaderboard rows of the page.
+     */
+    @Override
+    public List<DriverLeaderboardEntry> getBestDrivers(String carType, int page, int size) {
+        return pageOf(carType, bestMinScore, page, size);
+    }
+
+    /**
+     * @return The IDs of all best drivers, best first.
+     */
+    @Override
+    public List<Integer> getBestDriverIds() {
+        return current().page(null, bestMinScore, 0, Integer.MAX_VALUE).stream()
+                .map(DriverStanding::getDriverId)
+                .toList();
+    }
+
+    /**
+     * Rebuilds the leaderboard from the database.
+     *
+     * Workflow:
+     * - Marks a build as running, so live updates only remember the changed
+     *   driver.
+     * - Reads the leaderboard columns of all drivers in ID order, in batches
+     *   of projection rows.
+     * - Sets the prior mean to the average of all ratings and ranks every
+     *   driver.
+     * - Reads the changed drivers again and swaps the new leaderboard in. If
+     *   the build failed, the changed drivers are refreshed in the old one.
+     */
+    @Override
+    @Scheduled(cron = "${leaderboard.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        swapLock.writeLock().lock();
+        try {
+            if (loading) {
+                logger.info("Driver leaderboard build already running, ignoring rebuild request.");
+                return;
+            }
+            loading = true;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        DriverLeaderboard fresh = null;
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            long ratingSum = 0;
+            long totalRatings = 0;
+            Integer afterId = 0;
+            while (true) {
+                List<Object[]> batch = driverRepository.findLeaderboardRowsAfter(afterId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : batch) {
+                    ratingSum += asLong(row[5]);
+                    totalRatings += asLong(row[6]);
+                    rows.add(row);
+                }
+                if (batch.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = (Integer) batch.get(batch.size() - 1)[0];
+            }
+
+            // Every driver starts from the average of all ratings
+            double priorMean = totalRatings > 0 ? (double) ratingSum / totalRatings : defaultPriorMean;
+            DriverLeaderboard built = new DriverLeaderboard(priorMean, priorWeight);
+            for (Object[] row : rows) {
+                put(built, row);
+            }
+            fresh = built;
+        } catch (RuntimeException e) {
+            logger.error("Building the driver leaderboard failed", e);
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            DriverLeaderboard target = fresh != null ? fresh : leaderboard;
+            List<Integer> touched = new ArrayList<>(touchedDrivers);
+            touchedDrivers.clear();
+            if (target != null && !touched.isEmpty()) {
+                refresh(target, touched);
+            }
+            leaderboard = target;
+        } catch (RuntimeException e) {
+            logger.error("Refreshing the drivers changed during the leaderboard build failed", e);
+            fresh = null;
+        } finally {
+            generation++;
+            loading = false;
+            swapLock.writeLock().unlock();
+        }
+        if (fresh != null) {
+            logger.info("Ranked {} drivers (prior mean {}) in {} ms.",
+                    fresh.size(), String.format("%.2f", fresh.getPriorMean()), System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * @return The size, scoring parameters and load state of the leaderboard.
+     */
+    @Override
+    public Map<String, Object> getStatus() {
+        DriverLeaderboard current = leaderboard;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("ready", current != null);
+        status.put("loading", loading);
+        status.put("drivers", current != null ? current.size() : 0);
+        status.put("priorMean", current != null ? current.getPriorMean() : defaultPriorMean);
+        status.put("priorWeight", priorWeight);
+        status.put("bestMinScore", bestMinScore);
+        return status;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to serve one page of the leaderboard as projection rows.
+     */
+    private List<DriverLeaderboardEntry> pageOf(String carType, double minScore, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative.");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is out of range.");
+        }
+        int offset = page * size;
+        List<DriverStanding> standings = current().page(carType, minScore, offset, size);
+        List<DriverLeaderboardEntry> entries = new ArrayList<>(standings.size());
+        for (int i = 0; i < standings.size(); i++) {
+            DriverStanding standing = standings.get(i);
+            entries.add(new DriverLeaderboardEntry(offset + i + 1, standing.getDriverId(), standing.getUsername(),
+                    standing.getFirstName(), standing.getLastName(), standing.getCarType(),
+                    standing.getAverageRating(), standing.getTotalRatings(), standing.getScore()));
+        }
+        return entries;
+    }
+
+    /*
+     * Helper method to return the leaderboard queries are served from.
+     */
+    private DriverLeaderboard current() {
+        if (!enabled) {
+            throw new IllegalStateException("Driver leaderboard is disabled.");
+        }
+        DriverLeaderboard current = leaderboard;
+        if (current == null) {
+            throw new IllegalStateException("Driver leaderboard is still loading, please retry shortly.");
+        }
+        return current;
+    }
+
+    /*
+     * Helper method to run an update of one driver after the current
+     * transaction commits, or right away outside a transaction.
+     */
+    private void afterCommit(int driverId, Consumer<DriverLeaderboard> update) {
+        long registeredIn = generation;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(driverId, registeredIn, update);
+                }
+            });
+        } else {
+            apply(driverId, registeredIn, update);
+        }
+    }
+
+    /*
+     * Helper method to apply an update to the current leaderboard. While a
+     * rebuild is running, only the driver is remembered; an update registered
+     * before the current leaderboard was swapped in re-reads the driver.
+     */
+    private void apply(int driverId, long registeredIn, Consumer<DriverLeaderboard> update) {
+        swapLock.readLock().lock();
+        try {
+            if (loading) {
+                touchedDrivers.add(driverId);
+            } else if (leaderboard != null) {
+                if (registeredIn == generation) {
+                    update.accept(leaderboard);
+                } else {
+                    refresh(leaderboard, List.of(driverId));
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Helper method to replace drivers of a leaderboard with their committed
+     * state, removing the ones that no longer exist.
+     */
+    private void refresh(DriverLeaderboard target, List<Integer> driverIds) {
+        Set<Integer> missing = new HashSet<>(driverIds);
+        for (Object[] row : driverRepository.findLeaderboardRows(driverIds)) {
+            put(target, row);
+            missing.remove((Integer) row[0]);
+        }
+        missing.forEach(target::remove);
+    }
+
+    /*
+     * Helper method to add one projection row to a leaderboard.
+     */
+    private void put(DriverLeaderboard target, Object[] row) {
+        target.put((Integer) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                asLong(row[5]), (int) asLong(row[6]));
+    }
+
+    /*
+     * Helper method to read a numeric projection column, null as zero.
+     */
+    private long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /*
+     * The fields of a driver the leaderboard keeps, read while the entity and
+     * its cab are still attached.
+     */
+    private static class Snapshot {
+        private final String username;
+        private final String firstName;
+        private final String lastName;
+        private final String carType;
+        private final long ratingSum;
+        private final int totalRatings;
+
+        private Snapshot(Driver driver) {
+            this.username = driver.getUsername();
+            this.firstName = driver.getFirstName();
+            this.lastName = driver.getLastName();
+            this.carType = driver.getCab() != null ? driver.getCab().getCarType() : null;
+            this.ratingSum = driver.getRatingSum() != null ? driver.getRatingSum() : 0L;
+            this.totalRatings = driver.getTotalRatings() != null ? driver.getTotalRatings() : 0;
+        }
+    }
+}
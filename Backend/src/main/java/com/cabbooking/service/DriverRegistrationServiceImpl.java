@@ -3,12 +3,12 @@ package com.cabbooking.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.cabbooking.dto.DriverRegistrationRequest;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Driver;
-import com.cabbooking.repository.AdminRepository;
-import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
 
 /**
@@ -23,56 +23,69 @@ import com.cabbooking.repository.DriverRepository;
  * - Creates and stores a Cab entity associated with the driver.
  *
  * Dependencies:
- * - AdminRepository for database persistence and uniqueness checks.
- * - CustomerRepository for customer uniqueness checks.
- * - DriverRepository for driver uniqueness checks.
+ * - DriverRepository for database persistence and licence number checks.
+ * - IUserDirectoryService for username and email uniqueness checks.
  * - PasswordEncoder for securely hashing driver passwords.
+ * - IDriverLeaderboardService for ranking the new driver.
+ * - IFleetStateService for adding the new driver to the fleet (offline
+ *   until verified and the cab details are set).
  */
 @Service
 public class DriverRegistrationServiceImpl implements IDriverRegistrationService {
 
-    /**
-     * Repository to handle CRUD operations for Admin entity.
+    /*
+     * Repository to handle CRUD operations for Driver entity.
      * Provides methods to check for existing usernames and emails.
      */
     @Autowired
-    private AdminRepository adminRepository;
+    private DriverRepository driverRepository;
+
+    /**
+     * PasswordEncoder to encrypt driver passwords securely (e.g., BCrypt).
+     */
+    @Autowired
+    private PasswordEncoder passwordEncoder;
 
     /*
-     * Repository to handle CRUD operations for Customer entity.
-     * Provides methods to check for existing usernames and emails.
+     * Service for the in-memory driver leaderboard.
+     * New drivers are ranked as soon as they are registered.
      */
     @Autowired
-    private CustomerRepository customerRepository;
+    private IDriverLeaderboardService driverLeaderboardService;
 
     /*
-     * Repository to handle CRUD operations for Driver entity.
-     * Provides methods to check for existing usernames and emails.
+     * Service holding the availability of every driver and cab.
      */
     @Autowired
-    private DriverRepository driverRepository;
+    private IFleetStateService fleetStateService;
 
-    /**
-     * PasswordEncoder to encrypt driver passwords securely (e.g., BCrypt).
+    /*
+     * Identity directory used by login and for uniqueness checks.
      */
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private IUserDirectoryService userDirectoryService;
+
+    /*
+     * Transaction manager for saving the driver and its directory entry together.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     /**
      * Registers a new driver account using the provided registration request.
      * 
      * Workflow:
-     * - Check if username is already taken by querying all repositories.
-     * - Check if email is already registered by querying all repositories.
+     * - Check that the username and email are not taken by any user, through the identity directory.
      * - Check if license number is already registered by querying the driver repository.
      * - Create new Driver entity.
      * - Hash password before persistence.
      * - Set verification status to false.
-     * - Initialize driver rating to 0.0.
+     * - Seed the rating sum and count (unrated unless a history is given).
      * - Persist the driver entity and return it.
      * - Create a new, empty Cab instance.
      * - Establish the bidirectional link between driver and cab.
-     * - Persist the cab entity.
+     * - Persist the cab entity and add the driver to the identity directory,
+     *   in one transaction.
      * - Return the saved driver entity.
      * 
      * @param request DTO containing driver's registration data
@@ -82,24 +95,11 @@ public class DriverRegistrationServiceImpl implements IDriverRegistrationService
     @Override
     public Driver registerDriver(DriverRegistrationRequest request) {
 
-        // Check if username already exists at the database level
-        if (adminRepository.existsByUsername(request.getUsername()) 
-        || customerRepository.existsByUsername(request.getUsername()) 
-        || driverRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("Username is already taken.");
-        }
-
-        // Check if email already registered at the database level
-        if (adminRepository.existsByEmail(request.getEmail()) 
-        || customerRepository.existsByEmail(request.getEmail()) 
-        || driverRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email is already registered.");
-        }
+        // Check the username and email against the identity directory
+        userDirectoryService.checkAvailable(request.getUsername(), request.getEmail());
 
         // Check if license number already exists at the database level
-        boolean licenceExists = driverRepository.findAll().stream()
-            .anyMatch(d -> d.getLicenceNo() != null && d.getLicenceNo().equalsIgnoreCase(request.getLicenceNo()));
-        if (licenceExists) {
+        if (driverRepository.existsByLicenceNo(request.getLicenceNo())) {
             throw new IllegalArgumentException("Licence number is already registered.");
         }
 
@@ -120,9 +120,11 @@ public class DriverRegistrationServiceImpl implements IDriverRegistrationService
         // Set the "verified" flag to false
         driver.setVerified(false);
 
-        // Initialize driver rating to 0.0 by default
-        driver.setRating(request.getRating());
-        driver.setTotalRatings(request.getTotalRatings());
+        // Seed the rating sum and count; without a given history the driver starts unrated
+        int totalRatings = request.getTotalRatings() != null ? request.getTotalRatings() : 0;
+        float rating = request.getRating() != null ? request.getRating() : 0.0f;
+        driver.setTotalRatings(totalRatings);
+        driver.setRatingSum((long) Math.round(rating * totalRatings));
         driver.setLatitude(request.getLatitude());
         driver.setLongitude(request.getLongitude());
 
@@ -133,7 +135,15 @@ public class DriverRegistrationServiceImpl implements IDriverRegistrationService
         cab.setDriver(driver); // Link cab to the driver
         driver.setCab(cab);    // Link driver to the cab
 
-        // Save the driver. Because of CascadeType.ALL, the associated cab will be saved automatically.
-        return driverRepository.save(driver);
+        // Save the driver and its directory entry in one transaction. Because of
+        // CascadeType.ALL, the associated cab will be saved automatically.
+        Driver savedDriver = new TransactionTemplate(transactionManager).execute(status -> {
+            Driver saved = driverRepository.save(driver);
+            userDirectoryService.index(saved);
+            return saved;
+        });
+        driverLeaderboardService.updateDriver(savedDriver);
+        fleetStateService.updateDriver(savedDriver);
+        return savedDriver;
     }
 }
@@ -2,6 +2,9 @@ package com.cabbooking.service;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +26,8 @@ import com.cabbooking.repository.DriverRepository;
  * Dependencies:
  * - DriverRepository for accessing driver data in the database.
  * - IFileUploadService for handling file uploads.
+ * - IDriverLeaderboardService for the ranking of the best drivers.
+ * - IFleetStateService for making verified drivers available.
  */
 @Service
 public class DriverServiceImpl implements IDriverService {
@@ -39,21 +44,39 @@ public class DriverServiceImpl implements IDriverService {
     @Autowired
     private IFileUploadService fileUploadService;
 
+    /*
+     * Service for the in-memory driver leaderboard.
+     */
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    /*
+     * Service holding the availability of every driver and cab.
+     * A verified driver with complete cab details becomes available.
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
     /**
      * Retrieves a list of the best-performing drivers.
      *
      * Workflow:
-     * - Fetches all drivers from the repository.
-     * - Filters the list to include only those with a rating of 4.5 or higher, as per business rules.
-     * - This in-memory filtering is suitable for a moderate number of drivers.
+     * - Takes the IDs of the best drivers from the in-memory leaderboard, which
+     *   ranks drivers by a Bayesian-adjusted rating (4.5 or higher by default).
+     * - Loads only those drivers, with their cabs in the same query, and
+     *   returns them best first.
      *
      * @return A list of Driver entities considered to be "best drivers".
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Driver> getBestDrivers() {
-        // As per the PDF, best drivers have a rating of 4.5 or higher
-        return driverRepository.findAll().stream()
-                .filter(driver -> driver.getRating() != null && driver.getRating() >= 4.5f)
+        List<Integer> bestDriverIds = driverLeaderboardService.getBestDriverIds();
+        Map<Integer, Driver> driversById = driverRepository.findAllWithCabByIdIn(bestDriverIds).stream()
+                .collect(Collectors.toMap(Driver::getId, Function.identity()));
+        return bestDriverIds.stream()
+                .map(driversById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
@@ -67,6 +90,8 @@ public class DriverServiceImpl implements IDriverService {
      * @return A list of unverified Driver entities.
      */
     @Override
+    @Deprecated
+    @Transactional(readOnly = true)
     public List<Driver> getUnverifiedDrivers() {
         return driverRepository.findByVerifiedFalse();
     }
@@ -79,18 +104,21 @@ public class DriverServiceImpl implements IDriverService {
      * - Throws an exception if no driver is found.
      * - Sets the 'verified' flag to true.
      * - Saves the updated driver entity back to the database.
+     * - Refreshes the driver in the fleet state once the update commits.
      *
      * @param driverId The unique ID of the driver to verify.
      * @return A message indicating successful verification.
      * @throws IllegalArgumentException if no driver with the given ID is found.
      */
     @Override
+    @Transactional
     public String verifyDriver(int driverId) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new IllegalArgumentException("Driver not found with id: " + driverId));
         
         driver.setVerified(true);
         driverRepository.save(driver);
+        fleetStateService.updateDriver(driver);
         return "Driver verified successfully";
     }
 
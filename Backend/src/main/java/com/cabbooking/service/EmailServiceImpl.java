@@ -1,40 +1,317 @@
 package com.cabbooking.service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.OutboxEmail;
+import com.cabbooking.repository.OutboxEmailRepository;
 
 /**
- * A generic service for sending emails.
+ * A generic service for sending emails through a transactional outbox.
+ *
+ * Main Responsibilities:
+ * - Queues emails in the outbox_email table, in the transaction of the
+ *   caller, so no request waits for the mail server and no email is sent
+ *   for a change that rolled back.
+ * - Sends the due emails in the background (email.outbox.poll-ms, default
+ *   every second), up to email.outbox.batch-size (default 50) per batch.
+ *   A batch is sent over one SMTP connection and no database connection
+ *   is held while it is sent.
+ * - Deletes sent emails. Failed emails are retried after
+ *   email.outbox.backoff-seconds (default 30), doubled per failed attempt
+ *   up to an hour, and marked FAILED after email.outbox.max-attempts
+ *   (default 8) attempts.
+ *
+ * Every instance of the application runs the dispatcher. A batch is claimed
+ * with one guarded update before it is sent, so two dispatchers never send
+ * the same email; the claim lasts email.outbox.lease-seconds (default 300).
+ *
+ * Delivery is at least once: an email sent just before the application
+ * stops, but not yet deleted, is sent again once its claim has run out.
  */
 @Service
 public class EmailServiceImpl implements IEmailService {
 
+    private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
+
+    /*
+     * Upper bound of the wait between two attempts of one email.
+     */
+    private static final long MAX_BACKOFF_SECONDS = 3600;
+
     /*
      * JavaMailSender is used to send emails.
      */
     @Autowired
     private JavaMailSender mailSender;
 
+    /*
+     * Repository for the queued emails.
+     */
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    /*
+     * Transaction manager used to record the result of every batch in its
+     * own short transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Maximum number of emails sent per batch, i.e. per SMTP connection.
+     */
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    /*
+     * Number of attempts after which an email is marked FAILED.
+     */
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    /*
+     * Wait after the first failed attempt; doubled for every further one.
+     */
+    @Value("${email.outbox.backoff-seconds:30}")
+    private long backoffSeconds = 30;
+
+    /*
+     * How long a claimed batch is kept from other dispatchers. Must be longer
+     * than sending a batch takes.
+     */
+    @Value("${email.outbox.lease-seconds:300}")
+    private long leaseSeconds = 300;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder claimedElsewhere = new LongAdder();
+    private volatile long lastBatchMs;
+
     /**
-     * Sends a simple plain text email.
-     * 
+     * Queues a simple plain text email.
+     *
      * Workflow:
-     * - Create a SimpleMailMessage object.
-     * - Set the recipient, subject, and text.
-     * - Send the email using the JavaMailSender.
-     * 
+     * - Create an OutboxEmail with the recipient, subject and text, due now.
+     * - Save it in the caller's transaction (or a new one).
+     *
      * @param to The recipient's email address.
      * @param subject The subject of the email.
      * @param text The body content of the email.
      */
     @Override
+    @Transactional
     public void sendSimpleEmail(String to, String subject, String text) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        mailSender.send(message);
+        outboxEmailRepository.save(new OutboxEmail(to, subject, text, LocalDateTime.now()));
+    }
+
+    /**
+     * Polls the outbox for due emails (email.outbox.poll-ms, default every
+     * second).
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-ms:1000}")
+    public void poll() {
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            logger.error("Dispatching the email outbox failed", e);
+        }
+    }
+
+    /**
+     * Sends the due emails.
+     *
+     * Workflow:
+     * - Reads the IDs of the next batch of due emails, the longest waiting
+     *   first.
+     * - Claims them with a new token in one guarded update, and reads back
+     *   the emails carrying the token; emails another instance claimed
+     *   first are skipped.
+     * - Sends the batch with one call of the mail sender, outside any
+     *   transaction.
+     * - In a new transaction, deletes the sent emails and reschedules (or
+     *   marks FAILED) the ones the mail server refused.
+     * - Continues while batches are full and nothing failed; a failure ends
+     *   the run, so an unreachable mail server is not retried in a loop.
+     *
+     * @return The number of emails sent.
+     */
+    @Override
+    public int dispatch() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> dueIds = outboxEmailRepository.findDueIds(OutboxEmail.Status.PENDING, now,
+                    PageRequest.of(0, batchSize));
+            if (dueIds.isEmpty()) {
+                return total;
+            }
+
+            String token = UUID.randomUUID().toString();
+            List<OutboxEmail> batch = transactionTemplate.execute(status -> {
+                outboxEmailRepository.claim(dueIds, OutboxEmail.Status.PENDING, token, now,
+                        now.plusSeconds(leaseSeconds));
+                return outboxEmailRepository.findByClaimTokenOrderByIdAsc(token);
+            });
+            claimedElsewhere.add(dueIds.size() - batch.size());
+            if (batch.isEmpty()) {
+                // Another instance was faster; look for the next due emails
+                continue;
+            }
+
+            long started = System.nanoTime();
+            Map<OutboxEmail, Exception> failures = send(batch);
+            lastBatchMs = (System.nanoTime() - started) / 1_000_000;
+            batches.increment();
+
+            transactionTemplate.executeWithoutResult(status -> recordBatch(batch, failures));
+            int delivered = batch.size() - failures.size();
+            sent.add(delivered);
+            total += delivered;
+            if (!failures.isEmpty() || dueIds.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * @return The queue depth, the dispatcher settings and the counters
+     * since startup.
+     */
+    @Override
+    public Map<String, Object> getOutboxStats() {
+        LocalDateTime oldestPending = outboxEmailRepository.findOldestCreatedAt(OutboxEmail.Status.PENDING);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxEmailRepository.countByStatus(OutboxEmail.Status.PENDING));
+        stats.put("failed", outboxEmailRepository.countByStatus(OutboxEmail.Status.FAILED));
+        stats.put("oldestPendingAgeSeconds", oldestPending == null ? 0L
+                : Duration.between(oldestPending, LocalDateTime.now()).getSeconds());
+        stats.put("batchSize", batchSize);
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("sent", sent.sum());
+        stats.put("retried", retried.sum());
+        stats.put("gaveUp", gaveUp.sum());
+        stats.put("batches", batches.sum());
+        stats.put("claimedElsewhere", claimedElsewhere.sum());
+        stats.put("lastBatchMs", lastBatchMs);
+        return stats;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to send one batch. Returns the emails that were not
+     * sent, with the reason. The mail sender reports the messages it could
+     * not send by the message object, so messages are matched by identity.
+     */
+    private Map<OutboxEmail, Exception> send(List<OutboxEmail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        Map<SimpleMailMessage, OutboxEmail> emailsByMessage = new IdentityHashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            OutboxEmail email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+            emailsByMessage.put(message, email);
+        }
+
+        Map<OutboxEmail, Exception> failures = new HashMap<>();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, error) -> {
+                OutboxEmail email = emailsByMessage.get(message);
+                if (email != null) {
+                    failures.put(email, error);
+                }
+            });
+            if (failures.isEmpty()) {
+                batch.forEach(email -> failures.put(email, e));
+            }
+        } catch (MailException e) {
+            batch.forEach(email -> failures.put(email, e));
+        }
+        return failures;
+    }
+
+    /*
+     * Helper method to store the result of a batch. Runs inside the caller's
+     * transaction.
+     */
+    private void recordBatch(List<OutboxEmail> batch, Map<OutboxEmail, Exception> failures) {
+        List<Long> sentIds = batch.stream()
+                .filter(email -> !failures.containsKey(email))
+                .map(OutboxEmail::getId)
+                .toList();
+        if (!sentIds.isEmpty()) {
+            outboxEmailRepository.deleteAllByIdInBatch(sentIds);
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        failures.forEach((email, error) -> {
+            email.setClaimToken(null);
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(abbreviate(error.getMessage() != null ? error.getMessage() : error.toString()));
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(OutboxEmail.Status.FAILED);
+                gaveUp.increment();
+                logger.warn("Giving up on email {} to {} after {} attempts: {}",
+                        email.getId(), email.getRecipient(), email.getAttempts(), email.getLastError());
+            } else {
+                email.setNextAttemptAt(now.plusSeconds(backoff(email.getAttempts())));
+                retried.increment();
+            }
+        });
+        outboxEmailRepository.saveAll(failures.keySet());
+        logger.info("Could not send {} of {} emails; they are retried later.", failures.size(), batch.size());
+    }
+
+    /*
+     * Helper method to compute the wait after a given number of failed
+     * attempts: the backoff, doubled per further attempt, capped at an hour.
+     */
+    private long backoff(int attempts) {
+        long wait = backoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(wait, MAX_BACKOFF_SECONDS);
+    }
+
+    /*
+     * Helper method to fit an error message into the last_error column.
+     */
+    private String abbreviate(String message) {
+        return message.length() <= 512 ? message : message.substring(0, 509) + "...";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,450 @@
+package com.cabbooking.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cabbooking.dto.FleetAvailabilityRow;
+import com.cabbooking.fleet.FleetMember;
+import com.cabbooking.fleet.FleetState;
+import com.cabbooking.fleet.FleetStateRegistry;
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.DriverRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of the IFleetStateService interface.
+ *
+ * Main Responsibilities:
+ * - Loads every driver with a cab into a FleetStateRegistry at startup, in
+ *   keyset-paginated batches of projection rows, before any booking is
+ *   served.
+ * - Answers availability for driver matching, fare estimates and the cab
+ *   listing from memory.
+ * - Moves drivers through OFFLINE, AVAILABLE, OFFERED and ON_TRIP: a claim
+ *   takes the driver at once (so two bookings can never take the same
+ *   driver) and is confirmed or undone when the claiming transaction ends.
+ * - Takes and frees the driver's availability flag with guarded updates in
+ *   the booking, completing and cancelling transactions, and writes the
+ *   cab's flag on a single background thread.
+ *
+ * Consistency:
+ * - The registry answers matching without queries; the guarded update of
+ *   the driver row is the final check. Each instance keeps its own
+ *   registry, so a driver booked through another instance can still be
+ *   offered here, but the claim then fails on the driver row and the next
+ *   candidate is tried.
+ * - A driver released through another instance stays ON_TRIP here until
+ *   the next refresh, which reads the driver rows of the drivers this
+ *   registry has on a trip and frees those the database shows available.
+ * - The stored flags record whether a driver is on a trip, so a restart
+ *   rebuilds the same states. OFFLINE is derived from the profile
+ *   (verification, location, cab details).
+ *
+ * Dependencies:
+ * - DriverRepository: For the startup load, the guarded availability
+ *   updates, the refresh and the write-through.
+ * - IOptimisticRetryService: Runs each write-through in its own transaction,
+ *   retried when it collides with a profile or cab update.
+ */
+@Service
+public class FleetStateServiceImpl implements IFleetStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetStateServiceImpl.class);
+
+    /*
+     * Repository for Driver entity, used for the load and the write-through.
+     */
+    @Autowired
+    private DriverRepository driverRepository;
+
+    /*
+     * Service running each write-through in its own retried transaction.
+     */
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    /*
+     * Number of drivers read per batch during the load.
+     */
+    @Value("${fleet-state.load-batch-size:10000}")
+    private int loadBatchSize = 10000;
+
+    /*
+     * Number of drivers checked per query during the refresh.
+     */
+    @Value("${fleet-state.refresh-batch-size:1000}")
+    private int refreshBatchSize = 1000;
+
+    /*
+     * The authoritative state of every driver and cab.
+     */
+    private final FleetStateRegistry registry = new FleetStateRegistry();
+
+    /*
+     * Drivers whose flags are queued for writing; a driver changing again
+     * before the write runs is written once, with the latest state.
+     */
+    private final Set<Integer> pendingWrites = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder takenElsewhere = new LongAdder();
+    private final LongAdder releasedElsewhere = new LongAdder();
+    private final LongAdder completedWrites = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    /*
+     * Single thread, so the writes of one driver are applied in order.
+     */
+    private ExecutorService writer;
+
+    /**
+     * Starts the write-through thread and loads the fleet.
+     *
+     * Workflow:
+     * - Reads all drivers with a cab in ID order, in batches of flat rows.
+     * - Derives the state of each: OFFLINE if not eligible for trips,
+     *   ON_TRIP if the driver or cab is stored as unavailable, AVAILABLE
+     *   otherwise.
+     */
+    @PostConstruct
+    public void load() {
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fleet-state-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long started = System.currentTimeMillis();
+        Integer afterId = 0;
+        while (true) {
+            List<FleetAvailabilityRow> batch = driverRepository.findFleetRowsAfter(afterId, PageRequest.of(0, loadBatchSize));
+            for (FleetAvailabilityRow row : batch) {
+                registry.put(toMember(row));
+            }
+            if (batch.size() < loadBatchSize) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getDriverId();
+        }
+        logger.info("Loaded the state of {} drivers in {} ms: {}", registry.size(),
+                System.currentTimeMillis() - started, registry.countByState());
+    }
+
+    /**
+     * Stops the write-through thread after the queued writes.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("{} fleet state writes were not stored before shutdown.", pendingWrites.size());
+        }
+    }
+
+    /**
+     * Returns the available drivers of a car type from the registry.
+     *
+     * @param carType The car type to match, or null for all car types.
+     * @return The available fleet rows.
+     */
+    @Override
+    public List<FleetAvailabilityRow> getAvailableFleet(String carType) {
+        return registry.available(carType).stream()
+                .filter(FleetMember::isEligible)
+                .map(FleetMember::toRow)
+                .toList();
+    }
+
+    /**
+     * @return The IDs of the cabs whose driver is available.
+     */
+    @Override
+    public Set<Integer> getAvailableCabIds() {
+        return registry.available(null).stream()
+                .map(FleetMember::getCabId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Claims a driver for a trip.
+     *
+     * Workflow:
+     * - Moves the driver from AVAILABLE to OFFERED, atomically, so a
+     *   concurrent claim of the same driver fails.
+     * - Marks the driver row unavailable with a guarded update in the current
+     *   transaction. If the row is already taken (by another instance), makes
+     *   the driver AVAILABLE again here and reports the claim as failed.
+     * - When the current transaction commits, moves them to ON_TRIP and
+     *   queues the write of the cab's flag; when it rolls back, makes them
+     *   AVAILABLE again.
+     *
+     * @param driverId The ID of the driver.
+     * @return True if the driver was claimed.
+     */
+    @Override
+    public boolean claim(Integer driverId) {
+        if (!registry.compareAndSet(driverId, FleetState.AVAILABLE, FleetState.OFFERED)) {
+            return false;
+        }
+        int taken;
+        try {
+            taken = driverRepository.markUnavailable(driverId);
+        } catch (RuntimeException e) {
+            registry.compareAndSet(driverId, FleetState.OFFERED, FleetState.AVAILABLE);
+            throw e;
+        }
+        if (taken == 0) {
+            registry.compareAndSet(driverId, FleetState.OFFERED, FleetState.AVAILABLE);
+            takenElsewhere.increment();
+            logger.warn("Driver {} is available here but already taken in the database.", driverId);
+            return false;
+        }
+        onCompletion(() -> {
+            if (registry.compareAndSet(driverId, FleetState.OFFERED, FleetState.ON_TRIP)) {
+                scheduleWrite(driverId);
+            }
+        }, () -> registry.compareAndSet(driverId, FleetState.OFFERED, FleetState.AVAILABLE));
+        return true;
+    }
+
+    /**
+     * Makes a driver available again: the driver row in the current
+     * transaction, the registry after it commits. A driver who is not busy
+     * is left as they are, so releasing twice does no harm.
+     *
+     * @param driverId The ID of the driver.
+     */
+    @Override
+    public void release(Integer driverId) {
+        driverRepository.markAvailable(driverId);
+        onCompletion(() -> {
+            FleetMember member = registry.get(driverId);
+            if (member == null || !member.getState().isBusy()) {
+                logger.debug("Driver {} is not on a trip, nothing to release.", driverId);
+                return;
+            }
+            registry.transition(driverId, FleetState.AVAILABLE);
+            scheduleWrite(driverId);
+        }, () -> {
+        });
+    }
+
+    /**
+     * Frees the drivers another instance has released.
+     *
+     * Workflow:
+     * - Collects the drivers this registry has ON_TRIP.
+     * - Reads which of them are available in the database, in batches.
+     * - Moves each of those from ON_TRIP to AVAILABLE, unless their state
+     *   changed here meanwhile, and queues the write of the cab's flag.
+     *
+     * A driver freed on a stale read is harmless: a claim still needs the
+     * guarded update of the driver row to succeed.
+     */
+    @Scheduled(fixedDelayString = "${fleet-state.refresh-ms:30000}")
+    public void refreshBusy() {
+        List<Integer> onTrip = registry.idsInState(FleetState.ON_TRIP);
+        for (int from = 0; from < onTrip.size(); from += refreshBatchSize) {
+            List<Integer> batch = onTrip.subList(from, Math.min(from + refreshBatchSize, onTrip.size()));
+            for (Integer driverId : driverRepository.findAvailableIdsIn(batch)) {
+                if (registry.compareAndSet(driverId, FleetState.ON_TRIP, FleetState.AVAILABLE)) {
+                    releasedElsewhere.increment();
+                    scheduleWrite(driverId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds or refreshes a driver after the current transaction commits.
+     *
+     * Workflow:
+     * - Reads the fields the registry keeps while the entity is attached.
+     * - A known driver keeps the ratings the registry has counted and, while
+     *   busy, their state; otherwise they become AVAILABLE or OFFLINE
+     *   depending on whether they can take trips.
+     * - A driver without a cab is not part of the fleet.
+     *
+     * @param driver The driver (with their cab, if any).
+     */
+    @Override
+    public void updateDriver(Driver driver) {
+        int driverId = driver.getId();
+        Cab cab = driver.getCab();
+        if (cab == null) {
+            onCompletion(() -> registry.remove(driverId), () -> {
+            });
+            return;
+        }
+        boolean storedAvailable = !Boolean.FALSE.equals(driver.getIsAvailable())
+                && !Boolean.FALSE.equals(cab.getIsAvailable());
+        FleetMember snapshot = toMember(new FleetAvailabilityRow(driverId, driver.getLatitude(),
+                driver.getLongitude(), driver.getRatingSum(), driver.getTotalRatings(), driver.getVerified(),
+                storedAvailable, cab.getCabId(), cab.getCarType(), cab.getPerKmRate()));
+
+        onCompletion(() -> {
+            FleetMember current = registry.get(driverId);
+            if (current == null) {
+                registry.put(snapshot);
+            } else {
+                registry.update(driverId, old -> new FleetMember(driverId, snapshot.getCabId(),
+                        snapshot.getCarType(), snapshot.getPerKmRate(), snapshot.getLatitude(),
+                        snapshot.getLongitude(), old.getRatingSum(), old.getTotalRatings(), snapshot.isVerified(),
+                        old.getState().isBusy() ? old.getState()
+                                : snapshot.isEligible() ? FleetState.AVAILABLE : FleetState.OFFLINE));
+            }
+            scheduleWrite(driverId);
+        }, () -> {
+        });
+    }
+
+    /**
+     * Adds a rating to a driver after the current transaction commits.
+     *
+     * @param driverId The ID of the rated driver.
+     * @param rating The rating value (1-5).
+     */
+    @Override
+    public void recordRating(Integer driverId, int rating) {
+        onCompletion(() -> {
+            if (registry.get(driverId) != null) {
+                registry.update(driverId, member -> member.withRating(rating));
+            }
+        }, () -> {
+        });
+    }
+
+    /**
+     * Removes a driver after the current transaction commits.
+     *
+     * @param driverId The ID of the driver.
+     */
+    @Override
+    public void removeDriver(Integer driverId) {
+        onCompletion(() -> registry.remove(driverId), () -> {
+        });
+    }
+
+    /**
+     * @return The number of drivers per state and the write-through counters.
+     */
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("drivers", registry.size());
+        status.put("states", registry.countByState());
+        status.put("takenElsewhere", takenElsewhere.sum());
+        status.put("releasedElsewhere", releasedElsewhere.sum());
+        status.put("pendingWrites", pendingWrites.size());
+        status.put("completedWrites", completedWrites.sum());
+        status.put("failedWrites", failedWrites.sum());
+        return status;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to turn a fleet row into a registry member with its
+     * derived state.
+     */
+    private FleetMember toMember(FleetAvailabilityRow row) {
+        FleetMember member = new FleetMember(row.getDriverId(), row.getCabId(), row.getCarType(),
+                row.getPerKmRate(), row.getLatitude(), row.getLongitude(),
+                row.getRatingSum() != null ? row.getRatingSum() : 0L,
+                row.getTotalRatings() != null ? row.getTotalRatings() : 0,
+                Boolean.TRUE.equals(row.getVerified()), FleetState.OFFLINE);
+        if (!member.isEligible()) {
+            return member;
+        }
+        return member.withState(Boolean.FALSE.equals(row.getAvailable()) ? FleetState.ON_TRIP : FleetState.AVAILABLE);
+    }
+
+    /*
+     * Helper method to run an action once the current transaction has ended,
+     * depending on its outcome, or right away (as committed) outside a
+     * transaction.
+     */
+    private void onCompletion(Runnable committed, Runnable rolledBack) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        committed.run();
+                    } else {
+                        rolledBack.run();
+                    }
+                }
+            });
+        } else {
+            committed.run();
+        }
+    }
+
+    /*
+     * Helper method to queue the write of a driver's flags, unless a write of
+     * that driver is already queued.
+     */
+    private void scheduleWrite(int driverId) {
+        if (pendingWrites.add(driverId)) {
+            writer.execute(() -> {
+                pendingWrites.remove(driverId);
+                writeThrough(driverId);
+            });
+        }
+    }
+
+    /*
+     * Helper method to store the current state of a driver's cab:
+     * unavailable while the driver is busy, available otherwise. The driver
+     * row is only changed by the guarded updates of claim and release, so a
+     * late write of this instance can never free a driver another instance
+     * has taken. Rows that already match are not updated.
+     */
+    private void writeThrough(int driverId) {
+        FleetMember member = registry.get(driverId);
+        if (member == null) {
+            return;
+        }
+        Boolean available = !member.getState().isBusy();
+        try {
+            optimisticRetryService.execute("fleet.writeThrough", () -> {
+                driverRepository.findById(driverId).ifPresent(driver -> {
+                    Cab cab = driver.getCab();
+                    if (cab != null && !available.equals(cab.getIsAvailable())) {
+                        cab.setIsAvailable(available);
+                        driverRepository.save(driver);
+                    }
+                });
+                return null;
+            });
+            completedWrites.increment();
+        } catch (RuntimeException e) {
+            failedWrites.increment();
+            logger.error("Storing the fleet state of driver {} failed", driverId, e);
+        }
+    }
+}
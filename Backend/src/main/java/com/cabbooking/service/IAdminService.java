@@ -2,7 +2,9 @@ package com.cabbooking.service;
 
 import java.util.List;
 
+import com.cabbooking.dto.UserListingQuery;
 import com.cabbooking.dto.UserSummaryDTO;
+import com.cabbooking.dto.UserSummaryPage;
 
 /**
  * Service interface for admin-specific data retrieval operations.
@@ -10,16 +12,49 @@ import com.cabbooking.dto.UserSummaryDTO;
 public interface IAdminService {
 
     /**
-     * Retrieves a summary list of all customers.
+     * Retrieves a summary list of the customers, capped at the first 1000 in
+     * ID order.
      *
-     * @return A list of UserSummaryDTO for all customers.
+     * @return A list of UserSummaryDTO for at most 1000 customers.
+     * @deprecated Use searchCustomers, which pages the listing.
      */
+    @Deprecated
     List<UserSummaryDTO> getAllCustomers();
 
     /**
-     * Retrieves a summary list of all drivers.
+     * Retrieves a summary list of the drivers, capped at the first 1000 in ID
+     * order.
      *
-     * @return A list of UserSummaryDTO for all drivers.
+     * @return A list of UserSummaryDTO for at most 1000 drivers.
+     * @deprecated Use searchDrivers, which pages the listing.
      */
+    @Deprecated
     List<UserSummaryDTO> getAllDrivers();
+
+    /**
+     * Retrieves one page of customer summaries.
+     *
+     * @param query The name filter, paging and sort order.
+     * @return The page of customer summaries.
+     * @throws IllegalArgumentException if a filter, the paging or the sort order is invalid.
+     */
+    UserSummaryPage searchCustomers(UserListingQuery query);
+
+    /**
+     * Retrieves one page of driver summaries.
+     *
+     * @param query The verification, rating and name filters, paging and sort order.
+     * @return The page of driver summaries.
+     * @throws IllegalArgumentException if a filter, the paging or the sort order is invalid.
+     */
+    UserSummaryPage searchDrivers(UserListingQuery query);
+
+    /**
+     * Retrieves one page of admin summaries.
+     *
+     * @param query The verification and name filters, paging and sort order.
+     * @return The page of admin summaries.
+     * @throws IllegalArgumentException if a filter, the paging or the sort order is invalid.
+     */
+    UserSummaryPage searchAdmins(UserListingQuery query);
 }
@@ -13,7 +13,10 @@ public interface IAdminVerificationService {
      * Lists all admins that are not yet verified (verified == false)
      *
      * @return list of unverified admins
+     * @deprecated Returns entities, including password hashes, and is not
+     * paged. Use IAdminService.searchAdmins with verified = false.
      */
+    @Deprecated
     List<Admin> getUnverifiedAdmins();
 
     /**
@@ -0,0 +1,29 @@
+package com.cabbooking.service;
+
+import java.util.Map;
+
+/**
+ * Service interface for the second-level cache holding Cab entities and the
+ * cab catalog queries.
+ */
+public interface ICabCacheService {
+
+    /**
+     * Removes one cab from the entity cache and drops the cached catalog
+     * queries. Called for local changes and for invalidations received from
+     * other application instances.
+     *
+     * @param cabId The ID of the changed cab.
+     */
+    void evictCab(Integer cabId);
+
+    /**
+     * Removes all cabs and cached catalog queries.
+     */
+    void evictAll();
+
+    /**
+     * @return Hit, miss and put counts of the cab entity and query regions.
+     */
+    Map<String, Object> getCacheStatistics();
+}
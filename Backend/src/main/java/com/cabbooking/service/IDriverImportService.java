@@ -0,0 +1,31 @@
+package com.cabbooking.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.cabbooking.dto.DriverImportResult;
+
+/**
+ * Service interface for onboarding drivers and their cabs in bulk from a CSV
+ * file.
+ */
+public interface IDriverImportService {
+
+    /**
+     * Streams a CSV file of drivers and creates a driver (with its cab) for
+     * every valid row. Invalid rows are skipped and reported.
+     *
+     * The first record must be a header naming the columns. Required columns:
+     * username, firstName, lastName, password, email, licenceNo. Optional
+     * columns: address, mobileNumber, carType, perKmRate, numberPlate.
+     *
+     * @param csv The CSV data, UTF-8 encoded.
+     * @param verified Whether the imported drivers are marked as verified.
+     * @return The number of imported and rejected rows, with the rejection
+     * reasons.
+     * @throws IOException if the data cannot be read.
+     * @throws IllegalArgumentException if the file is empty or the header is
+     * missing a required column.
+     */
+    DriverImportResult importDrivers(InputStream csv, boolean verified) throws IOException;
+}
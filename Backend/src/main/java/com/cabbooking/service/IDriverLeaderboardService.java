@@ -0,0 +1,81 @@
+package com.cabbooking.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.cabbooking.dto.DriverLeaderboardEntry;
+import com.cabbooking.model.Driver;
+
+/**
+ * Service interface for the in-memory driver leaderboard, which ranks drivers
+ * by a Bayesian-adjusted rating.
+ */
+public interface IDriverLeaderboardService {
+
+    /**
+     * Adds a customer rating to the driver's standing once the current
+     * transaction has committed.
+     *
+     * @param driverId The ID of the rated driver.
+     * @param rating The rating value (1-5).
+     */
+    void recordRating(Integer driverId, int rating);
+
+    /**
+     * Adds a new driver, or refreshes the name and car type of a known one,
+     * once the current transaction has committed.
+     *
+     * @param driver The driver (with their cab, if any).
+     */
+    void updateDriver(Driver driver);
+
+    /**
+     * Removes a driver from the leaderboard once the current transaction has
+     * committed.
+     *
+     * @param driverId The ID of the driver.
+     */
+    void removeDriver(Integer driverId);
+
+    /**
+     * Returns a page of the leaderboard, best first.
+     *
+     * @param carType The car type to rank within, or null for all drivers.
+     * @param page The page number (0-based).
+     * @param size The page size (1-100).
+     * @return The leaderboard rows of the page.
+     * @throws IllegalStateException if the leaderboard is disabled or still loading.
+     * @throws IllegalArgumentException if the page or size is out of range.
+     */
+    List<DriverLeaderboardEntry> getLeaderboard(String carType, int page, int size);
+
+    /**
+     * Returns a page of the best drivers: the leaderboard cut off at the
+     * minimum score for a best driver.
+     *
+     * @param carType The car type to rank within, or null for all drivers.
+     * @param page The page number (0-based).
+     * @param size The page size (1-100).
+     * @return The leaderboard rows of the page.
+     * @throws IllegalStateException if the leaderboard is disabled or still loading.
+     * @throws IllegalArgumentException if the page or size is out of range.
+     */
+    List<DriverLeaderboardEntry> getBestDrivers(String carType, int page, int size);
+
+    /**
+     * @return The IDs of all best drivers, best first.
+     * @throws IllegalStateException if the leaderboard is disabled or still loading.
+     */
+    List<Integer> getBestDriverIds();
+
+    /**
+     * Rebuilds the leaderboard from the database. Queries keep using the
+     * previous leaderboard until the new one is complete.
+     */
+    void rebuild();
+
+    /**
+     * @return The size, scoring parameters and load state of the leaderboard.
+     */
+    Map<String, Object> getStatus();
+}
@@ -24,7 +24,10 @@ public interface IDriverService {
      * Retrieves a list of all drivers who have registered but are not yet verified.
      *
      * @return A list of unverified Driver entities.
+     * @deprecated Returns entities, including password hashes, and is not
+     * paged. Use IAdminService.searchDrivers with verified = false.
      */
+    @Deprecated
     List<Driver> getUnverifiedDrivers();
 
     /**
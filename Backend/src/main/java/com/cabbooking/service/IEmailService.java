@@ -1,16 +1,36 @@
 package com.cabbooking.service;
 
+import java.util.Map;
+
 /*
  * Service interface for sending emails
  */
 public interface IEmailService {
 
     /**
-     * Sends a simple email to the specified recipient.
+     * Queues a simple email to the specified recipient in the email outbox.
+     * The email is stored in the caller's transaction, so it is sent if and
+     * only if the caller commits, and it is sent later by {@link #dispatch()}
+     * without holding up the caller.
      *
      * @param to      the recipient's email address
      * @param subject the subject of the email
      * @param text    the body of the email
      */
     public void sendSimpleEmail(String to, String subject, String text);
+
+    /**
+     * Sends the queued emails that are due, in batches over one SMTP
+     * connection per batch. Failed emails are retried later with backoff.
+     *
+     * @return The number of emails sent.
+     */
+    int dispatch();
+
+    /**
+     * @return The outbox queue depth (pending and failed emails and the age
+     * of the oldest pending one), the dispatcher settings and the number of
+     * emails sent, retried and given up since startup.
+     */
+    Map<String, Object> getOutboxStats();
 }
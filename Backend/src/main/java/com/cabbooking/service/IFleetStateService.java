@@ -0,0 +1,80 @@
+package com.cabbooking.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cabbooking.dto.FleetAvailabilityRow;
+import com.cabbooking.model.Driver;
+
+/**
+ * Service interface for the in-memory fleet state, which answers whether a
+ * driver and their cab can take a trip. Claims are confirmed by a guarded
+ * update of the driver row.
+ */
+public interface IFleetStateService {
+
+    /**
+     * Returns the available drivers with their cabs, without a database query.
+     *
+     * @param carType The car type to match (case-insensitive), or null for
+     * all car types.
+     * @return The available fleet rows.
+     */
+    List<FleetAvailabilityRow> getAvailableFleet(String carType);
+
+    /**
+     * @return The IDs of the cabs whose driver is available.
+     */
+    Set<Integer> getAvailableCabIds();
+
+    /**
+     * Claims an available driver and their cab for a trip, and marks the
+     * driver row unavailable in the current transaction. The claim becomes
+     * final when the transaction commits and is undone if it rolls back.
+     *
+     * @param driverId The ID of the driver.
+     * @return True if the driver was claimed, false if they are no longer
+     * available.
+     */
+    boolean claim(Integer driverId);
+
+    /**
+     * Makes a driver and their cab available again after their trip was
+     * completed or cancelled: the driver row in the current transaction, the
+     * in-memory state once it has committed.
+     *
+     * @param driverId The ID of the driver.
+     */
+    void release(Integer driverId);
+
+    /**
+     * Adds a new driver, or refreshes the verification, location and cab of
+     * a known one, once the current transaction has committed.
+     *
+     * @param driver The driver (with their cab, if any).
+     */
+    void updateDriver(Driver driver);
+
+    /**
+     * Adds a customer rating to the driver's fleet entry once the current
+     * transaction has committed.
+     *
+     * @param driverId The ID of the rated driver.
+     * @param rating The rating value (1-5).
+     */
+    void recordRating(Integer driverId, int rating);
+
+    /**
+     * Removes a driver from the fleet once the current transaction has
+     * committed.
+     *
+     * @param driverId The ID of the driver.
+     */
+    void removeDriver(Integer driverId);
+
+    /**
+     * @return The number of drivers per state and the write-through backlog.
+     */
+    Map<String, Object> getStatus();
+}
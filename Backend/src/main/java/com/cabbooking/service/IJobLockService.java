@@ -0,0 +1,25 @@
+package com.cabbooking.service;
+
+import java.time.Duration;
+
+/**
+ * Service interface for running scheduled jobs on one application instance
+ * at a time.
+ */
+public interface IJobLockService {
+
+    /**
+     * Runs a job unless another instance is running it, or ran it too
+     * recently.
+     *
+     * @param jobName The name the job is locked under (e.g. "rollup.rebuild").
+     * @param lockAtMostFor How long the claim lasts if this instance stops
+     * before releasing it.
+     * @param lockAtLeastFor How long the claim lasts at least, even if the
+     * job ends earlier, so an instance whose schedule fires a little later
+     * does not run the job again.
+     * @param job The job.
+     * @return True if the job ran here, false if it was skipped.
+     */
+    boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable job);
+}
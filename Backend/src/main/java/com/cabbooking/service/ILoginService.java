@@ -12,8 +12,11 @@ public interface ILoginService {
      * Validates user credentials for authentication.
      *
      * @param request LoginRequest containing username and password provided by the user.
+     * @param clientAddress The address the request came from, used to throttle failed logins; may be null.
      * @return LoginResponse containing authentication result and user details.
      * @throws AuthenticationException if credentials are invalid (can be a runtime exception).
+     * @throws LoginThrottledException if there were too many failed logins recently.
+     * @throws PasswordHashingBusyException if the password cannot be checked now.
      */
-    LoginResponse login(LoginRequest request);
+    LoginResponse login(LoginRequest request, String clientAddress);
 }
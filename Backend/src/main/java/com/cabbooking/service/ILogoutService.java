@@ -6,9 +6,10 @@ package com.cabbooking.service;
 public interface ILogoutService {
 
     /**
-     * Blacklists a JWT to invalidate it for all future requests.
+     * Invalidates a JWT for all future requests, together with every other
+     * token of the same user.
      *
-     * @param token The JWT string to be blacklisted.
+     * @param token The JWT string to be invalidated.
      */
     void blacklistToken(String token);
 }
\ No newline at end of file
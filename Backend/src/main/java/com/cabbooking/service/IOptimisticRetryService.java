@@ -0,0 +1,40 @@
+package com.cabbooking.service;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Service interface for running write operations on versioned entities
+ * (Driver, Cab, TripBooking) with retries on optimistic lock conflicts.
+ */
+public interface IOptimisticRetryService {
+
+    /**
+     * Runs an operation in its own transaction. If the transaction fails
+     * because another transaction updated one of its rows first, the
+     * operation is run again in a new transaction, up to the configured
+     * number of attempts.
+     *
+     * The operation must read everything it changes inside the attempt and
+     * validate it again, so running it again on the new state is safe. If
+     * the caller already runs in a transaction, the operation joins it and
+     * is run once only.
+     *
+     * @param operation The name the conflicts are counted under (e.g. "trip.complete").
+     * @param attempt The operation.
+     * @param <T> The result type.
+     * @return The result of the successful attempt.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if
+     * every attempt ran into a conflict.
+     */
+    <T> T execute(String operation, Supplier<T> attempt);
+
+    /**
+     * Returns the conflict counters per operation since startup.
+     *
+     * @return The retry settings and, per operation, the number of
+     * executions, conflicts, retries and exhausted executions and the
+     * conflict rate.
+     */
+    Map<String, Object> getConflictStats();
+}
@@ -2,6 +2,7 @@ package com.cabbooking.service;
 
 import com.cabbooking.dto.UserProfileUpdateRequest;
 import com.cabbooking.model.AbstractUser;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -31,4 +32,12 @@ public interface IProfileService {
      * @return True if the username exists, false otherwise.
      */
     boolean isUsernameTaken(String username);
+
+    /**
+     * Suggests free usernames similar to one that is taken.
+     * @param username The wanted username.
+     * @param limit The maximum number of suggestions.
+     * @return Free usernames, best first.
+     */
+    List<String> suggestUsernames(String username, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.cabbooking.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.cabbooking.model.DailyCarTypeRollup;
+import com.cabbooking.model.DailyDriverRollup;
+import com.cabbooking.model.TripBooking;
+
+/**
+ * Service interface for maintaining and reading the daily revenue and earnings
+ * rollups.
+ */
+public interface IRevenueRollupService {
+
+    /**
+     * Adds a just-completed trip to the daily car type and driver rollups.
+     *
+     * @param trip The completed trip (must have its bill and end time set).
+     */
+    void recordCompletedTrip(TripBooking trip);
+
+    /**
+     * Adds a customer rating to the rollups of the day the trip was completed.
+     *
+     * @param trip The rated trip.
+     * @param rating The rating value (1-5).
+     */
+    void recordRating(TripBooking trip, int rating);
+
+    /**
+     * Recomputes all rollups from the raw trip data, overwriting the current
+     * rows with the fresh figures.
+     *
+     * @return True if the rollups were rebuilt, false if another instance is
+     * rebuilding them or has just done so.
+     */
+    boolean rebuildRollups();
+
+    /**
+     * Retrieves the daily per-car-type revenue rows within a date range.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    List<DailyCarTypeRollup> getCarTypeRevenue(LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the daily per-driver earnings rows within a date range.
+     *
+     * @param driverId The ID of the driver, or null for all drivers.
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    List<DailyDriverRollup> getDriverEarnings(Integer driverId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,45 @@
+package com.cabbooking.service;
+
+import java.util.Map;
+
+/**
+ * Service interface for the in-memory blacklist of logged out JWTs.
+ *
+ * Only tokens without a user ID are blacklisted; every other token is
+ * revoked through ITokenEpochService. Login no longer issues such tokens,
+ * so once the last one has expired (one token lifetime, 24 hours, after the
+ * release that added the user ID) the blacklist is unused and is to be
+ * removed, together with the blacklisted_token table.
+ */
+public interface ITokenBlacklistService {
+
+    /**
+     * Blacklists a token until it expires, on this instance at once and on
+     * the other instances with their next poll.
+     *
+     * @param token The JWT string. Invalid or expired tokens are ignored,
+     * since they are rejected anyway.
+     */
+    void blacklist(String token);
+
+    /**
+     * Checks a token against the blacklist, in memory.
+     *
+     * @param tokenDigest The TokenDigest of the JWT.
+     * @return True if the token was logged out and has not expired yet.
+     */
+    boolean isBlacklisted(String tokenDigest);
+
+    /**
+     * Deletes the rows of expired tokens and drops them from memory.
+     *
+     * @return The number of rows deleted.
+     */
+    int purgeExpired();
+
+    /**
+     * @return The number of blacklisted tokens, the size of the Bloom filter
+     * and the time of the last poll.
+     */
+    Map<String, Object> getStatus();
+}
@@ -0,0 +1,39 @@
+package com.cabbooking.service;
+
+import com.cabbooking.security.VerifiedToken;
+
+/**
+ * Service interface for per-user token epochs, which revoke all tokens of a
+ * user at once.
+ */
+public interface ITokenEpochService {
+
+    /**
+     * Reads the current epoch of a user from the database, including
+     * revocations made on other instances that were not polled yet.
+     *
+     * @param userType The type of the user: "Admin", "Driver" or "Customer".
+     * @param userId The ID of the user.
+     * @return The epoch to embed in a token issued to the user now.
+     */
+    int currentEpoch(String userType, Integer userId);
+
+    /**
+     * Checks a verified token against the epoch of its user, in memory.
+     *
+     * @param token The verified token.
+     * @return True if the token was issued before the user's tokens were last
+     * revoked. Tokens without a user ID are never revoked by epoch.
+     */
+    boolean isRevoked(VerifiedToken token);
+
+    /**
+     * Revokes every token issued to a user so far, on this instance at once
+     * and on the other instances with their next poll.
+     *
+     * @param userType The type of the user: "Admin", "Driver" or "Customer".
+     * @param userId The ID of the user.
+     * @return The new epoch of the user.
+     */
+    int revoke(String userType, Integer userId);
+}
@@ -0,0 +1,43 @@
+package com.cabbooking.service;
+
+import java.util.Map;
+
+import com.cabbooking.dto.TripAnalyticsQuery;
+import com.cabbooking.dto.TripAnalyticsResult;
+import com.cabbooking.model.TripBooking;
+
+/**
+ * Service interface for the in-memory trip analytics store used by the admin
+ * dashboards.
+ */
+public interface ITripAnalyticsService {
+
+    /**
+     * Adds or updates a finished (completed, cancelled or rated) trip in the
+     * analytics store once the current transaction has committed.
+     *
+     * @param trip The finished trip.
+     */
+    void recordTrip(TripBooking trip);
+
+    /**
+     * Runs a filter/group-by/aggregate query over the stored trips.
+     *
+     * @param query The query.
+     * @return The aggregated rows.
+     * @throws IllegalStateException if the store is disabled or still loading.
+     * @throws IllegalArgumentException if the query is invalid.
+     */
+    TripAnalyticsResult query(TripAnalyticsQuery query);
+
+    /**
+     * Reloads the store from the database. Queries keep using the previous
+     * store until the new one is complete.
+     */
+    void reload();
+
+    /**
+     * @return The size and load state of the store.
+     */
+    Map<String, Object> getStoreStatus();
+}
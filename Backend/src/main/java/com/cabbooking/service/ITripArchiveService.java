@@ -0,0 +1,25 @@
+package com.cabbooking.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service interface for moving old finished trips out of the live trip table.
+ */
+public interface ITripArchiveService {
+
+    /**
+     * Moves completed and cancelled trips that started before the archive
+     * cutoff into the archive table, in batches.
+     *
+     * @return The number of trips archived.
+     */
+    int archiveOldTrips();
+
+    /**
+     * Trips that started before this time may have been archived, so history
+     * queries reaching before it must also read the archive.
+     *
+     * @return The current archive cutoff.
+     */
+    LocalDateTime getArchiveCutoff();
+}
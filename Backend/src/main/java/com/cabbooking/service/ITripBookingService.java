@@ -7,6 +7,7 @@ import com.cabbooking.dto.TripHistoryResponse;
 import com.cabbooking.dto.RatingRequest;
 import com.cabbooking.dto.TripBookingRequest;
 import com.cabbooking.model.TripBooking;
+import com.cabbooking.security.AuthenticatedUser;
 
 /**
  * Service interface defining the business logic for the Trip Booking module.
@@ -28,18 +29,20 @@ public interface ITripBookingService {
      * @param tripId The ID of the trip to update.
      * @param status The new status for the trip (e.g., "IN_PROGRESS",
      * "CANCELLED").
+     * @param driver The authenticated driver; must be the driver of the trip.
      * @return The updated {@link TripBooking} entity.
      */
-    TripBooking updateTripStatus(Integer tripId, String status, String driverUsername);
+    TripBooking updateTripStatus(Integer tripId, String status, AuthenticatedUser driver);
 
     /**
      * Marks a trip as completed and calculates the final bill.
      *
      * @param tripId The ID of the trip to complete.
+     * @param driver The authenticated driver; must be the driver of the trip.
      * @return The completed {@link TripBooking} entity with the final bill
      * calculated.
      */
-    TripBooking completeTrip(Integer tripId, String driverUsername);
+    TripBooking completeTrip(Integer tripId, AuthenticatedUser driver);
 
     /**
      * Retrieves all trips for a specific customer.
@@ -54,10 +57,10 @@ public interface ITripBookingService {
      *
      * @param tripId The ID of the trip to rate.
      * @param ratingRequest The DTO containing the rating value.
-     * @param customerUsername The username of the customer making the request.
+     * @param customer The authenticated customer; must be the customer of the trip.
      * @return The updated TripBooking object.
      */
-    TripBooking rateTrip(Integer tripId, RatingRequest ratingRequest, String customerUsername);
+    TripBooking rateTrip(Integer tripId, RatingRequest ratingRequest, AuthenticatedUser customer);
 
     /**
      * Retrieves all trips taken by a specific driver.
@@ -0,0 +1,54 @@
+package com.cabbooking.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.model.TripStatus;
+
+/**
+ * Service interface for the append-only trip lifecycle log and the
+ * projections built from it.
+ */
+public interface ITripEventService {
+
+    /**
+     * Appends the current status of a trip to the log, in the current
+     * transaction, so the event is stored if and only if the change is.
+     *
+     * @param trip The saved trip, already in its new status.
+     * @param previousStatus The status the trip had before, or null for a
+     * new trip.
+     */
+    void record(TripBooking trip, TripStatus previousStatus);
+
+    /**
+     * Reads the full history of a trip from the log.
+     *
+     * @param tripId The ID of the trip.
+     * @return The events of the trip, oldest first.
+     */
+    List<TripEvent> getTripEvents(Integer tripId);
+
+    /**
+     * Returns the most recent events of a driver from the projections.
+     *
+     * @param driverId The ID of the driver.
+     * @return The events of the driver, oldest first.
+     */
+    List<TripEvent> getDriverTimeline(Integer driverId);
+
+    /**
+     * @return The funnel metrics, the number of open trips per status and the
+     * position of the projections in the log.
+     */
+    Map<String, Object> getFunnel();
+
+    /**
+     * Applies the events appended since the last run to the projections.
+     *
+     * @return The number of events applied.
+     */
+    int catchUp();
+}
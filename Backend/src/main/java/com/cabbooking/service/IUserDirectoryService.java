@@ -0,0 +1,131 @@
+package com.cabbooking.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.cabbooking.model.AbstractUser;
+import com.cabbooking.model.UserIdentity;
+
+/**
+ * Service interface for the identity directory that login and Spring
+ * Security look users up in, and that registration checks usernames and
+ * emails against.
+ */
+public interface IUserDirectoryService {
+
+    /**
+     * Finds a user by username or email, ignoring case and surrounding
+     * spaces, with one indexed query.
+     *
+     * @param identifier The username or email.
+     * @return The identity of the user, or empty if there is none.
+     */
+    Optional<UserIdentity> find(String identifier);
+
+    /**
+     * Finds a user by email, ignoring case and surrounding spaces, with one
+     * indexed query.
+     *
+     * @param email The email address.
+     * @return The identity of the user, or empty if there is none.
+     */
+    Optional<UserIdentity> findByEmail(String email);
+
+    /**
+     * Reads the entry of a user by primary key.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @return The identity of the user, or empty if there is none.
+     */
+    Optional<UserIdentity> get(String userType, Integer userId);
+
+    /**
+     * Checks in memory whether a username is taken by any user, ignoring
+     * case and surrounding spaces.
+     *
+     * @param username The username.
+     * @return True if the username is taken.
+     */
+    boolean isUsernameTaken(String username);
+
+    /**
+     * Checks in memory whether an email is registered to any user, ignoring
+     * case and surrounding spaces.
+     *
+     * @param email The email address.
+     * @return True if the email is registered.
+     */
+    boolean isEmailTaken(String email);
+
+    /**
+     * Suggests free usernames similar to a wanted one, in memory.
+     *
+     * @param username The wanted username.
+     * @param limit The maximum number of suggestions.
+     * @return Free usernames, best first; empty for a blank username.
+     */
+    List<String> suggestUsernames(String username, int limit);
+
+    /**
+     * Checks that a new user's username and email are free before they are
+     * registered: in memory first, then against the directory table for
+     * names registered by other instances since this one started.
+     *
+     * @param username The username of the new user.
+     * @param email The email of the new user.
+     * @throws IllegalArgumentException if the username or email is taken.
+     */
+    void checkAvailable(String username, String email);
+
+    /**
+     * Adds a user to the directory or updates their entry. Called after the
+     * user is saved whenever their username, email, password or email
+     * verification may have changed, in the transaction that saved the user.
+     *
+     * @param user The saved Admin, Driver or Customer.
+     */
+    void index(AbstractUser user);
+
+    /**
+     * Adds or updates the entries of several users in one transaction, the
+     * caller's if there is one.
+     *
+     * @param users The saved users.
+     */
+    void indexAll(List<? extends AbstractUser> users);
+
+    /**
+     * Marks the email of a user as verified in the directory, after the
+     * user table was updated without loading the user.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     */
+    void markEmailVerified(String userType, Integer userId);
+
+    /**
+     * Replaces the password hash of a user in the directory, after the user
+     * table was updated without loading the user.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param passwordHash The new password hash.
+     */
+    void updatePassword(String userType, Integer userId, String passwordHash);
+
+    /**
+     * Removes a deleted user from the directory, in the transaction that
+     * deleted the user.
+     *
+     * @param user The deleted Admin, Driver or Customer.
+     */
+    void remove(AbstractUser user);
+
+    /**
+     * Rebuilds the directory from the three user tables.
+     *
+     * @return The number of users indexed.
+     */
+    int rebuild();
+}
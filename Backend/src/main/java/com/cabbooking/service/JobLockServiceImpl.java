@@ -0,0 +1,124 @@
+package com.cabbooking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.JobLock;
+import com.cabbooking.repository.JobLockRepository;
+
+/**
+ * Implementation of the IJobLockService interface.
+ *
+ * Main Responsibilities:
+ * - Creates the lock row of a job the first time it is needed.
+ * - Claims the job with one guarded update on the row, so of several
+ *   instances whose schedules fire together only one runs the job.
+ * - Releases the claim after the job, keeping it for the minimum time.
+ *
+ * The claim and the release each commit in their own short transaction, so
+ * the claim is visible to the other instances while the job runs, and the
+ * job itself runs in whatever transactions it starts. The clocks of the
+ * instances must agree within the minimum lock time.
+ *
+ * Dependencies:
+ * - JobLockRepository: For the lock rows.
+ */
+@Service
+public class JobLockServiceImpl implements IJobLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLockServiceImpl.class);
+
+    /*
+     * Repository for the lock rows.
+     */
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    /*
+     * Transaction manager for the claim and the release.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Runs a job unless another instance holds its lock.
+     *
+     * Workflow:
+     * - Creates the lock row if it does not exist yet; a duplicate key means
+     *   another instance created it first.
+     * - Claims the row if its last claim has run out, with a new claim
+     *   token, until now plus lockAtMostFor. Skips the job otherwise.
+     * - Runs the job and then shortens the claim to lockAtLeastFor after the
+     *   start, or to now if the job took longer, whether or not the job
+     *   failed.
+     *
+     * @param jobName The name the job is locked under.
+     * @param lockAtMostFor How long the claim lasts if this instance stops.
+     * @param lockAtLeastFor How long the claim lasts at least.
+     * @param job The job.
+     * @return True if the job ran here, false if it was skipped.
+     */
+    @Override
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable job) {
+        LocalDateTime started = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+
+        createIfAbsent(jobName);
+        Integer claimed = newTransaction().execute(status ->
+                jobLockRepository.claim(jobName, claimToken, started.plus(lockAtMostFor), started));
+        if (claimed == null || claimed == 0) {
+            logger.info("Skipping job {}: it is locked by another instance.", jobName);
+            return false;
+        }
+
+        try {
+            job.run();
+        } finally {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime minimum = started.plus(lockAtLeastFor);
+            LocalDateTime until = now.isAfter(minimum) ? now : minimum;
+            newTransaction().execute(status -> jobLockRepository.release(jobName, claimToken, until));
+        }
+        return true;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to create the lock row of a job, free since the epoch, in
+     * its own transaction.
+     */
+    private void createIfAbsent(String jobName) {
+        if (jobLockRepository.existsById(jobName)) {
+            return;
+        }
+        try {
+            newTransaction().executeWithoutResult(status ->
+                    jobLockRepository.saveAndFlush(new JobLock(jobName, LocalDateTime.of(1970, 1, 1, 0, 0))));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Job lock {} was created concurrently: {}", jobName, e.getMessage());
+        }
+    }
+
+    /*
+     * Helper method to build a template for a transaction of its own.
+     */
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -1,13 +1,12 @@
 package com.cabbooking.service;
 
-import java.util.ArrayList;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,13 +15,10 @@ import org.springframework.stereotype.Service;
 
 import com.cabbooking.dto.LoginRequest;
 import com.cabbooking.dto.LoginResponse;
-import com.cabbooking.model.Admin;
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.Driver;
-import com.cabbooking.repository.AdminRepository;
-import com.cabbooking.repository.CustomerRepository;
-import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.security.DirectoryUserDetails;
 import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.LoginThrottle;
 
 /*
  * Service class for handling user login functionality.
@@ -34,11 +30,11 @@ import com.cabbooking.security.JwtUtil;
  * - Load user details for Spring Security.
  * 
  * Dependencies:
- * - AdminRepository: Access admin user data.
- * - CustomerRepository: Access customer user data.
- * - DriverRepository: Access driver user data.
+ * - IUserDirectoryService: Resolve a username or email to the user's type, ID and password hash.
+ * - LoginThrottle: Refuse logins early after repeated failures or while password hashing is saturated.
  * - AuthenticationManager: Perform authentication checks.
  * - JwtUtil: Generate JWT tokens.
+ * - ITokenEpochService: Read the token epoch embedded in new tokens.
  */
 @Service
 public class LoginServiceImpl implements ILoginService, UserDetailsService {
@@ -46,22 +42,16 @@ public class LoginServiceImpl implements ILoginService, UserDetailsService {
     private static final Logger logger = LoggerFactory.getLogger(LoginServiceImpl.class);
 
     /*
-     * Provides access to the admin repository.
+     * Provides access to the identity directory of admins, drivers and customers.
      */
     @Autowired
-    private AdminRepository adminRepository;
+    private IUserDirectoryService userDirectoryService;
 
     /*
-     * Provides access to the customer repository.
+     * Admission control checked before the user is looked up and the password checked.
      */
     @Autowired
-    private CustomerRepository customerRepository;
-
-    /*
-     * Provides access to the driver repository.
-     */
-    @Autowired
-    private DriverRepository driverRepository;
+    private LoginThrottle loginThrottle;
 
     /*
      * Provides access to the authentication manager for verifying credentials.
@@ -76,112 +66,99 @@ public class LoginServiceImpl implements ILoginService, UserDetailsService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    /*
+     * Provides the current token epoch of the user, so logout can revoke the token later.
+     */
+    @Autowired
+    private ITokenEpochService tokenEpochService;
+
     /*
      * Login a user (Admin, Driver, or Customer) based on username/email and password.
      * 
      * Workflow:
-     * - Authenticate the user using AuthenticationManager.
-     * - Identify the user type (Admin, Driver, Customer) by searching in respective repositories.
-     * - Generate a JWT token for the authenticated user.
+     * - Refuse the attempt early if the identifier or client address failed too often, or if
+     *   password hashing is saturated.
+     * - Authenticate the user using AuthenticationManager, which looks the user up once
+     *   in the identity directory (loadUserByUsername).
+     * - Take the user type and ID from the authenticated principal.
+     * - Generate a JWT token for the authenticated user, carrying their ID and current token epoch.
      * - Return a LoginResponse containing user details and the JWT token.
      * - Throws UsernameNotFoundException if authentication fails or user is not found.
      * 
      * @param loginRequest The login request containing username/email and password.
+     * @param clientAddress The address the request came from, or null.
      * @return LoginResponse containing user details and JWT token.
      * @throws UsernameNotFoundException if authentication fails or user is not found.
      */
     @Override
-    public LoginResponse login(LoginRequest loginRequest) {
+    public LoginResponse login(LoginRequest loginRequest, String clientAddress) {
         
         // Determine whether to use username or email for authentication
         String identifier = loginRequest.getUsername() != null ? loginRequest.getUsername() : loginRequest.getEmail();
         
         logger.info("Attempting login for identifier: {}", identifier);
+        loginThrottle.admit(identifier, clientAddress);
 
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(identifier, loginRequest.getPassword())
             );
         } catch (AuthenticationException e) {
             logger.error("Authentication failed for identifier: {}. Reason: {}", identifier, e.getMessage());
+            loginThrottle.recordFailure(identifier, clientAddress);
             throw new UsernameNotFoundException("Invalid credentials", e);
         }
 
-        Admin admin = adminRepository.findByUsername(identifier);
-        if (admin == null) {
-            admin = adminRepository.findByEmail(identifier);
-        }
-        if (admin != null) {
-            logger.info("Admin user '{}' logged in successfully.", identifier);
-            final String token = jwtUtil.generateToken(admin.getUsername(), "Admin");
-            return new LoginResponse("Admin login successful", admin.getId(), "Admin", token, true);
-        }
-
-        Driver driver = driverRepository.findByUsername(identifier);
-        if (driver == null) {
-            driver = driverRepository.findByEmail(identifier);
-        }
-        if (driver != null) {
-            logger.info("Driver user '{}' logged in successfully.", identifier);
-            final String token = jwtUtil.generateToken(driver.getUsername(), "Driver");
-            return new LoginResponse("Driver login successful", driver.getId(), "Driver", token, true);
-        }
-
-        Customer customer = customerRepository.findByUsername(identifier);
-        if (customer == null) {
-            customer = customerRepository.findByEmail(identifier);
-        }
-        if (customer != null) {
-            logger.info("Customer user '{}' logged in successfully.", identifier);
-            final String token = jwtUtil.generateToken(customer.getUsername(), "Customer");
-            return new LoginResponse("Customer login successful", customer.getId(), "Customer", token, true);
-        }
-
-        logger.error("User not found after successful authentication for identifier: {}", identifier);
-        throw new UsernameNotFoundException("User details not found in any repository post-authentication.");
+        loginThrottle.recordSuccess(identifier);
+        UserIdentity identity = resolveIdentity(authentication, identifier);
+        String userType = identity.getUserType();
+        logger.info("{} user '{}' logged in successfully.", userType, identifier);
+        int epoch = tokenEpochService.currentEpoch(userType, identity.getUserId());
+        final String token = jwtUtil.generateToken(identity.getUsername(), userType, identity.getUserId(), epoch);
+        return new LoginResponse(userType + " login successful", identity.getUserId(), userType, token, true);
     }
 
     /*
      * Load user details by username or email for Spring Security.
      * 
      * Workflow:
-     * - Searches for the user in Admin, Driver, and Customer repositories using the provided identifier.
-     * - If found, returns a UserDetails object containing username, password, and authorities.
+     * - Looks the identifier up in the identity directory, ignoring case.
+     * - If found, returns a DirectoryUserDetails object containing username, password and the directory entry.
      * - If not found, throws UsernameNotFoundException.
      * 
      * @param identifier The username or email of the user to load.
      * @return UserDetails object for the user.
-     * @throws UsernameNotFoundException if the user is not found in any repository.
+     * @throws UsernameNotFoundException if the user is not found in the directory.
      */
     @Override
     public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
         logger.debug("Loading user by identifier for Spring Security: {}", identifier);
 
-        Admin admin = adminRepository.findByUsername(identifier);
-        if (admin == null) {
-            admin = adminRepository.findByEmail(identifier);
-        }
-        if (admin != null) {
-            return new org.springframework.security.core.userdetails.User(admin.getUsername(), admin.getPassword(), new ArrayList<>());
-        }
+        return userDirectoryService.find(identifier)
+                .map(DirectoryUserDetails::new)
+                .orElseThrow(() -> {
+                    logger.warn("User not found for identifier: {}", identifier);
+                    return new UsernameNotFoundException("User not found with identifier: " + identifier);
+                });
+    }
 
-        Driver driver = driverRepository.findByUsername(identifier);
-        if (driver == null) {
-            driver = driverRepository.findByEmail(identifier);
-        }
-        if (driver != null) {
-            return new org.springframework.security.core.userdetails.User(driver.getUsername(), driver.getPassword(), new ArrayList<>());
-        }
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
 
-        Customer customer = customerRepository.findByUsername(identifier);
-        if (customer == null) {
-            customer = customerRepository.findByEmail(identifier);
-        }
-        if (customer != null) {
-            return new org.springframework.security.core.userdetails.User(customer.getUsername(), customer.getPassword(), new ArrayList<>());
+    /*
+     * Helper method to take the directory entry from the authenticated
+     * principal, or to look it up if the principal does not carry one.
+     */
+    private UserIdentity resolveIdentity(Authentication authentication, String identifier) {
+        if (authentication != null && authentication.getPrincipal() instanceof DirectoryUserDetails details) {
+            return details.getIdentity();
         }
-
-        logger.warn("User not found for identifier: {}", identifier);
-        throw new UsernameNotFoundException("User not found with identifier: " + identifier);
+        return userDirectoryService.find(identifier).orElseThrow(() -> {
+            logger.error("User not found after successful authentication for identifier: {}", identifier);
+            return new UsernameNotFoundException("User details not found in any repository post-authentication.");
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,43 +1,74 @@
 package com.cabbooking.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.cabbooking.model.BlacklistedToken;
-import com.cabbooking.repository.BlacklistedTokenRepository;
+import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.VerifiedToken;
+
+import io.jsonwebtoken.JwtException;
 
 /**
  * Service responsible for handling user logout functionality.
  *
  * Main Responsibilities:
- * - Implements the token blacklisting mechanism for JWT-based logout.
- * - Interacts with the BlacklistedTokenRepository to invalidate tokens.
+ * - Revokes the tokens of the user logging out by raising their token
+ *   epoch, which invalidates every token issued to them so far without
+ *   storing the tokens.
+ * - Tokens issued without a user ID (before token epochs existed) are
+ *   handed to the ITokenBlacklistService instead, until they expire. No
+ *   such tokens are issued any more, so this branch goes away with the
+ *   blacklist one token lifetime after that release.
  *
  * Dependencies:
- * - BlacklistedTokenRepository for storing and retrieving invalidated tokens.
+ * - ITokenEpochService for revoking all tokens of a user.
+ * - ITokenBlacklistService for tokens that cannot be revoked by epoch.
+ * - JwtUtil for reading the user from the token.
  */
 @Service
 public class LogoutServiceImpl implements ILogoutService {
 
-    // Repository for managing the persistence of blacklisted JWTs.
+    private static final Logger logger = LoggerFactory.getLogger(LogoutServiceImpl.class);
+
+    // Service holding the token epoch of every revoked user.
+    @Autowired
+    private ITokenEpochService tokenEpochService;
+
+    // Service holding the blacklist of invalidated JWTs.
+    @Autowired
+    private ITokenBlacklistService tokenBlacklistService;
+
+    // Utility for verifying the token and reading its claims.
     @Autowired
-    private BlacklistedTokenRepository blacklistedTokenRepository;
+    private JwtUtil jwtUtil;
 
     /**
-     * Blacklists a JWT to invalidate it for future use.
+     * Invalidates a JWT for future use.
      *
      * Workflow:
-     * - Creates a new BlacklistedToken entity to represent the invalidated token.
-     * - Saves the token to the blacklist table in the database.
+     * - Verifies the token; an invalid or expired token is ignored, since
+     *   it is rejected anyway.
+     * - If the token names its user, raises the user's token epoch, which
+     *   logs the user out of every session.
+     * - Otherwise blacklists the single token.
      * 
-     * @param token The JWT string to be blacklisted.
+     * @param token The JWT string to be invalidated.
      */
     @Override
     public void blacklistToken(String token) {
-        BlacklistedToken blacklisted = new BlacklistedToken();
-        blacklisted.setToken(token);
-        
-        // Save the token to the blacklist table in the database.
-        blacklistedTokenRepository.save(blacklisted);
+        VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Ignoring logout with an invalid or expired token.");
+            return;
+        }
+        if (verified.getUserId() != null) {
+            tokenEpochService.revoke(verified.getUserType(), verified.getUserId());
+        } else {
+            tokenBlacklistService.blacklist(token);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package com.cabbooking.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.OptimisticLockException;
+
+/**
+ * Implementation of the IOptimisticRetryService interface.
+ *
+ * Main Responsibilities:
+ * - Runs each attempt of an operation in a new transaction, so a conflict
+ *   rolls back the whole attempt and the next one starts from a clean
+ *   persistence context.
+ * - Recognises optimistic lock conflicts in the exception chain, whether
+ *   raised on flush or on commit; any other exception is passed on at once.
+ * - Waits a short, growing and randomised time between attempts, so the
+ *   competing writers do not collide again.
+ * - Counts executions, conflicts, retries and exhausted executions per
+ *   operation, so contention hot spots show up in the admin statistics.
+ */
+@Service
+public class OptimisticRetryServiceImpl implements IOptimisticRetryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryServiceImpl.class);
+
+    /*
+     * Transaction manager each attempt runs its transaction with.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Attempts per execution, including the first one.
+     */
+    @Value("${optimistic-retry.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /*
+     * Base wait before a retry; the n-th retry waits n times this plus a
+     * random share of it.
+     */
+    @Value("${optimistic-retry.backoff-ms:20}")
+    private long backoffMillis = 20;
+
+    /*
+     * Counters per operation name.
+     */
+    private final Map<String, ConflictCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Runs an operation in its own transaction and re-runs it on optimistic
+     * lock conflicts.
+     *
+     * Workflow:
+     * - Joins the caller's transaction without retries if there is one; the
+     *   rolled back state can only be retried by the caller.
+     * - Otherwise runs the attempt in a new transaction.
+     * - On a conflict, waits and runs the attempt again until it succeeds
+     *   or the maximum number of attempts is reached; then the last
+     *   conflict is thrown.
+     *
+     * @param operation The name the conflicts are counted under.
+     * @param attempt The operation.
+     * @return The result of the successful attempt.
+     */
+    @Override
+    public <T> T execute(String operation, Supplier<T> attempt) {
+        ConflictCounters stats = counters.computeIfAbsent(operation, name -> new ConflictCounters());
+        stats.executions.increment();
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            try {
+                return attempt.get();
+            } catch (RuntimeException e) {
+                if (isConflict(e)) {
+                    stats.conflicts.increment();
+                    stats.exhausted.increment();
+                }
+                throw e;
+            }
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attemptNo = 1;; attemptNo++) {
+            try {
+                return transaction.execute(status -> attempt.get());
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                stats.conflicts.increment();
+                if (attemptNo >= maxAttempts) {
+                    stats.exhausted.increment();
+                    logger.warn("Optimistic lock conflict in '{}', giving up after {} attempts: {}",
+                            operation, attemptNo, e.getMessage());
+                    throw e;
+                }
+                stats.retries.increment();
+                logger.info("Optimistic lock conflict in '{}' on attempt {} of {}, retrying.",
+                        operation, attemptNo, maxAttempts);
+                backOff(attemptNo, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the conflict counters per operation since startup.
+     *
+     * @return The retry settings and the counters per operation, by name.
+     */
+    @Override
+    public Map<String, Object> getConflictStats() {
+        Map<String, Object> operations = new TreeMap<>();
+        counters.forEach((operation, stats) -> {
+            long executions = stats.executions.sum();
+            long conflicts = stats.conflicts.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("executions", executions);
+            entry.put("conflicts", conflicts);
+            entry.put("retries", stats.retries.sum());
+            entry.put("exhausted", stats.exhausted.sum());
+            entry.put("conflictRate", executions == 0 ? 0.0 : (double) conflicts / executions);
+            operations.put(operation, entry);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxAttempts", maxAttempts);
+        result.put("backoffMillis", backoffMillis);
+        result.put("operations", operations);
+        return result;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /**
+     * Helper method to check if an exception, or one of its causes, reports
+     * an optimistic lock conflict.
+     */
+    private boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to wait before the next attempt. An interrupted wait
+     * gives up and throws the conflict.
+     */
+    private void backOff(int attemptNo, RuntimeException conflict) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        long wait = backoffMillis * attemptNo + ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    /*
+     * Counters of one operation.
+     */
+    private static class ConflictCounters {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+    }
+}
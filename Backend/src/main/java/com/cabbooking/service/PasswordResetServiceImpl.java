@@ -1,23 +1,22 @@
 package com.cabbooking.service;
 
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.cabbooking.model.AbstractUser;
-import com.cabbooking.model.Admin;
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.Driver;
-import com.cabbooking.model.PasswordResetToken;
+import com.cabbooking.model.UserIdentity;
 import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
-import com.cabbooking.repository.PasswordResetTokenRepository;
+import com.cabbooking.security.ActionToken;
+import com.cabbooking.security.ActionTokenSigner;
+import com.cabbooking.security.ConsumedTokenGuard;
 
 /*
  * Service class for password reset functionality.
@@ -28,19 +27,33 @@ import com.cabbooking.repository.PasswordResetTokenRepository;
  * - Reset passwords for users based on password reset tokens.
  * 
  * Dependencies:
- * - PasswordResetTokenRepository for storing and retrieving password reset tokens.
+ * - IUserDirectoryService for finding users and updating their directory entry.
+ * - ActionTokenSigner for issuing and checking the signed reset tokens; no token is stored.
+ * - ConsumedTokenGuard for refusing a token that was already used.
  * - IEmailService for sending emails.
  * - PasswordEncoder for encoding and decoding passwords.
- * - AdminRepository, CustomerRepository, and DriverRepository for user type-specific operations.
+ * - AdminRepository, CustomerRepository, and DriverRepository for updating the password by ID.
+ * - PlatformTransactionManager for using up the token in the transaction of the password update.
  */
 @Service
 public class PasswordResetServiceImpl implements IPasswordResetService {
 
     /*
-     * Provides access to the password reset token repository.
+     * How long a password reset link is valid.
+     */
+    private static final Duration VALIDITY = Duration.ofHours(1);
+
+    /*
+     * Issues and checks the signed reset tokens.
+     */
+    @Autowired
+    private ActionTokenSigner actionTokenSigner;
+
+    /*
+     * Remembers the reset tokens that were used until they expire.
      */
     @Autowired
-    private PasswordResetTokenRepository tokenRepository;
+    private ConsumedTokenGuard consumedTokenGuard;
 
     /*
      * Provides access to the admin repository.
@@ -72,32 +85,46 @@ public class PasswordResetServiceImpl implements IPasswordResetService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /*
+     * Identity directory used by login, which holds a copy of the password
+     * hash. Users are found and their reset tokens checked against it.
+     */
+    @Autowired
+    private IUserDirectoryService userDirectoryService;
+
+    /*
+     * Transaction manager for the transaction that uses up the token and
+     * updates the password.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     /*
      * Creates a password reset token and sends an email to the user with a link to reset their password.
      * 
      * Workflow:
      * - Email is received from the user
-     * - A user is searched for by email
-     * - A password reset token is created and saved to the database
-     * - An email is sent to the user with a link to reset their password
+     * - A user is searched for by email in the identity directory
+     * - A signed password reset token, bound to the current password hash,
+     *   is created; nothing is saved
+     * - An email with a link to reset their password is queued in the
+     *   email outbox and sent in the background
      * 
      * @param email The email address of the user to send the password reset link to.
      */
     @Override
-    @Transactional
     public void createAndSendPasswordResetToken(String email) {
-        AbstractUser user = findUserByEmail(email)
+        UserIdentity user = userDirectoryService.findByEmail(email)
                 .orElseThrow(() -> new IllegalStateException("User associated with token not found."));
 
-        String token = UUID.randomUUID().toString();
-        PasswordResetToken resetToken = new PasswordResetToken(token, LocalDateTime.now().plusHours(1), user.getEmail());
-        tokenRepository.save(resetToken);
+        String token = actionTokenSigner.sign(ActionToken.Purpose.PASSWORD_RESET, user.getUserType(),
+                user.getUserId(), ActionTokenSigner.fingerprint(user.getPassword()), VALIDITY);
 
         String subject = "Your Password Reset Request";
         String resetUrl = "http://your-frontend-url/reset-password?token=" + token;
         String message = "To reset your password, click the link below:\n" + resetUrl;
         
-        emailService.sendSimpleEmail(user.getEmail(), subject, message);
+        emailService.sendSimpleEmail(email.trim(), subject, message);
     }
 
     /*
@@ -105,10 +132,14 @@ public class PasswordResetServiceImpl implements IPasswordResetService {
      * 
      * Workflow:
      * - Token and new password are received from the user
-     * - Token is validated
-     * - User associated with the token is found
-     * - Password is updated for the user
-     * - Token is invalidated
+     * - Signature, purpose and expiry of the token are checked
+     * - The token must still match the password hash of the user, so it
+     *   stops working once the password has changed
+     * - The new password is hashed, outside of any transaction
+     * - In one transaction, the token is marked as used and the password is
+     *   updated by ID in the user table and in the identity directory. A
+     *   token used before fails on the unique key and rolls the update
+     *   back; a failed update leaves the token unused
      * - True is returned
      * 
      * @param token The password reset token.
@@ -116,20 +147,29 @@ public class PasswordResetServiceImpl implements IPasswordResetService {
      * @return True if the password was successfully reset, false otherwise.
      */
     @Override
-    @Transactional
     public boolean resetPassword(String token, String newPassword) {
-        PasswordResetToken resetToken = tokenRepository.findByToken(token);
-        if (resetToken == null || resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
+        Optional<ActionToken> verified = actionTokenSigner.verify(token, ActionToken.Purpose.PASSWORD_RESET);
+        if (verified.isEmpty()) {
             return false; // Token is invalid or expired
         }
 
-        AbstractUser user = findUserByEmail(resetToken.getUserEmail())
+        ActionToken resetToken = verified.get();
+        UserIdentity user = userDirectoryService.get(resetToken.getUserType(), resetToken.getUserId())
                 .orElseThrow(() -> new IllegalStateException("User associated with token not found."));
+        if (!ActionTokenSigner.fingerprint(user.getPassword()).equals(resetToken.getFingerprint())) {
+            return false; // Password changed since the token was issued
+        }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
-        saveUser(user);
-
-        tokenRepository.delete(resetToken); // Invalidate the token after use
+        String passwordHash = passwordEncoder.encode(newPassword);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                consumedTokenGuard.consumeInTransaction(resetToken);
+                updatePassword(resetToken.getUserType(), resetToken.getUserId(), passwordHash);
+                userDirectoryService.updatePassword(resetToken.getUserType(), resetToken.getUserId(), passwordHash);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false; // Token was already used
+        }
         return true;
     }
 
@@ -138,47 +178,25 @@ public class PasswordResetServiceImpl implements IPasswordResetService {
      * ==============
      */
 
-    /*
-     * Helper method to find a user by email address.
-     * 
-     * @param email The email address of the user to find.
-     * @return An Optional containing the user if found, empty otherwise.
-     */
-    private Optional<AbstractUser> findUserByEmail(String email) {
-        // Check Admin repository first
-        Admin admin = adminRepository.findByEmail(email);
-        if (admin != null) {
-            return Optional.of(admin);
-        }
-
-        // If not found, check Customer repository
-        Customer customer = customerRepository.findByEmail(email);
-        if (customer != null) {
-            return Optional.of(customer);
-        }
-
-        // If still not found, check Driver repository
-        Driver driver = driverRepository.findByEmail(email);
-        if (driver != null) {
-            return Optional.of(driver);
-        }
-
-        // If no user was found in any repository, return an empty Optional
-        return Optional.empty();
-    }
-
     /**
-     * Helper method to save a user to the correct repository based on their type.
+     * Helper method to update the password hash of a user in the table of
+     * their type, without loading the user.
      * 
-     * @param user The user object to save.
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param passwordHash The new password hash.
      */
-    private void saveUser(AbstractUser user) {
-        if (user instanceof Admin) {
-            adminRepository.save((Admin) user);
-        } else if (user instanceof Customer) {
-            customerRepository.save((Customer) user);
-        } else if (user instanceof Driver) {
-            driverRepository.save((Driver) user);
+    private void updatePassword(String userType, Integer userId, String passwordHash) {
+        int updated = 0;
+        if ("Admin".equals(userType)) {
+            updated = adminRepository.updatePassword(userId, passwordHash);
+        } else if ("Customer".equals(userType)) {
+            updated = customerRepository.updatePassword(userId, passwordHash);
+        } else if ("Driver".equals(userType)) {
+            updated = driverRepository.updatePassword(userId, passwordHash);
+        }
+        if (updated == 0) {
+            throw new IllegalStateException("User associated with token not found.");
         }
     }
-}
\ No newline at end of file
+}
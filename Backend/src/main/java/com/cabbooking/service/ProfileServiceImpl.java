@@ -13,6 +13,7 @@ import com.cabbooking.model.Admin;
 import com.cabbooking.model.Customer;
 import com.cabbooking.model.Driver;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -53,6 +54,18 @@ public class ProfileServiceImpl implements IProfileService {
      */
     @Autowired private DriverRepository driverRepository;
 
+    /*
+     * Service running profile updates in their own transactions, retried on
+     * optimistic lock conflicts with concurrent driver updates.
+     */
+    @Autowired private IOptimisticRetryService optimisticRetryService;
+
+    /*
+     * Identity directory holding every username and email in memory.
+     * Answers availability checks without a query.
+     */
+    @Autowired private IUserDirectoryService userDirectoryService;
+
     /**
      * Finds a user by their unique username across all user type repositories.
      *
@@ -66,6 +79,7 @@ public class ProfileServiceImpl implements IProfileService {
      * @return An Optional containing the AbstractUser if found.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<AbstractUser> getUserProfileByUsername(String username) {
         // Search in Admin repository first
         Admin admin = adminRepository.findByUsername(username);
@@ -102,8 +116,16 @@ public class ProfileServiceImpl implements IProfileService {
      * @return A ResponseEntity containing the updated user profile.
      */
     @Override
-    @Transactional
     public AbstractUser updateUserProfile(String username, UserProfileUpdateRequest request) {
+        return optimisticRetryService.execute("profile.update", () -> updateUserProfileAttempt(username, request));
+    }
+
+    /*
+     * Helper method to update a user's profile within one transaction
+     * attempt. A driver updated concurrently (e.g. assigned to a trip) is
+     * read again and the partial update applied to the new state.
+     */
+    private AbstractUser updateUserProfileAttempt(String username, UserProfileUpdateRequest request) {
         AbstractUser user = getUserProfileByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User with username '" + username + "' not found."));
 
@@ -127,17 +149,28 @@ public class ProfileServiceImpl implements IProfileService {
      * Checks if a username is already taken across all user types.
      * 
      * Workflow:
-     * - Checks each user type repository for the existence of the username.
-     * - Returns true if the username exists in any repository, false otherwise.
+     * - Looks the username up in the in-memory name index of the identity
+     *   directory, ignoring case and surrounding spaces.
+     * - Returns true if any admin, customer or driver has the username, false otherwise.
      * 
      * @param username The username to check.
      * @return True if the username exists, false otherwise.
      */
     @Override
     public boolean isUsernameTaken(String username) {
-        return adminRepository.existsByUsername(username) ||
-               customerRepository.existsByUsername(username) ||
-               driverRepository.existsByUsername(username);
+        return userDirectoryService.isUsernameTaken(username);
+    }
+
+    /*
+     * Suggests free usernames made of the wanted username and a number.
+     * 
+     * @param username The wanted username.
+     * @param limit The maximum number of suggestions.
+     * @return Free usernames, best first.
+     */
+    @Override
+    public List<String> suggestUsernames(String username, int limit) {
+        return userDirectoryService.suggestUsernames(username, limit);
     }
 
     /* ==============
@@ -0,0 +1,454 @@
+package com.cabbooking.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.DailyCarTypeRollup;
+import com.cabbooking.model.DailyDriverRollup;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.DailyCarTypeRollupRepository;
+import com.cabbooking.repository.DailyDriverRollupRepository;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Implementation of the IRevenueRollupService interface.
+ *
+ * Main Responsibilities:
+ * - Incrementally updates the daily car type and driver rollups when a trip is
+ *   completed or rated, inside the caller's transaction.
+ * - Rebuilds all rollups from the raw trip table on a nightly schedule or on
+ *   demand, on one instance at a time.
+ * - Serves admin revenue and earnings reports from the rollup rows.
+ *
+ * Concurrency:
+ * - Increments are single UPDATE statements (x = x + ?), so concurrent trips
+ *   never overwrite each other.
+ * - A missing row is created in its own short transaction before the increment,
+ *   so a duplicate-key race between two first-of-the-day trips never rolls back
+ *   the business transaction.
+ * - The rebuild never deletes rows. It rebuilds one day at a time and locks
+ *   the rollup rows of the day before reading its trips, so an increment
+ *   either is already part of the trips read or waits and is applied on top
+ *   of the rebuilt figures.
+ * - The cache of rows known to exist is per instance and evicts the least
+ *   recently used keys. An increment that updates no row (e.g. after a row
+ *   was removed by hand) drops the cached key, creates the row again and
+ *   retries once.
+ *
+ * Dependencies:
+ * - DailyCarTypeRollupRepository and DailyDriverRollupRepository for the rollup rows.
+ * - TripBookingRepository and TripBookingArchiveRepository for the aggregate
+ *   queries used by the rebuild.
+ * - IJobLockService: Keeps the rebuild to one instance at a time.
+ */
+@Service
+public class RevenueRollupServiceImpl implements IRevenueRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupServiceImpl.class);
+
+    /*
+     * Used when a trip has no car type recorded.
+     */
+    private static final String UNKNOWN_CAR_TYPE = "UNKNOWN";
+
+    /*
+     * Name the rebuild is locked under.
+     */
+    private static final String REBUILD_JOB = "rollup.rebuild";
+
+    /*
+     * Upper bound for the cache of rollup rows known to exist.
+     */
+    private static final int MAX_KNOWN_ROWS = 100_000;
+
+    /*
+     * Repository for the per-car-type rollup rows.
+     */
+    @Autowired
+    private DailyCarTypeRollupRepository carTypeRollupRepository;
+
+    /*
+     * Repository for the per-driver rollup rows.
+     */
+    @Autowired
+    private DailyDriverRollupRepository driverRollupRepository;
+
+    /*
+     * Repository for TripBooking entity, used for the rebuild aggregates.
+     */
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    /*
+     * Repository for archived trips, included in the rebuild aggregates.
+     */
+    @Autowired
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+
+    /*
+     * Transaction manager used to create missing rollup rows in their own
+     * transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Service running the rebuild on one instance at a time.
+     */
+    @Autowired
+    private IJobLockService jobLockService;
+
+    /*
+     * How long a rebuild keeps the lock if its instance stops mid-run.
+     */
+    @Value("${rollup.rebuild-lock-minutes:120}")
+    private long rebuildLockMinutes = 120;
+
+    /*
+     * How long a rebuild keeps the lock at least, so instances whose
+     * schedule fires a little later skip the night's run.
+     */
+    @Value("${rollup.rebuild-lock-min-seconds:300}")
+    private long rebuildLockMinSeconds = 300;
+
+    /*
+     * Keys of rollup rows known to exist, so the existence check is skipped
+     * for every trip after the first one of the day.
+     */
+    private final Cache<String, Boolean> knownRows = Caffeine.newBuilder()
+            .maximumSize(MAX_KNOWN_ROWS)
+            .build();
+
+    /**
+     * Adds a just-completed trip to the daily car type and driver rollups.
+     *
+     * Workflow:
+     * - Derives the rollup day from the trip's end time.
+     * - Makes sure both rollup rows exist.
+     * - Increments trip count, bill and distance with atomic updates,
+     *   re-creating a row and retrying once if it has gone missing.
+     *
+     * @param trip The completed trip.
+     */
+    @Override
+    @Transactional
+    public void recordCompletedTrip(TripBooking trip) {
+        if (trip.getToDateTime() == null) {
+            return;
+        }
+        LocalDate day = trip.getToDateTime().toLocalDate();
+        String carType = carTypeOf(trip);
+
+        incrementCarTypeRow(day, carType,
+                () -> carTypeRollupRepository.addCompletedTrip(day, carType, trip.getBill(), trip.getDistanceInKm()));
+
+        if (trip.getDriver() != null) {
+            Integer driverId = trip.getDriver().getId();
+            incrementDriverRow(day, driverId,
+                    () -> driverRollupRepository.addCompletedTrip(day, driverId, trip.getBill(), trip.getDistanceInKm()));
+        }
+    }
+
+    /**
+     * Adds a customer rating to the rollups of the day the trip was completed.
+     *
+     * @param trip The rated trip.
+     * @param rating The rating value (1-5).
+     */
+    @Override
+    @Transactional
+    public void recordRating(TripBooking trip, int rating) {
+        if (trip.getToDateTime() == null) {
+            return;
+        }
+        LocalDate day = trip.getToDateTime().toLocalDate();
+        String carType = carTypeOf(trip);
+
+        incrementCarTypeRow(day, carType, () -> carTypeRollupRepository.addRating(day, carType, rating));
+
+        if (trip.getDriver() != null) {
+            Integer driverId = trip.getDriver().getId();
+            incrementDriverRow(day, driverId, () -> driverRollupRepository.addRating(day, driverId, rating));
+        }
+    }
+
+    /**
+     * Recomputes all rollups from the raw trip data.
+     *
+     * Workflow:
+     * - Runs every night (configurable through rollup.rebuild-cron) or on
+     *   demand, unless another instance holds the rebuild lock.
+     * - Collects every day with completed live or archived trips or with
+     *   rollup rows.
+     * - Rebuilds each day in its own transaction (see rebuildDay).
+     *
+     * @return True if the rollups were rebuilt, false if another instance is
+     * rebuilding them or did so within the minimum lock time.
+     */
+    @Override
+    @Scheduled(cron = "${rollup.rebuild-cron:0 30 3 * * *}")
+    public boolean rebuildRollups() {
+        return jobLockService.runExclusively(REBUILD_JOB, Duration.ofMinutes(rebuildLockMinutes),
+                Duration.ofSeconds(rebuildLockMinSeconds), () -> {
+                    logger.info("Rebuilding revenue rollups from raw trips...");
+                    Set<LocalDate> days = new TreeSet<>();
+                    days.addAll(tripBookingRepository.findCompletionDays(TripStatus.COMPLETED));
+                    days.addAll(tripBookingArchiveRepository.findCompletionDays(TripStatus.COMPLETED));
+                    days.addAll(carTypeRollupRepository.findRollupDates());
+                    days.addAll(driverRollupRepository.findRollupDates());
+
+                    int rows = 0;
+                    for (LocalDate day : days) {
+                        rows += rebuildDayWithRetry(day);
+                    }
+                    logger.info("Rebuilt {} rollup rows of {} days.", rows, days.size());
+                });
+    }
+
+    /**
+     * Retrieves the daily per-car-type revenue rows within a date range.
+     *
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyCarTypeRollup> getCarTypeRevenue(LocalDate from, LocalDate to) {
+        return carTypeRollupRepository.findByRollupDateBetweenOrderByRollupDateAscCarTypeAsc(from, to);
+    }
+
+    /**
+     * Retrieves the daily per-driver earnings rows within a date range.
+     *
+     * @param driverId The ID of the driver, or null for all drivers.
+     * @param from The first day of the range (inclusive).
+     * @param to The last day of the range (inclusive).
+     * @return A list of rollup rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyDriverRollup> getDriverEarnings(Integer driverId, LocalDate from, LocalDate to) {
+        if (driverId == null) {
+            return driverRollupRepository.findByRollupDateBetweenOrderByRollupDateAscDriverIdAsc(from, to);
+        }
+        return driverRollupRepository.findByDriverIdAndRollupDateBetweenOrderByRollupDateAsc(driverId, from, to);
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to rebuild one day, once more if a row of the day was
+     * created concurrently. Where the database does not lock the gap of the
+     * day's rows (H2), the first increment of a new row can insert it while
+     * the rebuild does, and one of the two fails on the unique key.
+     */
+    private int rebuildDayWithRetry(LocalDate day) {
+        try {
+            return rebuildDay(day);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("A rollup row of {} was created concurrently, rebuilding the day again: {}", day, e.getMessage());
+            return rebuildDay(day);
+        }
+    }
+
+    /*
+     * Helper method to rebuild the rollups of one day in one transaction.
+     *
+     * Workflow:
+     * - Locks the existing car type and driver rows of the day, then reads
+     *   the live and archived trips completed that day, so increments of
+     *   the day wait for the rebuild instead of being overwritten.
+     * - Sets every row to the aggregated figures, or to zero if the day has
+     *   no trips for it any more, and inserts the rows that are missing.
+     */
+    private int rebuildDay(LocalDate day) {
+        Integer rows = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<String, DailyCarTypeRollup> carTypeRows = new LinkedHashMap<>();
+            for (DailyCarTypeRollup rollup : carTypeRollupRepository.findByRollupDate(day)) {
+                rollup.setTripCount(0);
+                rollup.setTotalBill(0);
+                rollup.setTotalDistance(0);
+                rollup.setRatingSum(0);
+                rollup.setRatingCount(0);
+                carTypeRows.put(rollup.getCarType(), rollup);
+            }
+            Map<Integer, DailyDriverRollup> driverRows = new LinkedHashMap<>();
+            for (DailyDriverRollup rollup : driverRollupRepository.findByRollupDate(day)) {
+                rollup.setTripCount(0);
+                rollup.setTotalBill(0);
+                rollup.setTotalDistance(0);
+                rollup.setRatingSum(0);
+                rollup.setRatingCount(0);
+                driverRows.put(rollup.getDriverId(), rollup);
+            }
+
+            // Completed trips live either in trip_booking or, once old, in trip_booking_archive
+            LocalDateTime from = day.atStartOfDay();
+            LocalDateTime to = day.plusDays(1).atStartOfDay();
+            for (Object[] row : concat(tripBookingRepository.aggregateByDayAndCarType(TripStatus.COMPLETED, from, to),
+                    tripBookingArchiveRepository.aggregateByDayAndCarType(TripStatus.COMPLETED, from, to))) {
+                String carType = row[1] != null ? (String) row[1] : UNKNOWN_CAR_TYPE;
+                DailyCarTypeRollup rollup = carTypeRows.computeIfAbsent(carType,
+                        key -> new DailyCarTypeRollup(day, carType));
+                rollup.setTripCount(rollup.getTripCount() + asLong(row[2]));
+                rollup.setTotalBill(rollup.getTotalBill() + asDouble(row[3]));
+                rollup.setTotalDistance(rollup.getTotalDistance() + asDouble(row[4]));
+                rollup.setRatingSum(rollup.getRatingSum() + asLong(row[5]));
+                rollup.setRatingCount(rollup.getRatingCount() + asLong(row[6]));
+            }
+            carTypeRollupRepository.saveAll(carTypeRows.values());
+
+            for (Object[] row : concat(tripBookingRepository.aggregateByDayAndDriver(TripStatus.COMPLETED, from, to),
+                    tripBookingArchiveRepository.aggregateByDayAndDriver(TripStatus.COMPLETED, from, to))) {
+                Integer driverId = ((Number) row[1]).intValue();
+                DailyDriverRollup rollup = driverRows.computeIfAbsent(driverId,
+                        key -> new DailyDriverRollup(day, driverId));
+                rollup.setTripCount(rollup.getTripCount() + asLong(row[2]));
+                rollup.setTotalBill(rollup.getTotalBill() + asDouble(row[3]));
+                rollup.setTotalDistance(rollup.getTotalDistance() + asDouble(row[4]));
+                rollup.setRatingSum(rollup.getRatingSum() + asLong(row[5]));
+                rollup.setRatingCount(rollup.getRatingCount() + asLong(row[6]));
+            }
+            driverRollupRepository.saveAll(driverRows.values());
+            return carTypeRows.size() + driverRows.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /*
+     * Helper method to apply an increment to a car type rollup row. If no row
+     * was updated, the row was removed since it was cached, so it is created
+     * again and the increment retried.
+     */
+    private void incrementCarTypeRow(LocalDate day, String carType, IntSupplier increment) {
+        ensureCarTypeRow(day, carType);
+        if (increment.getAsInt() > 0) {
+            return;
+        }
+        knownRows.invalidate(carTypeKey(day, carType));
+        ensureCarTypeRow(day, carType);
+        if (increment.getAsInt() == 0) {
+            logger.warn("Could not update the car type rollup of {} for {}.", day, carType);
+        }
+    }
+
+    /*
+     * Helper method to apply an increment to a driver rollup row, re-creating
+     * the row and retrying once as for incrementCarTypeRow.
+     */
+    private void incrementDriverRow(LocalDate day, Integer driverId, IntSupplier increment) {
+        ensureDriverRow(day, driverId);
+        if (increment.getAsInt() > 0) {
+            return;
+        }
+        knownRows.invalidate(driverKey(day, driverId));
+        ensureDriverRow(day, driverId);
+        if (increment.getAsInt() == 0) {
+            logger.warn("Could not update the driver rollup of {} for driver {}.", day, driverId);
+        }
+    }
+
+    /*
+     * Helper method to make sure the car type rollup row exists.
+     */
+    private void ensureCarTypeRow(LocalDate day, String carType) {
+        String key = carTypeKey(day, carType);
+        if (knownRows.getIfPresent(key) != null) {
+            return;
+        }
+        createIfAbsent(() -> {
+            if (!carTypeRollupRepository.existsByRollupDateAndCarType(day, carType)) {
+                carTypeRollupRepository.saveAndFlush(new DailyCarTypeRollup(day, carType));
+            }
+        });
+        knownRows.put(key, Boolean.TRUE);
+    }
+
+    /*
+     * Helper method to make sure the driver rollup row exists.
+     */
+    private void ensureDriverRow(LocalDate day, Integer driverId) {
+        String key = driverKey(day, driverId);
+        if (knownRows.getIfPresent(key) != null) {
+            return;
+        }
+        createIfAbsent(() -> {
+            if (!driverRollupRepository.existsByRollupDateAndDriverId(day, driverId)) {
+                driverRollupRepository.saveAndFlush(new DailyDriverRollup(day, driverId));
+            }
+        });
+        knownRows.put(key, Boolean.TRUE);
+    }
+
+    private String carTypeKey(LocalDate day, String carType) {
+        return "C|" + day + "|" + carType;
+    }
+
+    private String driverKey(LocalDate day, Integer driverId) {
+        return "D|" + day + "|" + driverId;
+    }
+
+    /*
+     * Helper method to run a row creation in its own transaction. A duplicate
+     * key means another transaction created the row first, which is fine.
+     */
+    private void createIfAbsent(Runnable creation) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> creation.run());
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Rollup row was created concurrently: {}", e.getMessage());
+        }
+    }
+
+    /*
+     * Helper method to chain the aggregate rows of the live and archive tables.
+     */
+    private List<Object[]> concat(List<Object[]> live, List<Object[]> archived) {
+        List<Object[]> rows = new ArrayList<>(live.size() + archived.size());
+        rows.addAll(live);
+        rows.addAll(archived);
+        return rows;
+    }
+
+    private String carTypeOf(TripBooking trip) {
+        return trip.getCarType() != null ? trip.getCarType() : UNKNOWN_CAR_TYPE;
+    }
+
+    private long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private double asDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+}
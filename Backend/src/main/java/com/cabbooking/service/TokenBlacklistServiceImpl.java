@@ -0,0 +1,226 @@
+package com.cabbooking.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cabbooking.model.BlacklistedToken;
+import com.cabbooking.repository.BlacklistedTokenRepository;
+import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.TokenBlacklist;
+import com.cabbooking.security.TokenDigest;
+import com.cabbooking.security.VerifiedToken;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Implementation of the ITokenBlacklistService interface.
+ *
+ * Main Responsibilities:
+ * - Answers the blacklist check of every authenticated request from a
+ *   TokenBlacklist in memory: a Bloom filter lookup for tokens that were
+ *   never logged out, plus a map lookup otherwise.
+ * - Persists every logout as a row holding the token digest and expiry, so
+ *   the blacklist survives restarts.
+ * - Polls the table for tokens blacklisted by other instances
+ *   (security.blacklist.sync-ms, default every 5 seconds).
+ * - Purges expired tokens from the table and from memory every hour.
+ *
+ * Rows written before tokens were stored as digests are converted on
+ * startup. Their expiry is unknown, so they are kept for the full token
+ * lifetime from then on.
+ *
+ * Legacy: since tokens carry a user ID and epoch, only tokens issued
+ * before that are blacklisted here. This service is to be removed once
+ * they have all expired, one token lifetime after that release.
+ */
+@Service
+public class TokenBlacklistServiceImpl implements ITokenBlacklistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistServiceImpl.class);
+
+    /*
+     * Repository for BlacklistedToken entity, the durable copy.
+     */
+    @Autowired
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    /*
+     * Utility for reading the expiry of a token.
+     */
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    /*
+     * Number of tokens the Bloom filter is sized for at least.
+     */
+    @Value("${security.blacklist.expected-tokens:100000}")
+    private long expectedTokens = 100000;
+
+    /*
+     * Target false positive rate of the Bloom filter.
+     */
+    @Value("${security.blacklist.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    /*
+     * How far each poll reaches back before the previous one, to cover
+     * clock differences between instances.
+     */
+    @Value("${security.blacklist.sync-overlap-seconds:60}")
+    private long syncOverlapSeconds = 60;
+
+    private volatile TokenBlacklist blacklist;
+
+    /*
+     * Start of the last poll; the next poll reads rows from here on.
+     */
+    private volatile LocalDateTime lastSync;
+
+    /**
+     * Converts old rows and loads the unexpired tokens into memory before
+     * the first request is checked.
+     */
+    @PostConstruct
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        blacklist = new TokenBlacklist(expectedTokens, falsePositiveRate);
+        convertLegacyRows(now);
+        List<BlacklistedToken> rows = blacklistedTokenRepository.findByExpiresAtAfter(now);
+        rows.forEach(this::addRow);
+        lastSync = now;
+        logger.info("Loaded {} blacklisted tokens.", rows.size());
+    }
+
+    /**
+     * Blacklists a token and records it for restarts and other instances.
+     *
+     * Workflow:
+     * - Verifies the token to read its expiry; an invalid or expired token
+     *   is ignored.
+     * - Adds the digest to the in-memory blacklist, then saves the row.
+     *
+     * @param token The JWT string.
+     */
+    @Override
+    public void blacklist(String token) {
+        VerifiedToken verified;
+        try {
+            verified = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Not blacklisting an invalid or expired token.");
+            return;
+        }
+        if (verified.getExpiresAt() == null) {
+            return;
+        }
+        String digest = TokenDigest.of(token);
+        blacklist.add(digest, verified.getExpiresAt());
+        blacklistedTokenRepository.save(new BlacklistedToken(digest,
+                LocalDateTime.ofInstant(verified.getExpiresAt(), ZoneId.systemDefault()), LocalDateTime.now()));
+    }
+
+    /**
+     * @param tokenDigest The TokenDigest of the JWT.
+     * @return True if the token was logged out and has not expired yet.
+     */
+    @Override
+    public boolean isBlacklisted(String tokenDigest) {
+        return blacklist.contains(tokenDigest, Instant.now());
+    }
+
+    /**
+     * Reads the tokens blacklisted by any instance since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${security.blacklist.sync-ms:5000}")
+    public void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            blacklistedTokenRepository.findByBlacklistedAtGreaterThanEqual(lastSync.minusSeconds(syncOverlapSeconds))
+                    .forEach(this::addRow);
+            lastSync = started;
+        } catch (RuntimeException e) {
+            logger.error("Polling the token blacklist failed", e);
+        }
+    }
+
+    /**
+     * Deletes the rows of expired tokens and drops them from memory.
+     *
+     * @return The number of rows deleted.
+     */
+    @Override
+    @Transactional
+    @Scheduled(cron = "${security.blacklist.purge-cron:0 15 * * * *}")
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = blacklistedTokenRepository.deleteExpired(now);
+        int dropped = blacklist.purgeExpired(now.atZone(ZoneId.systemDefault()).toInstant());
+        logger.info("Purged {} expired blacklisted tokens ({} in memory).", deleted, dropped);
+        return deleted;
+    }
+
+    /**
+     * @return The number of blacklisted tokens, the size of the Bloom filter
+     * and the time of the last poll.
+     */
+    @Override
+    public Map<String, Object> getStatus() {
+        TokenBlacklist current = blacklist;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("tokens", current.size());
+        status.put("filterBits", current.getFilterBits());
+        status.put("falsePositiveRate", falsePositiveRate);
+        status.put("lastSync", lastSync);
+        return status;
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to add a persisted token to the in-memory blacklist.
+     */
+    private void addRow(BlacklistedToken row) {
+        if (row.getTokenHash() != null && row.getExpiresAt() != null) {
+            blacklist.add(row.getTokenHash(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    /*
+     * Helper method to replace the token of old rows by its digest, with the
+     * longest possible expiry. Rows without a token are deleted.
+     */
+    private void convertLegacyRows(LocalDateTime now) {
+        List<BlacklistedToken> legacy = blacklistedTokenRepository.findByTokenHashIsNull();
+        if (legacy.isEmpty()) {
+            return;
+        }
+        LocalDateTime expiresAt = now.plusNanos(jwtUtil.getExpirationInMs() * 1_000_000L);
+        List<BlacklistedToken> empty = legacy.stream().filter(row -> row.getToken() == null).toList();
+        List<BlacklistedToken> converted = legacy.stream().filter(row -> row.getToken() != null).toList();
+        for (BlacklistedToken row : converted) {
+            row.setTokenHash(TokenDigest.of(row.getToken()));
+            row.setToken(null);
+            row.setExpiresAt(expiresAt);
+            row.setBlacklistedAt(now);
+        }
+        blacklistedTokenRepository.saveAll(converted);
+        blacklistedTokenRepository.deleteAll(empty);
+        logger.info("Converted {} blacklisted tokens to digests.", legacy.size());
+    }
+}
@@ -0,0 +1,218 @@
+package com.cabbooking.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.TokenEpoch;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.repository.TokenEpochRepository;
+import com.cabbooking.security.VerifiedToken;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Implementation of the ITokenEpochService interface.
+ *
+ * Main Responsibilities:
+ * - Holds the epoch of every user whose tokens were ever revoked in a map in
+ *   memory, keyed by user type and ID; every other user is at epoch 0. The
+ *   check of every authenticated request is one map lookup.
+ * - Raises the epoch of a user on logout or revocation with one atomic
+ *   update, so the revocation survives restarts and concurrent revocations
+ *   on several instances all count. One row per user, however many tokens
+ *   they were issued. The map is only updated once the revocation commits.
+ * - Polls the table for epochs raised by other instances
+ *   (security.token-epoch.sync-ms, default every 5 seconds).
+ * - Reads the epoch from the table when a token is issued, so a login
+ *   right after a revocation on another instance gets the new epoch.
+ */
+@Service
+public class TokenEpochServiceImpl implements ITokenEpochService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenEpochServiceImpl.class);
+
+    /*
+     * Repository for TokenEpoch entity, the durable copy.
+     */
+    @Autowired
+    private TokenEpochRepository tokenEpochRepository;
+
+    /*
+     * Transaction manager used to create a missing row in its own
+     * transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * How far each poll reaches back before the previous one, to cover
+     * clock differences between instances.
+     */
+    @Value("${security.token-epoch.sync-overlap-seconds:60}")
+    private long syncOverlapSeconds = 60;
+
+    private final Map<UserIdentity.Key, Integer> epochs = new ConcurrentHashMap<>();
+
+    /*
+     * Start of the last poll; the next poll reads rows from here on.
+     */
+    private volatile LocalDateTime lastSync;
+
+    /**
+     * Loads the epochs of all revoked users before the first request is
+     * checked.
+     */
+    @PostConstruct
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TokenEpoch> rows = tokenEpochRepository.findAll();
+        rows.forEach(this::addRow);
+        lastSync = now;
+        logger.info("Loaded token epochs of {} users.", rows.size());
+    }
+
+    /**
+     * Reads the epoch of a user for a token issued now.
+     *
+     * The epoch is read from the table, not from the map, which may not have
+     * polled a revocation made on another instance yet. A token stamped with
+     * that older epoch would be revoked by the next poll, right after the
+     * login. The stored epoch is added to the map as well.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @return The epoch of the user, 0 if their tokens were never revoked.
+     */
+    @Override
+    public int currentEpoch(String userType, Integer userId) {
+        UserIdentity.Key key = new UserIdentity.Key(userType, userId);
+        tokenEpochRepository.findById(key).ifPresent(this::addRow);
+        return epochs.getOrDefault(key, 0);
+    }
+
+    /**
+     * @param token The verified token.
+     * @return True if the epoch claim of the token is below the epoch of its
+     * user.
+     */
+    @Override
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.getUserId() == null) {
+            return false;
+        }
+        Integer epoch = epochs.get(new UserIdentity.Key(token.getUserType(), token.getUserId()));
+        return epoch != null && token.getEpoch() < epoch;
+    }
+
+    /**
+     * Revokes every token issued to a user so far.
+     *
+     * Workflow:
+     * - Raises the stored epoch in one statement to one above both the stored
+     *   and the in-memory value, so a revocation never goes back behind one
+     *   read from another instance.
+     * - If the user has no row yet, creates it at epoch 0 in its own
+     *   transaction (a concurrent creation is fine) and raises it then.
+     * - Adds the new epoch to the in-memory map once the transaction commits.
+     *
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @return The new epoch of the user.
+     */
+    @Override
+    @Transactional
+    public int revoke(String userType, Integer userId) {
+        UserIdentity.Key key = new UserIdentity.Key(userType, userId);
+        LocalDateTime now = LocalDateTime.now();
+        int floor = epochs.getOrDefault(key, 0);
+        if (tokenEpochRepository.raise(userType, userId, floor, now) == 0) {
+            createIfAbsent(userType, userId, now);
+            if (tokenEpochRepository.raise(userType, userId, floor, now) == 0) {
+                throw new IllegalStateException("Could not revoke the tokens of " + userType + " " + userId);
+            }
+        }
+        int epoch = tokenEpochRepository.findById(key)
+                .orElseThrow(() -> new IllegalStateException("Token epoch of " + userType + " " + userId + " not found"))
+                .getEpoch();
+        afterCommit(() -> epochs.merge(key, epoch, Math::max));
+        logger.info("Revoked the tokens of {} {} (epoch {}).", userType, userId, epoch);
+        return epoch;
+    }
+
+    /**
+     * Reads the epochs raised by any instance since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${security.token-epoch.sync-ms:5000}")
+    public void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            tokenEpochRepository.findByChangedAtGreaterThanEqual(lastSync.minusSeconds(syncOverlapSeconds))
+                    .forEach(this::addRow);
+            lastSync = started;
+        } catch (RuntimeException e) {
+            logger.error("Polling the token epochs failed", e);
+        }
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to create the row of a user at epoch 0 in its own
+     * transaction. A duplicate key means another revocation created the row
+     * first, which is fine.
+     */
+    private void createIfAbsent(String userType, Integer userId, LocalDateTime now) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            template.executeWithoutResult(status -> tokenEpochRepository.saveAndFlush(
+                    new TokenEpoch(userType, userId, 0, now)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Token epoch row was created concurrently: {}", e.getMessage());
+        }
+    }
+
+    /*
+     * Helper method to run a map update after the current transaction
+     * commits, or at once without a transaction.
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /*
+     * Helper method to add a persisted epoch to the map, keeping the higher
+     * epoch if both are known.
+     */
+    private void addRow(TokenEpoch row) {
+        epochs.merge(new UserIdentity.Key(row.getUserType(), row.getUserId()), row.getEpoch(), Math::max);
+    }
+}
@@ -0,0 +1,332 @@
+package com.cabbooking.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cabbooking.analytics.TripColumnStore;
+import com.cabbooking.analytics.TripFact;
+import com.cabbooking.dto.TripAnalyticsQuery;
+import com.cabbooking.dto.TripAnalyticsResult;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of the ITripAnalyticsService interface.
+ *
+ * Main Responsibilities:
+ * - Loads all finished live and archived trips into a TripColumnStore once
+ *   the application is ready, in keyset-paginated projection batches on a
+ *   background thread.
+ * - Applies trip completions, cancellations and ratings to the store after the
+ *   owning transaction commits, so a rolled back trip never shows up.
+ * - Answers admin analytics queries from memory, without any database access.
+ *
+ * Consistency:
+ * - Updates arriving while a (re)load is running are queued and applied to
+ *   the new store before it replaces the old one, so none are lost.
+ */
+@Service
+public class TripAnalyticsServiceImpl implements ITripAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripAnalyticsServiceImpl.class);
+
+    /*
+     * Trip statuses the store holds.
+     */
+    private static final List<TripStatus> FINISHED_STATUSES = List.of(TripStatus.COMPLETED, TripStatus.CANCELLED);
+
+    /*
+     * Default query range when no dates are given, in days.
+     */
+    private static final int DEFAULT_RANGE_DAYS = 7;
+
+    /*
+     * Repository for TripBooking entity, used for the bulk load.
+     */
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    /*
+     * Repository for archived trips, included in the bulk load.
+     */
+    @Autowired
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+
+    /*
+     * Service for trip archival, used for the archive cutoff.
+     */
+    @Autowired
+    private ITripArchiveService tripArchiveService;
+
+    /*
+     * Whether the analytics store is loaded and maintained at all.
+     */
+    @Value("${analytics.enabled:true}")
+    private boolean enabled = true;
+
+    /*
+     * Number of trips read per batch during the bulk load.
+     */
+    @Value("${analytics.load-batch-size:10000}")
+    private int loadBatchSize = 10000;
+
+    /*
+     * Pool the parallel scans run on, kept apart from the common pool.
+     */
+    private final ForkJoinPool scanPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /*
+     * Guards the store swap and the pending update queue.
+     */
+    private final Object stateLock = new Object();
+
+    /*
+     * The store queries are served from.
+     */
+    private volatile TripColumnStore store = new TripColumnStore(scanPool);
+
+    /*
+     * True once the first load has completed.
+     */
+    private volatile boolean ready;
+
+    /*
+     * True while a (re)load is running.
+     */
+    private boolean loading;
+
+    /*
+     * Updates received while a load is running.
+     */
+    private final List<TripFact> pendingUpdates = new ArrayList<>();
+
+    /**
+     * Starts the initial load on a background thread, so application startup
+     * is not delayed by a large trip table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            logger.info("Trip analytics store is disabled.");
+            return;
+        }
+        Thread loader = new Thread(this::reload, "trip-analytics-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Adds or updates a finished trip in the store after the current
+     * transaction commits.
+     *
+     * @param trip The finished trip.
+     */
+    @Override
+    public void recordTrip(TripBooking trip) {
+        if (!enabled) {
+            return;
+        }
+        TripFact fact = TripFact.of(trip);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(fact);
+                }
+            });
+        } else {
+            apply(fact);
+        }
+    }
+
+    /**
+     * Runs an analytics query over the stored trips.
+     *
+     * Workflow:
+     * - Defaults the date range to the last 7 days.
+     * - Validates the range and the grouping.
+     * - Scans the in-memory store in parallel.
+     *
+     * @param query The query.
+     * @return The aggregated rows.
+     */
+    @Override
+    public TripAnalyticsResult query(TripAnalyticsQuery query) {
+        if (!enabled) {
+            throw new IllegalStateException("Trip analytics is disabled.");
+        }
+        if (!ready) {
+            throw new IllegalStateException("Trip analytics store is still loading, please retry shortly.");
+        }
+        if (query.getTo() == null) {
+            query.setTo(LocalDate.now());
+        }
+        if (query.getFrom() == null) {
+            query.setFrom(query.getTo().minusDays(DEFAULT_RANGE_DAYS - 1));
+        }
+        if (query.getFrom().isAfter(query.getTo())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        if (query.getGroupBy() != null
+                && (query.getGroupBy().size() > 2 || query.getGroupBy().stream().distinct().count() < query.getGroupBy().size())) {
+            throw new IllegalArgumentException("Group by at most two distinct dimensions.");
+        }
+        return store.query(query);
+    }
+
+    /**
+     * Reloads the store from the database.
+     *
+     * Workflow:
+     * - Marks a load as running, so live updates are queued.
+     * - Reads all finished live trips, then all archived trips, in ID order,
+     *   in batches of projection rows.
+     * - Applies the queued updates to the new store and swaps it in.
+     */
+    @Override
+    public void reload() {
+        synchronized (stateLock) {
+            if (loading) {
+                logger.info("Trip analytics load already running, ignoring reload request.");
+                return;
+            }
+            loading = true;
+        }
+        long started = System.currentTimeMillis();
+        TripColumnStore fresh = new TripColumnStore(scanPool);
+        try {
+            // Live trips first; remember the old ones, which the archival job may
+            // move while the load runs, so they are not loaded twice
+            LocalDateTime archiveCutoff = tripArchiveService.getArchiveCutoff();
+            Set<Integer> oldLiveTripIds = new HashSet<>();
+            Integer afterId = 0;
+            while (true) {
+                List<Object[]> rows = tripBookingRepository.findAnalyticsRowsAfter(
+                        afterId, FINISHED_STATUSES, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    TripFact fact = toFact(row);
+                    if (fact.getStartTime() != null && fact.getStartTime().isBefore(archiveCutoff)) {
+                        oldLiveTripIds.add(fact.getTripId());
+                    }
+                    fresh.append(fact);
+                }
+                if (rows.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = (Integer) rows.get(rows.size() - 1)[0];
+            }
+
+            afterId = 0;
+            while (true) {
+                List<Object[]> rows = tripBookingArchiveRepository.findAnalyticsRowsAfter(
+                        afterId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    TripFact fact = toFact(row);
+                    if (!oldLiveTripIds.contains(fact.getTripId())) {
+                        fresh.append(fact);
+                    }
+                }
+                if (rows.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = (Integer) rows.get(rows.size() - 1)[0];
+            }
+        } catch (RuntimeException e) {
+            logger.error("Loading the trip analytics store failed", e);
+            synchronized (stateLock) {
+                loading = false;
+                pendingUpdates.forEach(store::upsert);
+                pendingUpdates.clear();
+            }
+            return;
+        }
+
+        synchronized (stateLock) {
+            pendingUpdates.forEach(fresh::upsert);
+            pendingUpdates.clear();
+            store = fresh;
+            loading = false;
+            ready = true;
+        }
+        logger.info("Loaded {} trips into {} analytics segments in {} ms.",
+                fresh.size(), fresh.segmentCount(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * @return The size and load state of the store.
+     */
+    @Override
+    public Map<String, Object> getStoreStatus() {
+        TripColumnStore current = store;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("ready", ready);
+        synchronized (stateLock) {
+            status.put("loading", loading);
+        }
+        status.put("trips", current.size());
+        status.put("segments", current.segmentCount());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdown();
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to apply an update to the store, or queue it while a load
+     * is running.
+     */
+    private void apply(TripFact fact) {
+        synchronized (stateLock) {
+            if (loading) {
+                pendingUpdates.add(fact);
+            } else {
+                store.upsert(fact);
+            }
+        }
+    }
+
+    /*
+     * Helper method to convert a projection row into a TripFact.
+     */
+    private TripFact toFact(Object[] row) {
+        return new TripFact(
+                (Integer) row[0],
+                (LocalDateTime) row[1],
+                (TripStatus) row[2],
+                (String) row[3],
+                row[4] != null ? ((Number) row[4]).intValue() : 0,
+                row[5] != null ? ((Number) row[5]).floatValue() : 0f,
+                row[6] != null ? ((Number) row[6]).floatValue() : 0f,
+                row[7] != null ? ((Number) row[7]).intValue() : 0);
+    }
+}
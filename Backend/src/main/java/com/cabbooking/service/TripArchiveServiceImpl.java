@@ -0,0 +1,145 @@
+package com.cabbooking.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripBookingArchive;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+
+/**
+ * Implementation of the ITripArchiveService interface.
+ *
+ * Main Responsibilities:
+ * - Runs nightly (configurable through trip.archive.cron) and moves completed
+ *   and cancelled trips older than trip.archive.age-days (default 180) from
+ *   trip_booking to trip_booking_archive.
+ * - Works in batches of trip.archive.batch-size trips (default 500), each in
+ *   its own short transaction, so locks are held briefly and an interrupted
+ *   run simply continues with the next batch the following night.
+ * - Deletes every live row with a version check, so a trip changed while its
+ *   batch was copied (e.g. rated) stays live and is archived with its new
+ *   state by a later batch.
+ *
+ * Keeping only recent and active trips in trip_booking keeps that table and
+ * its indexes small enough to stay in the database buffer pool.
+ */
+@Service
+public class TripArchiveServiceImpl implements ITripArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripArchiveServiceImpl.class);
+
+    /*
+     * Trip statuses that are final and may be archived.
+     */
+    private static final List<TripStatus> ARCHIVABLE_STATUSES = List.of(TripStatus.COMPLETED, TripStatus.CANCELLED);
+
+    /*
+     * Repository for TripBooking entity.
+     */
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    /*
+     * Repository for TripBookingArchive entity.
+     */
+    @Autowired
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+
+    /*
+     * Transaction manager used to run every batch in its own transaction.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /*
+     * Minimum age of a trip, in days, before it is archived.
+     */
+    @Value("${trip.archive.age-days:180}")
+    private int archiveAgeDays = 180;
+
+    /*
+     * Number of trips moved per transaction.
+     */
+    @Value("${trip.archive.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * Moves old finished trips into the archive table.
+     *
+     * Workflow:
+     * - Computes the cutoff (start of the day, archive-age days ago).
+     * - Repeatedly, in a new transaction: selects the next batch of archivable
+     *   trip IDs, loads those trips with their customer, driver and cab,
+     *   deletes the live rows that are unchanged and inserts their archive rows.
+     * - Stops when a batch selects fewer trips than the batch size.
+     *
+     * @return The number of trips archived.
+     */
+    @Override
+    @Scheduled(cron = "${trip.archive.cron:0 0 4 * * *}")
+    public int archiveOldTrips() {
+        LocalDateTime cutoff = getArchiveCutoff();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger total = new AtomicInteger();
+        int selected;
+        do {
+            Integer batch = transactionTemplate.execute(status -> archiveBatch(cutoff, total));
+            selected = batch != null ? batch : 0;
+        } while (selected == batchSize);
+
+        logger.info("Archived {} trips that started before {}.", total.get(), cutoff);
+        return total.get();
+    }
+
+    /**
+     * @return The start of the day that is archive-age days in the past.
+     */
+    @Override
+    public LocalDateTime getArchiveCutoff() {
+        return LocalDate.now().minusDays(archiveAgeDays).atStartOfDay();
+    }
+
+    /*
+     * Helper method to move one batch. Runs inside the caller's transaction.
+     * Adds the number of trips archived to the total and returns the number
+     * of trips selected. A trip whose version changed since it was loaded is
+     * skipped; it is still archivable and a later batch picks it up again.
+     */
+    private int archiveBatch(LocalDateTime cutoff, AtomicInteger total) {
+        List<Integer> ids = tripBookingRepository.findArchivableIds(
+                ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<TripBooking> trips = tripBookingRepository.findAllWithPartiesByIdIn(ids);
+        List<TripBookingArchive> archived = new ArrayList<>(trips.size());
+        for (TripBooking trip : trips) {
+            if (tripBookingRepository.deleteIfUnchanged(trip.getTripBookingId(), trip.getVersion()) == 1) {
+                archived.add(TripBookingArchive.from(trip, now));
+            } else {
+                logger.debug("Trip {} changed while being archived, leaving it for a later batch.",
+                        trip.getTripBookingId());
+            }
+        }
+        tripBookingArchiveRepository.saveAll(archived);
+        total.addAndGet(archived.size());
+        return ids.size();
+    }
+}
@@ -3,29 +3,38 @@ package com.cabbooking.service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.dto.RatingRequest;
 import com.cabbooking.dto.TripBookingRequest;
 import com.cabbooking.dto.TripHistoryResponse;
 import com.cabbooking.exception.AuthenticationException;
+import com.cabbooking.model.AbstractUser;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Customer;
 import com.cabbooking.model.Driver;
 import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripBookingArchive;
 import com.cabbooking.model.TripStatus;
 import com.cabbooking.repository.CabRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.repository.TripBookingArchiveRepository;
 import com.cabbooking.repository.TripBookingRepository;
+import com.cabbooking.security.AuthenticatedUser;
 
 /**
  * Implementation of the {@link ITripBookingService} interface.
@@ -38,6 +47,14 @@ import com.cabbooking.repository.TripBookingRepository;
  * - Marks a trip as completed and calculates the final bill. 
  * - Retrieves all trips for a specific customer. 
  * - Handles security using method-level security.
+ * - Runs bookings and trip updates through the optimistic retry service,
+ *   so concurrent changes of a trip, driver or cab are re-applied on the
+ *   new state instead of overwriting each other.
+ * - Claims and releases drivers through the in-memory fleet state, which
+ *   alone decides whether a driver and their cab are available.
+ * - Appends every status change of a trip to the trip lifecycle log.
+ * - Moves trips between statuses only as declared by {@link TripStatus};
+ *   driver status updates are single guarded UPDATE statements.
  *
  * Security: 
  * - All endpoints are secured using method-level security. 
@@ -45,6 +62,8 @@ import com.cabbooking.repository.TripBookingRepository;
  * - Users can only update their own trip status. 
  * - Admins can update any user's trip status. 
  * - Drivers can only update their own trip status.
+ * - Ownership is checked by comparing the user ID of the JWT with the
+ *   driver_id or customer_id of the trip, without loading the user.
  */
 @Service
 public class TripBookingServiceImpl implements ITripBookingService {
@@ -56,6 +75,19 @@ public class TripBookingServiceImpl implements ITripBookingService {
     @Autowired
     private TripBookingRepository tripBookingRepository;
 
+    /*
+     * Repository for TripBookingArchive entity.
+     * Holds finished trips moved out of the live table by the archival job.
+     */
+    @Autowired
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+
+    /*
+     * Service for trip archival, used for the archive cutoff.
+     */
+    @Autowired
+    private ITripArchiveService tripArchiveService;
+
     /*
      * Repository for Customer entity.
      * Provides CRUD operations for Customer entity.
@@ -77,11 +109,59 @@ public class TripBookingServiceImpl implements ITripBookingService {
     @Autowired
     private CabRepository cabRepository;
 
+    /*
+     * Service for the daily revenue and earnings rollups.
+     * Updated incrementally when a trip is completed or rated.
+     */
+    @Autowired
+    private IRevenueRollupService revenueRollupService;
+
+    /*
+     * Service for the in-memory trip analytics store.
+     * Receives finished trips once their transaction commits.
+     */
+    @Autowired
+    private ITripAnalyticsService tripAnalyticsService;
+
+    /*
+     * Service for the in-memory driver leaderboard.
+     * Receives ratings once their transaction commits.
+     */
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    /*
+     * Service running the trip updates in their own transactions, retried
+     * on optimistic lock conflicts.
+     */
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    /*
+     * Service holding the availability of every driver and cab.
+     * Drivers are matched from it and claimed and released through it.
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
+    /*
+     * Service for the trip lifecycle log.
+     * Every status change appends an event in the transaction of the change.
+     */
+    @Autowired
+    private ITripEventService tripEventService;
+
     /*
      * Constant for nearby radius in kilometers.
      */
     private static final double NEARBY_RADIUS_KM = 50000.0;
 
+    /*
+     * The statuses a driver may move their trip to with updateTripStatus.
+     * Completion has its own operation, and confirmation is the scheduler's.
+     */
+    private static final Set<TripStatus> DRIVER_STATUS_UPDATES = EnumSet.of(TripStatus.IN_PROGRESS, TripStatus.CANCELLED);
+
     /**
      * Handles the logic for booking a new trip. This method now supports both
      * immediate and scheduled bookings.
@@ -93,6 +173,11 @@ public class TripBookingServiceImpl implements ITripBookingService {
      * rating). - Create a new TripBooking entity. - Assign the driver to the
      * trip. - Save the trip to the database. - Return the saved trip.
      *
+     * The chosen driver is claimed in the fleet state and on the driver row
+     * before the trip is saved, so a concurrent booking, of this or another
+     * instance, moves on to the next candidate; the claim is undone if the
+     * booking fails.
+     *
      * @param tripBookingRequest The request from the customer containing trip
      * details.
      * @return The saved TripBooking object.
@@ -101,8 +186,14 @@ public class TripBookingServiceImpl implements ITripBookingService {
      * booking.
      */
     @Override
-    @Transactional
     public TripBooking bookTrip(TripBookingRequest tripBookingRequest) {
+        return optimisticRetryService.execute("trip.book", () -> bookTripAttempt(tripBookingRequest));
+    }
+
+    /*
+     * Helper method to book a trip within one transaction attempt.
+     */
+    private TripBooking bookTripAttempt(TripBookingRequest tripBookingRequest) {
         Customer customer = customerRepository.findById(tripBookingRequest.getCustomerId())
                 .orElseThrow(() -> new AuthenticationException("Customer not found..."));
 
@@ -121,36 +212,33 @@ public class TripBookingServiceImpl implements ITripBookingService {
             scheduledTrip.setFromLatitude(tripBookingRequest.getFromLatitude());
             scheduledTrip.setFromLongitude(tripBookingRequest.getFromLongitude());
 
-            return tripBookingRepository.save(scheduledTrip);
+            TripBooking savedTrip = tripBookingRepository.save(scheduledTrip);
+            tripEventService.record(savedTrip, null);
+            return savedTrip;
         } else {
             // --- LOGIC FOR IMMEDIATE TRIP ---
-            // Find all available drivers of the correct car type
-            List<Driver> availableDrivers = driverRepository.findAll().stream()
-                    .filter(driver
-                            ->  driver.getVerified()
-    && driver.getIsAvailable()
-    && driver.getCab() != null
-    && driver.getCab().getCarType() != null
-    && tripBookingRequest.getCarType() != null
-    && driver.getCab().getCarType().equalsIgnoreCase(tripBookingRequest.getCarType())
-    && driver.getLatitude() != null && driver.getLongitude() != null
-                    ).toList();
-
-            // Filter for nearby drivers and find the best one by rating
-            Driver bestNearbyDriver = availableDrivers.stream()
-                    .filter(driver -> calculateDistance(
+            // Read the available drivers of the correct car type, with their
+            // cabs, from the in-memory fleet state
+            List<FleetAvailabilityRow> availableFleet = tripBookingRequest.getCarType() == null
+                    ? List.of()
+                    : fleetStateService.getAvailableFleet(tripBookingRequest.getCarType());
+
+            // Filter for nearby drivers and claim the best one by rating that
+            // is still available
+            FleetAvailabilityRow bestNearby = availableFleet.stream()
+                    .filter(row -> calculateDistance(
                     tripBookingRequest.getFromLatitude(),
                     tripBookingRequest.getFromLongitude(),
-                    driver.getLatitude(),
-                    driver.getLongitude()) <= NEARBY_RADIUS_KM)
-                    .max(Comparator.comparing(Driver::getRating))
+                    row.getLatitude(),
+                    row.getLongitude()) <= NEARBY_RADIUS_KM)
+                    .sorted(FleetAvailabilityRow.BY_RATING.reversed())
+                    .filter(row -> fleetStateService.claim(row.getDriverId()))
+                    .findFirst()
                     .orElseThrow(() -> new RuntimeException("No '" + tripBookingRequest.getCarType() + "' drivers are available nearby at the moment."));
 
-            // Assign driver and book trip (existing logic)
-            Cab assignedCab = bestNearbyDriver.getCab();
-            bestNearbyDriver.setIsAvailable(false);
-            assignedCab.setIsAvailable(false);
-            driverRepository.save(bestNearbyDriver);
+            // Assign the claimed driver and their cab without loading them
+            Driver bestNearbyDriver = driverRepository.getReferenceById(bestNearby.getDriverId());
+            Cab assignedCab = cabRepository.getReferenceById(bestNearby.getCabId());
 
             TripBooking newTrip = new TripBooking();
             newTrip.setCustomer(customer);
@@ -166,7 +254,9 @@ public class TripBookingServiceImpl implements ITripBookingService {
             newTrip.setFromLatitude(tripBookingRequest.getFromLatitude());
             newTrip.setFromLongitude(tripBookingRequest.getFromLongitude());
 
-            return tripBookingRepository.save(newTrip);
+            TripBooking savedTrip = tripBookingRepository.save(newTrip);
+            tripEventService.record(savedTrip, null);
+            return savedTrip;
         }
     }
 
@@ -184,108 +274,180 @@ public class TripBookingServiceImpl implements ITripBookingService {
         return R * c;
     }
 
+    /*
+     * Helper method to check that the authenticated user is the driver or
+     * customer of a trip. The party is a lazy proxy; reading its ID returns
+     * the driver_id or customer_id column without loading the user. Only
+     * tokens issued without a user ID fall back to comparing usernames,
+     * which loads the user.
+     */
+    private boolean isParty(AbstractUser party, String userType, AuthenticatedUser user) {
+        if (party == null) {
+            return false;
+        }
+        if (user.getUserId() != null) {
+            return user.is(userType, party.getId());
+        }
+        return party.getUsername().equals(user.getUsername());
+    }
+
     /**
-     * Updates the status of a trip according to predefined business rules.
+     * Updates the status of a trip according to the transitions declared by
+     * {@link TripStatus}.
      *
-     * Main Responsibilities: - Handles the logic for updating the status of a
-     * trip. - Applies business rules for status transitions. - Throws an
-     * exception if the status transition is not allowed.
+     * Workflow:
+     * - Resolves the driver ID, from the JWT or (for tokens without one) by
+     *   username.
+     * - Moves the trip with one guarded update over every status the new
+     *   status may be reached from. The update checks the status and the
+     *   driver, so the check and the change are one atomic statement and no
+     *   concurrent transition can slip in between. It also records the
+     *   status the trip moved from.
+     * - Loads the updated trip for the response and the lifecycle log.
+     * - Releases the driver and cab of a cancelled trip.
+     * - If no update matched, reads the trip once to report why.
      *
      * @param tripId The ID of the trip.
      * @param newStatusStr The new status as a string (e.g., "IN_PROGRESS",
      * "CANCELLED").
+     * @param driver The authenticated driver.
      * @return The updated trip.
+     * @throws AccessDeniedException if the trip is not assigned to the driver.
      * @throws IllegalStateException if the status transition is not allowed.
      */
     @Override
-    @Transactional
-    public TripBooking updateTripStatus(Integer tripId, String newStatusStr, String driverUsername) {
-        // Find the trip or throw an exception if it doesn't exist.
-        TripBooking trip = tripBookingRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found with ID: " + tripId));
-
-        // Ensure the trip has an assigned driver before checking authorization.
-        if (trip.getDriver() == null || !trip.getDriver().getUsername().equals(driverUsername)) {
-            throw new AccessDeniedException("You are not authorized to update this trip.");
-        }
+    public TripBooking updateTripStatus(Integer tripId, String newStatusStr, AuthenticatedUser driver) {
+        return optimisticRetryService.execute("trip.updateStatus",
+                () -> updateTripStatusAttempt(tripId, newStatusStr, driver));
+    }
 
-        // (Existing logic for updating status)
+    /*
+     * Helper method to update the status of a trip within one transaction
+     * attempt.
+     */
+    private TripBooking updateTripStatusAttempt(Integer tripId, String newStatusStr, AuthenticatedUser driver) {
         TripStatus newStatus = TripStatus.valueOf(newStatusStr.toUpperCase());
-
-        TripStatus currentStatus = trip.getStatus();
-
-        // Apply the business rules for status transitions.
-        switch (currentStatus) {
-            case SCHEDULED -> {
-                if (newStatus == TripStatus.CANCELLED) {
-                    trip.setStatus(newStatus);
-                } else {
-                    throw new IllegalStateException("A scheduled trip can only be CANCELLED.");
-                }
+        Integer driverId = driverIdOf(driver);
+
+        if (driverId != null && DRIVER_STATUS_UPDATES.contains(newStatus)) {
+            // One guarded update over all source statuses, without reading
+            // the trip first. It records the status the trip moved from in
+            // the trip itself. A scheduled trip has no driver yet and can
+            // never match.
+            if (tripBookingRepository.transition(tripId, TripStatus.sourcesOf(newStatus), newStatus, driverId) == 1) {
+                return afterTransition(tripId, newStatus, driverId);
             }
+        }
+        throw rejectTransition(tripId, newStatus, driver);
+    }
 
-            case CONFIRMED -> {
-                if (newStatus == TripStatus.IN_PROGRESS || newStatus == TripStatus.CANCELLED) {
-                    trip.setStatus(newStatus);
-                } else {
-                    throw new IllegalStateException("A confirmed trip can only be moved to IN_PROGRESS or CANCELLED.");
-                }
-            }
+    /*
+     * Helper method to load a trip moved by a guarded update and apply the
+     * effects of the new status. The update holds the row lock until the
+     * transaction ends, so the previous status read here is the one it
+     * recorded.
+     */
+    private TripBooking afterTransition(Integer tripId, TripStatus to, Integer driverId) {
+        TripBooking updatedTrip = tripBookingRepository.findById(tripId)
+                .orElseThrow(() -> new RuntimeException("Trip not found with ID: " + tripId));
+        TripStatus from = updatedTrip.getPreviousStatus();
 
-            case IN_PROGRESS -> {
-                if (newStatus == TripStatus.CANCELLED) {
-                    trip.setStatus(newStatus);
-                } else {
-                    throw new IllegalStateException("An in-progress trip can only be CANCELLED.");
-                }
-            }
+        // If the trip is cancelled, make the assigned driver and cab available again.
+        if (to == TripStatus.CANCELLED) {
+            fleetStateService.release(driverId);
+        }
+        tripEventService.record(updatedTrip, from);
+        if (to == TripStatus.CANCELLED) {
+            tripAnalyticsService.recordTrip(updatedTrip);
+        }
+        return updatedTrip;
+    }
 
-            case COMPLETED, CANCELLED -> // If the trip is already completed or cancelled, no further status changes are allowed.
-                throw new IllegalStateException("A " + currentStatus.toString().toLowerCase() + " trip cannot be changed.");
+    /*
+     * Helper method to explain why no guarded update matched. If the trip
+     * has meanwhile reached a status the transition is allowed from, the
+     * attempt reports a conflict so the retry service runs it again.
+     */
+    private RuntimeException rejectTransition(Integer tripId, TripStatus newStatus, AuthenticatedUser driver) {
+        TripBooking trip = tripBookingRepository.findById(tripId)
+                .orElseThrow(() -> new RuntimeException("Trip not found with ID: " + tripId));
+
+        if (!isParty(trip.getDriver(), "Driver", driver)) {
+            return new AccessDeniedException("You are not authorized to update this trip.");
         }
-        // A trip that is scheduled but not yet confirmed can only be cancelled.
 
-        // If the trip is cancelled, make the assigned driver and cab available again.
-        // This check is safe for scheduled trips because their driver and cab will be null.
-        if (newStatus == TripStatus.CANCELLED) {
-            Driver driver = trip.getDriver();
-            if (driver != null) {
-                driver.setIsAvailable(true);
-                driverRepository.save(driver);
-            }
+        TripStatus currentStatus = trip.getStatus();
+        if (currentStatus.isFinal()) {
+            return new IllegalStateException(describe(currentStatus) + " trip cannot be changed.");
+        }
+        Set<TripStatus> allowed = EnumSet.copyOf(DRIVER_STATUS_UPDATES);
+        allowed.retainAll(currentStatus.nextStatuses());
+        if (allowed.contains(newStatus)) {
+            return new OptimisticLockingFailureException("Trip " + tripId + " changed status concurrently.");
+        }
+        return new IllegalStateException(describe(currentStatus) + " trip can only be moved to "
+                + allowed.stream().map(TripStatus::name).collect(Collectors.joining(" or ")) + ".");
+    }
 
-            Cab cab = trip.getCab();
-            if (cab != null) {
-                cab.setIsAvailable(true);
-                cabRepository.save(cab);
-            }
+    /*
+     * Helper method to resolve the driver ID of the authenticated user. Only
+     * tokens issued without a user ID need a lookup by username.
+     */
+    private Integer driverIdOf(AuthenticatedUser user) {
+        if (user.getUserId() != null) {
+            return "Driver".equals(user.getUserType()) ? user.getUserId() : null;
         }
+        Driver driver = driverRepository.findByUsername(user.getUsername());
+        return driver != null ? driver.getId() : null;
+    }
 
-        return tripBookingRepository.save(trip);
+    /*
+     * Helper method to name a status in a message, e.g. "An in progress".
+     */
+    private String describe(TripStatus status) {
+        String name = status.toString().toLowerCase().replace('_', ' ');
+        return ("aeiou".indexOf(name.charAt(0)) >= 0 ? "An " : "A ") + name;
     }
 
     /**
      * Completes a trip, calculates the bill, and sets the end time.
      *
      * Workflow:
+     * - Checks that the trip is confirmed or in progress, so a completion
+     *   retried after a conflict never completes a trip twice.
      * - Completes the trip.
      * - Calculates the final bill.
      * - Sets the end time.
      * - Sets the driver and cab to available.
+     * - Appends the completion to the trip lifecycle log.
+     * - Adds the trip to the daily revenue and earnings rollups and the
+     *   analytics store.
      * - Returns the completed trip.
      *
      * @param tripId The ID of the trip to complete.
+     * @param driver The authenticated driver.
      * @return The completed trip with the final bill.
+     * @throws IllegalStateException if the trip is scheduled, completed or cancelled.
      */
     @Override
-    @Transactional
-    public TripBooking completeTrip(Integer tripId, String driverUsername) {
+    public TripBooking completeTrip(Integer tripId, AuthenticatedUser driver) {
+        return optimisticRetryService.execute("trip.complete", () -> completeTripAttempt(tripId, driver));
+    }
+
+    /*
+     * Helper method to complete a trip within one transaction attempt.
+     */
+    private TripBooking completeTripAttempt(Integer tripId, AuthenticatedUser driver) {
         TripBooking trip = tripBookingRepository.findById(tripId)
                 .orElseThrow(() -> new RuntimeException("Trip not found..."));
 
-        if (trip.getDriver() == null || !trip.getDriver().getUsername().equals(driverUsername)) {
+        if (!isParty(trip.getDriver(), "Driver", driver)) {
             throw new AccessDeniedException("You are not authorized to complete this trip.");
         }
+        TripStatus previousStatus = trip.getStatus();
+        if (!previousStatus.canTransitionTo(TripStatus.COMPLETED)) {
+            throw new IllegalStateException(describe(previousStatus) + " trip cannot be completed.");
+        }
 
         // Complete the trip
         trip.setToDateTime(LocalDateTime.now());
@@ -295,81 +457,76 @@ public class TripBookingServiceImpl implements ITripBookingService {
         float bill = trip.getDistanceInKm() * trip.getCab().getPerKmRate();
         trip.setBill(bill);
 
-        // Set the driver and cab to available
-        Driver driver = trip.getDriver();
-        if (driver != null) {
-            driver.setIsAvailable(true);
-            driverRepository.save(driver);
-        }
+        // Set the driver and cab to available once the completion commits
+        fleetStateService.release(trip.getDriver().getId());
 
-        Cab cab = trip.getCab();
-        if (cab != null) {
-            cab.setIsAvailable(true);
-            cabRepository.save(cab);
-        }
+        TripBooking completedTrip = tripBookingRepository.save(trip);
+        tripEventService.record(completedTrip, previousStatus);
+
+        // Add the trip to the daily revenue and earnings rollups
+        revenueRollupService.recordCompletedTrip(completedTrip);
+        tripAnalyticsService.recordTrip(completedTrip);
 
-        return tripBookingRepository.save(trip);
+        return completedTrip;
     }
 
     /**
      * Retrieves the trip history for a given customer.
      *
      * Workflow:
-     * - Retrieves all trips for the customer.
-     * - Returns the list of trips.
+     * - Retrieves all live and archived trips for the customer.
+     * - Returns the list of trips ordered by trip ID.
      *
      * @param customerId The customer's ID.
      * @return A list of trips.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TripHistoryResponse> getAllTripsCustomer(Integer customerId) {
-        List<TripBooking> trips = tripBookingRepository.findByCustomer_Id(customerId);
-        return trips.stream()
-            .map(trip -> new TripHistoryResponse(
-                    trip.getTripBookingId(),
-                    trip.getFromLocation(),
-                    trip.getToLocation(),
-                    trip.getFromDateTime(),
-                    trip.getToDateTime(),
-                    trip.getStatus(),
-                    trip.getBill(),
-                    trip.getCustomerRating(),
-                    trip.getCarType(),
-                    trip.getCustomer() != null ? trip.getCustomer().getFirstName() : null,
-                    trip.getCustomer() != null ? trip.getCustomer().getLastName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getFirstName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getLastName() : null,
-                    trip.getDistanceInKm(),
-                    trip.getDriver().getId(),
-                    trip.getCustomer().getId(),
-                    trip.getCab().getCabId()
-            ))
-            .collect(Collectors.toList());
+        List<TripHistoryResponse> history = new ArrayList<>();
+        tripBookingRepository.findByCustomer_Id(customerId).forEach(trip -> history.add(toHistoryResponse(trip)));
+        tripBookingArchiveRepository.findByCustomerId(customerId).forEach(trip -> history.add(toHistoryResponse(trip)));
+        history.sort(Comparator.comparing(TripHistoryResponse::getTripBookingId));
+        return history;
     }
 
     /**
-     * Applies a customer's rating to a completed trip and updates the driver's average rating.
+     * Applies a customer's rating to a completed trip and adds it to the driver's ratings.
      *
      * Workflow:
      * - Finds the trip.
      * - Validates the request.
      * - Gets the driver and the new rating.
-     * - Calculates the new average rating.
+     * - Adds the rating to the driver's rating sum and count with an atomic
+     *   update, so concurrent ratings of the same driver do not lose updates.
      * - Updates the trip with the customer's rating.
+     * - Adds the rating to the daily rollups and the driver leaderboard.
      * - Returns the updated trip.
      *
      * @param tripId The ID of the trip to rate.
      * @param ratingRequest The DTO containing the rating value.
+     * @param customer The authenticated customer.
      * @return The updated trip with the customer's rating recorded.
+     *
+     * If the trip changes concurrently, the whole rating (including the
+     * driver's rating sum) is rolled back and applied again; a trip rated in
+     * the meantime is then rejected as already rated.
      */
     @Override
-    @Transactional
-    public TripBooking rateTrip(Integer tripId, RatingRequest ratingRequest, String customerUsername) {
+    public TripBooking rateTrip(Integer tripId, RatingRequest ratingRequest, AuthenticatedUser customer) {
+        return optimisticRetryService.execute("trip.rate",
+                () -> rateTripAttempt(tripId, ratingRequest, customer));
+    }
+
+    /*
+     * Helper method to rate a trip within one transaction attempt.
+     */
+    private TripBooking rateTripAttempt(Integer tripId, RatingRequest ratingRequest, AuthenticatedUser customer) {
         // Find the trip
         TripBooking trip = tripBookingRepository.findById(tripId)
                 .orElseThrow(() -> new RuntimeException("Trip not found with ID: " + tripId));
         
-        if (trip.getCustomer() == null || !trip.getCustomer().getUsername().equals(customerUsername)) {
+        if (!isParty(trip.getCustomer(), "Customer", customer)) {
             throw new AccessDeniedException("You are not authorized to rate this trip.");
         }
 
@@ -385,54 +542,40 @@ public class TripBookingServiceImpl implements ITripBookingService {
         Driver driver = trip.getDriver();
         Integer newRating = ratingRequest.getRating();
 
-        // Calculate the new average rating
-        float currentTotalPoints = driver.getRating() * driver.getTotalRatings();
-        int newTotalRatings = driver.getTotalRatings() + 1;
-        float newAverageRating = (currentTotalPoints + newRating) / newTotalRatings;
-
-        // Update and save the driver
-        driver.setRating(newAverageRating);
-        driver.setTotalRatings(newTotalRatings);
-        driverRepository.save(driver);
+        // Add the rating to the driver's sum and count in one atomic update;
+        // the average is derived on read
+        driverRepository.addRating(driver.getId(), newRating);
 
         // Update and save the trip with the customer's rating
         trip.setCustomerRating(newRating);
-        return tripBookingRepository.save(trip);
+        TripBooking ratedTrip = tripBookingRepository.save(trip);
+
+        // Add the rating to the daily rollups of the day the trip was completed
+        revenueRollupService.recordRating(ratedTrip, newRating);
+        tripAnalyticsService.recordTrip(ratedTrip);
+        driverLeaderboardService.recordRating(driver.getId(), newRating);
+        fleetStateService.recordRating(driver.getId(), newRating);
+
+        return ratedTrip;
     }
 
     /*
      * Retrieves a list of trip bookings for the admin dashboard.
      * 
      * Workflow:
-     * - Fetches all trip bookings from the trip booking repository.
-     * - Returns the list of trip bookings as a List<TripBooking>.
+     * - Fetches all live and archived trip bookings of the driver.
+     * - Returns the list of trip bookings ordered by trip ID.
      * 
      * @return A list of trip bookings for the admin dashboard.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TripHistoryResponse> getTripsByDriver(Integer driverId) {
-        List<TripBooking> trips = tripBookingRepository.findByDriver_Id(driverId);
-        return trips.stream()
-            .map(trip -> new TripHistoryResponse(
-                    trip.getTripBookingId(),
-                    trip.getFromLocation(),
-                    trip.getToLocation(),
-                    trip.getFromDateTime(),
-                    trip.getToDateTime(),
-                    trip.getStatus(),
-                    trip.getBill(),
-                    trip.getCustomerRating(),
-                    trip.getCarType(),
-                    trip.getCustomer() != null ? trip.getCustomer().getFirstName() : null,
-                    trip.getCustomer() != null ? trip.getCustomer().getLastName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getFirstName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getLastName() : null,
-                    trip.getDistanceInKm(),
-                    trip.getDriver().getId(),
-                    trip.getCustomer().getId(),
-                    trip.getCab().getCabId()
-            ))
-            .collect(Collectors.toList());
+        List<TripHistoryResponse> history = new ArrayList<>();
+        tripBookingRepository.findByDriver_Id(driverId).forEach(trip -> history.add(toHistoryResponse(trip)));
+        tripBookingArchiveRepository.findByDriverId(driverId).forEach(trip -> history.add(toHistoryResponse(trip)));
+        history.sort(Comparator.comparing(TripHistoryResponse::getTripBookingId));
+        return history;
     }
 
     /*
@@ -442,38 +585,77 @@ public class TripBookingServiceImpl implements ITripBookingService {
      * - Converts the LocalDate to a LocalDateTime for the start of the day.
      * - Converts the LocalDate to a LocalDateTime for the end of the day.
      * - Fetches all trip bookings within the specified date range from the trip booking repository.
+     * - Also reads the archive when the day lies before the archive cutoff.
      * - Returns the list of trip bookings as a List<TripBooking>.
      * 
      * @param date The date for which to retrieve trip bookings.
      * @return A list of trip bookings for the specified date.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TripHistoryResponse> getTripsByDate(LocalDate date) {
         // Define the start and end of the given day
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        List<TripBooking> trips = tripBookingRepository.findByFromDateTimeBetween(startOfDay, endOfDay);
-        return trips.stream()
-            .map(trip -> new TripHistoryResponse(
-                    trip.getTripBookingId(),
-                    trip.getFromLocation(),
-                    trip.getToLocation(),
-                    trip.getFromDateTime(),
-                    trip.getToDateTime(),
-                    trip.getStatus(),
-                    trip.getBill(),
-                    trip.getCustomerRating(),
-                    trip.getCarType(),
-                    trip.getCustomer() != null ? trip.getCustomer().getFirstName() : null,
-                    trip.getCustomer() != null ? trip.getCustomer().getLastName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getFirstName() : null,
-                    trip.getDriver() != null ? trip.getDriver().getLastName() : null,
-                    trip.getDistanceInKm(),
-                    trip.getDriver().getId(),
-                    trip.getCustomer().getId(),
-                    trip.getCab().getCabId()
-            ))
-            .collect(Collectors.toList());
+        List<TripHistoryResponse> history = new ArrayList<>();
+        tripBookingRepository.findByFromDateTimeBetween(startOfDay, endOfDay)
+                .forEach(trip -> history.add(toHistoryResponse(trip)));
+
+        // Trips of days before the archive cutoff may have been moved to the archive
+        if (startOfDay.isBefore(tripArchiveService.getArchiveCutoff())) {
+            tripBookingArchiveRepository.findByFromDateTimeBetween(startOfDay, endOfDay)
+                    .forEach(trip -> history.add(toHistoryResponse(trip)));
+            history.sort(Comparator.comparing(TripHistoryResponse::getTripBookingId));
+        }
+        return history;
+    }
+
+    /*
+     * Helper method to map a live trip to its history view.
+     */
+    private TripHistoryResponse toHistoryResponse(TripBooking trip) {
+        return new TripHistoryResponse(
+                trip.getTripBookingId(),
+                trip.getFromLocation(),
+                trip.getToLocation(),
+                trip.getFromDateTime(),
+                trip.getToDateTime(),
+                trip.getStatus(),
+                trip.getBill(),
+                trip.getCustomerRating(),
+                trip.getCarType(),
+                trip.getCustomer() != null ? trip.getCustomer().getFirstName() : null,
+                trip.getCustomer() != null ? trip.getCustomer().getLastName() : null,
+                trip.getDriver() != null ? trip.getDriver().getFirstName() : null,
+                trip.getDriver() != null ? trip.getDriver().getLastName() : null,
+                trip.getDistanceInKm(),
+                trip.getDriver() != null ? trip.getDriver().getId() : null,
+                trip.getCustomer() != null ? trip.getCustomer().getId() : null,
+                trip.getCab() != null ? trip.getCab().getCabId() : null);
+    }
+
+    /*
+     * Helper method to map an archived trip to its history view.
+     */
+    private TripHistoryResponse toHistoryResponse(TripBookingArchive trip) {
+        return new TripHistoryResponse(
+                trip.getTripBookingId(),
+                trip.getFromLocation(),
+                trip.getToLocation(),
+                trip.getFromDateTime(),
+                trip.getToDateTime(),
+                trip.getStatus(),
+                trip.getBill(),
+                trip.getCustomerRating(),
+                trip.getCarType(),
+                trip.getCustomerFirstName(),
+                trip.getCustomerLastName(),
+                trip.getDriverFirstName(),
+                trip.getDriverLastName(),
+                trip.getDistanceInKm(),
+                trip.getDriverId(),
+                trip.getCustomerId(),
+                trip.getCabId());
     }
 
     /**
@@ -487,6 +669,7 @@ public class TripBookingServiceImpl implements ITripBookingService {
      * @return The latest TripBooking object for the customer.
      */
     @Override
+    @Transactional(readOnly = true)
     public TripBooking getBill(int customerId) {
         List<TripBooking> trips = tripBookingRepository.findByCustomer_Id(customerId);
         if (!trips.isEmpty()) {
@@ -0,0 +1,207 @@
+package com.cabbooking.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cabbooking.events.TripLifecycleProjection;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripEventRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Implementation of the ITripEventService interface.
+ *
+ * Main Responsibilities:
+ * - Appends one event per trip status change, in the transaction of the
+ *   change, so a rolled back or retried change leaves no event behind.
+ * - Catches the TripLifecycleProjection up with the log in the background,
+ *   in batches, starting from the first event after every restart.
+ * - Serves trip histories from the log and driver timelines and funnel
+ *   metrics from the projection, without reading trip rows.
+ *
+ * Ordering:
+ * - Every instance appends to the log and takes event IDs in blocks, so
+ *   IDs do not follow the order of the changes, and a transaction that
+ *   wrote its event earlier may commit later. The consumer therefore reads
+ *   the log in (occurredAt, id) order and only events older than the settle
+ *   time, so an event committed late is never skipped. This holds as long
+ *   as trip transactions finish, and the clocks of the instances agree,
+ *   within the settle time.
+ */
+@Service
+public class TripEventServiceImpl implements ITripEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripEventServiceImpl.class);
+
+    /*
+     * Position before the first event of the log.
+     */
+    private static final LocalDateTime LOG_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /*
+     * Repository for TripEvent entity, the log itself.
+     */
+    @Autowired
+    private TripEventRepository tripEventRepository;
+
+    /*
+     * Number of events read per batch while catching up.
+     */
+    @Value("${trip-events.batch-size:1000}")
+    private int batchSize = 1000;
+
+    /*
+     * Age an event must reach before it is applied to the projections.
+     */
+    @Value("${trip-events.settle-seconds:5}")
+    private long settleSeconds = 5;
+
+    /*
+     * Number of events kept per driver timeline.
+     */
+    @Value("${trip-events.timeline-size:100}")
+    private int timelineSize = 100;
+
+    /*
+     * The projections, created empty on startup.
+     */
+    private volatile TripLifecycleProjection projection;
+
+    /**
+     * Creates the empty projections, which the first catch-up fills from the
+     * whole log.
+     */
+    @PostConstruct
+    public void init() {
+        projection = new TripLifecycleProjection(timelineSize);
+    }
+
+    /**
+     * Appends the current status of a trip to the log within the caller's
+     * transaction.
+     *
+     * @param trip The saved trip, already in its new status.
+     * @param previousStatus The status the trip had before, or null for a
+     * new trip.
+     */
+    @Override
+    public void record(TripBooking trip, TripStatus previousStatus) {
+        tripEventRepository.save(new TripEvent(
+                trip.getTripBookingId(),
+                trip.getStatus(),
+                previousStatus,
+                trip.getCustomer() != null ? trip.getCustomer().getId() : null,
+                trip.getDriver() != null ? trip.getDriver().getId() : null,
+                trip.getCarType(),
+                LocalDateTime.now()));
+    }
+
+    /**
+     * Reads the full history of a trip from the log.
+     *
+     * @param tripId The ID of the trip.
+     * @return The events of the trip, oldest first.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TripEvent> getTripEvents(Integer tripId) {
+        return tripEventRepository.findByTripBookingIdOrderByIdAsc(tripId);
+    }
+
+    /**
+     * Returns the most recent events of a driver from the projections.
+     *
+     * @param driverId The ID of the driver.
+     * @return The events of the driver, oldest first.
+     */
+    @Override
+    public List<TripEvent> getDriverTimeline(Integer driverId) {
+        return projection.getTimeline(driverId);
+    }
+
+    /**
+     * @return The funnel metrics, the number of open trips per status and the
+     * position of the projections in the log.
+     */
+    @Override
+    public Map<String, Object> getFunnel() {
+        TripLifecycleProjection current = projection;
+        Map<String, Object> funnel = new LinkedHashMap<>(current.getFunnel());
+        funnel.put("openTrips", current.countOpenTrips());
+        funnel.put("appliedEvents", current.getAppliedEvents());
+        funnel.put("lastEventId", current.getLastEventId());
+        return funnel;
+    }
+
+    /**
+     * Polls the log for new events (trip-events.poll-ms, default every
+     * second).
+     */
+    @Scheduled(fixedDelayString = "${trip-events.poll-ms:1000}")
+    public void poll() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            logger.error("Catching up with the trip event log failed", e);
+        }
+    }
+
+    /**
+     * Applies the events appended since the last run to the projections.
+     *
+     * Workflow:
+     * - Reads the events after the last applied one in (occurredAt, id)
+     *   order, in batches, up to the settle time.
+     * - Applies them one by one until a batch comes back short, which ends
+     *   the run; the next run continues from the last applied event.
+     *
+     * @return The number of events applied.
+     */
+    @Override
+    public synchronized int catchUp() {
+        TripLifecycleProjection current = projection;
+        LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(settleSeconds);
+        int applied = 0;
+        while (true) {
+            LocalDateTime afterTime = current.getLastEventAt() != null ? current.getLastEventAt() : LOG_START;
+            List<TripEvent> batch = tripEventRepository.findSettledAfter(
+                    afterTime, current.getLastEventId(), settledBefore, PageRequest.of(0, batchSize));
+            for (TripEvent event : batch) {
+                current.apply(event);
+                applied++;
+            }
+            if (batch.size() < batchSize) {
+                logApplied(applied);
+                return applied;
+            }
+        }
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to log a catch-up run that applied events.
+     */
+    private void logApplied(int applied) {
+        if (applied > 0) {
+            logger.debug("Applied {} trip events to the projections.", applied);
+        }
+    }
+}
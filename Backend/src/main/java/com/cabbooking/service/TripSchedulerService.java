@@ -1,21 +1,18 @@
 package com.cabbooking.service;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.cabbooking.model.Cab;
-import com.cabbooking.model.Driver;
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.model.TripBooking;
 import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.CabRepository;
 import com.cabbooking.repository.DriverRepository;
 import com.cabbooking.repository.TripBookingRepository;
 
@@ -28,6 +25,7 @@ import com.cabbooking.repository.TripBookingRepository;
  * Main Responsibilities: 
  * - Checks for scheduled trips that are due to start within the next 15 minutes. 
  * - Assigns drivers and cabs to these trips if available.
+ * - Appends every assignment to the trip lifecycle log.
  *
  * Security: 
  * - This service is only accessible to users with the 'Admin' role.
@@ -54,6 +52,33 @@ public class TripSchedulerService {
     @Autowired
     private DriverRepository driverRepository;
 
+    /*
+     * Repository for Cab entity
+     * Provides CRUD operations for Cab
+     */
+    @Autowired
+    private CabRepository cabRepository;
+
+    /*
+     * Service holding the availability of every driver and cab, from which
+     * drivers are matched and claimed
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
+    /*
+     * Service running each assignment in its own transaction, retried on
+     * optimistic lock conflicts
+     */
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    /*
+     * Service for the trip lifecycle log, which records every assignment
+     */
+    @Autowired
+    private ITripEventService tripEventService;
+
     /*
      * Constant for nearby radius in kilometers
      */
@@ -61,31 +86,28 @@ public class TripSchedulerService {
 
     /**
      * This method is the core of the scheduler. It runs automatically at a
-     * fixed interval to find and process scheduled trips that are due soon. *
+     * fixed interval to find and process scheduled trips that are due soon.
      * The @Scheduled(fixedRate = 60000) annotation tells Spring to execute this
-     * method every 60,000 milliseconds (i.e., every 1 minute). * The
+     * method every 60,000 milliseconds (i.e., every 1 minute).
      *
-     * @Transactional annotation ensures that all database operations within
-     * this method are part of a single transaction. If any part fails, all
-     * changes are rolled back.
+     * Each trip is assigned in its own transaction through the optimistic
+     * retry service, so a conflict with a concurrent booking or cancellation
+     * only re-runs the assignment of that trip, on fresh state.
      *
      * Workflow:
      * - This method is scheduled to run every 1 minute.
      * - It checks for scheduled trips that are due to start within the next 15 minutes.
      * - If a trip is due, it attempts to find an best available nearby driver and assign them to the trip.
-     * - If driver is found, the trip status is updated to 'IN_PROGRESS'.
+     * - If driver is found, the trip status is updated to 'CONFIRMED'.
      */
     @Scheduled(fixedRate = 60000) // Runs every 1 minute
-    @Transactional
     public void assignDriversToScheduledTrips() {
         logger.info("Scheduler running: Checking for scheduled trips...");
 
         // Find all trips that are currently in the 'SCHEDULED' state and are due to start
         // within the next 15 minutes. This gives the system a small buffer to find a driver.
-        List<TripBooking> dueTrips = tripBookingRepository.findAll().stream()
-                .filter(trip -> trip.getStatus() == TripStatus.SCHEDULED
-                && trip.getFromDateTime().isBefore(LocalDateTime.now().plusMinutes(15)))
-                .collect(Collectors.toList());
+        List<TripBooking> dueTrips = tripBookingRepository.findByStatusAndFromDateTimeBefore(
+                TripStatus.SCHEDULED, LocalDateTime.now().plusMinutes(15));
 
         // If no trips are due, log it and exit the method to save resources.
         if (dueTrips.isEmpty()) {
@@ -93,12 +115,6 @@ public class TripSchedulerService {
             return;
         }
 
-        // Find all available drivers once to avoid multiple DB calls
-        List<Driver> allAvailableDrivers = driverRepository.findAll().stream()
-                .filter(d -> d.getVerified() && d.getIsAvailable() && d.getCab() != null &&
-                              d.getLatitude() != null && d.getLongitude() != null)
-                .toList();
-
         // Iterate through each due trip and attempt to assign a driver and cab.
         for (TripBooking trip : dueTrips) {
 
@@ -110,33 +126,11 @@ public class TripSchedulerService {
             logger.info("Attempting to assign driver to scheduled trip ID: {}", trip.getTripBookingId());
 
             try {
-                // Find best driver who is nearby the trip's STARTING location
-                Driver bestAvailableDriver = allAvailableDrivers.stream()
-                        .filter(d -> d.getCab().getCarType().equalsIgnoreCase(trip.getCarType()))
-                        .filter(d -> calculateDistance(
-                                trip.getFromLatitude(),
-                                trip.getFromLongitude(),
-                                d.getLatitude(),
-                                d.getLongitude()) <= NEARBY_RADIUS_KM)
-                        .max(Comparator.comparing(Driver::getRating))
-                        .orElse(null);
-
-                // If a driver was found, assign them and their cab to the trip.
-                if (bestAvailableDriver != null) {
-                    Cab assignedCab = bestAvailableDriver.getCab();
-
-                    // Mark the driver and their cab as unavailable
-                    bestAvailableDriver.setIsAvailable(false);
-                    assignedCab.setIsAvailable(false);
-                    driverRepository.save(bestAvailableDriver);
-
-                    // Update the trip details
-                    trip.setDriver(bestAvailableDriver);
-                    trip.setCab(assignedCab);
-                    trip.setStatus(TripStatus.CONFIRMED);
-                    tripBookingRepository.save(trip);
-                    
-                    logger.info("Successfully assigned Driver {} and Cab {} to Trip {}", bestAvailableDriver.getId(), assignedCab.getCabId(), trip.getTripBookingId());
+                FleetAvailabilityRow assigned = optimisticRetryService.execute("scheduler.assign",
+                        () -> assignDriver(trip.getTripBookingId()));
+
+                if (assigned != null) {
+                    logger.info("Successfully assigned Driver {} and Cab {} to Trip {}", assigned.getDriverId(), assigned.getCabId(), trip.getTripBookingId());
                 } else {
                     logger.warn("Could not find an available driver for scheduled trip ID: {}", trip.getTripBookingId());
                 }
@@ -147,6 +141,52 @@ public class TripSchedulerService {
         }
     }
 
+    /*
+     * Helper method to assign the best nearby driver to a scheduled trip
+     * within one transaction attempt. Reads the trip again, so an attempt
+     * re-run after a conflict skips a trip that is no longer scheduled, and
+     * claims the driver in the fleet state, which skips drivers booked in the
+     * meantime. Returns the fleet row of the assigned driver, or null if none
+     * was assigned.
+     */
+    private FleetAvailabilityRow assignDriver(Integer tripId) {
+        TripBooking trip = tripBookingRepository.findById(tripId).orElse(null);
+        if (trip == null || trip.getStatus() != TripStatus.SCHEDULED) {
+            logger.info("Trip {} is no longer scheduled. Skipping.", tripId);
+            return null;
+        }
+
+        if (trip.getCarType() == null) {
+            return null;
+        }
+
+        // Available candidates nearby the trip's STARTING location, best rated first
+        List<FleetAvailabilityRow> candidates = fleetStateService.getAvailableFleet(trip.getCarType()).stream()
+                .filter(row -> calculateDistance(
+                        trip.getFromLatitude(),
+                        trip.getFromLongitude(),
+                        row.getLatitude(),
+                        row.getLongitude()) <= NEARBY_RADIUS_KM)
+                .sorted(FleetAvailabilityRow.BY_RATING.reversed())
+                .toList();
+
+        for (FleetAvailabilityRow candidate : candidates) {
+            if (!fleetStateService.claim(candidate.getDriverId())) {
+                // Booked since the fleet was read
+                continue;
+            }
+
+            // Update the trip details
+            trip.setDriver(driverRepository.getReferenceById(candidate.getDriverId()));
+            trip.setCab(cabRepository.getReferenceById(candidate.getCabId()));
+            trip.setStatus(TripStatus.CONFIRMED);
+            tripBookingRepository.save(trip);
+            tripEventService.record(trip, TripStatus.SCHEDULED);
+            return candidate;
+        }
+        return null;
+    }
+
     /*
      * Helper method to calculate distance between two coordinates
      */
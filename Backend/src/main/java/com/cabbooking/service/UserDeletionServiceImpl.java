@@ -55,6 +55,32 @@ public class UserDeletionServiceImpl implements IUserDeletionService {
     @Autowired
     private IFileUploadService fileUploadService;
 
+    /*
+     * Service for the in-memory driver leaderboard.
+     * Drops deleted drivers from the ranking.
+     */
+    @Autowired
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    /*
+     * Service holding the availability of every driver and cab.
+     * Deleted drivers can no longer be matched.
+     */
+    @Autowired
+    private IFleetStateService fleetStateService;
+
+    /*
+     * Identity directory used by login; deleted users can no longer log in.
+     */
+    @Autowired
+    private IUserDirectoryService userDirectoryService;
+
+    /*
+     * Service for per-user token epochs; the tokens of deleted users are revoked.
+     */
+    @Autowired
+    private ITokenEpochService tokenEpochService;
+
     /**
      * Deletes a user by their username.
      *
@@ -62,6 +88,8 @@ public class UserDeletionServiceImpl implements IUserDeletionService {
      * - It attempts to delete from the admin repository first.
      * - If not found, it tries the customer repository.
      * - If still not found, it tries the driver repository.
+     * - The deleted user is removed from the identity directory and all of
+     *   their tokens are revoked.
      * - If the user is not found in any repository, it throws an exception.
      *
      * @param userId The username of the user to delete.
@@ -74,6 +102,8 @@ public class UserDeletionServiceImpl implements IUserDeletionService {
         Admin admin = adminRepository.findByUsername(username);
         if (admin != null) {
             adminRepository.delete(admin);
+            userDirectoryService.remove(admin);
+            tokenEpochService.revoke("Admin", admin.getId());
             return;
         }
 
@@ -81,6 +111,8 @@ public class UserDeletionServiceImpl implements IUserDeletionService {
         Customer customer = customerRepository.findByUsername(username);
         if (customer != null) {
             customerRepository.delete(customer);
+            userDirectoryService.remove(customer);
+            tokenEpochService.revoke("Customer", customer.getId());
             return;
         }
 
@@ -101,6 +133,10 @@ public class UserDeletionServiceImpl implements IUserDeletionService {
             }
             // Finally, delete the driver record
             driverRepository.delete(driver);
+            driverLeaderboardService.removeDriver(driver.getId());
+            fleetStateService.removeDriver(driver.getId());
+            userDirectoryService.remove(driver);
+            tokenEpochService.revoke("Driver", driver.getId());
             return;
         }
 
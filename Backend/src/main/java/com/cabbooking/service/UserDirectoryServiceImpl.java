@@ -0,0 +1,363 @@
+package com.cabbooking.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cabbooking.model.AbstractUser;
+import com.cabbooking.model.Admin;
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.repository.AdminRepository;
+import com.cabbooking.repository.CustomerRepository;
+import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.repository.UserIdentityRepository;
+import com.cabbooking.security.UserNameIndex;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Implementation of the IUserDirectoryService interface.
+ *
+ * Main Responsibilities:
+ * - Resolves a login identifier to the user type, ID, password hash and
+ *   email verification of the user with one query on user_identity.
+ * - Keeps user_identity in step with the user tables. The services that
+ *   register, import, verify, reset the password of or delete users call
+ *   index or remove after changing them, in the same transaction, so a
+ *   user and its entry are committed or rolled back together.
+ * - Rebuilds the directory on startup if it does not hold one entry per
+ *   user, e.g. on a schema created by Hibernate instead of the migrations.
+ * - Keeps every username and email in a UserNameIndex in memory, loaded on
+ *   startup and updated after each change of the table commits, so
+ *   availability checks and username suggestions (typed as the user types)
+ *   need no query and never see a name that was rolled back.
+ *
+ * When an identifier matches several users (old data, or the username of one
+ * user being the email of another), admins win over drivers over customers
+ * and a username match wins over an email match, as with the previous
+ * lookup through the three repositories.
+ */
+@Service
+public class UserDirectoryServiceImpl implements IUserDirectoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryServiceImpl.class);
+
+    /*
+     * The user types in the order they win a shared identifier.
+     */
+    private static final List<String> TYPE_PRECEDENCE = List.of("Admin", "Driver", "Customer");
+
+    /*
+     * The most usernames one suggestion request returns.
+     */
+    private static final int MAX_SUGGESTIONS = 20;
+
+    /*
+     * Repository for the UserIdentity entity.
+     */
+    @Autowired
+    private UserIdentityRepository userIdentityRepository;
+
+    /*
+     * Repositories of the three user tables, read by rebuild only.
+     */
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    /*
+     * The usernames and emails of all users; replaced as a whole on rebuild.
+     */
+    private volatile UserNameIndex nameIndex = new UserNameIndex();
+
+    /**
+     * Rebuilds the directory if its size does not match the user tables,
+     * and loads the usernames and emails into memory.
+     */
+    @PostConstruct
+    public void verifyOnStartup() {
+        long users = adminRepository.count() + driverRepository.count() + customerRepository.count();
+        long identities = userIdentityRepository.count();
+        if (users != identities) {
+            logger.warn("Identity directory holds {} entries for {} users, rebuilding.", identities, users);
+            rebuild();
+        } else {
+            loadNameIndex(userIdentityRepository.findAll());
+        }
+    }
+
+    /**
+     * Finds a user by username or email.
+     *
+     * Workflow:
+     * - Normalizes the identifier and reads the matching entries.
+     * - Picks the entry by user type, then username over email match.
+     *
+     * @param identifier The username or email.
+     * @return The identity of the user, or empty if there is none.
+     */
+    @Override
+    public Optional<UserIdentity> find(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return Optional.empty();
+        }
+        String key = normalize(identifier);
+        return userIdentityRepository.findByLookupKey(key).stream()
+                .min(Comparator.comparingInt((UserIdentity identity) -> TYPE_PRECEDENCE.indexOf(identity.getUserType()))
+                        .thenComparing(identity -> !key.equals(identity.getUsernameKey())));
+    }
+
+    /**
+     * @param email The email address.
+     * @return The identity of the user with this email; on old data where
+     * several users share it, admins win over drivers over customers.
+     */
+    @Override
+    public Optional<UserIdentity> findByEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return Optional.empty();
+        }
+        return userIdentityRepository.findByEmailKey(normalize(email)).stream()
+                .min(Comparator.comparingInt(identity -> TYPE_PRECEDENCE.indexOf(identity.getUserType())));
+    }
+
+    /**
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @return The identity of the user, or empty if there is none.
+     */
+    @Override
+    public Optional<UserIdentity> get(String userType, Integer userId) {
+        return userIdentityRepository.findById(new UserIdentity.Key(userType, userId));
+    }
+
+    /**
+     * @param username The username.
+     * @return True if the username is taken, from memory.
+     */
+    @Override
+    public boolean isUsernameTaken(String username) {
+        return username != null && nameIndex.containsUsername(normalize(username));
+    }
+
+    /**
+     * @param email The email address.
+     * @return True if the email is registered, from memory.
+     */
+    @Override
+    public boolean isEmailTaken(String email) {
+        return email != null && nameIndex.containsEmail(normalize(email));
+    }
+
+    /**
+     * @param username The wanted username.
+     * @param limit The maximum number of suggestions, at most 20.
+     * @return Free usernames made of the wanted one and a number.
+     */
+    @Override
+    public List<String> suggestUsernames(String username, int limit) {
+        if (username == null || username.isBlank() || limit < 1) {
+            return List.of();
+        }
+        return nameIndex.suggest(username.trim(), normalize(username), Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Checks that a new user's username and email are free.
+     *
+     * Workflow:
+     * - A name taken in memory is refused without a query.
+     * - A name free in memory is confirmed with one indexed query on
+     *   user_identity, which also sees users registered by other instances.
+     *
+     * @param username The username of the new user.
+     * @param email The email of the new user.
+     * @throws IllegalArgumentException if the username or email is taken.
+     */
+    @Override
+    public void checkAvailable(String username, String email) {
+        if (username != null && (isUsernameTaken(username)
+                || userIdentityRepository.existsByUsernameKey(normalize(username)))) {
+            throw new IllegalArgumentException("Username is already taken.");
+        }
+        if (email != null && (isEmailTaken(email)
+                || userIdentityRepository.existsByEmailKey(normalize(email)))) {
+            throw new IllegalArgumentException("Email is already registered.");
+        }
+    }
+
+    /**
+     * Saves the entry of a user in the caller's transaction; its names are
+     * added to memory once that transaction commits.
+     *
+     * @param user The saved Admin, Driver or Customer.
+     */
+    @Override
+    @Transactional
+    public void index(AbstractUser user) {
+        UserIdentity identity = toIdentity(user);
+        userIdentityRepository.save(identity);
+        afterCommit(() -> addToNameIndex(nameIndex, identity));
+    }
+
+    /**
+     * @param users The saved users.
+     */
+    @Override
+    @Transactional
+    public void indexAll(List<? extends AbstractUser> users) {
+        List<UserIdentity> identities = users.stream().map(this::toIdentity).toList();
+        userIdentityRepository.saveAll(identities);
+        afterCommit(() -> {
+            UserNameIndex current = nameIndex;
+            identities.forEach(identity -> addToNameIndex(current, identity));
+        });
+    }
+
+    /**
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     */
+    @Override
+    @Transactional
+    public void markEmailVerified(String userType, Integer userId) {
+        userIdentityRepository.markEmailVerified(userType, userId);
+    }
+
+    /**
+     * @param userType The type of the user.
+     * @param userId The ID of the user.
+     * @param passwordHash The new password hash.
+     */
+    @Override
+    @Transactional
+    public void updatePassword(String userType, Integer userId, String passwordHash) {
+        userIdentityRepository.updatePassword(userType, userId, passwordHash);
+    }
+
+    /**
+     * Deletes the entry of a user in the caller's transaction; its names are
+     * removed from memory once that transaction commits.
+     *
+     * @param user The deleted Admin, Driver or Customer.
+     */
+    @Override
+    @Transactional
+    public void remove(AbstractUser user) {
+        UserIdentity.Key key = new UserIdentity.Key(userType(user), user.getId());
+        userIdentityRepository.deleteById(key);
+        afterCommit(() -> nameIndex.remove(key));
+    }
+
+    /**
+     * Rebuilds the directory from the three user tables.
+     *
+     * Workflow:
+     * - Deletes every entry.
+     * - Reads all admins, drivers and customers and saves one entry each.
+     * - Replaces the in-memory names with those of the new entries once
+     *   the rebuild commits.
+     *
+     * @return The number of users indexed.
+     */
+    @Override
+    @Transactional
+    public int rebuild() {
+        List<UserIdentity> identities = new ArrayList<>();
+        adminRepository.findAll().forEach(admin -> identities.add(toIdentity(admin)));
+        driverRepository.findAll().forEach(driver -> identities.add(toIdentity(driver)));
+        customerRepository.findAll().forEach(customer -> identities.add(toIdentity(customer)));
+        userIdentityRepository.deleteAllInBatch();
+        userIdentityRepository.saveAll(identities);
+        afterCommit(() -> loadNameIndex(identities));
+        logger.info("Indexed {} users in the identity directory.", identities.size());
+        return identities.size();
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to update the in-memory names after the current
+     * transaction commits, or at once without a transaction.
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /*
+     * Helper method to build a new name index from directory entries and
+     * swap it in, so checks never see a half-loaded index.
+     */
+    private void loadNameIndex(List<UserIdentity> identities) {
+        UserNameIndex loaded = new UserNameIndex();
+        identities.forEach(identity -> addToNameIndex(loaded, identity));
+        nameIndex = loaded;
+        logger.info("Loaded {} usernames into the name index.", loaded.size());
+    }
+
+    /*
+     * Helper method to add the names of a directory entry to an index.
+     */
+    private void addToNameIndex(UserNameIndex index, UserIdentity identity) {
+        index.put(new UserIdentity.Key(identity.getUserType(), identity.getUserId()),
+                identity.getUsernameKey(), identity.getEmailKey());
+    }
+
+    /*
+     * Helper method to build the directory entry of a user.
+     */
+    private UserIdentity toIdentity(AbstractUser user) {
+        return new UserIdentity(userType(user), user.getId(), user.getUsername(), normalize(user.getUsername()),
+                normalize(user.getEmail()), user.getPassword(), user.getEmailVerified());
+    }
+
+    /*
+     * Helper method to name the type of a user as in LoginResponse and JWTs.
+     */
+    private String userType(AbstractUser user) {
+        if (user instanceof Admin) {
+            return "Admin";
+        } else if (user instanceof Driver) {
+            return "Driver";
+        } else if (user instanceof Customer) {
+            return "Customer";
+        }
+        throw new IllegalStateException("Unknown user type cannot be indexed.");
+    }
+
+    /*
+     * Helper method to normalize a username or email for lookups.
+     */
+    private String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,154 @@
+package com.cabbooking.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming reader for comma separated values (RFC 4180).
+ *
+ * Reads one record at a time, so files of any size can be processed without
+ * loading them into memory.
+ *
+ * Supported syntax:
+ * - Fields separated by commas, records separated by LF or CRLF.
+ * - Fields enclosed in double quotes may contain commas, line breaks and
+ *   escaped quotes ("").
+ * - A UTF-8 byte order mark at the start of the input is skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+
+    /*
+     * The line on which the last returned record started (1-based).
+     */
+    private long recordLine;
+
+    /*
+     * The line the reader is currently on (1-based).
+     */
+    private long currentLine = 1;
+
+    private boolean firstChar = true;
+
+    /**
+     * Creates a reader over the given character stream.
+     *
+     * @param reader The source of the CSV data.
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record, or null at the end of the input.
+     * @throws IOException if the input cannot be read.
+     * @throws IllegalArgumentException if a quoted field is not closed before
+     * the end of the input.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean sawAnything = false;
+        recordLine = currentLine;
+
+        int c;
+        while ((c = read()) != -1) {
+            sawAnything = true;
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == QUOTE) {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == QUOTE) {
+                        field.append(QUOTE);
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (ch == '\n') {
+                        currentLine++;
+                    }
+                    field.append(ch);
+                }
+            } else if (ch == QUOTE && field.isEmpty()) {
+                inQuotes = true;
+            } else if (ch == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                currentLine++;
+                fields.add(stripCarriageReturn(field));
+                return fields;
+            } else {
+                field.append(ch);
+            }
+        }
+
+        if (inQuotes) {
+            throw new IllegalArgumentException("Unterminated quoted field in record starting on line " + recordLine + ".");
+        }
+        if (!sawAnything) {
+            return null;
+        }
+        fields.add(stripCarriageReturn(field));
+        return fields;
+    }
+
+    /**
+     * Returns the line on which the last returned record started, for error
+     * reporting.
+     *
+     * @return The 1-based line number.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    /*
+     * Helper method to read the next character, skipping a leading byte order
+     * mark.
+     */
+    private int read() throws IOException {
+        int c = reader.read();
+        if (firstChar) {
+            firstChar = false;
+            if (c == BYTE_ORDER_MARK) {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    private String stripCarriageReturn(StringBuilder field) {
+        int length = field.length();
+        if (length > 0 && field.charAt(length - 1) == '\r') {
+            field.setLength(length - 1);
+        }
+        return field.toString();
+    }
+}
@@ -13,6 +13,7 @@ import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CabRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.service.IUserDirectoryService;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -32,6 +33,10 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    // Seeded users must be found by login and taken for new registrations
+    @Autowired
+    private IUserDirectoryService userDirectoryService;
+
     @Override
     public void run(String... args) throws Exception {
         // Seed superadmin user "super" with verified status
@@ -44,7 +49,7 @@ public class DataInitializer implements CommandLineRunner {
             superadmin.setFirstName("Super");
             superadmin.setLastName("Admin");
             superadmin.setVerified(true);
-            adminRepo.save(superadmin);
+            userDirectoryService.index(adminRepo.save(superadmin));
         }
 
         // Seed admin user "Admin" without verified status
@@ -56,7 +61,7 @@ public class DataInitializer implements CommandLineRunner {
             // Set first and last names
             admin.setFirstName("Regular");
             admin.setLastName("Admin");
-            adminRepo.save(admin);
+            userDirectoryService.index(adminRepo.save(admin));
         }
 
         // Seed customer user "Customer"
@@ -68,7 +73,7 @@ public class DataInitializer implements CommandLineRunner {
             // Set first and last names
             customer.setFirstName("John");
             customer.setLastName("Doe");
-            customerRepo.save(customer);
+            userDirectoryService.index(customerRepo.save(customer));
         }
 
         // Seed driver user "Driver" with verified status
@@ -81,11 +86,11 @@ public class DataInitializer implements CommandLineRunner {
             // Set first and last names
             driver.setFirstName("Jane");
             driver.setLastName("Smith");
-            driver.setRating(4.5f);
+            driver.setRatingSum(45L); // Average rating of 4.5 over 10 ratings
             driver.setVerified(true); // Set to true for testing booking
             driver.setIsAvailable(true); // Set to true for testing booking
             driver.setTotalRatings(10); // Set total ratings for testing
-            driverRepo.save(driver);
+            userDirectoryService.index(driverRepo.save(driver));
         }
         
         // Seed cab instance "Sedan" with perKmRate
@@ -0,0 +1,19 @@
+-- ===================================================================
+-- Per-user token epochs
+-- ===================================================================
+-- Every JWT carries the token epoch of its user at login. Logging out or
+-- revoking a user raises the epoch, which rejects all tokens issued before
+-- at once. Only users whose epoch was ever raised have a row, so the table
+-- grows with users, not with issued tokens. Rows outlive the user, so the
+-- tokens of a deleted user stay revoked.
+
+CREATE TABLE token_epoch (
+    user_type VARCHAR(16) NOT NULL,
+    user_id INTEGER NOT NULL,
+    epoch INTEGER NOT NULL,
+    changed_at DATETIME(6),
+    PRIMARY KEY (user_type, user_id)
+);
+
+-- Polling by other instances (findByChangedAtGreaterThanEqual)
+CREATE INDEX idx_token_epoch_changed ON token_epoch (changed_at);
@@ -0,0 +1,13 @@
+-- ===================================================================
+-- Stateless email verification and password reset tokens
+-- ===================================================================
+-- Verification and reset links now carry an HMAC-signed token naming the
+-- user, its purpose and expiry (ActionTokenSigner), and used tokens are
+-- remembered in memory until they expire (ConsumedTokenGuard). Nothing is
+-- stored per token any more, so both token tables are dropped. Links sent
+-- before this migration stop working; users request a new one.
+
+DROP TABLE IF EXISTS verification_token;
+DROP TABLE IF EXISTS password_reset_token;
+
+DELETE FROM id_generator WHERE sequence_name IN ('verification_token', 'password_reset_token');
@@ -0,0 +1,26 @@
+-- ===================================================================
+-- Transactional email outbox
+-- ===================================================================
+-- Verification and password reset emails are no longer sent over SMTP on
+-- the request thread. IEmailService writes them here, in the transaction
+-- of the request, and a background dispatcher sends the due rows in
+-- batches over one SMTP connection. Sent rows are deleted; rows whose
+-- attempts ran out stay with status FAILED.
+
+CREATE TABLE outbox_email (
+    id BIGINT NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body VARCHAR(4000) NOT NULL,
+    status ENUM('FAILED','PENDING') NOT NULL,
+    attempts INTEGER NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(512),
+    PRIMARY KEY (id)
+);
+
+-- Next batch of due emails and queue depth (findDue, countByStatus)
+CREATE INDEX idx_outbox_email_due ON outbox_email (status, next_attempt_at);
+
+INSERT INTO id_generator (sequence_name, next_val) VALUES ('outbox_email', 1);
@@ -0,0 +1,15 @@
+-- ===================================================================
+-- Claims on outbox emails
+-- ===================================================================
+-- Every instance of the application runs the outbox dispatcher. Before a
+-- batch is sent, its rows are claimed with one guarded UPDATE that writes
+-- the dispatcher's claim token and pushes next_attempt_at past a lease,
+-- so the rows are not due for any other dispatcher. The dispatcher then
+-- reads back the rows carrying its token; rows another instance claimed
+-- first are skipped. A dispatcher that dies mid-batch leaves its rows to
+-- be claimed again once the lease has run out.
+
+ALTER TABLE outbox_email ADD COLUMN claim_token VARCHAR(36);
+
+-- Reading back a claimed batch (findByClaimToken)
+CREATE INDEX idx_outbox_email_claim ON outbox_email (claim_token);
@@ -0,0 +1,16 @@
+-- ===================================================================
+-- Used action tokens
+-- ===================================================================
+-- Email verification and password reset tokens are signed and stored
+-- nowhere until they are used (V11). A used token's ID is inserted here;
+-- the primary key refuses a second use, whichever instance serves it.
+-- Rows are purged once the token has expired.
+
+CREATE TABLE consumed_token (
+    token_id VARCHAR(32) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (token_id)
+);
+
+-- Purging expired rows (deleteExpired)
+CREATE INDEX idx_consumed_token_expires ON consumed_token (expires_at);
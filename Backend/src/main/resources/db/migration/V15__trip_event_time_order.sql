@@ -0,0 +1,11 @@
+-- ===================================================================
+-- Trip event log read in time order
+-- ===================================================================
+-- Event IDs come from the table generator in blocks per instance, so with
+-- more than one instance a higher ID may be committed long before a lower
+-- one. The projection consumer therefore reads the log in (occurred_at, id)
+-- order, and only events older than the settle time, instead of in ID
+-- order.
+
+-- Catching up with the log (findSettledAfter)
+CREATE INDEX idx_trip_event_occurred ON trip_event (occurred_at, id);
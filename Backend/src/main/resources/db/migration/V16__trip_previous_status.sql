@@ -0,0 +1,9 @@
+-- ===================================================================
+-- Previous status of a trip
+-- ===================================================================
+-- A driver's status change is one guarded UPDATE over every status the
+-- new one may be reached from. It copies the old status into this column
+-- in the same statement, so the trip event log learns the status the trip
+-- moved from without reading the trip first.
+
+ALTER TABLE trip_booking ADD COLUMN previous_status ENUM('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','SCHEDULED');
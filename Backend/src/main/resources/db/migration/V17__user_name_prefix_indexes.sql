@@ -0,0 +1,17 @@
+-- ===================================================================
+-- Name prefix search in the admin listings
+-- ===================================================================
+-- The customer, driver and admin listings match a name prefix against the
+-- username, first name and last name, as a union of the IDs each name
+-- matches (findSummaries, countSummaries). The username is served by its
+-- unique index; these indexes cover the first and last name branches,
+-- which read nothing but the name and the ID.
+
+CREATE INDEX idx_customer_first_name ON customer (first_name, id);
+CREATE INDEX idx_customer_last_name ON customer (last_name, id);
+
+CREATE INDEX idx_driver_first_name ON driver (first_name, id);
+CREATE INDEX idx_driver_last_name ON driver (last_name, id);
+
+CREATE INDEX idx_admin_first_name ON admin (first_name, id);
+CREATE INDEX idx_admin_last_name ON admin (last_name, id);
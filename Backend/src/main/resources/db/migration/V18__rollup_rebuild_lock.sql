@@ -0,0 +1,20 @@
+-- ===================================================================
+-- Locks of scheduled jobs, and the rollup rebuild by day
+-- ===================================================================
+-- Every instance runs the scheduled jobs. A job that must run on one
+-- instance at a time (the nightly rollup rebuild) first claims its row
+-- here with one guarded UPDATE that writes the claimer and moves
+-- locked_until past a lease. An instance that finds the lease still
+-- running skips the run. A claimer that dies leaves the row to be
+-- claimed again once the lease has run out.
+
+CREATE TABLE job_lock (
+    name VARCHAR(64) NOT NULL,
+    locked_until DATETIME(6) NOT NULL,
+    locked_by VARCHAR(36),
+    PRIMARY KEY (name)
+);
+
+-- The rebuild aggregates archived trips one completion day at a time
+-- (aggregateByDayAndCarType, aggregateByDayAndDriver, findCompletionDays)
+CREATE INDEX idx_trip_booking_archive_status_end ON trip_booking_archive (status, to_date_time);
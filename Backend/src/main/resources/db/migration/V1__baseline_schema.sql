@@ -0,0 +1,171 @@
+-- ===================================================================
+-- Baseline schema
+-- ===================================================================
+-- Matches the tables Hibernate used to generate from the entity classes.
+-- Every statement is CREATE TABLE IF NOT EXISTS so the script can run on
+-- top of a database that was created by Hibernate before migrations were
+-- introduced (see FlywayConfig).
+
+CREATE TABLE IF NOT EXISTS admin (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    mobile_number VARCHAR(255),
+    address VARCHAR(255),
+    email_verified BIT,
+    verified BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_admin_username UNIQUE (username),
+    CONSTRAINT uk_admin_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS customer (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    mobile_number VARCHAR(255),
+    address VARCHAR(255),
+    email_verified BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_customer_username UNIQUE (username),
+    CONSTRAINT uk_customer_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS driver (
+    id INTEGER NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    mobile_number VARCHAR(255),
+    address VARCHAR(255),
+    email_verified BIT,
+    licence_no VARCHAR(255),
+    profile_photo_url VARCHAR(255),
+    rating FLOAT(23),
+    total_ratings INTEGER,
+    verified BIT,
+    is_available BIT,
+    latitude FLOAT(53),
+    longitude FLOAT(53),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_driver_username UNIQUE (username),
+    CONSTRAINT uk_driver_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS cab (
+    cab_id INTEGER NOT NULL AUTO_INCREMENT,
+    car_type VARCHAR(255),
+    per_km_rate FLOAT(23),
+    is_available BIT,
+    number_plate VARCHAR(255),
+    image_url VARCHAR(255),
+    driver_id INTEGER,
+    PRIMARY KEY (cab_id),
+    CONSTRAINT uk_cab_number_plate UNIQUE (number_plate),
+    CONSTRAINT uk_cab_driver UNIQUE (driver_id),
+    CONSTRAINT fk_cab_driver FOREIGN KEY (driver_id) REFERENCES driver (id)
+);
+
+CREATE TABLE IF NOT EXISTS trip_booking (
+    trip_booking_id INTEGER NOT NULL AUTO_INCREMENT,
+    customer_id INTEGER NOT NULL,
+    driver_id INTEGER,
+    cab_id INTEGER,
+    from_location VARCHAR(255),
+    to_location VARCHAR(255),
+    from_latitude FLOAT(53),
+    from_longitude FLOAT(53),
+    from_date_time DATETIME(6),
+    to_date_time DATETIME(6),
+    status ENUM('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','SCHEDULED'),
+    car_type VARCHAR(255),
+    distance_in_km FLOAT(23) NOT NULL,
+    bill FLOAT(23) NOT NULL,
+    customer_rating INTEGER,
+    PRIMARY KEY (trip_booking_id),
+    CONSTRAINT fk_trip_booking_customer FOREIGN KEY (customer_id) REFERENCES customer (id),
+    CONSTRAINT fk_trip_booking_driver FOREIGN KEY (driver_id) REFERENCES driver (id),
+    CONSTRAINT fk_trip_booking_cab FOREIGN KEY (cab_id) REFERENCES cab (cab_id)
+);
+
+CREATE TABLE IF NOT EXISTS trip_booking_archive (
+    trip_booking_id INTEGER NOT NULL,
+    customer_id INTEGER,
+    customer_first_name VARCHAR(255),
+    customer_last_name VARCHAR(255),
+    driver_id INTEGER,
+    driver_first_name VARCHAR(255),
+    driver_last_name VARCHAR(255),
+    cab_id INTEGER,
+    from_location VARCHAR(255),
+    to_location VARCHAR(255),
+    from_latitude FLOAT(53),
+    from_longitude FLOAT(53),
+    from_date_time DATETIME(6),
+    to_date_time DATETIME(6),
+    status ENUM('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','SCHEDULED'),
+    car_type VARCHAR(255),
+    distance_in_km FLOAT(23) NOT NULL,
+    bill FLOAT(23) NOT NULL,
+    customer_rating INTEGER,
+    archived_at DATETIME(6),
+    PRIMARY KEY (trip_booking_id)
+);
+
+CREATE TABLE IF NOT EXISTS daily_car_type_rollup (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    rollup_date DATE NOT NULL,
+    car_type VARCHAR(255) NOT NULL,
+    trip_count BIGINT NOT NULL,
+    total_bill FLOAT(53) NOT NULL,
+    total_distance FLOAT(53) NOT NULL,
+    rating_sum BIGINT NOT NULL,
+    rating_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_daily_car_type_rollup UNIQUE (rollup_date, car_type)
+);
+
+CREATE TABLE IF NOT EXISTS daily_driver_rollup (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    rollup_date DATE NOT NULL,
+    driver_id INTEGER NOT NULL,
+    trip_count BIGINT NOT NULL,
+    total_bill FLOAT(53) NOT NULL,
+    total_distance FLOAT(53) NOT NULL,
+    rating_sum BIGINT NOT NULL,
+    rating_count BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_daily_driver_rollup UNIQUE (rollup_date, driver_id)
+);
+
+CREATE TABLE IF NOT EXISTS blacklisted_token (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS verification_token (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token VARCHAR(255) NOT NULL,
+    user_email VARCHAR(255) NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_verification_token_token UNIQUE (token)
+);
+
+CREATE TABLE IF NOT EXISTS password_reset_token (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token VARCHAR(255) NOT NULL,
+    user_email VARCHAR(255) NOT NULL,
+    expiry_date DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_password_reset_token_token UNIQUE (token)
+);
@@ -0,0 +1,45 @@
+-- ===================================================================
+-- Indexes for the hot query paths
+-- ===================================================================
+-- Each index backs one or more repository finders. SchemaIndexPlanTest runs
+-- the corresponding queries through EXPLAIN and fails on a full table scan,
+-- so a new finder needs either an index here or an entry in that test.
+
+-- Customer trip history (findByCustomer_Id)
+CREATE INDEX idx_trip_booking_customer ON trip_booking (customer_id);
+
+-- Driver trip history (findByDriver_Id)
+CREATE INDEX idx_trip_booking_driver ON trip_booking (driver_id);
+
+-- Scheduler due trips (findByStatusAndFromDateTimeBefore) and the archival
+-- job (findArchivableIds)
+CREATE INDEX idx_trip_booking_status_start ON trip_booking (status, from_date_time);
+
+-- Trips of a day (findByFromDateTimeBetween)
+CREATE INDEX idx_trip_booking_start ON trip_booking (from_date_time);
+
+-- Rollup rebuild aggregates (aggregateByDayAndCarType, aggregateByDayAndDriver)
+CREATE INDEX idx_trip_booking_status_end ON trip_booking (status, to_date_time);
+
+-- Booking, scheduler and fare estimate driver lookup
+-- (findByVerifiedTrueAndIsAvailableTrue) and pending verifications
+-- (findByVerifiedFalse)
+CREATE INDEX idx_driver_verified_available ON driver (verified, is_available);
+
+-- Pending admin verifications (findByVerifiedFalse)
+CREATE INDEX idx_admin_verified ON admin (verified);
+
+-- Cabs of a car type (findByCarType)
+CREATE INDEX idx_cab_car_type ON cab (car_type);
+
+-- Token blacklist check on every authenticated request (findByToken)
+CREATE INDEX idx_blacklisted_token_token ON blacklisted_token (token);
+
+-- Archived trip history and trips of a day
+CREATE INDEX idx_trip_booking_archive_customer ON trip_booking_archive (customer_id);
+CREATE INDEX idx_trip_booking_archive_driver ON trip_booking_archive (driver_id);
+CREATE INDEX idx_trip_booking_archive_start ON trip_booking_archive (from_date_time);
+
+-- Earnings report of a single driver
+-- (findByDriverIdAndRollupDateBetweenOrderByRollupDateAsc)
+CREATE INDEX idx_daily_driver_rollup_driver_date ON daily_driver_rollup (driver_id, rollup_date);
@@ -0,0 +1,42 @@
+-- ===================================================================
+-- Table-backed ID generators
+-- ===================================================================
+-- Entities reserve blocks of IDs from this table instead of relying on
+-- AUTO_INCREMENT, which lets Hibernate batch inserts. Each row holds the
+-- next free ID of one generator (see IdGenerators). The rows are seeded
+-- past the IDs already in use; admin, customer and driver share one row.
+
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(64) NOT NULL,
+    next_val BIGINT NOT NULL,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'app_user', GREATEST(
+        (SELECT COALESCE(MAX(id), 0) FROM admin),
+        (SELECT COALESCE(MAX(id), 0) FROM customer),
+        (SELECT COALESCE(MAX(id), 0) FROM driver)) + 1;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'cab', COALESCE(MAX(cab_id), 0) + 1 FROM cab;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'trip_booking', GREATEST(
+        (SELECT COALESCE(MAX(trip_booking_id), 0) FROM trip_booking),
+        (SELECT COALESCE(MAX(trip_booking_id), 0) FROM trip_booking_archive)) + 1;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'blacklisted_token', COALESCE(MAX(id), 0) + 1 FROM blacklisted_token;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'verification_token', COALESCE(MAX(id), 0) + 1 FROM verification_token;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'password_reset_token', COALESCE(MAX(id), 0) + 1 FROM password_reset_token;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'daily_car_type_rollup', COALESCE(MAX(id), 0) + 1 FROM daily_car_type_rollup;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'daily_driver_rollup', COALESCE(MAX(id), 0) + 1 FROM daily_driver_rollup;
@@ -0,0 +1,7 @@
+-- ===================================================================
+-- Licence number lookups
+-- ===================================================================
+-- The bulk driver import checks a whole chunk of licence numbers against
+-- the driver table at once (DriverRepository.findExistingLicenceNos).
+
+CREATE INDEX idx_driver_licence_no ON driver (licence_no);
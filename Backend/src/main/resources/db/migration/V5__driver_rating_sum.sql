@@ -0,0 +1,15 @@
+-- ===================================================================
+-- Driver ratings as an integer sum and count
+-- ===================================================================
+-- The average rating is derived on read from rating_sum / total_ratings
+-- (Driver.getRating). Ratings are added with a single atomic UPDATE
+-- (DriverRepository.addRating) instead of rewriting a float average, so
+-- concurrent ratings neither lose updates nor drift through rounding.
+
+ALTER TABLE driver ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0;
+
+UPDATE driver SET total_ratings = 0 WHERE total_ratings IS NULL;
+UPDATE driver SET rating_sum = ROUND(COALESCE(rating, 0) * total_ratings);
+
+ALTER TABLE driver ALTER COLUMN total_ratings SET DEFAULT 0;
+ALTER TABLE driver DROP COLUMN rating;
@@ -0,0 +1,11 @@
+-- ===================================================================
+-- Optimistic versioning of drivers, cabs and trips
+-- ===================================================================
+-- Every update of a driver, cab or trip checks and increments its
+-- version (@Version), so concurrent writers no longer silently overwrite
+-- each other. The losing transaction is rolled back and re-run by
+-- IOptimisticRetryService. Existing rows start at version 0.
+
+ALTER TABLE driver ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cab ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE trip_booking ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,24 @@
+-- ===================================================================
+-- Append-only trip lifecycle log
+-- ===================================================================
+-- Every status change of a trip appends one row here, in the transaction
+-- that changes trip_booking.status (ITripEventService.record). Rows are
+-- never updated or deleted. The lifecycle projections are rebuilt from this
+-- table, and a trip's history is read from it without touching trip_booking.
+
+CREATE TABLE trip_event (
+    id BIGINT NOT NULL,
+    trip_booking_id INTEGER NOT NULL,
+    status ENUM('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','SCHEDULED') NOT NULL,
+    previous_status ENUM('CANCELLED','COMPLETED','CONFIRMED','IN_PROGRESS','SCHEDULED'),
+    customer_id INTEGER,
+    driver_id INTEGER,
+    car_type VARCHAR(255),
+    occurred_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- History of one trip (findByTripBookingIdOrderByIdAsc)
+CREATE INDEX idx_trip_event_trip ON trip_event (trip_booking_id, id);
+
+INSERT INTO id_generator (sequence_name, next_val) VALUES ('trip_event', 1);
@@ -0,0 +1,21 @@
+-- ===================================================================
+-- Token blacklist by digest and expiry
+-- ===================================================================
+-- The blacklist is checked in memory (ITokenBlacklistService); this table
+-- is its durable copy. New rows store the SHA-256 digest of the token
+-- instead of the token, its expiry and when it was blacklisted. Existing
+-- rows keep their token until the application converts them on startup.
+-- Rows whose token has expired are purged.
+
+ALTER TABLE blacklisted_token ADD COLUMN token_hash VARCHAR(64);
+ALTER TABLE blacklisted_token ADD COLUMN expires_at DATETIME(6);
+ALTER TABLE blacklisted_token ADD COLUMN blacklisted_at DATETIME(6);
+
+-- Conversion of existing rows (findByTokenHashIsNull)
+CREATE INDEX idx_blacklisted_token_hash ON blacklisted_token (token_hash);
+
+-- Startup load and purge (findByExpiresAtAfter, deleteExpired)
+CREATE INDEX idx_blacklisted_token_expiry ON blacklisted_token (expires_at);
+
+-- Polling by other instances (findByBlacklistedAtGreaterThanEqual)
+CREATE INDEX idx_blacklisted_token_added ON blacklisted_token (blacklisted_at);
@@ -0,0 +1,33 @@
+-- ===================================================================
+-- Identity directory for login
+-- ===================================================================
+-- One row per admin, driver and customer with what authentication needs:
+-- the user type and ID, the password hash and the email verification flag.
+-- Logins look the identifier up by its normalized (trimmed, lower-case)
+-- username or email here, instead of probing the three user tables.
+-- IUserDirectoryService keeps the rows in step with registration, password
+-- resets, email verification and deletion.
+
+CREATE TABLE user_identity (
+    user_type VARCHAR(16) NOT NULL,
+    user_id INTEGER NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    username_key VARCHAR(255) NOT NULL,
+    email_key VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email_verified BIT,
+    PRIMARY KEY (user_type, user_id)
+);
+
+-- Login by username or email (findByLookupKey)
+CREATE INDEX idx_user_identity_username ON user_identity (username_key);
+CREATE INDEX idx_user_identity_email ON user_identity (email_key);
+
+INSERT INTO user_identity (user_type, user_id, username, username_key, email_key, password, email_verified)
+SELECT 'Admin', id, username, LOWER(TRIM(username)), LOWER(TRIM(email)), password, email_verified FROM admin;
+
+INSERT INTO user_identity (user_type, user_id, username, username_key, email_key, password, email_verified)
+SELECT 'Driver', id, username, LOWER(TRIM(username)), LOWER(TRIM(email)), password, email_verified FROM driver;
+
+INSERT INTO user_identity (user_type, user_id, username, username_key, email_key, password, email_verified)
+SELECT 'Customer', id, username, LOWER(TRIM(username)), LOWER(TRIM(email)), password, email_verified FROM customer;
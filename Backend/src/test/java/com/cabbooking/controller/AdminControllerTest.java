@@ -1,20 +1,34 @@
 package com.cabbooking.controller;
 
+import com.cabbooking.dto.UserListingQuery;
 import com.cabbooking.dto.UserSummaryDTO;
+import com.cabbooking.dto.UserSummaryPage;
 import com.cabbooking.model.Driver;
+import com.cabbooking.security.LoginThrottle;
 import com.cabbooking.service.IAdminService;
 import com.cabbooking.service.IAdminVerificationService;
+import com.cabbooking.service.ICabCacheService;
+import com.cabbooking.service.IDriverService;
+import com.cabbooking.service.IDriverImportService;
+import com.cabbooking.service.IDriverLeaderboardService;
+import com.cabbooking.service.IEmailService;
+import com.cabbooking.service.IFleetStateService;
+import com.cabbooking.service.ITripEventService;
+import com.cabbooking.service.IOptimisticRetryService;
+import com.cabbooking.service.IRevenueRollupService;
+import com.cabbooking.service.ITripAnalyticsService;
+import com.cabbooking.service.ITripArchiveService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
-import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,7 +40,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Tests include fetching users and verifying drivers.
  */
 @WebMvcTest(AdminController.class)
-@WithMockUser(roles = "ADMIN") // Simulates an authenticated user with ADMIN role
+@Import(WebSecurityTestConfig.class)
+@WithMockUser(authorities = "ADMIN") // Simulates an authenticated user with ADMIN authority
 public class AdminControllerTest {
 
     @Autowired
@@ -38,6 +53,42 @@ public class AdminControllerTest {
     @MockBean
     private IAdminVerificationService adminVerificationService;
 
+    @MockBean
+    private IDriverService driverService;
+
+    @MockBean
+    private IRevenueRollupService revenueRollupService;
+
+    @MockBean
+    private ITripAnalyticsService tripAnalyticsService;
+
+    @MockBean
+    private ITripArchiveService tripArchiveService;
+
+    @MockBean
+    private ICabCacheService cabCacheService;
+
+    @MockBean
+    private IDriverImportService driverImportService;
+
+    @MockBean
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    @MockBean
+    private IOptimisticRetryService optimisticRetryService;
+
+    @MockBean
+    private IFleetStateService fleetStateService;
+
+    @MockBean
+    private ITripEventService tripEventService;
+
+    @MockBean
+    private LoginThrottle loginThrottle;
+
+    @MockBean
+    private IEmailService emailService;
+
     private UserSummaryDTO driverSummary, customerSummary;
     private Driver driver;
 
@@ -67,48 +118,48 @@ public class AdminControllerTest {
      * Test: GET /api/admin/customers
      *
      * Workflow:
-     * - Mock adminService.getAllCustomers() to return a single customer DTO
+     * - Mock adminService.searchCustomers() to return a page with a single customer DTO
      * - Perform GET request on /api/admin/customers
      * - Expect HTTP 200 OK
-     * - Validate that the JSON response contains the expected username
-     * - Verify the service method is called once
+     * - Validate that the JSON page contains the expected username
+     * - Verify the paged service method is called once
      */
     @Test
-    void getAllCustomers_returnsListOfCustomers() throws Exception {
-        List<UserSummaryDTO> customers = Arrays.asList(customerSummary);
-        when(adminService.getAllCustomers()).thenReturn(customers);
+    void getAllCustomers_returnsPageOfCustomers() throws Exception {
+        UserSummaryPage customers = new UserSummaryPage(Arrays.asList(customerSummary), 0, 20, false, null);
+        when(adminService.searchCustomers(any(UserListingQuery.class))).thenReturn(customers);
 
         mockMvc.perform(get("/api/admin/customers")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1))
-                .andExpect(jsonPath("$[0].username").value("customerUser"));
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].username").value("customerUser"));
 
-        verify(adminService, times(1)).getAllCustomers();
+        verify(adminService, times(1)).searchCustomers(any(UserListingQuery.class));
     }
     
     /**
      * Test: GET /api/admin/drivers
      *
      * Workflow:
-     * - Mock adminService.getAllDrivers() to return a single driver DTO
+     * - Mock adminService.searchDrivers() to return a page with a single driver DTO
      * - Perform GET request on /api/admin/drivers
      * - Expect HTTP 200 OK
-     * - Validate that the JSON response contains the expected driver username
-     * - Verify the service method is called once
+     * - Validate that the JSON page contains the expected driver username
+     * - Verify the paged service method is called once
      */
     @Test
-    void getAllDrivers_returnsListOfDrivers() throws Exception {
-        List<UserSummaryDTO> drivers = Arrays.asList(driverSummary);
-        when(adminService.getAllDrivers()).thenReturn(drivers);
+    void getAllDrivers_returnsPageOfDrivers() throws Exception {
+        UserSummaryPage drivers = new UserSummaryPage(Arrays.asList(driverSummary), 0, 20, false, null);
+        when(adminService.searchDrivers(any(UserListingQuery.class))).thenReturn(drivers);
 
         mockMvc.perform(get("/api/admin/drivers")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1))
-                .andExpect(jsonPath("$[0].username").value("driverUser"));
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].username").value("driverUser"));
 
-        verify(adminService, times(1)).getAllDrivers();
+        verify(adminService, times(1)).searchDrivers(any(UserListingQuery.class));
     }
 
     /**
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -24,6 +25,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Uses MockMvc to simulate HTTP requests and Mockito to mock service layer behavior.
  */
 @WebMvcTest(AuthController.class)
+@Import(WebSecurityTestConfig.class)
 public class AuthControllerTest {
 
     @Autowired
@@ -178,7 +180,7 @@ public class AuthControllerTest {
      */
     @Test
     void login_validCredentials_returnsOkAndLoginResponse() throws Exception {
-        when(loginService.login(any(LoginRequest.class))).thenReturn(loginResponse);
+        when(loginService.login(any(LoginRequest.class), any())).thenReturn(loginResponse);
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -194,7 +196,7 @@ public class AuthControllerTest {
      */
     @Test
     void login_invalidCredentials_returnsBadRequest() throws Exception {
-        when(loginService.login(any(LoginRequest.class)))
+        when(loginService.login(any(LoginRequest.class), any()))
                 .thenThrow(new com.cabbooking.exception.AuthenticationException("Invalid credentials"));
 
         mockMvc.perform(post("/api/auth/login")
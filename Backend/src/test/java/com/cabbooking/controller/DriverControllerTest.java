@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -26,6 +27,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Uses MockMvc to simulate HTTP requests and Mockito to mock service layer.
  */
 @WebMvcTest(DriverController.class)
+@Import(WebSecurityTestConfig.class)
 @WithMockUser(username = "driver1", roles = "DRIVER") // Mock authenticated driver
 public class DriverControllerTest {
 
@@ -50,7 +52,8 @@ public class DriverControllerTest {
         testDriver = new Driver();
         testDriver.setId(1);
         testDriver.setUsername("driver1");
-        testDriver.setRating(4.5f);
+        testDriver.setRatingSum(45L);
+        testDriver.setTotalRatings(10);
 
         principal = () -> "driver1"; // Mock authenticated principal
     }
@@ -5,6 +5,7 @@ import com.cabbooking.dto.RatingRequest;
 import com.cabbooking.dto.TripBookingRequest;
 import com.cabbooking.dto.TripHistoryResponse;
 import com.cabbooking.model.TripBooking;
+import com.cabbooking.security.AuthenticatedUser;
 import com.cabbooking.service.ICabService;
 import com.cabbooking.service.ITripBookingService;
 import org.junit.jupiter.api.BeforeEach;
@@ -47,6 +48,7 @@ public class TripControllerTest {
 
     private TripBooking testTrip;
     private TripBookingRequest testRequest;
+    private AuthenticatedUser driver;
     private Principal principal;
     private TripHistoryResponse historyResponse;
 
@@ -80,7 +82,8 @@ public class TripControllerTest {
         testRequest.setFromLongitude(56.78);
 
         // Simulated authenticated driver principal
-        principal = new UsernamePasswordAuthenticationToken("driverUser", "pass");
+        driver = new AuthenticatedUser("driverUser", "Driver", 1);
+        principal = new UsernamePasswordAuthenticationToken(driver, "pass");
     }
 
     /**
@@ -132,7 +135,7 @@ public class TripControllerTest {
      */
     @Test
     void updateTripStatus_validRequest_returnsUpdatedTrip() {
-        when(tripBookingService.updateTripStatus(any(Integer.class), any(String.class), any(String.class)))
+        when(tripBookingService.updateTripStatus(any(Integer.class), any(String.class), any(AuthenticatedUser.class)))
                 .thenReturn(testTrip);
 
         ResponseEntity<TripBooking> response = tripController.updateTripStatus(1, "IN_PROGRESS", principal);
@@ -140,7 +143,7 @@ public class TripControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testTrip, response.getBody());
         verify(tripBookingService, times(1))
-                .updateTripStatus(1, "IN_PROGRESS", principal.getName());
+                .updateTripStatus(1, "IN_PROGRESS", driver);
     }
 
     /**
@@ -152,13 +155,13 @@ public class TripControllerTest {
      */
     @Test
     void completeTrip_validRequest_returnsCompletedTrip() {
-        when(tripBookingService.completeTrip(any(Integer.class), any(String.class))).thenReturn(testTrip);
+        when(tripBookingService.completeTrip(any(Integer.class), any(AuthenticatedUser.class))).thenReturn(testTrip);
 
         ResponseEntity<TripBooking> response = tripController.completeTrip(1, principal);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testTrip, response.getBody());
-        verify(tripBookingService, times(1)).completeTrip(1, principal.getName());
+        verify(tripBookingService, times(1)).completeTrip(1, driver);
     }
 
     /**
@@ -231,7 +234,7 @@ public class TripControllerTest {
     void rateTrip_validRequest_returnsRatedTrip() {
         RatingRequest ratingRequest = new RatingRequest();
         ratingRequest.setRating(5);
-        when(tripBookingService.rateTrip(any(Integer.class), any(RatingRequest.class), any(String.class)))
+        when(tripBookingService.rateTrip(any(Integer.class), any(RatingRequest.class), any(AuthenticatedUser.class)))
                 .thenReturn(testTrip);
 
         ResponseEntity<TripBooking> response = tripController.rateTrip(1, ratingRequest, principal);
@@ -239,7 +242,7 @@ public class TripControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(testTrip, response.getBody());
         verify(tripBookingService, times(1))
-                .rateTrip(1, ratingRequest, principal.getName());
+                .rateTrip(1, ratingRequest, driver);
     }
 
     /**
@@ -0,0 +1,43 @@
+package com.cabbooking.controller;
+
+import com.cabbooking.config.SecurityConfig;
+import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.PasswordHashingExecutor;
+import com.cabbooking.security.VerifiedTokenCache;
+import com.cabbooking.service.ITokenBlacklistService;
+import com.cabbooking.service.ITokenEpochService;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Web security of the @WebMvcTest controller tests.
+ *
+ * Applies the application's SecurityConfig, so the tests see the same
+ * public paths, authorities and disabled CSRF as production, and mocks the
+ * beans JwtAuthenticationFilter and the password encoder need. With these
+ * mocks a request without a token passes the filter unauthenticated; tests
+ * authenticate with @WithMockUser.
+ *
+ * Imported by the controller tests with @Import(WebSecurityTestConfig.class).
+ * As a @TestConfiguration it is never picked up by the component scan.
+ */
+@TestConfiguration
+@Import(SecurityConfig.class)
+public class WebSecurityTestConfig {
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private ITokenBlacklistService tokenBlacklistService;
+
+    @MockBean
+    private ITokenEpochService tokenEpochService;
+
+    @MockBean
+    private PasswordHashingExecutor passwordHashingExecutor;
+}
@@ -0,0 +1,131 @@
+package com.cabbooking.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ReadReplicaRoutingDataSource against two in-memory H2 databases,
+ * one acting as the primary and one as the replica. Each database holds a
+ * single row naming itself, so a query shows where it was routed.
+ *
+ * Covers scenarios for:
+ * - Read-only transactions going to the replica
+ * - Read-write transactions and non-transactional work going to the primary
+ * - Implicit Spring Data repository transactions staying on the primary
+ * - A user's reads staying on the primary right after the user wrote
+ */
+public class ReadReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    /**
+     * Creates the two databases and the routing data source in front of them.
+     */
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("routing_primary", "primary");
+        DataSource replica = database("routing_replica", "replica");
+
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(
+                primary, List.of(replica), new ReplicaLagGuard(60_000)));
+        jdbcTemplate = new JdbcTemplate(routing);
+        transactionManager = new DataSourceTransactionManager(routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Tests that a read-only transaction reads from the replica.
+     */
+    @Test
+    void readOnlyTransaction_usesReplica() {
+        assertEquals("replica", readIn(transaction(true, "com.cabbooking.service.CabServiceImpl.getAllCabs")));
+    }
+
+    /**
+     * Tests that read-write transactions and work outside a transaction use
+     * the primary.
+     */
+    @Test
+    void readWriteAndNonTransactionalWork_usePrimary() {
+        assertEquals("primary", readIn(transaction(false, "com.cabbooking.service.TripBookingServiceImpl.bookTrip")));
+        assertEquals("primary", jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    /**
+     * Tests that Spring Data's implicit read-only repository transactions are
+     * not sent to the replica.
+     */
+    @Test
+    void implicitRepositoryTransaction_usesPrimary() {
+        assertEquals("primary", readIn(transaction(true,
+                "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById")));
+    }
+
+    /**
+     * Tests that a user who just wrote keeps reading from the primary, while
+     * other users still read from the replica.
+     */
+    @Test
+    void readAfterWrite_sameUserUsesPrimary() {
+        authenticate("customer1");
+        transaction(false, "com.cabbooking.service.TripBookingServiceImpl.bookTrip")
+                .executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+
+        assertEquals("primary", readIn(transaction(true,
+                "com.cabbooking.service.TripBookingServiceImpl.getAllTripsCustomer")));
+
+        authenticate("customer2");
+        assertEquals("replica", readIn(transaction(true,
+                "com.cabbooking.service.TripBookingServiceImpl.getAllTripsCustomer")));
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private DataSource database(String name, String marker) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("drop table if exists node");
+        setup.execute("create table node (name varchar(20))");
+        setup.update("insert into node (name) values (?)", marker);
+        return dataSource;
+    }
+
+    private TransactionTemplate transaction(boolean readOnly, String name) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        template.setName(name);
+        return template;
+    }
+
+    private String readIn(TransactionTemplate template) {
+        return template.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, Collections.singletonList(new SimpleGrantedAuthority("CUSTOMER"))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.cabbooking.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * Shared setup of the repository tests that run against a real database.
+ *
+ * The context is the JPA slice of CabBookingApplication on an embedded H2
+ * database migrated by Flyway, so every repository test class with the same
+ * imports shares one context and one database. Tests do not run in a
+ * transaction, like the service calls in production; every row is deleted
+ * before each test instead, so no test sees the rows of another class.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class AbstractRepositoryTest {
+
+    /*
+     * Tables that belong to the schema, not to a test.
+     */
+    private static final List<String> KEPT_TABLES = List.of("flyway_schema_history", "id_generator");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Deletes the rows of every application table.
+     */
+    @BeforeEach
+    void clearTables() {
+        List<String> tables = jdbcTemplate.queryForList("select table_name from information_schema.tables "
+                + "where table_schema = schema() and table_type = 'BASE TABLE'", String.class);
+        jdbcTemplate.execute("set referential_integrity false");
+        try {
+            for (String table : tables) {
+                if (!KEPT_TABLES.contains(table.toLowerCase())) {
+                    jdbcTemplate.execute("delete from " + table);
+                }
+            }
+        } finally {
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.config.HibernateBatchingConfig;
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk insert benchmark for TripBooking and Driver with the production ID
+ * generation and JDBC batching settings.
+ *
+ * Inserts a number of rows with saveAll in one transaction, logs the insert
+ * rate and checks that the rows went out in batches rather than one statement
+ * per row. The default of 5,000 rows keeps the regular build fast; run with
+ * -Dbenchmark.rows=100000 for a longer measurement. The numbers come from the
+ * in-memory H2 database and only show the relative effect of batching; use a
+ * MySQL data source for absolute figures.
+ */
+@Import(HibernateBatchingConfig.class)
+public class BulkInsertBenchmarkTest extends AbstractRepositoryTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000);
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    /**
+     * Resets the statistics before each run.
+     */
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * Measures bulk driver inserts.
+     */
+    @Test
+    void bulkInsert_drivers() {
+        List<Driver> drivers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Driver driver = new Driver();
+            driver.setUsername("bench_driver_" + i);
+            driver.setPassword("password");
+            driver.setFirstName("Bench");
+            driver.setLastName("Driver");
+            driver.setEmail("bench_driver_" + i + "@example.com");
+            driver.setLicenceNo("LIC" + i);
+            drivers.add(driver);
+        }
+
+        long elapsedNanos = timeInTransaction(() -> driverRepository.saveAll(drivers));
+
+        report("Driver", elapsedNanos);
+        assertEquals(ROWS, drivers.stream().map(Driver::getId).distinct().count());
+    }
+
+    /**
+     * Measures bulk trip booking inserts.
+     */
+    @Test
+    void bulkInsert_tripBookings() {
+        Customer customer = new Customer();
+        customer.setUsername("bench_customer");
+        customer.setPassword("password");
+        customer.setFirstName("Bench");
+        customer.setLastName("Customer");
+        customer.setEmail("bench_customer@example.com");
+        Customer savedCustomer = customerRepository.save(customer);
+        statistics.clear();
+
+        LocalDateTime start = LocalDateTime.of(2025, 3, 14, 8, 0);
+        List<TripBooking> trips = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            TripBooking trip = new TripBooking();
+            trip.setCustomer(savedCustomer);
+            trip.setFromLocation("A");
+            trip.setToLocation("B");
+            trip.setFromDateTime(start.plusMinutes(i));
+            trip.setToDateTime(start.plusMinutes(i + 20));
+            trip.setStatus(TripStatus.COMPLETED);
+            trip.setCarType("Sedan");
+            trip.setDistanceInKm(10.0f);
+            trip.setBill(100.0f);
+            trips.add(trip);
+        }
+
+        long elapsedNanos = timeInTransaction(() -> tripBookingRepository.saveAll(trips));
+
+        report("TripBooking", elapsedNanos);
+        assertEquals(ROWS, trips.stream().map(TripBooking::getTripBookingId).distinct().count());
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private long timeInTransaction(Runnable work) {
+        long startNanos = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+        return System.nanoTime() - startNanos;
+    }
+
+    /*
+     * Helper method to log the insert rate and check that the inserts were
+     * batched: far fewer statements than rows.
+     */
+    private void report(String entity, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long statements = statistics.getPrepareStatementCount();
+        logger.info("Inserted {} {} rows in {} ms ({} rows/s, {} statements prepared)",
+                ROWS, entity, Math.round(seconds * 1000), Math.round(ROWS / seconds), statements);
+        assertTrue(statements < ROWS / 10,
+                "Expected batched inserts, but " + statements + " statements were prepared for " + ROWS + " rows");
+    }
+}
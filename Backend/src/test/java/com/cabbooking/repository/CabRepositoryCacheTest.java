@@ -0,0 +1,101 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.config.HibernateCacheConfig;
+import com.cabbooking.model.Cab;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that cab reads are served by the second-level and query cache.
+ *
+ * Each repository call runs in its own transaction, like the service calls
+ * in production, and the JDBC statements Hibernate prepares are counted.
+ *
+ * Covers scenarios for:
+ * - Repeating a lookup by ID without a database round-trip
+ * - Repeating the catalog queries without a database round-trip
+ * - Re-running a catalog query after a cab changed
+ */
+@Import(HibernateCacheConfig.class)
+public class CabRepositoryCacheTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private CabRepository cabRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Cab cab;
+
+    /**
+     * Stores one cab and resets the statistics. The cache regions are shared
+     * by every persistence unit in the JVM, so entries other tests left for
+     * the same cab ID are evicted first; a versioned entity is not replaced
+     * by a load of the same version.
+     */
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+
+        cab = new Cab();
+        cab.setCarType("Sedan");
+        cab.setPerKmRate(12.5f);
+        cab.setNumberPlate("DL01AB1234");
+        cab.setIsAvailable(true);
+        cab = cabRepository.save(cab);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Tests that a cab is loaded from the entity cache once it was read.
+     */
+    @Test
+    void findById_repeated_servedFromEntityCache() {
+        cabRepository.findById(cab.getCabId());
+        long afterFirstCall = statistics.getPrepareStatementCount();
+
+        assertTrue(cabRepository.findById(cab.getCabId()).isPresent());
+
+        assertEquals(afterFirstCall, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 1);
+    }
+
+    /**
+     * Tests that repeated catalog queries are served from the query cache.
+     */
+    @Test
+    void catalogQueries_repeated_servedFromQueryCache() {
+        cabRepository.findByCarType("Sedan");
+        cabRepository.findAll();
+        long afterFirstCalls = statistics.getPrepareStatementCount();
+
+        assertEquals(1, cabRepository.findByCarType("Sedan").size());
+        assertEquals(1, cabRepository.findAll().size());
+
+        assertEquals(afterFirstCalls, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+    }
+
+    /**
+     * Tests that changing a cab invalidates the cached catalog queries.
+     */
+    @Test
+    void catalogQuery_afterCabChange_readsChangedData() {
+        cabRepository.findByCarType("Sedan");
+
+        cab.setCarType("SUV");
+        cabRepository.save(cab);
+
+        assertTrue(cabRepository.findByCarType("Sedan").isEmpty());
+        assertEquals(1, cabRepository.findByCarType("SUV").size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.Driver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the atomic driver rating aggregate.
+ *
+ * Covers scenarios for:
+ * - Concurrent ratings of one driver from many transactions
+ * - Saving a stale driver entity without overwriting the ratings
+ */
+public class DriverRatingRepositoryTest extends AbstractRepositoryTest {
+
+    private static final int THREADS = 8;
+    private static final int RATINGS_PER_THREAD = 25;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Driver driver;
+
+    /**
+     * Stores one unrated driver.
+     */
+    @BeforeEach
+    void setUp() {
+
+        driver = new Driver();
+        driver.setUsername("driver");
+        driver.setFirstName("Jane");
+        driver.setLastName("Smith");
+        driver.setPassword("hashed");
+        driver.setEmail("driver@example.com");
+        driver.setLicenceNo("LIC-1");
+        driver = driverRepository.save(driver);
+    }
+
+    /**
+     * Tests that no rating is lost when many transactions rate the same
+     * driver at once.
+     */
+    @Test
+    void addRating_concurrentRatings_noLostUpdates() throws Exception {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int rating = t % 5 + 1;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < RATINGS_PER_THREAD; i++) {
+                        template.executeWithoutResult(status -> driverRepository.addRating(driver.getId(), rating));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long expectedSum = 0;
+        for (int t = 0; t < THREADS; t++) {
+            expectedSum += (long) (t % 5 + 1) * RATINGS_PER_THREAD;
+        }
+        Driver rated = driverRepository.findById(driver.getId()).orElseThrow();
+        assertEquals(THREADS * RATINGS_PER_THREAD, rated.getTotalRatings());
+        assertEquals(expectedSum, rated.getRatingSum());
+        assertEquals((float) expectedSum / (THREADS * RATINGS_PER_THREAD), rated.getRating());
+    }
+
+    /**
+     * Tests that saving a driver loaded before a rating does not reset the
+     * rating sum and count.
+     */
+    @Test
+    void save_staleDriver_keepsRatings() {
+        Driver stale = driverRepository.findById(driver.getId()).orElseThrow();
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> driverRepository.addRating(driver.getId(), 4));
+
+        stale.setIsAvailable(false);
+        driverRepository.save(stale);
+
+        Driver reloaded = driverRepository.findById(driver.getId()).orElseThrow();
+        assertFalse(reloaded.getIsAvailable());
+        assertEquals(1, reloaded.getTotalRatings());
+        assertEquals(4L, reloaded.getRatingSum());
+        assertEquals(4.0f, reloaded.getRating());
+    }
+}
@@ -0,0 +1,160 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.dto.FleetAvailabilityRow;
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.Driver;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the flat fleet availability query.
+ *
+ * Covers scenarios for:
+ * - Returning only verified, available, located drivers with a cab
+ * - Filtering by car type regardless of case
+ * - Reading the whole fleet with a single SQL statement
+ * - Reading every driver with a cab in keyset batches for the fleet state
+ * - Taking a driver for a trip only once with the guarded update
+ */
+public class FleetAvailabilityRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CabRepository cabRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    /**
+     * Stores five available drivers with cabs and four drivers that must not
+     * be matched: unverified, busy, without location and without cab.
+     */
+    @BeforeEach
+    void setUp() {
+
+        for (int i = 0; i < 5; i++) {
+            withCab(driver("sedan" + i, true, true, 28.70), i % 2 == 0 ? "Sedan" : "SUV", 10f + i);
+        }
+        withCab(driver("unverified", false, true, 28.70), "Sedan", 10f);
+        withCab(driver("busy", true, false, 28.70), "Sedan", 10f);
+        withCab(driver("nowhere", true, true, null), "Sedan", 10f);
+        driver("nocab", true, true, 28.70);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * Tests that the fleet is read as flat rows in one statement.
+     */
+    @Test
+    void findAvailableFleet_singleStatement() {
+        List<FleetAvailabilityRow> fleet = driverRepository.findAvailableFleet(null);
+
+        assertEquals(5, fleet.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        FleetAvailabilityRow row = fleet.stream().filter(r -> r.getPerKmRate() == 10f).findFirst().orElseThrow();
+        assertEquals("Sedan", row.getCarType());
+        assertNotNull(row.getCabId());
+        assertEquals(4.5f, row.getRating());
+        assertTrue(row.getVerified() && row.getAvailable());
+    }
+
+    /**
+     * Tests that the car type filter ignores case.
+     */
+    @Test
+    void findAvailableFleet_byCarType() {
+        List<FleetAvailabilityRow> suvs = driverRepository.findAvailableFleet("suv");
+
+        assertEquals(2, suvs.size());
+        assertTrue(suvs.stream().allMatch(r -> r.getCarType().equals("SUV")));
+    }
+
+    /**
+     * Tests that the fleet state load reads every driver with a cab, busy
+     * and unverified ones included, in ID order batches.
+     */
+    @Test
+    void findFleetRowsAfter_readsAllDriversWithCabInBatches() {
+        // The generated schema of the tests may hand out negative IDs
+        List<FleetAvailabilityRow> first = driverRepository.findFleetRowsAfter(Integer.MIN_VALUE, PageRequest.of(0, 5));
+        List<FleetAvailabilityRow> rest = driverRepository.findFleetRowsAfter(first.get(4).getDriverId(),
+                PageRequest.of(0, 5));
+
+        assertEquals(5, first.size());
+        assertEquals(3, rest.size());
+        FleetAvailabilityRow busy = rest.stream().filter(r -> !r.getAvailable()).findFirst().orElseThrow();
+        FleetAvailabilityRow unverified = rest.stream().filter(r -> !r.getVerified()).findFirst().orElseThrow();
+        assertNotEquals(busy.getDriverId(), unverified.getDriverId());
+        assertTrue(rest.stream().anyMatch(r -> r.getLatitude() == null));
+        assertTrue(first.get(0).getDriverId() < first.get(4).getDriverId());
+    }
+
+    /**
+     * Tests that an available driver can be taken only once, and again after
+     * being made available.
+     */
+    @Test
+    void markUnavailable_takesDriverOnlyOnce() {
+        Integer driverId = driverRepository.findByUsername("sedan0").getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertEquals(Integer.valueOf(1), transaction.execute(status -> driverRepository.markUnavailable(driverId)));
+        assertEquals(Integer.valueOf(0), transaction.execute(status -> driverRepository.markUnavailable(driverId)));
+        assertFalse(driverRepository.findByUsername("sedan0").getIsAvailable());
+
+        assertEquals(Integer.valueOf(1), transaction.execute(status -> driverRepository.markAvailable(driverId)));
+        assertEquals(Integer.valueOf(0), transaction.execute(status -> driverRepository.markAvailable(driverId)));
+        assertEquals(Integer.valueOf(1), transaction.execute(status -> driverRepository.markUnavailable(driverId)));
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private Driver driver(String username, boolean verified, boolean available, Double latitude) {
+        Driver driver = new Driver();
+        driver.setUsername(username);
+        driver.setFirstName("Fleet");
+        driver.setLastName("Driver");
+        driver.setPassword("hashed");
+        driver.setEmail(username + "@example.com");
+        driver.setLicenceNo("LIC-" + username);
+        driver.setVerified(verified);
+        driver.setIsAvailable(available);
+        driver.setLatitude(latitude);
+        driver.setLongitude(latitude != null ? 77.10 : null);
+        driver.setRatingSum(45L);
+        driver.setTotalRatings(10);
+        return driverRepository.save(driver);
+    }
+
+    private void withCab(Driver driver, String carType, float perKmRate) {
+        Cab cab = new Cab();
+        cab.setCarType(carType);
+        cab.setPerKmRate(perKmRate);
+        cab.setNumberPlate("NP-" + driver.getUsername());
+        cab.setIsAvailable(true);
+        cab.setDriver(driver);
+        cabRepository.save(cab);
+    }
+}
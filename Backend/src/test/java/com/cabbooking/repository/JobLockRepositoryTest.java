@@ -0,0 +1,63 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.service.IJobLockService;
+import com.cabbooking.service.JobLockServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the job locks against a real database.
+ *
+ * Covers scenarios for:
+ * - Creating the lock row of a job on first use
+ * - Skipping a job while another run holds its lock
+ * - Keeping the lock for the minimum time after the job ends
+ */
+@Import(JobLockServiceImpl.class)
+public class JobLockRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private IJobLockService jobLockService;
+
+    /**
+     * Tests that a second run is skipped while the first one holds the
+     * lock, and that the first run releases it when it ends.
+     */
+    @Test
+    void runExclusively_secondRunWhileLocked_isSkipped() {
+        AtomicBoolean nestedRan = new AtomicBoolean();
+
+        boolean ran = jobLockService.runExclusively("test.job", Duration.ofMinutes(10), Duration.ZERO,
+                () -> assertFalse(jobLockService.runExclusively("test.job", Duration.ofMinutes(10), Duration.ZERO,
+                        () -> nestedRan.set(true))));
+
+        assertTrue(ran);
+        assertFalse(nestedRan.get());
+        assertFalse(jobLockRepository.findById("test.job").orElseThrow().getLockedUntil()
+                .isAfter(LocalDateTime.now()));
+        assertTrue(jobLockService.runExclusively("test.job", Duration.ofMinutes(10), Duration.ZERO, () -> {
+        }));
+    }
+
+    /**
+     * Tests that a run ending early keeps the lock for the minimum time.
+     */
+    @Test
+    void runExclusively_endedEarly_keepsLockForMinimumTime() {
+        assertTrue(jobLockService.runExclusively("test.job", Duration.ofMinutes(10), Duration.ofMinutes(5), () -> {
+        }));
+
+        assertTrue(jobLockRepository.findById("test.job").orElseThrow().getLockedUntil()
+                .isAfter(LocalDateTime.now().plusMinutes(4)));
+        assertFalse(jobLockService.runExclusively("test.job", Duration.ofMinutes(10), Duration.ofMinutes(5), () -> {
+        }));
+    }
+}
@@ -0,0 +1,127 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.Driver;
+import com.cabbooking.service.IOptimisticRetryService;
+import com.cabbooking.service.OptimisticRetryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the optimistic versioning of drivers against a real database.
+ *
+ * Covers scenarios for:
+ * - Rejecting the update of a stale copy
+ * - Leaving the version alone when a rating is added
+ * - Re-running a conflicting update on the new state
+ */
+@Import(OptimisticRetryServiceImpl.class)
+public class OptimisticVersionRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private IOptimisticRetryService optimisticRetryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Integer driverId;
+
+    /**
+     * Stores one driver.
+     */
+    @BeforeEach
+    void setUp() {
+        Driver driver = new Driver();
+        driver.setUsername("versioned");
+        driver.setFirstName("Vera");
+        driver.setLastName("Sion");
+        driver.setPassword("hashed");
+        driver.setEmail("versioned@example.com");
+        driverId = driverRepository.save(driver).getId();
+    }
+
+    /**
+     * Tests that saving a copy read before another update fails instead of
+     * overwriting that update.
+     */
+    @Test
+    void save_staleCopy_throwsConflict() {
+        Driver first = driverRepository.findById(driverId).orElseThrow();
+        Driver second = driverRepository.findById(driverId).orElseThrow();
+        assertEquals(0L, first.getVersion());
+
+        first.setIsAvailable(false);
+        driverRepository.save(first);
+        second.setAddress("Stale Street 1");
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> driverRepository.save(second));
+        Driver stored = driverRepository.findById(driverId).orElseThrow();
+        assertFalse(stored.getIsAvailable());
+        assertNull(stored.getAddress());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    /**
+     * Tests that ratings do not bump the version, so they never make a
+     * concurrent driver update conflict.
+     */
+    @Test
+    void addRating_keepsVersion() {
+        Driver before = driverRepository.findById(driverId).orElseThrow();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> driverRepository.addRating(driverId, 5));
+        before.setIsAvailable(false);
+        driverRepository.save(before);
+
+        Driver stored = driverRepository.findById(driverId).orElseThrow();
+        assertEquals(5L, stored.getRatingSum());
+        assertFalse(stored.getIsAvailable());
+    }
+
+    /**
+     * Tests that an update losing against a concurrent one is re-run on the
+     * new state, so both changes are kept.
+     */
+    @Test
+    void execute_concurrentUpdate_reappliedOnNewState() {
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger attempts = new AtomicInteger();
+
+        optimisticRetryService.execute("driver.address", () -> {
+            Driver driver = driverRepository.findById(driverId).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                // Another writer commits between our read and our write
+                concurrent.executeWithoutResult(status -> {
+                    Driver other = driverRepository.findById(driverId).orElseThrow();
+                    other.setMobileNumber("5550100");
+                    driverRepository.save(other);
+                });
+            }
+            driver.setAddress("Main Street 1");
+            return driverRepository.save(driver);
+        });
+
+        Driver stored = driverRepository.findById(driverId).orElseThrow();
+        assertEquals(2, attempts.get());
+        assertEquals("Main Street 1", stored.getAddress());
+        assertEquals("5550100", stored.getMobileNumber());
+        assertEquals(2L, stored.getVersion());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) ((Map<String, Object>) optimisticRetryService
+                .getConflictStats().get("operations")).get("driver.address");
+        assertEquals(1L, stats.get("retries"));
+    }
+}
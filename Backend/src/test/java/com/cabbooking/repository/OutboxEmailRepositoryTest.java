@@ -0,0 +1,66 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.OutboxEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for claiming outbox emails against a real database.
+ *
+ * Covers scenarios for:
+ * - Claiming due emails for one dispatcher and reading them back
+ * - Letting only the first of two dispatchers claim the same emails
+ * - Keeping claimed emails from being due until the lease runs out
+ */
+public class OutboxEmailRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocalDateTime now;
+
+    /**
+     * Stores two due emails.
+     */
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        outboxEmailRepository.save(new OutboxEmail("a@example.com", "Subject", "Body", now.minusMinutes(2)));
+        outboxEmailRepository.save(new OutboxEmail("b@example.com", "Subject", "Body", now.minusMinutes(1)));
+    }
+
+    /**
+     * Tests that the second of two dispatchers claiming the same emails gets
+     * none of them, and that claimed emails are not due until the lease ends.
+     */
+    @Test
+    void claim_onlyFirstDispatcherWins() {
+        List<Long> dueIds = outboxEmailRepository.findDueIds(OutboxEmail.Status.PENDING, now, PageRequest.of(0, 10));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        Integer first = transaction.execute(status -> outboxEmailRepository.claim(dueIds,
+                OutboxEmail.Status.PENDING, "first", now, now.plusMinutes(5)));
+        Integer second = transaction.execute(status -> outboxEmailRepository.claim(dueIds,
+                OutboxEmail.Status.PENDING, "second", now, now.plusMinutes(5)));
+
+        assertEquals(2, first);
+        assertEquals(0, second);
+        List<OutboxEmail> claimed = outboxEmailRepository.findByClaimTokenOrderByIdAsc("first");
+        assertEquals(List.of("a@example.com", "b@example.com"),
+                claimed.stream().map(OutboxEmail::getRecipient).toList());
+        assertTrue(outboxEmailRepository.findByClaimTokenOrderByIdAsc("second").isEmpty());
+        assertTrue(outboxEmailRepository.findDueIds(OutboxEmail.Status.PENDING, now, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(2, outboxEmailRepository.findDueIds(OutboxEmail.Status.PENDING, now.plusMinutes(6),
+                PageRequest.of(0, 10)).size());
+    }
+}
@@ -0,0 +1,455 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.OutboxEmail;
+import com.cabbooking.model.TripStatus;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plan tests for the hot repository queries on the schema owned by the
+ * Flyway migrations.
+ *
+ * Runs every hot repository method once, against the test database, and
+ * records the SQL Hibernate generates for it together with the bound
+ * values. The values are written into the SQL as literals, as MySQL
+ * Connector/J does with its default client-side prepared statements, so
+ * optional filters such as "(? is null or ...)" are folded away just as the
+ * MySQL optimizer folds them. The SQL is then run through EXPLAIN on an
+ * empty H2 database migrated by Flyway, once in its default mode and once in
+ * MySQL compatibility mode. A query whose plan falls back to a full table
+ * scan fails the test.
+ *
+ * When adding a repository finder, add a call of it here together with the
+ * index that serves it.
+ */
+@Import(SchemaIndexPlanTest.StatementRecorderConfig.class)
+public class SchemaIndexPlanTest extends AbstractRepositoryTest {
+
+    /*
+     * The databases the recorded SQL is explained on.
+     */
+    private static final List<String> PLAN_DATABASES = List.of(
+            "jdbc:h2:mem:plan_default;DB_CLOSE_DELAY=-1",
+            "jdbc:h2:mem:plan_mysql;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 14, 10, 15);
+    private static final LocalDate DAY = NOW.toLocalDate();
+
+    /*
+     * The SQL executed while recording, with the bound values as literals.
+     */
+    private static final List<String> RECORDED = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private CabRepository cabRepository;
+
+    @Autowired
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    @Autowired
+    private ConsumedTokenRepository consumedTokenRepository;
+
+    @Autowired
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+
+    @Autowired
+    private DailyCarTypeRollupRepository dailyCarTypeRollupRepository;
+
+    @Autowired
+    private DailyDriverRollupRepository dailyDriverRollupRepository;
+
+    @Autowired
+    private TripEventRepository tripEventRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private UserIdentityRepository userIdentityRepository;
+
+    @Autowired
+    private TokenEpochRepository tokenEpochRepository;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Tests that no hot repository query needs a full table scan on the
+     * migrated schema.
+     */
+    @Test
+    void hotQueries_useAnIndex() throws Exception {
+        Map<String, List<String>> statements = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> query : hotQueries().entrySet()) {
+            List<String> sql = record(query.getValue());
+            assertFalse(sql.isEmpty(), "No SQL recorded for " + query.getKey());
+            statements.put(query.getKey(), sql);
+        }
+
+        List<String> fullScans = new ArrayList<>();
+        for (String url : PLAN_DATABASES) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL(url);
+            dataSource.setUser("sa");
+            Flyway.configure().dataSource(dataSource).load().migrate();
+
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (Map.Entry<String, List<String>> query : statements.entrySet()) {
+                    for (String sql : query.getValue()) {
+                        try (ResultSet plan = statement.executeQuery("explain " + sql)) {
+                            assertTrue(plan.next(), "No plan for " + query.getKey());
+                            String text = plan.getString(1);
+                            if (text.toLowerCase().contains("tablescan")) {
+                                fullScans.add(query.getKey() + " (" + url + "): " + text);
+                            }
+                        }
+                    }
+                }
+                statement.execute("drop all objects");
+            }
+        }
+
+        assertTrue(fullScans.isEmpty(), "Full table scans:\n" + String.join("\n", fullScans));
+    }
+
+    /*
+     * The hot repository queries, keyed by repository method.
+     */
+    private Map<String, Runnable> hotQueries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        List<TripStatus> finished = List.of(TripStatus.COMPLETED, TripStatus.CANCELLED);
+        PageRequest batch = PageRequest.of(0, 500);
+        PageRequest summaryPage = PageRequest.of(0, 20, Sort.by("id"));
+
+        // TripBookingRepository
+        queries.put("TripBooking.findByCustomer_Id", () -> tripBookingRepository.findByCustomer_Id(1));
+        queries.put("TripBooking.findByDriver_Id", () -> tripBookingRepository.findByDriver_Id(1));
+        queries.put("TripBooking.findByFromDateTimeBetween",
+                () -> tripBookingRepository.findByFromDateTimeBetween(DAY.atStartOfDay(), DAY.atTime(23, 59, 59)));
+        queries.put("TripBooking.findByStatusAndFromDateTimeBefore",
+                () -> tripBookingRepository.findByStatusAndFromDateTimeBefore(TripStatus.SCHEDULED, NOW));
+        queries.put("TripBooking.findArchivableIds",
+                () -> tripBookingRepository.findArchivableIds(finished, NOW.minusMonths(6), batch));
+        queries.put("TripBooking.findAnalyticsRowsAfter",
+                () -> tripBookingRepository.findAnalyticsRowsAfter(1000, finished, batch));
+        queries.put("TripBooking.findAllWithPartiesByIdIn",
+                () -> tripBookingRepository.findAllWithPartiesByIdIn(List.of(1, 2, 3)));
+        queries.put("TripBooking.findCompletionDays",
+                () -> tripBookingRepository.findCompletionDays(TripStatus.COMPLETED));
+        queries.put("TripBooking.aggregateByDayAndCarType", () -> tripBookingRepository
+                .aggregateByDayAndCarType(TripStatus.COMPLETED, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        queries.put("TripBooking.aggregateByDayAndDriver", () -> tripBookingRepository
+                .aggregateByDayAndDriver(TripStatus.COMPLETED, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        queries.put("TripBooking.transition", () -> tripBookingRepository.transition(1,
+                TripStatus.sourcesOf(TripStatus.CANCELLED), TripStatus.CANCELLED, 1));
+        queries.put("TripBooking.deleteIfUnchanged", () -> tripBookingRepository.deleteIfUnchanged(1, 0L));
+
+        // DriverRepository
+        queries.put("Driver.findByUsername", () -> driverRepository.findByUsername("driver"));
+        queries.put("Driver.findByEmail", () -> driverRepository.findByEmail("driver@example.com"));
+        queries.put("Driver.findByVerifiedFalse", () -> driverRepository.findByVerifiedFalse());
+        queries.put("Driver.findByVerifiedTrueAndIsAvailableTrue",
+                () -> driverRepository.findByVerifiedTrueAndIsAvailableTrue());
+        queries.put("Driver.findExistingUsernames",
+                () -> driverRepository.findExistingUsernames(List.of("driver1", "driver2")));
+        queries.put("Driver.findExistingEmails",
+                () -> driverRepository.findExistingEmails(List.of("d1@example.com", "d2@example.com")));
+        queries.put("Driver.findExistingLicenceNos",
+                () -> driverRepository.findExistingLicenceNos(List.of("LIC-1", "LIC-2")));
+        queries.put("Driver.findLeaderboardRowsAfter", () -> driverRepository.findLeaderboardRowsAfter(1000, batch));
+        queries.put("Driver.findLeaderboardRows", () -> driverRepository.findLeaderboardRows(List.of(1, 2, 3)));
+        queries.put("Driver.findAvailableFleet", () -> driverRepository.findAvailableFleet(null));
+        queries.put("Driver.findAvailableFleet(carType)", () -> driverRepository.findAvailableFleet("Sedan"));
+        queries.put("Driver.findFleetRowsAfter", () -> driverRepository.findFleetRowsAfter(1000, batch));
+        queries.put("Driver.findAllWithCabByIdIn", () -> driverRepository.findAllWithCabByIdIn(List.of(1, 2, 3)));
+        queries.put("Driver.existsByLicenceNo", () -> driverRepository.existsByLicenceNo("LIC-1"));
+        queries.put("Driver.findAvailableIdsIn", () -> driverRepository.findAvailableIdsIn(List.of(1, 2, 3)));
+        queries.put("Driver.markUnavailable", () -> driverRepository.markUnavailable(1));
+        queries.put("Driver.findSummaries",
+                () -> driverRepository.findSummaries(null, null, null, null, summaryPage));
+        queries.put("Driver.findSummaries(verified)",
+                () -> driverRepository.findSummaries(false, null, null, null, summaryPage));
+        queries.put("Driver.findSummaries(namePrefix)",
+                () -> driverRepository.findSummaries(null, null, null, "jo%", summaryPage));
+        queries.put("Driver.countSummaries(namePrefix)",
+                () -> driverRepository.countSummaries(null, null, null, "jo%"));
+
+        // CustomerRepository and AdminRepository
+        queries.put("Customer.findByUsername", () -> customerRepository.findByUsername("customer"));
+        queries.put("Customer.findByEmail", () -> customerRepository.findByEmail("customer@example.com"));
+        queries.put("Admin.findByUsername", () -> adminRepository.findByUsername("admin"));
+        queries.put("Admin.findByEmail", () -> adminRepository.findByEmail("admin@example.com"));
+        queries.put("Admin.findByVerifiedFalse", () -> adminRepository.findByVerifiedFalse());
+        queries.put("Customer.findExistingUsernames",
+                () -> customerRepository.findExistingUsernames(List.of("driver1", "driver2")));
+        queries.put("Customer.findExistingEmails",
+                () -> customerRepository.findExistingEmails(List.of("d1@example.com", "d2@example.com")));
+        queries.put("Admin.findExistingUsernames",
+                () -> adminRepository.findExistingUsernames(List.of("driver1", "driver2")));
+        queries.put("Admin.findExistingEmails",
+                () -> adminRepository.findExistingEmails(List.of("d1@example.com", "d2@example.com")));
+        queries.put("Customer.findSummaries", () -> customerRepository.findSummaries(null, summaryPage));
+        queries.put("Customer.countSummaries", () -> customerRepository.countSummaries(null));
+        queries.put("Customer.findSummaries(namePrefix)", () -> customerRepository.findSummaries("jo%", summaryPage));
+        queries.put("Customer.countSummaries(namePrefix)", () -> customerRepository.countSummaries("jo%"));
+        queries.put("Admin.findSummaries(verified)", () -> adminRepository.findSummaries(false, null, summaryPage));
+        queries.put("Admin.findSummaries(namePrefix)", () -> adminRepository.findSummaries(null, "jo%", summaryPage));
+        queries.put("Admin.countSummaries(namePrefix)", () -> adminRepository.countSummaries(null, "jo%"));
+
+        // CabRepository
+        queries.put("Cab.findByCarType", () -> cabRepository.findByCarType("Sedan"));
+        queries.put("Cab.existsByNumberPlate", () -> cabRepository.existsByNumberPlate("DL01AB1234"));
+        queries.put("Cab.findExistingNumberPlates",
+                () -> cabRepository.findExistingNumberPlates(List.of("DL01AB1234", "DL01AB1235")));
+
+        // Token repositories
+        queries.put("BlacklistedToken.findByTokenHashIsNull", () -> blacklistedTokenRepository.findByTokenHashIsNull());
+        queries.put("BlacklistedToken.findByExpiresAtAfter", () -> blacklistedTokenRepository.findByExpiresAtAfter(NOW));
+        queries.put("BlacklistedToken.findByBlacklistedAtGreaterThanEqual",
+                () -> blacklistedTokenRepository.findByBlacklistedAtGreaterThanEqual(NOW));
+        queries.put("BlacklistedToken.deleteExpired", () -> blacklistedTokenRepository.deleteExpired(NOW));
+        queries.put("ConsumedToken.deleteExpired", () -> consumedTokenRepository.deleteExpired(NOW));
+
+        // TripBookingArchiveRepository
+        queries.put("TripBookingArchive.findByCustomerId", () -> tripBookingArchiveRepository.findByCustomerId(1));
+        queries.put("TripBookingArchive.findByDriverId", () -> tripBookingArchiveRepository.findByDriverId(1));
+        queries.put("TripBookingArchive.findByFromDateTimeBetween", () -> tripBookingArchiveRepository
+                .findByFromDateTimeBetween(DAY.minusYears(1).atStartOfDay(), DAY.minusYears(1).atTime(23, 59, 59)));
+        queries.put("TripBookingArchive.findAnalyticsRowsAfter",
+                () -> tripBookingArchiveRepository.findAnalyticsRowsAfter(1000, batch));
+        queries.put("TripBookingArchive.findCompletionDays",
+                () -> tripBookingArchiveRepository.findCompletionDays(TripStatus.COMPLETED));
+        queries.put("TripBookingArchive.aggregateByDayAndCarType", () -> tripBookingArchiveRepository
+                .aggregateByDayAndCarType(TripStatus.COMPLETED, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        queries.put("TripBookingArchive.aggregateByDayAndDriver", () -> tripBookingArchiveRepository
+                .aggregateByDayAndDriver(TripStatus.COMPLETED, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+
+        // Rollup repositories
+        queries.put("DailyCarTypeRollup.findByRollupDateBetween", () -> dailyCarTypeRollupRepository
+                .findByRollupDateBetweenOrderByRollupDateAscCarTypeAsc(DAY.withDayOfMonth(1), DAY.withDayOfMonth(31)));
+        queries.put("DailyCarTypeRollup.addCompletedTrip",
+                () -> dailyCarTypeRollupRepository.addCompletedTrip(DAY, "Sedan", 250.0, 12.5));
+        queries.put("DailyCarTypeRollup.findByRollupDate", () -> dailyCarTypeRollupRepository.findByRollupDate(DAY));
+        queries.put("DailyCarTypeRollup.findRollupDates", () -> dailyCarTypeRollupRepository.findRollupDates());
+        queries.put("DailyDriverRollup.findByRollupDateBetween", () -> dailyDriverRollupRepository
+                .findByRollupDateBetweenOrderByRollupDateAscDriverIdAsc(DAY.withDayOfMonth(1), DAY.withDayOfMonth(31)));
+        queries.put("DailyDriverRollup.findByDriverIdAndRollupDateBetween", () -> dailyDriverRollupRepository
+                .findByDriverIdAndRollupDateBetweenOrderByRollupDateAsc(7, DAY.withDayOfMonth(1), DAY.withDayOfMonth(31)));
+        queries.put("DailyDriverRollup.addCompletedTrip",
+                () -> dailyDriverRollupRepository.addCompletedTrip(DAY, 7, 250.0, 12.5));
+        queries.put("DailyDriverRollup.findByRollupDate", () -> dailyDriverRollupRepository.findByRollupDate(DAY));
+        queries.put("DailyDriverRollup.findRollupDates", () -> dailyDriverRollupRepository.findRollupDates());
+
+        // JobLockRepository
+        queries.put("JobLock.claim", () -> jobLockRepository.claim("rollup.rebuild", "claim", NOW.plusHours(2), NOW));
+        queries.put("JobLock.release", () -> jobLockRepository.release("rollup.rebuild", "claim", NOW));
+
+        // TripEventRepository
+        queries.put("TripEvent.findSettledAfter", () -> tripEventRepository.findSettledAfter(
+                NOW.minusDays(1), 1000L, NOW, PageRequest.of(0, 1000)));
+        queries.put("TripEvent.findByTripBookingIdOrderByIdAsc",
+                () -> tripEventRepository.findByTripBookingIdOrderByIdAsc(1));
+
+        // UserIdentityRepository
+        queries.put("UserIdentity.findByLookupKey", () -> userIdentityRepository.findByLookupKey("user"));
+        queries.put("UserIdentity.existsByUsernameKey", () -> userIdentityRepository.existsByUsernameKey("user"));
+        queries.put("UserIdentity.existsByEmailKey",
+                () -> userIdentityRepository.existsByEmailKey("user@example.com"));
+        queries.put("UserIdentity.findByEmailKey", () -> userIdentityRepository.findByEmailKey("user@example.com"));
+
+        // TokenEpochRepository
+        queries.put("TokenEpoch.findByChangedAtGreaterThanEqual",
+                () -> tokenEpochRepository.findByChangedAtGreaterThanEqual(NOW));
+        queries.put("TokenEpoch.raise", () -> tokenEpochRepository.raise("DRIVER", 1, 0, NOW));
+
+        // OutboxEmailRepository
+        queries.put("OutboxEmail.findDueIds",
+                () -> outboxEmailRepository.findDueIds(OutboxEmail.Status.PENDING, NOW, PageRequest.of(0, 50)));
+        queries.put("OutboxEmail.findByClaimTokenOrderByIdAsc",
+                () -> outboxEmailRepository.findByClaimTokenOrderByIdAsc("6f1c2d9e-0000-4000-8000-000000000000"));
+        queries.put("OutboxEmail.countByStatus", () -> outboxEmailRepository.countByStatus(OutboxEmail.Status.FAILED));
+        return queries;
+    }
+
+    /*
+     * Helper method to run one repository call in a transaction that is
+     * rolled back, and return the SQL it executed.
+     */
+    private List<String> record(Runnable call) {
+        RECORDED.clear();
+        recording = true;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                call.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            recording = false;
+        }
+        return new ArrayList<>(RECORDED);
+    }
+
+    /**
+     * Wraps the test data source, so that the statements Hibernate prepares
+     * are recorded with their bound values.
+     */
+    @TestConfiguration
+    static class StatementRecorderConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecorder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /*
+     * Data source that hands out connections whose prepared statements
+     * record the SQL they execute while recording is on.
+     */
+    private static class RecordingDataSource extends DelegatingDataSource {
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recordingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recordingConnection(super.getConnection(username, password));
+        }
+
+        private static Connection recordingConnection(Connection connection) {
+            return proxy(Connection.class, (target, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                    return recordingStatement((PreparedStatement) result, sql);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement recordingStatement(PreparedStatement statement, String sql) {
+            Map<Integer, Object> values = new TreeMap<>();
+            return proxy(PreparedStatement.class, (target, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    values.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (recording && (args == null || args.length == 0)
+                        && (name.startsWith("execute") || name.equals("addBatch"))) {
+                    RECORDED.add(inline(sql, values));
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+        }
+    }
+
+    /*
+     * Helper method to replace the parameter markers of a statement with its
+     * bound values as SQL literals. Markers inside quoted text are kept.
+     */
+    private static String inline(String sql, Map<Integer, Object> values) {
+        StringBuilder inlined = new StringBuilder();
+        boolean quoted = false;
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                inlined.append(literal(values.get(++index)));
+            } else {
+                inlined.append(c);
+            }
+        }
+        return inlined.toString();
+    }
+
+    /*
+     * Helper method to write one bound value as an SQL literal.
+     */
+    private static String literal(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof java.sql.Date || value instanceof LocalDate) {
+            return "date '" + value + "'";
+        }
+        if (value instanceof Date || value instanceof Temporal) {
+            return "timestamp '" + value.toString().replace('T', ' ') + "'";
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,77 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.TokenEpoch;
+import com.cabbooking.model.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for raising token epochs against a real database.
+ *
+ * Covers scenarios for:
+ * - Raising a stored epoch by one, or above a higher in-memory floor
+ * - Updating nothing for a user without a row
+ * - Refusing a second row for the same user instead of overwriting the first
+ */
+public class TokenEpochRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private TokenEpochRepository tokenEpochRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocalDateTime now;
+
+    /**
+     * Stores epoch 2 for one customer.
+     */
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        tokenEpochRepository.save(new TokenEpoch("Customer", 1, 2, now.minusDays(1)));
+    }
+
+    /**
+     * Tests that the epoch goes up by one, or to one above a higher floor.
+     */
+    @Test
+    void raise_storedRow_raisesAboveStoredAndFloor() {
+        assertEquals(Integer.valueOf(1), raise("Customer", 1, 0));
+        assertEquals(3, epochOf("Customer", 1));
+
+        assertEquals(Integer.valueOf(1), raise("Customer", 1, 7));
+        assertEquals(8, epochOf("Customer", 1));
+    }
+
+    /**
+     * Tests that a user without a row is not raised, and that a second insert
+     * for the same user fails rather than resetting the stored epoch.
+     */
+    @Test
+    void raise_missingRow_updatesNothingAndInsertDoesNotOverwrite() {
+        assertEquals(Integer.valueOf(0), raise("Driver", 1, 0));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> tokenEpochRepository.saveAndFlush(new TokenEpoch("Customer", 1, 0, now)));
+        assertEquals(2, epochOf("Customer", 1));
+    }
+
+    /*
+     * Helper method to run one raise in its own transaction.
+     */
+    private Integer raise(String userType, Integer userId, int floor) {
+        return new TransactionTemplate(transactionManager).execute(
+                status -> tokenEpochRepository.raise(userType, userId, floor, now));
+    }
+
+    private int epochOf(String userType, Integer userId) {
+        return tokenEpochRepository.findById(new UserIdentity.Key(userType, userId)).orElseThrow().getEpoch();
+    }
+}
@@ -0,0 +1,63 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.model.TripStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for reading the trip event log against a real database.
+ *
+ * Covers scenarios for:
+ * - Reading events in the order they occurred, not in ID order
+ * - Leaving out events that have not settled yet
+ * - Continuing after the last applied event
+ */
+public class TripEventRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private TripEventRepository tripEventRepository;
+
+    private LocalDateTime now;
+
+    /**
+     * Empties the log.
+     */
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.of(2024, 1, 1, 12, 0);
+    }
+
+    /**
+     * Tests that an event with a higher ID but an earlier time is read
+     * first, that unsettled events are left out, and that reading continues
+     * after the position of the last applied event.
+     */
+    @Test
+    void findSettledAfter_readsInOccurrenceOrder() {
+        TripEvent later = tripEventRepository.save(event(1, TripStatus.IN_PROGRESS, now.minusSeconds(10)));
+        TripEvent earlier = tripEventRepository.save(event(1, TripStatus.CONFIRMED, now.minusSeconds(20)));
+        tripEventRepository.save(event(2, TripStatus.CONFIRMED, now.plusSeconds(1)));
+        assertTrue(earlier.getId() > later.getId());
+
+        List<TripEvent> all = tripEventRepository.findSettledAfter(LocalDateTime.of(1970, 1, 1, 0, 0), 0L, now,
+                PageRequest.of(0, 10));
+        assertEquals(List.of(earlier.getId(), later.getId()), all.stream().map(TripEvent::getId).toList());
+
+        List<TripEvent> rest = tripEventRepository.findSettledAfter(earlier.getOccurredAt(), earlier.getId(), now,
+                PageRequest.of(0, 10));
+        assertEquals(List.of(later.getId()), rest.stream().map(TripEvent::getId).toList());
+    }
+
+    /*
+     * Helper method to build an event of a trip at a given time.
+     */
+    private TripEvent event(Integer tripId, TripStatus status, LocalDateTime occurredAt) {
+        return new TripEvent(tripId, status, null, 1, 7, "Sedan", occurredAt);
+    }
+}
@@ -0,0 +1,166 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.AbstractUser;
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the guarded trip status update against a real database.
+ *
+ * Covers scenarios for:
+ * - Moving a trip of the right driver in the right status
+ * - Leaving the trip alone for another driver or another status
+ * - Moving the trip regardless of unrelated changes since it was read
+ * - Letting only the first of two transitions out of the same status win
+ * - Raising the version, so a stale copy cannot overwrite the new status
+ * - Deleting an archived trip only if it is unchanged since it was read
+ */
+public class TripTransitionRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private TripBookingRepository tripBookingRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Integer tripId;
+    private Integer driverId;
+
+    /**
+     * Stores one confirmed trip with its customer and driver.
+     */
+    @BeforeEach
+    void setUp() {
+
+        Customer customer = new Customer();
+        fill(customer, "rider");
+        customer = customerRepository.save(customer);
+        Driver driver = new Driver();
+        fill(driver, "speedy");
+        driver = driverRepository.save(driver);
+        driverId = driver.getId();
+
+        TripBooking trip = new TripBooking();
+        trip.setCustomer(customer);
+        trip.setDriver(driver);
+        trip.setStatus(TripStatus.CONFIRMED);
+        trip.setFromDateTime(LocalDateTime.now());
+        trip.setCarType("Sedan");
+        tripId = tripBookingRepository.save(trip).getTripBookingId();
+    }
+
+    /**
+     * Tests that the trip moves when status and driver match, that the old
+     * status is recorded as the previous status and that the version is
+     * raised.
+     */
+    @Test
+    void transition_matchingStatusAndDriver_updatesOnce() {
+        assertEquals(1, transition(List.of(TripStatus.SCHEDULED, TripStatus.CONFIRMED), TripStatus.IN_PROGRESS,
+                driverId));
+
+        TripBooking stored = tripBookingRepository.findById(tripId).orElseThrow();
+        assertEquals(TripStatus.IN_PROGRESS, stored.getStatus());
+        assertEquals(TripStatus.CONFIRMED, stored.getPreviousStatus());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    /**
+     * Tests that neither another driver nor a wrong source status moves the
+     * trip.
+     */
+    @Test
+    void transition_otherDriverOrStatus_updatesNothing() {
+        assertEquals(0, transition(List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, driverId + 1));
+        assertEquals(0, transition(List.of(TripStatus.IN_PROGRESS), TripStatus.CANCELLED, driverId));
+
+        TripBooking stored = tripBookingRepository.findById(tripId).orElseThrow();
+        assertEquals(TripStatus.CONFIRMED, stored.getStatus());
+        assertNull(stored.getPreviousStatus());
+    }
+
+    /**
+     * Tests that a change of another field since the trip was read does not
+     * stop the transition, since only status and driver are the guard.
+     */
+    @Test
+    void transition_unrelatedChange_stillUpdates() {
+        TripBooking trip = tripBookingRepository.findById(tripId).orElseThrow();
+        trip.setCarType("SUV");
+        tripBookingRepository.save(trip);
+
+        assertEquals(1, transition(List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, driverId));
+
+        TripBooking stored = tripBookingRepository.findById(tripId).orElseThrow();
+        assertEquals(TripStatus.IN_PROGRESS, stored.getStatus());
+        assertEquals("SUV", stored.getCarType());
+        assertEquals(2L, stored.getVersion());
+    }
+
+    /**
+     * Tests that of a start and a cancel out of CONFIRMED only the first
+     * applies, and that a copy loaded before can no longer be saved.
+     */
+    @Test
+    void transition_competingTransitions_firstWinsAndStaleCopyFails() {
+        TripBooking stale = tripBookingRepository.findById(tripId).orElseThrow();
+
+        assertEquals(1, transition(List.of(TripStatus.CONFIRMED), TripStatus.CANCELLED, driverId));
+        assertEquals(0, transition(List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, driverId));
+
+        stale.setStatus(TripStatus.COMPLETED);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> tripBookingRepository.save(stale));
+        assertEquals(TripStatus.CANCELLED, tripBookingRepository.findById(tripId).orElseThrow().getStatus());
+    }
+
+    /**
+     * Tests that the archival delete leaves a trip changed since it was read
+     * and deletes it at its current version.
+     */
+    @Test
+    void deleteIfUnchanged_changedTrip_keepsRow() {
+        assertEquals(1, transition(List.of(TripStatus.CONFIRMED), TripStatus.CANCELLED, driverId));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertEquals(Integer.valueOf(0), transaction.execute(status -> tripBookingRepository.deleteIfUnchanged(tripId, 0L)));
+        assertTrue(tripBookingRepository.existsById(tripId));
+        assertEquals(Integer.valueOf(1), transaction.execute(status -> tripBookingRepository.deleteIfUnchanged(tripId, 1L)));
+        assertFalse(tripBookingRepository.existsById(tripId));
+    }
+
+    /*
+     * Helper method to run one guarded update in its own transaction.
+     */
+    private int transition(List<TripStatus> sources, TripStatus to, Integer driverId) {
+        return new TransactionTemplate(transactionManager).execute(
+                status -> tripBookingRepository.transition(tripId, sources, to, driverId));
+    }
+
+    /*
+     * Helper method to fill the required fields of a user.
+     */
+    private void fill(AbstractUser user, String username) {
+        user.setUsername(username);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPassword("hashed");
+        user.setEmail(username + "@example.com");
+    }
+}
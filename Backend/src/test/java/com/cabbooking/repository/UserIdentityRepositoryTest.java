@@ -0,0 +1,73 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.model.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the identity directory lookup.
+ *
+ * Covers scenarios for:
+ * - Lookups by username key and by email key
+ * - A key that is the username of one user and the email of another
+ * - Unknown keys
+ */
+public class UserIdentityRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private UserIdentityRepository userIdentityRepository;
+
+    /**
+     * Stores an admin, a driver and a customer whose username is the admin's email.
+     */
+    @BeforeEach
+    void setUp() {
+        userIdentityRepository.saveAll(List.of(
+                new UserIdentity("Admin", 1, "Boss", "boss", "boss@test.com", "hash", true),
+                new UserIdentity("Driver", 1, "speedy", "speedy", "speedy@test.com", "hash", false),
+                new UserIdentity("Customer", 2, "boss@test.com", "boss@test.com", "rider@test.com", "hash", true)));
+    }
+
+    /**
+     * Test: findByLookupKey
+     * Scenario: Keys matching one user by username or by email
+     * Expected: That user only
+     */
+    @Test
+    void findByLookupKey_usernameOrEmail_findsUser() {
+        List<UserIdentity> byUsername = userIdentityRepository.findByLookupKey("speedy");
+        List<UserIdentity> byEmail = userIdentityRepository.findByLookupKey("rider@test.com");
+
+        assertEquals(1, byUsername.size());
+        assertEquals("Driver", byUsername.get(0).getUserType());
+        assertEquals(1, byEmail.size());
+        assertEquals("Customer", byEmail.get(0).getUserType());
+    }
+
+    /**
+     * Test: findByLookupKey
+     * Scenario: The key is the admin's email and the customer's username
+     * Expected: Both users
+     */
+    @Test
+    void findByLookupKey_sharedKey_findsBoth() {
+        List<UserIdentity> found = userIdentityRepository.findByLookupKey("boss@test.com");
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().anyMatch(identity -> identity.getUserType().equals("Admin")));
+        assertTrue(found.stream().anyMatch(identity -> identity.getUserType().equals("Customer")));
+    }
+
+    /**
+     * Test: findByLookupKey
+     * Scenario: Unknown key
+     * Expected: Nothing found
+     */
+    @Test
+    void findByLookupKey_unknownKey_findsNothing() {
+        assertTrue(userIdentityRepository.findByLookupKey("nobody").isEmpty());
+    }
+}
@@ -0,0 +1,173 @@
+package com.cabbooking.repository;
+
+import com.cabbooking.dto.UserSummaryDTO;
+import com.cabbooking.model.Admin;
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the admin listing projection queries.
+ *
+ * Covers scenarios for:
+ * - Driver filters by verification state, rating range and name prefix
+ * - Escaped LIKE wildcards in the name prefix
+ * - Sorted slices and the matching counts
+ * - Customer and admin listings
+ */
+public class UserSummaryRepositoryTest extends AbstractRepositoryTest {
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    /**
+     * Stores four drivers, two customers and two admins.
+     */
+    @BeforeEach
+    void setUp() {
+
+        driverRepository.save(driver("jane", "Jane", "Smith", true, 48L, 10));
+        driverRepository.save(driver("john", "John", "Doe", true, 30L, 10));
+        driverRepository.save(driver("jo_bot", "Jo", "Bot", false, 0L, 0));
+        driverRepository.save(driver("mike", "Mike", "Jones", false, 45L, 10));
+
+        customerRepository.save(customer("alice", "Alice", "Brown"));
+        customerRepository.save(customer("bob", "Bob", "Adams"));
+
+        adminRepository.save(admin("root", true));
+        adminRepository.save(admin("newadmin", false));
+    }
+
+    /**
+     * Tests that the driver filters combine and the projection derives the
+     * average rating.
+     */
+    @Test
+    void driverFindSummaries_filters() {
+        List<UserSummaryDTO> rated = driverRepository.findSummaries(null, 4.5, 5.0, null, PageRequest.of(0, 10))
+                .getContent();
+        List<UserSummaryDTO> verifiedJ = driverRepository.findSummaries(true, null, null, "J%",
+                PageRequest.of(0, 10, Sort.by("username"))).getContent();
+        List<UserSummaryDTO> unverifiedUnrated = driverRepository.findSummaries(false, null, 4.0, null,
+                PageRequest.of(0, 10)).getContent();
+
+        assertEquals(List.of("jane", "mike"), rated.stream().map(UserSummaryDTO::getUsername).toList());
+        assertEquals(4.8, rated.get(0).getRating(), 1e-9);
+        assertEquals("LIC-jane", rated.get(0).getLicenceNo());
+        // Name prefixes match the first and last name as well as the username
+        assertEquals(List.of("jane", "john"), verifiedJ.stream().map(UserSummaryDTO::getUsername).toList());
+        assertEquals(1L, driverRepository.countSummaries(null, null, null, "Smith%"));
+        assertEquals(1L, driverRepository.countSummaries(null, null, null, "mi%"));
+        // Unrated drivers never match a rating range
+        assertTrue(unverifiedUnrated.isEmpty());
+        assertEquals(2L, driverRepository.countSummaries(null, 4.5, 5.0, null));
+    }
+
+    /**
+     * Tests that an escaped underscore in the prefix is matched literally.
+     */
+    @Test
+    void driverFindSummaries_escapedPrefix() {
+        List<UserSummaryDTO> literal = driverRepository.findSummaries(null, null, null, "jo!_%",
+                PageRequest.of(0, 10)).getContent();
+        List<UserSummaryDTO> wildcard = driverRepository.findSummaries(null, null, null, "jo_%",
+                PageRequest.of(0, 10)).getContent();
+
+        assertEquals(List.of("jo_bot"), literal.stream().map(UserSummaryDTO::getUsername).toList());
+        assertEquals(2, wildcard.size());
+    }
+
+    /**
+     * Tests that slices report a next page without counting and follow the
+     * requested sort order.
+     */
+    @Test
+    void driverFindSummaries_sortedSlices() {
+        Sort byLastName = Sort.by(Sort.Direction.DESC, "lastName").and(Sort.by("id"));
+
+        Slice<UserSummaryDTO> first = driverRepository.findSummaries(null, null, null, null,
+                PageRequest.of(0, 3, byLastName));
+        Slice<UserSummaryDTO> second = driverRepository.findSummaries(null, null, null, null,
+                PageRequest.of(1, 3, byLastName));
+
+        assertEquals(List.of("jane", "mike", "john"), first.getContent().stream().map(UserSummaryDTO::getUsername).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("jo_bot"), second.getContent().stream().map(UserSummaryDTO::getUsername).toList());
+        assertFalse(second.hasNext());
+        assertEquals(4L, driverRepository.countSummaries(null, null, null, null));
+    }
+
+    /**
+     * Tests the customer and admin listings.
+     */
+    @Test
+    void customerAndAdminFindSummaries() {
+        List<UserSummaryDTO> customers = customerRepository.findSummaries(null,
+                PageRequest.of(0, 10, Sort.by("lastName"))).getContent();
+        List<UserSummaryDTO> pendingAdmins = adminRepository.findSummaries(false, null, PageRequest.of(0, 10))
+                .getContent();
+
+        assertEquals(List.of("bob", "alice"), customers.stream().map(UserSummaryDTO::getUsername).toList());
+        assertNull(customers.get(0).getRating());
+        assertEquals(1L, customerRepository.countSummaries("Al%"));
+        assertEquals(List.of("bob"), customerRepository.findSummaries("Ad%", PageRequest.of(0, 10)).getContent()
+                .stream().map(UserSummaryDTO::getUsername).toList());
+        assertEquals(List.of("newadmin"), pendingAdmins.stream().map(UserSummaryDTO::getUsername).toList());
+        assertFalse(pendingAdmins.get(0).getVerified());
+        assertEquals(2L, adminRepository.countSummaries(null, null));
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private Driver driver(String username, String firstName, String lastName, boolean verified, long ratingSum,
+            int totalRatings) {
+        Driver driver = new Driver();
+        driver.setUsername(username);
+        driver.setFirstName(firstName);
+        driver.setLastName(lastName);
+        driver.setPassword("hashed");
+        driver.setEmail(username + "@example.com");
+        driver.setLicenceNo("LIC-" + username);
+        driver.setVerified(verified);
+        driver.setRatingSum(ratingSum);
+        driver.setTotalRatings(totalRatings);
+        return driver;
+    }
+
+    private Customer customer(String username, String firstName, String lastName) {
+        Customer customer = new Customer();
+        customer.setUsername(username);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setPassword("hashed");
+        customer.setEmail(username + "@example.com");
+        return customer;
+    }
+
+    private Admin admin(String username, boolean verified) {
+        Admin admin = new Admin();
+        admin.setUsername(username);
+        admin.setFirstName("Admin");
+        admin.setLastName(username);
+        admin.setPassword("hashed");
+        admin.setEmail(username + "@example.com");
+        admin.setVerified(verified);
+        return admin;
+    }
+}
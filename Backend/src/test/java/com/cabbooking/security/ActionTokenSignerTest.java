@@ -0,0 +1,93 @@
+package com.cabbooking.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ActionTokenSigner.
+ * Covers round trips, tampering, purpose and expiry checks and the key length.
+ */
+public class ActionTokenSignerTest {
+
+    private ActionTokenSigner signer;
+
+    @BeforeEach
+    void setUp() {
+        signer = new ActionTokenSigner();
+        signer.init();
+    }
+
+    /**
+     * Test: sign and verify
+     * Scenario: A reset token bound to a password hash
+     * Expected: It verifies with its user, fingerprint and a fresh token ID
+     */
+    @Test
+    void verify_signedToken_returnsContents() {
+        String fingerprint = ActionTokenSigner.fingerprint("hash");
+        String token = signer.sign(ActionToken.Purpose.PASSWORD_RESET, "Admin", 12, fingerprint, Duration.ofHours(1));
+
+        ActionToken verified = signer.verify(token, ActionToken.Purpose.PASSWORD_RESET).orElseThrow();
+
+        assertEquals("Admin", verified.getUserType());
+        assertEquals(12, verified.getUserId());
+        assertEquals(fingerprint, verified.getFingerprint());
+        String other = signer.sign(ActionToken.Purpose.PASSWORD_RESET, "Admin", 12, fingerprint, Duration.ofHours(1));
+        assertNotEquals(verified.getTokenId(),
+                signer.verify(other, ActionToken.Purpose.PASSWORD_RESET).orElseThrow().getTokenId());
+    }
+
+    /**
+     * Test: verify
+     * Scenario: The payload of a token is replaced by one naming another user
+     * Expected: The signature no longer matches
+     */
+    @Test
+    void verify_tamperedPayload_returnsEmpty() {
+        String mine = signer.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Customer", 1, null, Duration.ofHours(1));
+        String theirs = signer.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Customer", 2, null, Duration.ofHours(1));
+        String tampered = theirs.substring(0, theirs.indexOf('.')) + mine.substring(mine.indexOf('.'));
+
+        assertTrue(signer.verify(tampered, ActionToken.Purpose.EMAIL_VERIFICATION).isEmpty());
+        assertTrue(signer.verify("not-a-token", ActionToken.Purpose.EMAIL_VERIFICATION).isEmpty());
+        assertTrue(signer.verify(null, ActionToken.Purpose.EMAIL_VERIFICATION).isEmpty());
+    }
+
+    /**
+     * Test: verify
+     * Scenario: A token signed by another key, for another purpose, or expired
+     * Expected: Each is refused
+     */
+    @Test
+    void verify_wrongKeyPurposeOrExpired_returnsEmpty() {
+        ActionTokenSigner otherSigner = new ActionTokenSigner();
+        ReflectionTestUtils.setField(otherSigner, "secret", "another-secret-of-at-least-thirty-two-bytes");
+        otherSigner.init();
+
+        String foreign = otherSigner.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Driver", 4, null, Duration.ofHours(1));
+        String verification = signer.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Driver", 4, null, Duration.ofHours(1));
+        String expired = signer.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Driver", 4, null, Duration.ofSeconds(-1));
+
+        assertTrue(signer.verify(foreign, ActionToken.Purpose.EMAIL_VERIFICATION).isEmpty());
+        assertTrue(signer.verify(verification, ActionToken.Purpose.PASSWORD_RESET).isEmpty());
+        assertTrue(signer.verify(expired, ActionToken.Purpose.EMAIL_VERIFICATION).isEmpty());
+    }
+
+    /**
+     * Test: init
+     * Scenario: The configured secret is shorter than 32 bytes
+     * Expected: IllegalStateException
+     */
+    @Test
+    void init_shortSecret_throwsIllegalStateException() {
+        ActionTokenSigner weak = new ActionTokenSigner();
+        ReflectionTestUtils.setField(weak, "secret", "short");
+
+        assertThrows(IllegalStateException.class, weak::init);
+    }
+}
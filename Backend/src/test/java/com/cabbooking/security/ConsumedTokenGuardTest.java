@@ -0,0 +1,94 @@
+package com.cabbooking.security;
+
+import com.cabbooking.model.ConsumedToken;
+import com.cabbooking.repository.ConsumedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ConsumedTokenGuard.
+ * Covers single use, in its own or in the caller's transaction, and
+ * forgetting expired tokens. The repository is
+ * mocked; a second insert of the same token ID fails on the primary key.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConsumedTokenGuardTest {
+
+    @Mock
+    private ConsumedTokenRepository consumedTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ConsumedTokenGuard guard;
+
+    /**
+     * Test: consume
+     * Scenario: The same token is used twice
+     * Expected: Only the first use is allowed
+     */
+    @Test
+    void consume_sameTokenTwice_allowsFirstOnly() {
+        ActionToken token = token("a", Instant.now().plusSeconds(60));
+        when(consumedTokenRepository.saveAndFlush(any(ConsumedToken.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'a'"));
+
+        assertTrue(guard.consume(token));
+        assertFalse(guard.consume(token));
+
+        ArgumentCaptor<ConsumedToken> captor = ArgumentCaptor.forClass(ConsumedToken.class);
+        verify(consumedTokenRepository, times(2)).saveAndFlush(captor.capture());
+        assertEquals("a", captor.getAllValues().get(0).getTokenId());
+        assertTrue(captor.getAllValues().get(0).getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    /**
+     * Test: consumeInTransaction
+     * Scenario: A token used before is used again in a caller's transaction
+     * Expected: The duplicate key is passed on, so the caller rolls back
+     */
+    @Test
+    void consumeInTransaction_usedToken_throws() {
+        ActionToken token = token("b", Instant.now().plusSeconds(60));
+        when(consumedTokenRepository.saveAndFlush(any(ConsumedToken.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'b'"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> guard.consumeInTransaction(token));
+
+        verifyNoInteractions(transactionManager);
+    }
+
+    /**
+     * Test: purgeExpired
+     * Scenario: One used token has expired
+     * Expected: The expired rows are deleted and counted
+     */
+    @Test
+    void purgeExpired_dropsExpiredTokens() {
+        when(consumedTokenRepository.deleteExpired(any(LocalDateTime.class))).thenReturn(1);
+
+        assertEquals(1, guard.purgeExpired());
+    }
+
+    /*
+     * Helper method to build a verified token with an ID and expiry.
+     */
+    private ActionToken token(String tokenId, Instant expiresAt) {
+        return new ActionToken(tokenId, ActionToken.Purpose.EMAIL_VERIFICATION, "Customer", 1, expiresAt, "");
+    }
+}
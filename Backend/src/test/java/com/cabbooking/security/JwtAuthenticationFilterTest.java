@@ -1,8 +1,8 @@
 package com.cabbooking.security;
 
-import com.cabbooking.repository.BlacklistedTokenRepository;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import com.cabbooking.service.ITokenBlacklistService;
+import com.cabbooking.service.ITokenEpochService;
+import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,18 +15,21 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for JwtAuthenticationFilter.
- * Covers scenarios for valid tokens, invalid tokens,
- * blacklisted tokens, and missing authorization headers.
+ * Covers scenarios for valid tokens, cached tokens, invalid tokens,
+ * blacklisted tokens, revoked tokens, and missing authorization headers.
  */
 @ExtendWith(MockitoExtension.class)
 public class JwtAuthenticationFilterTest {
@@ -35,7 +38,13 @@ public class JwtAuthenticationFilterTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private BlacklistedTokenRepository blacklistedTokenRepository;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private ITokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private ITokenEpochService tokenEpochService;
 
     @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -49,12 +58,6 @@ public class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @Mock
-    private Jws<Claims> claimsJws;
-
-    @Mock
-    private Claims claims;
-
     @BeforeEach
     void setUp() {
         // Clear authentication before each test
@@ -64,7 +67,7 @@ public class JwtAuthenticationFilterTest {
     /**
      * Test: Any protected endpoint
      * Scenario: Valid JWT token provided in Authorization header
-     * Expected: Authentication is set in SecurityContext and filter chain proceeds
+     * Expected: Token is verified once and cached, authentication is set in SecurityContext and filter chain proceeds
      */
     @Test
     void doFilterInternal_validToken_setsAuthenticationInContext() throws ServletException, IOException {
@@ -74,23 +77,66 @@ public class JwtAuthenticationFilterTest {
         String role = "CUSTOMER";
 
         when(request.getHeader("Authorization")).thenReturn(header);
-        when(blacklistedTokenRepository.findByToken(token)).thenReturn(Optional.empty());
-        when(jwtUtil.validateToken(token)).thenReturn(true);
-        when(jwtUtil.getUsernameFromJWT(token)).thenReturn(username);
-        when(jwtUtil.getClaimsFromJWT(token)).thenReturn(claimsJws);
-        when(claimsJws.getBody()).thenReturn(claims);
-        when(claims.get("role", String.class)).thenReturn(role);
+        VerifiedToken verified = verifiedToken(username, role);
+        when(jwtUtil.verify(token)).thenReturn(verified);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertTrue(SecurityContextHolder.getContext().getAuthentication() instanceof UsernamePasswordAuthenticationToken);
-        assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(username, principal.getUsername());
+        assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getName());
         assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals(role.toUpperCase())));
+        verify(verifiedTokenCache, times(1)).put(TokenDigest.of(token), verified);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
+    /**
+     * Test: Any protected endpoint
+     * Scenario: The JWT token was verified by an earlier request
+     * Expected: Authentication is set from the cache without parsing the token again
+     */
+    @Test
+    void doFilterInternal_cachedToken_skipsVerification() throws ServletException, IOException {
+        String token = "cached.jwt.token";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(verifiedTokenCache.get(TokenDigest.of(token))).thenReturn(verifiedToken("testuser", "DRIVER"));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertEquals("testuser", SecurityContextHolder.getContext().getAuthentication().getName());
+        assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("DRIVER")));
+        verifyNoInteractions(jwtUtil);
+        verify(verifiedTokenCache, never()).put(anyString(), any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    /**
+     * Test: Any protected endpoint
+     * Scenario: The JWT token carries the user ID and type
+     * Expected: The principal exposes them, so services need not load the user
+     */
+    @Test
+    void doFilterInternal_tokenWithUserId_setsTypedPrincipal() throws ServletException, IOException {
+        String token = "uid.jwt.token";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verify(token)).thenReturn(new VerifiedToken("driver", List.of(new SimpleGrantedAuthority("DRIVER")),
+                Instant.now().plusSeconds(3600), "Driver", 42, 0));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals("Driver", principal.getUserType());
+        assertEquals(42, principal.getUserId());
+        assertTrue(principal.is("Driver", 42));
+        assertFalse(principal.is("Customer", 42));
+    }
+
     /**
      * Test: Any protected endpoint
      * Scenario: Invalid JWT token provided
@@ -102,12 +148,12 @@ public class JwtAuthenticationFilterTest {
         String header = "Bearer " + token;
 
         when(request.getHeader("Authorization")).thenReturn(header);
-        when(blacklistedTokenRepository.findByToken(token)).thenReturn(Optional.empty());
-        when(jwtUtil.validateToken(token)).thenReturn(false);
+        when(jwtUtil.verify(token)).thenThrow(new MalformedJwtException("Malformed"));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(verifiedTokenCache, never()).put(anyString(), any());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -122,11 +168,34 @@ public class JwtAuthenticationFilterTest {
         String header = "Bearer " + token;
 
         when(request.getHeader("Authorization")).thenReturn(header);
-        when(blacklistedTokenRepository.findByToken(token)).thenReturn(Optional.of(new com.cabbooking.model.BlacklistedToken()));
+        when(tokenBlacklistService.isBlacklisted(TokenDigest.of(token))).thenReturn(true);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         verify(response, times(1)).sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token is blacklisted");
+        verifyNoInteractions(jwtUtil, verifiedTokenCache);
+        verify(filterChain, never()).doFilter(request, response);
+    }
+
+    /**
+     * Test: Any protected endpoint
+     * Scenario: The JWT token was issued before its user's tokens were revoked
+     * Expected: Response returns 401 Unauthorized, filter chain not called
+     */
+    @Test
+    void doFilterInternal_revokedToken_returnsUnauthorized() throws ServletException, IOException {
+        String token = "revoked.jwt.token";
+        VerifiedToken verified = new VerifiedToken("testuser", List.of(new SimpleGrantedAuthority("CUSTOMER")),
+                Instant.now().plusSeconds(3600), "Customer", 7, 0);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(verifiedTokenCache.get(TokenDigest.of(token))).thenReturn(verified);
+        when(tokenEpochService.isRevoked(verified)).thenReturn(true);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        verify(response, times(1)).sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token is revoked");
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain, never()).doFilter(request, response);
     }
 
@@ -144,4 +213,11 @@ public class JwtAuthenticationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain, times(1)).doFilter(request, response);
     }
+
+    /*
+     * Helper method to build a verified token that expires in an hour.
+     */
+    private VerifiedToken verifiedToken(String username, String role) {
+        return new VerifiedToken(username, List.of(new SimpleGrantedAuthority(role)), Instant.now().plusSeconds(3600));
+    }
 }
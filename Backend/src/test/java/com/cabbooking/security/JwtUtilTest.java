@@ -107,4 +107,62 @@ public class JwtUtilTest {
         assertEquals(username, claims.getBody().getSubject());
         assertEquals(role, claims.getBody().get("role"));
     }
+
+    /**
+     * Test: verify
+     * Scenario: Verify a valid token
+     * Expected: Username, uppercase authority and expiry are read in one parse
+     */
+    @Test
+    void verify_validToken_returnsPrincipalAndAuthority() {
+        String token = jwtUtil.generateToken("testuser", "Customer");
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertEquals("testuser", verified.getUsername());
+        assertEquals("CUSTOMER", verified.getAuthorities().get(0).getAuthority());
+        assertTrue(verified.isValidAt(java.time.Instant.now()));
+    }
+
+    /**
+     * Test: verify
+     * Scenario: Verify a token issued with a user ID and token epoch
+     * Expected: The user type, ID and epoch are read back
+     */
+    @Test
+    void verify_tokenWithEpoch_returnsUserAndEpoch() {
+        String token = jwtUtil.generateToken("testuser", "Driver", 42, 3);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertEquals("Driver", verified.getUserType());
+        assertEquals(42, verified.getUserId());
+        assertEquals(3, verified.getEpoch());
+    }
+
+    /**
+     * Test: verify
+     * Scenario: Verify a token issued without a user ID
+     * Expected: No user ID and epoch 0
+     */
+    @Test
+    void verify_tokenWithoutEpoch_defaultsToEpochZero() {
+        VerifiedToken verified = jwtUtil.verify(jwtUtil.generateToken("testuser", "Customer"));
+
+        assertNull(verified.getUserId());
+        assertEquals(0, verified.getEpoch());
+    }
+
+    /**
+     * Test: verify
+     * Scenario: Verify a token whose signature does not match
+     * Expected: Throws JwtException
+     */
+    @Test
+    void verify_tamperedToken_throwsException() {
+        String token = jwtUtil.generateToken("testuser", "Customer");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(io.jsonwebtoken.JwtException.class, () -> jwtUtil.verify(tampered));
+    }
 }
@@ -0,0 +1,96 @@
+package com.cabbooking.security;
+
+import com.cabbooking.exception.LoginThrottledException;
+import com.cabbooking.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LoginThrottle.
+ * Covers per-identifier and per-address limits, clearing on success and
+ * shedding while password hashing is saturated.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoginThrottleTest {
+
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @InjectMocks
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(loginThrottle, "maxIdentifierFailures", 3);
+        ReflectionTestUtils.setField(loginThrottle, "maxAddressFailures", 5);
+        loginThrottle.init();
+    }
+
+    /**
+     * Test: admit
+     * Scenario: An identifier failed as often as allowed, in any letter case
+     * Expected: Its next login is refused; other identifiers are admitted
+     */
+    @Test
+    void admit_identifierFailedTooOften_throwsException() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure(i % 2 == 0 ? "Rider" : "rider ", "10.0.0." + i);
+        }
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.admit("rider", "10.0.0.9"));
+        assertDoesNotThrow(() -> loginThrottle.admit("other", "10.0.0.9"));
+        assertEquals(1L, loginThrottle.getStatus().get("throttled"));
+    }
+
+    /**
+     * Test: admit
+     * Scenario: One address failed with many identifiers
+     * Expected: Every login from that address is refused; other addresses are admitted
+     */
+    @Test
+    void admit_addressFailedTooOften_throwsException() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.recordFailure("user" + i, "10.0.0.1");
+        }
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.admit("fresh", "10.0.0.1"));
+        assertDoesNotThrow(() -> loginThrottle.admit("fresh", "10.0.0.2"));
+    }
+
+    /**
+     * Test: recordSuccess
+     * Scenario: A user logs in after failing twice
+     * Expected: The failures of the identifier are cleared
+     */
+    @Test
+    void recordSuccess_clearsIdentifierFailures() {
+        loginThrottle.recordFailure("rider", null);
+        loginThrottle.recordFailure("rider", null);
+        loginThrottle.recordSuccess("rider");
+        loginThrottle.recordFailure("rider", null);
+        loginThrottle.recordFailure("rider", null);
+
+        assertDoesNotThrow(() -> loginThrottle.admit("rider", null));
+    }
+
+    /**
+     * Test: admit
+     * Scenario: The password hashing queue is full
+     * Expected: The login is shed with a PasswordHashingBusyException
+     */
+    @Test
+    void admit_hashingSaturated_shedsLogin() {
+        when(passwordHashingExecutor.isSaturated()).thenReturn(true);
+
+        assertThrows(PasswordHashingBusyException.class, () -> loginThrottle.admit("rider", "10.0.0.1"));
+        assertEquals(1L, loginThrottle.getStatus().get("shed"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.cabbooking.security;
+
+import com.cabbooking.exception.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHashingExecutor.
+ * Covers running tasks, rejecting tasks when the queue is full, dropping
+ * tasks that waited too long and the exported counters.
+ */
+public class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor();
+        ReflectionTestUtils.setField(executor, "threads", 1);
+        ReflectionTestUtils.setField(executor, "queueSize", 1);
+        ReflectionTestUtils.setField(executor, "maxWaitMs", 200L);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Test: call
+     * Scenario: An idle pool
+     * Expected: The task runs on a pool thread and its result is returned
+     */
+    @Test
+    void call_idlePool_returnsResultFromPoolThread() {
+        String thread = executor.call(() -> Thread.currentThread().getName());
+
+        assertTrue(thread.startsWith("password-hashing-"));
+        assertEquals(1L, executor.getStatus().get("completed"));
+    }
+
+    /**
+     * Test: call
+     * Scenario: The only worker is busy and the queue holds one task
+     * Expected: The next task is rejected at once and the pool reports saturation
+     */
+    @Test
+    void call_fullQueue_rejectsTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> executor.call(() -> {
+            running.countDown();
+            return await(release);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.call(() -> true));
+        waitForQueued(1);
+
+        assertTrue(executor.isSaturated());
+        assertThrows(PasswordHashingBusyException.class, () -> executor.call(() -> true));
+
+        release.countDown();
+        assertTrue(busy.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, executor.getStatus().get("rejected"));
+    }
+
+    /**
+     * Test: call
+     * Scenario: A task waits for a worker longer than the maximum wait
+     * Expected: It is dropped without running and its caller gets a PasswordHashingBusyException
+     */
+    @Test
+    void call_waitedTooLong_dropsTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture.supplyAsync(() -> executor.call(() -> {
+            running.countDown();
+            return await(release);
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> late = CompletableFuture.supplyAsync(() -> executor.call(() -> true));
+        waitForQueued(1);
+
+        Thread.sleep(300);
+        release.countDown();
+
+        Exception e = assertThrows(Exception.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PasswordHashingBusyException.class, e.getCause());
+        Map<String, Object> status = executor.getStatus();
+        assertEquals(1L, status.get("dropped"));
+        assertTrue((Double) status.get("maxWaitMs") >= 200.0);
+    }
+
+    /*
+     * Helper method to block a worker until released.
+     */
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /*
+     * Helper method to wait until the given number of tasks are queued.
+     */
+    private void waitForQueued(int tasks) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((Integer) executor.getStatus().get("queued") < tasks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
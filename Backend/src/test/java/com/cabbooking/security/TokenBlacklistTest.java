@@ -0,0 +1,105 @@
+package com.cabbooking.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenBlacklist and the TokenBloomFilter in front of it.
+ * Covers lookups, expiry, purging and the filter's false positive rate.
+ */
+public class TokenBlacklistTest {
+
+    /**
+     * Test: add and contains
+     * Scenario: One token is blacklisted until it expires
+     * Expected: It is found until its expiry; other tokens are not found
+     */
+    @Test
+    void contains_blacklistedToken_untilExpiry() {
+        TokenBlacklist blacklist = new TokenBlacklist(1000, 0.01);
+        Instant now = Instant.now();
+        String digest = TokenDigest.of("a.b.c");
+
+        blacklist.add(digest, now.plusSeconds(60));
+
+        assertTrue(blacklist.contains(digest, now));
+        assertFalse(blacklist.contains(digest, now.plusSeconds(61)));
+        assertFalse(blacklist.contains(TokenDigest.of("a.b.d"), now));
+    }
+
+    /**
+     * Test: add
+     * Scenario: The same token is blacklisted twice with different expiries
+     * Expected: The later expiry is kept
+     */
+    @Test
+    void add_sameTokenTwice_keepsLaterExpiry() {
+        TokenBlacklist blacklist = new TokenBlacklist(1000, 0.01);
+        Instant now = Instant.now();
+        String digest = TokenDigest.of("a.b.c");
+
+        blacklist.add(digest, now.plusSeconds(600));
+        blacklist.add(digest, now.plusSeconds(60));
+
+        assertTrue(blacklist.contains(digest, now.plusSeconds(300)));
+        assertEquals(1, blacklist.size());
+    }
+
+    /**
+     * Test: purgeExpired
+     * Scenario: More tokens than the filter was sized for, half of them expired
+     * Expected: Expired tokens are removed, the rest are still found in the rebuilt filter
+     */
+    @Test
+    void purgeExpired_removesExpiredAndKeepsTheRest() {
+        TokenBlacklist blacklist = new TokenBlacklist(10, 0.01);
+        Instant now = Instant.now();
+        for (int i = 0; i < 100; i++) {
+            blacklist.add(TokenDigest.of("token-" + i), now.plusSeconds(i % 2 == 0 ? -1 : 60));
+        }
+
+        assertEquals(50, blacklist.purgeExpired(now));
+
+        assertEquals(50, blacklist.size());
+        assertTrue(blacklist.getFilterBits() >= 100);
+        for (int i = 1; i < 100; i += 2) {
+            assertTrue(blacklist.contains(TokenDigest.of("token-" + i), now));
+        }
+    }
+
+    /**
+     * Test: TokenBloomFilter
+     * Scenario: A filter filled to its expected size is asked about other digests
+     * Expected: No false negatives and roughly the configured false positive rate
+     */
+    @Test
+    void bloomFilter_atExpectedSize_keepsFalsePositiveRate() {
+        TokenBloomFilter filter = new TokenBloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(TokenDigest.of("added-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(TokenDigest.of("added-" + i)));
+            if (filter.mightContain(TokenDigest.of("other-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    /**
+     * Test: TokenBloomFilter
+     * Scenario: Invalid size or false positive rate
+     * Expected: IllegalArgumentException
+     */
+    @Test
+    void bloomFilter_invalidSize_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBloomFilter(100, 1.0));
+    }
+}
@@ -0,0 +1,70 @@
+package com.cabbooking.security;
+
+import com.cabbooking.model.UserIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserNameIndex.
+ * Covers indexing the same user again, shared names, removal and suggestions.
+ */
+public class UserNameIndexTest {
+
+    private static final UserIdentity.Key CUSTOMER = new UserIdentity.Key("Customer", 3);
+    private static final UserIdentity.Key DRIVER = new UserIdentity.Key("Driver", 3);
+
+    /**
+     * Test: put
+     * Scenario: A user is indexed again with a new email
+     * Expected: The old email is freed, the username stays taken
+     */
+    @Test
+    void put_sameUserAgain_replacesNames() {
+        UserNameIndex index = new UserNameIndex();
+
+        index.put(CUSTOMER, "rider", "old@test.com");
+        index.put(CUSTOMER, "rider", "new@test.com");
+
+        assertTrue(index.containsUsername("rider"));
+        assertTrue(index.containsEmail("new@test.com"));
+        assertFalse(index.containsEmail("old@test.com"));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Test: remove
+     * Scenario: Two users of different types share a username (old data) and one is removed
+     * Expected: The username stays taken until both are removed
+     */
+    @Test
+    void remove_sharedName_staysTakenUntilLastOwnerRemoved() {
+        UserNameIndex index = new UserNameIndex();
+        index.put(CUSTOMER, "sam", "sam@test.com");
+        index.put(DRIVER, "sam", "sam.driver@test.com");
+
+        index.remove(CUSTOMER);
+        assertTrue(index.containsUsername("sam"));
+        assertFalse(index.containsEmail("sam@test.com"));
+
+        index.remove(DRIVER);
+        assertFalse(index.containsUsername("sam"));
+    }
+
+    /**
+     * Test: suggest
+     * Scenario: "alex", "alex1" and "alex3" are taken
+     * Expected: The lowest free numbers, with the case of the wanted username
+     */
+    @Test
+    void suggest_skipsTakenNames() {
+        UserNameIndex index = new UserNameIndex();
+        index.put(new UserIdentity.Key("Customer", 1), "alex", "a@test.com");
+        index.put(new UserIdentity.Key("Customer", 2), "alex1", "b@test.com");
+        index.put(new UserIdentity.Key("Customer", 3), "alex3", "c@test.com");
+
+        assertEquals(List.of("Alex2", "Alex4", "Alex5"), index.suggest("Alex", "alex", 3));
+    }
+}
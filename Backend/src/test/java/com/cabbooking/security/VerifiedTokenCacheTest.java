@@ -0,0 +1,81 @@
+package com.cabbooking.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VerifiedTokenCache.
+ * Covers caching verified tokens, expiry and the size bound.
+ */
+public class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache();
+        verifiedTokenCache.init();
+    }
+
+    /**
+     * Test: get
+     * Scenario: A verified token is looked up again
+     * Expected: The cached result is returned; other tokens are not found
+     */
+    @Test
+    void get_cachedToken_returnsVerifiedToken() {
+        VerifiedToken verified = verifiedToken(Instant.now().plusSeconds(3600));
+        verifiedTokenCache.put("a.b.c", verified);
+
+        assertSame(verified, verifiedTokenCache.get("a.b.c"));
+        assertNull(verifiedTokenCache.get("a.b.d"));
+    }
+
+    /**
+     * Test: put and get
+     * Scenario: Tokens that expired or have no expiry
+     * Expected: Never cached or returned
+     */
+    @Test
+    void put_expiredOrUnboundedToken_isNotCached() throws InterruptedException {
+        verifiedTokenCache.put("expired", verifiedToken(Instant.now().minusSeconds(1)));
+        verifiedTokenCache.put("unbounded", verifiedToken(null));
+        verifiedTokenCache.put("short", verifiedToken(Instant.now().plusMillis(50)));
+
+        Thread.sleep(100);
+
+        assertNull(verifiedTokenCache.get("expired"));
+        assertNull(verifiedTokenCache.get("unbounded"));
+        assertNull(verifiedTokenCache.get("short"));
+    }
+
+    /**
+     * Test: put
+     * Scenario: More tokens than the configured maximum size
+     * Expected: The cache stays within its bound
+     */
+    @Test
+    void put_beyondMaxSize_evictsEntries() {
+        org.springframework.test.util.ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 10L);
+        verifiedTokenCache.init();
+
+        for (int i = 0; i < 100; i++) {
+            verifiedTokenCache.put("token-" + i, verifiedToken(Instant.now().plusSeconds(3600)));
+        }
+
+        assertTrue(verifiedTokenCache.size() <= 10);
+    }
+
+    /*
+     * Helper method to build a verified customer token.
+     */
+    private VerifiedToken verifiedToken(Instant expiresAt) {
+        return new VerifiedToken("testuser", List.of(new SimpleGrantedAuthority("CUSTOMER")), expiresAt);
+    }
+}
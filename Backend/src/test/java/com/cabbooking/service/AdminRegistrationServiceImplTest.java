@@ -10,6 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +39,14 @@ public class AdminRegistrationServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    // Mocked identity directory
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    // Mocked transaction manager for saving the user and its directory entry together
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     // Service under test with mocked dependencies injected
     @InjectMocks
     private AdminRegistrationServiceImpl adminRegistrationService;
@@ -69,7 +78,7 @@ public class AdminRegistrationServiceImplTest {
      * Tests successful registration of a new admin.
      * 
      * Workflow:
-     * - Mocks repository to indicate username/email are not taken
+     * - Leaves the identity directory to accept the username and email
      * - Mocks password encoder to return encoded password
      * - Mocks repository save() to return the Admin object
      * - Asserts that the returned Admin is not null and has correct username
@@ -77,8 +86,6 @@ public class AdminRegistrationServiceImplTest {
      */
     @Test
     void registerAdmin_validRequest_returnsNewAdmin() {
-        when(adminRepository.existsByUsername(anyString())).thenReturn(false);
-        when(adminRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(adminRepository.save(any(Admin.class))).thenReturn(testAdmin);
 
@@ -88,19 +95,22 @@ public class AdminRegistrationServiceImplTest {
         assertEquals("testadmin", newAdmin.getUsername());
 
         verify(adminRepository, times(1)).save(any(Admin.class));
+        verify(userDirectoryService, times(1)).index(testAdmin);
+        verify(transactionManager, times(1)).commit(any());
     }
 
     /**
      * Tests registration failure due to duplicate username.
      * 
      * Workflow:
-     * - Mocks repository to indicate username already exists
+     * - Mocks the identity directory to refuse the username
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that save() is never called
      */
     @Test
     void registerAdmin_duplicateUsername_throwsException() {
-        when(adminRepository.existsByUsername("testadmin")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Username is already taken."))
+                .when(userDirectoryService).checkAvailable("testadmin", "testadmin@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> adminRegistrationService.registerAdmin(testRequest));
 
@@ -111,14 +121,14 @@ public class AdminRegistrationServiceImplTest {
      * Tests registration failure due to duplicate email.
      * 
      * Workflow:
-     * - Mocks repository to indicate email already exists while username is new
+     * - Mocks the identity directory to refuse the email
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that save() is never called
      */
     @Test
     void registerAdmin_duplicateEmail_throwsException() {
-        when(adminRepository.existsByUsername("testadmin")).thenReturn(false);
-        when(adminRepository.existsByEmail("testadmin@test.com")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Email is already registered."))
+                .when(userDirectoryService).checkAvailable("testadmin", "testadmin@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> adminRegistrationService.registerAdmin(testRequest));
 
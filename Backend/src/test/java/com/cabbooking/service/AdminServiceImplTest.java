@@ -1,19 +1,28 @@
 package com.cabbooking.service;
 
+import com.cabbooking.dto.UserListingQuery;
 import com.cabbooking.dto.UserSummaryDTO;
+import com.cabbooking.dto.UserSummaryPage;
 import com.cabbooking.model.Customer;
 import com.cabbooking.model.Driver;
+import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,6 +34,7 @@ import static org.mockito.Mockito.*;
  * Dependencies:
  * - CustomerRepository: Mocked to simulate database access for Customer entities
  * - DriverRepository: Mocked to simulate database access for Driver entities
+ * - AdminRepository: Mocked to simulate database access for Admin entities
  *
  * Setup:
  * - Uses Mockito to inject mocked repositories into the service
@@ -41,6 +51,10 @@ public class AdminServiceImplTest {
     @Mock
     private DriverRepository driverRepository;
 
+    // Mocked repository for Admin database operations
+    @Mock
+    private AdminRepository adminRepository;
+
     // Service under test, with mocked repositories injected
     @InjectMocks
     private AdminServiceImpl adminService;
@@ -72,7 +86,8 @@ public class AdminServiceImplTest {
         testDriver.setFirstName("Jane");
         testDriver.setEmail("jane@test.com");
         testDriver.setMobileNumber("0987654321");
-        testDriver.setRating(4.8f);
+        testDriver.setRatingSum(48L);
+        testDriver.setTotalRatings(10);
         testDriver.setLicenceNo("LIC123");
         testDriver.setVerified(true);
     }
@@ -82,14 +97,15 @@ public class AdminServiceImplTest {
      * and maps them to UserSummaryDTO objects.
      *
      * Workflow:
-     * - Mocks customerRepository.findAll() to return a list with testCustomer
+     * - Mocks the customer projection query to return testCustomer's summary
      * - Calls getAllCustomers() and verifies returned list
      * - Ensures username and first name are correctly mapped
-     * - Verifies repository interaction
+     * - Verifies that no entities are loaded
      */
     @Test
     void getAllCustomers_returnsListOfUserSummaryDTO() {
-        when(customerRepository.findAll()).thenReturn(Arrays.asList(testCustomer));
+        when(customerRepository.findSummaries(isNull(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summaryOf(testCustomer))));
 
         List<UserSummaryDTO> customerSummaries = adminService.getAllCustomers();
 
@@ -99,7 +115,7 @@ public class AdminServiceImplTest {
         assertEquals(testCustomer.getUsername(), summary.getUsername());
         assertEquals(testCustomer.getFirstName(), summary.getFirstName());
 
-        verify(customerRepository, times(1)).findAll();
+        verify(customerRepository, never()).findAll();
     }
 
     /**
@@ -107,14 +123,15 @@ public class AdminServiceImplTest {
      * and maps them to UserSummaryDTO objects.
      *
      * Workflow:
-     * - Mocks driverRepository.findAll() to return a list with testDriver
+     * - Mocks the driver projection query to return testDriver's summary
      * - Calls getAllDrivers() and verifies returned list
      * - Ensures username and rating are correctly mapped
-     * - Verifies repository interaction
+     * - Verifies that no entities are loaded
      */
     @Test
     void getAllDrivers_returnsListOfUserSummaryDTO() {
-        when(driverRepository.findAll()).thenReturn(Arrays.asList(testDriver));
+        when(driverRepository.findSummaries(isNull(), isNull(), isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summaryOf(testDriver))));
 
         List<UserSummaryDTO> driverSummaries = adminService.getAllDrivers();
 
@@ -122,8 +139,113 @@ public class AdminServiceImplTest {
         assertEquals(1, driverSummaries.size());
         UserSummaryDTO summary = driverSummaries.get(0);
         assertEquals(testDriver.getUsername(), summary.getUsername());
-        assertEquals(testDriver.getRating().doubleValue(), summary.getRating());
+        assertEquals(4.8, summary.getRating(), 1e-9);
+
+        verify(driverRepository, never()).findAll();
+    }
+
+    /**
+     * Tests that the unpaged customer listing reads at most 1000 rows in ID
+     * order instead of every customer.
+     */
+    @Test
+    void getAllCustomers_readsAtMostCappedRows() {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        when(customerRepository.findSummaries(isNull(), pageable.capture()))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summaryOf(testCustomer)), PageRequest.of(0, 1000), true));
+
+        assertEquals(1, adminService.getAllCustomers().size());
+
+        assertTrue(pageable.getValue().isPaged());
+        assertEquals(1000, pageable.getValue().getPageSize());
+        assertEquals(Sort.by("id"), pageable.getValue().getSort());
+    }
+
+    /**
+     * Tests that a driver listing passes the filters, an escaped name prefix
+     * and a page request with the ID as tie-breaker to the projection query,
+     * and skips the count unless asked.
+     */
+    @Test
+    void searchDrivers_passesFiltersAndSkipsCount() {
+        UserListingQuery query = new UserListingQuery();
+        query.setVerified(true);
+        query.setMinRating(4.5);
+        query.setNamePrefix(" ja_ ");
+        query.setPage(2);
+        query.setSize(10);
+        query.setSort("lastName,desc");
+        when(driverRepository.findSummaries(any(), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summaryOf(testDriver)), PageRequest.of(2, 10), true));
+
+        UserSummaryPage page = adminService.searchDrivers(query);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(driverRepository).findSummaries(eq(true), eq(4.5), isNull(), eq("ja!_%"), pageable.capture());
+        assertEquals(PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "lastName").and(Sort.by("id"))),
+                pageable.getValue());
+        assertEquals(1, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertNull(page.getTotalElements());
+        verify(driverRepository, never()).countSummaries(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that the total is counted when a listing asks for it.
+     */
+    @Test
+    void searchCustomers_withTotal_countsMatches() {
+        UserListingQuery query = new UserListingQuery();
+        query.setWithTotal(true);
+        when(customerRepository.findSummaries(isNull(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(summaryOf(testCustomer))));
+        when(customerRepository.countSummaries(null)).thenReturn(1L);
+
+        UserSummaryPage page = adminService.searchCustomers(query);
+
+        assertEquals(1L, page.getTotalElements());
+        assertFalse(page.isHasNext());
+    }
+
+    /**
+     * Tests that invalid paging, sort orders and filters are rejected before
+     * any query runs.
+     */
+    @Test
+    void search_invalidQuery_throwsException() {
+        UserListingQuery badSize = new UserListingQuery();
+        badSize.setSize(101);
+        UserListingQuery badSort = new UserListingQuery();
+        badSort.setSort("password");
+        UserListingQuery badRange = new UserListingQuery();
+        badRange.setMinRating(4.0);
+        badRange.setMaxRating(3.0);
+        UserListingQuery customerRating = new UserListingQuery();
+        customerRating.setMinRating(4.0);
+        UserListingQuery adminRating = new UserListingQuery();
+        adminRating.setMaxRating(4.0);
+
+        assertThrows(IllegalArgumentException.class, () -> adminService.searchCustomers(badSize));
+        assertThrows(IllegalArgumentException.class, () -> adminService.searchDrivers(badSort));
+        assertThrows(IllegalArgumentException.class, () -> adminService.searchDrivers(badRange));
+        assertThrows(IllegalArgumentException.class, () -> adminService.searchCustomers(customerRating));
+        assertThrows(IllegalArgumentException.class, () -> adminService.searchAdmins(adminRating));
+        verifyNoInteractions(customerRepository, driverRepository, adminRepository);
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private UserSummaryDTO summaryOf(Customer customer) {
+        return new UserSummaryDTO(customer.getId(), customer.getUsername(), customer.getFirstName(),
+                customer.getLastName(), customer.getEmail(), customer.getMobileNumber());
+    }
 
-        verify(driverRepository, times(1)).findAll();
+    private UserSummaryDTO summaryOf(Driver driver) {
+        return new UserSummaryDTO(driver.getId(), driver.getUsername(), driver.getFirstName(), driver.getLastName(),
+                driver.getEmail(), driver.getMobileNumber(), driver.getRatingSum(), driver.getTotalRatings(),
+                driver.getLicenceNo(), driver.getVerified());
     }
 }
@@ -0,0 +1,102 @@
+package com.cabbooking.service;
+
+import com.cabbooking.cache.CabCacheInvalidationEvent;
+import com.cabbooking.model.Cab;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CabCacheServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Evicting one cab when a change event arrives
+ * - Evicting all cabs
+ * - Reporting hit/miss statistics, including regions not used yet
+ */
+@ExtendWith(MockitoExtension.class)
+public class CabCacheServiceImplTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Cache cache;
+    @Mock
+    private Statistics statistics;
+
+    @InjectMocks
+    private CabCacheServiceImpl cabCacheService;
+
+    /**
+     * Wires the mocked Hibernate session factory.
+     */
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    }
+
+    /**
+     * Tests that a change event evicts the cab and the catalog queries.
+     */
+    @Test
+    void onCabChanged_evictsCabAndQueries() {
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        cabCacheService.onCabChanged(new CabCacheInvalidationEvent(5));
+
+        verify(cache).evictEntityData(Cab.class, 5);
+        verify(cache).evictQueryRegion(Cab.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Tests that evictAll drops every cab and the catalog queries.
+     */
+    @Test
+    void evictAll_evictsAllCabsAndQueries() {
+        when(sessionFactory.getCache()).thenReturn(cache);
+
+        cabCacheService.evictAll();
+
+        verify(cache).evictEntityData(Cab.class);
+        verify(cache).evictQueryRegion(Cab.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Tests that the statistics report hits, misses and the hit ratio, and
+     * zeros for a region that does not exist yet.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCacheStatistics_reportsHitsAndMisses() {
+        CacheRegionStatistics entityRegion = mock(CacheRegionStatistics.class);
+        when(entityRegion.getHitCount()).thenReturn(9L);
+        when(entityRegion.getMissCount()).thenReturn(1L);
+        when(entityRegion.getPutCount()).thenReturn(1L);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.isStatisticsEnabled()).thenReturn(true);
+        when(statistics.getDomainDataRegionStatistics(Cab.CACHE_REGION)).thenReturn(entityRegion);
+        when(statistics.getQueryRegionStatistics(Cab.QUERY_CACHE_REGION)).thenReturn(null);
+
+        Map<String, Object> result = cabCacheService.getCacheStatistics();
+
+        Map<String, Object> cabStats = (Map<String, Object>) result.get(Cab.CACHE_REGION);
+        assertEquals(9L, cabStats.get("hits"));
+        assertEquals(1L, cabStats.get("misses"));
+        assertEquals(0.9, (Double) cabStats.get("hitRatio"), 1e-9);
+        Map<String, Object> queryStats = (Map<String, Object>) result.get(Cab.QUERY_CACHE_REGION);
+        assertEquals(0L, queryStats.get("hits"));
+    }
+}
@@ -2,6 +2,7 @@ package com.cabbooking.service;
 
 import com.cabbooking.dto.CabUpdateRequest;
 import com.cabbooking.dto.FareEstimateResponse;
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Driver;
 import com.cabbooking.repository.CabRepository;
@@ -18,6 +19,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -55,6 +58,18 @@ public class CabServiceImplTest {
     @Mock
     private IFileUploadService fileUploadService;
 
+    // Mocked leaderboard service, kept up to date by the service
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    // Mocked retry service, running each update once
+    @Mock
+    private IOptimisticRetryService optimisticRetryService;
+
+    // Mocked fleet state, serving availability from memory
+    @Mock
+    private IFleetStateService fleetStateService;
+
     // Service under test, with mocked dependencies injected
     @InjectMocks
     private CabServiceImpl cabService;
@@ -74,6 +89,10 @@ public class CabServiceImplTest {
      */
     @BeforeEach
     void setUp() {
+        // Runs every operation once, in place of the retrying transaction
+        lenient().when(optimisticRetryService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         testCab = new Cab();
         testCab.setCabId(1);
         testCab.setCarType("Sedan");
@@ -119,6 +138,7 @@ public class CabServiceImplTest {
         assertEquals(20.0f, updatedCab.getPerKmRate());
         verify(driverRepository, times(1)).findById(1);
         verify(cabRepository, times(1)).save(testCab);
+        verify(fleetStateService, times(1)).updateDriver(testDriver);
     }
 
     /**
@@ -142,25 +162,18 @@ public class CabServiceImplTest {
      * Tests fetching fare estimates for multiple nearby drivers.
      * 
      * Workflow:
-     * - Mocks driverRepository to return multiple drivers with different cab types
+     * - Mocks the fleet state to return rows of multiple drivers with different cab types
      * - Calls getAllFareEstimates and verifies returned fare estimates
      * - Ensures estimates match cab type and per km rate calculations
      */
     @Test
     void getAllFareEstimates_multipleNearbyDrivers_returnsCorrectEstimates() {
-        Cab suvCab = new Cab();
-        suvCab.setCarType("SUV");
-        suvCab.setPerKmRate(25.0f);
-        suvCab.setIsAvailable(true);
-        Driver suvDriver = new Driver();
-        suvDriver.setCab(suvCab);
-        suvDriver.setVerified(true);
-        suvDriver.setIsAvailable(true);
-        suvDriver.setLatitude(28.7141);
-        suvDriver.setLongitude(77.1125);
-        suvCab.setDriver(suvDriver);
-
-        when(driverRepository.findAll()).thenReturn(Arrays.asList(testDriver, suvDriver));
+        FleetAvailabilityRow sedanRow = new FleetAvailabilityRow(testDriver.getId(), 28.7041, 77.1025, 0L, 0,
+                true, true, testCab.getCabId(), "Sedan", 15.0f);
+        FleetAvailabilityRow suvRow = new FleetAvailabilityRow(2, 28.7141, 77.1125, 0L, 0,
+                true, true, 2, "SUV", 25.0f);
+
+        when(fleetStateService.getAvailableFleet(null)).thenReturn(Arrays.asList(sedanRow, suvRow));
 
         List<FareEstimateResponse> estimates = cabService.getAllFareEstimates(10.0f, 28.7050, 77.1050);
 
@@ -174,6 +187,20 @@ public class CabServiceImplTest {
         assertEquals(250.0f, estimates.get(1).getMaxFare());
     }
 
+    /**
+     * Tests that only the cabs the fleet state reports as available are loaded.
+     */
+    @Test
+    void getAllAvailableCabs_loadsAvailableCabsOnly() {
+        when(fleetStateService.getAvailableCabIds()).thenReturn(Set.of(1));
+        when(cabRepository.findAllById(Set.of(1))).thenReturn(List.of(testCab));
+
+        List<Cab> cabs = cabService.getAllAvailableCabs();
+
+        assertEquals(List.of(testCab), cabs);
+        verify(cabRepository, never()).findAll();
+    }
+
     /**
      * Tests uploading a new image for a cab that already has an existing image.
      * 
@@ -10,6 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +39,14 @@ public class CustomerRegistrationServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    // Mocked identity directory
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    // Mocked transaction manager for saving the user and its directory entry together
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     // Service under test with mocked dependencies injected
     @InjectMocks
     private CustomerRegistrationServiceImpl customerRegistrationService;
@@ -71,7 +80,7 @@ public class CustomerRegistrationServiceImplTest {
      * Tests successful registration of a new customer.
      *
      * Workflow:
-     * - Mocks repository to indicate username/email are not taken
+     * - Leaves the identity directory to accept the username and email
      * - Mocks password encoder to return encoded password
      * - Mocks repository save() to return the Customer object
      * - Asserts that the returned Customer is not null and has correct username
@@ -79,8 +88,6 @@ public class CustomerRegistrationServiceImplTest {
      */
     @Test
     void registerCustomer_validRequest_returnsNewCustomer() {
-        when(customerRepository.existsByUsername(anyString())).thenReturn(false);
-        when(customerRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(customerRepository.save(any(Customer.class))).thenReturn(testCustomer);
 
@@ -89,19 +96,23 @@ public class CustomerRegistrationServiceImplTest {
         assertNotNull(newCustomer);
         assertEquals("testcustomer", newCustomer.getUsername());
         verify(customerRepository, times(1)).save(any(Customer.class));
+        // The directory entry is saved in the transaction that saves the customer
+        verify(userDirectoryService, times(1)).index(testCustomer);
+        verify(transactionManager, times(1)).commit(any());
     }
 
     /**
      * Tests registration failure due to duplicate username.
      *
      * Workflow:
-     * - Mocks repository to indicate username already exists
+     * - Mocks the identity directory to refuse the username
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that save() is never called
      */
     @Test
     void registerCustomer_duplicateUsername_throwsException() {
-        when(customerRepository.existsByUsername("testcustomer")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Username is already taken."))
+                .when(userDirectoryService).checkAvailable("testcustomer", "customer@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> customerRegistrationService.registerCustomer(testRequest));
         verify(customerRepository, never()).save(any(Customer.class));
@@ -111,14 +122,14 @@ public class CustomerRegistrationServiceImplTest {
      * Tests registration failure due to duplicate email.
      *
      * Workflow:
-     * - Mocks repository to indicate email already exists while username is new
+     * - Mocks the identity directory to refuse the email
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that save() is never called
      */
     @Test
     void registerCustomer_duplicateEmail_throwsException() {
-        when(customerRepository.existsByUsername("testcustomer")).thenReturn(false);
-        when(customerRepository.existsByEmail("customer@test.com")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Email is already registered."))
+                .when(userDirectoryService).checkAvailable("testcustomer", "customer@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> customerRegistrationService.registerCustomer(testRequest));
         verify(customerRepository, never()).save(any(Customer.class));
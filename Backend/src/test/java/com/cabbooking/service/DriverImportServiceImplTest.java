@@ -0,0 +1,227 @@
+package com.cabbooking.service;
+
+import com.cabbooking.dto.DriverImportResult;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.AdminRepository;
+import com.cabbooking.repository.CabRepository;
+import com.cabbooking.repository.CustomerRepository;
+import com.cabbooking.repository.DriverRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DriverImportServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Importing valid rows, including quoted fields, as drivers with cabs
+ * - Rejecting invalid rows, rows clashing with existing accounts and
+ *   duplicates within the file, with their line numbers
+ * - Processing the file in chunks with one lookup per chunk
+ * - Falling back to row-by-row saves when a chunk is rejected
+ * - Rejecting files without the required columns
+ */
+@ExtendWith(MockitoExtension.class)
+public class DriverImportServiceImplTest {
+
+    private static final String HEADER =
+            "username,firstName,lastName,password,email,licenceNo,address,carType,perKmRate,numberPlate\n";
+
+    @Mock
+    private AdminRepository adminRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private DriverRepository driverRepository;
+    @Mock
+    private CabRepository cabRepository;
+    @Mock
+    private BCryptPasswordEncoder passwordEncoder;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+    @Mock
+    private IFleetStateService fleetStateService;
+
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    @InjectMocks
+    private DriverImportServiceImpl driverImportService;
+
+    /**
+     * Sets up a real bean validator and starts the worker pool.
+     */
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(driverImportService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(driverImportService, "workerThreads", 2);
+        driverImportService.startWorkers();
+    }
+
+    @AfterEach
+    void tearDown() {
+        driverImportService.shutdown();
+    }
+
+    /**
+     * Tests that valid rows are saved in one batch as drivers with their cabs
+     * and hashed passwords.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void importDrivers_validRows_savesDriversWithCabs() throws Exception {
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+
+        DriverImportResult result = driverImportService.importDrivers(csv(HEADER
+                + "driver1,Ann,Lee,secret1,ann@example.com,LIC-1,\"12 Main St, Pune\",Sedan,12.5,MH12AB1234\n"
+                + "driver2,Bob,Ray,secret2,bob@example.com,LIC-2,,,,\n"), true);
+
+        assertEquals(2, result.getTotalRows());
+        assertEquals(2, result.getImportedRows());
+        assertEquals(0, result.getFailedRows());
+
+        ArgumentCaptor<Iterable<Driver>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(driverRepository, times(1)).saveAll(captor.capture());
+        List<Driver> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        assertEquals(2, saved.size());
+
+        Driver first = saved.get(0);
+        assertEquals("driver1", first.getUsername());
+        assertEquals("hashed-secret1", first.getPassword());
+        assertEquals("12 Main St, Pune", first.getAddress());
+        assertTrue(first.getVerified());
+        assertEquals("Sedan", first.getCab().getCarType());
+        assertEquals(12.5f, first.getCab().getPerKmRate());
+        assertEquals("MH12AB1234", first.getCab().getNumberPlate());
+        assertSame(first, first.getCab().getDriver());
+
+        assertNull(saved.get(1).getCab().getCarType());
+    }
+
+    /**
+     * Tests that invalid rows, rows clashing with existing accounts and
+     * duplicates within the file are reported and not saved.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void importDrivers_invalidAndDuplicateRows_areReported() throws Exception {
+        when(customerRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("taken"));
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+
+        DriverImportResult result = driverImportService.importDrivers(csv(HEADER
+                + "good,Ann,Lee,secret1,good@example.com,LIC-1,,,,\n"
+                + "bademail,Ann,Lee,secret1,not-an-email,LIC-2,,,,\n"
+                + "taken,Ann,Lee,secret1,taken@example.com,LIC-3,,,,\n"
+                + "copy,Ann,Lee,secret1,copy@example.com,lic-1,,,,\n"
+                + "rate,Ann,Lee,secret1,rate@example.com,LIC-5,,Sedan,cheap,\n"), false);
+
+        assertEquals(5, result.getTotalRows());
+        assertEquals(1, result.getImportedRows());
+        assertEquals(4, result.getFailedRows());
+
+        List<DriverImportResult.RowError> errors = result.getErrors();
+        assertEquals(3, errors.get(0).getLine());
+        assertEquals("Email should be valid", errors.get(0).getMessage());
+        assertEquals(4, errors.get(1).getLine());
+        assertEquals("Username is already taken.", errors.get(1).getMessage());
+        assertEquals(5, errors.get(2).getLine());
+        assertEquals("Licence number appears more than once in the file.", errors.get(2).getMessage());
+        assertEquals(6, errors.get(3).getLine());
+        assertEquals("Per km rate must be a number.", errors.get(3).getMessage());
+
+        ArgumentCaptor<Iterable<Driver>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(driverRepository).saveAll(captor.capture());
+        assertEquals("good", captor.getValue().iterator().next().getUsername());
+        verify(passwordEncoder, times(1)).encode(anyString());
+    }
+
+    /**
+     * Tests that the file is processed in chunks, with one uniqueness lookup
+     * and one save per chunk.
+     */
+    @Test
+    void importDrivers_largeFile_processesInChunks() throws Exception {
+        ReflectionTestUtils.setField(driverImportService, "chunkSize", 2);
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+
+        StringBuilder file = new StringBuilder(HEADER);
+        for (int i = 1; i <= 5; i++) {
+            file.append("driver").append(i).append(",Ann,Lee,secret1,d").append(i)
+                    .append("@example.com,LIC-").append(i).append(",,,,\n");
+        }
+
+        DriverImportResult result = driverImportService.importDrivers(csv(file.toString()), false);
+
+        assertEquals(5, result.getImportedRows());
+        verify(driverRepository, times(3)).saveAll(anyIterable());
+        verify(adminRepository, times(3)).findExistingUsernames(anyCollection());
+        verify(driverRepository, times(3)).findExistingLicenceNos(anyCollection());
+        verify(driverRepository, never()).existsByUsername(anyString());
+    }
+
+    /**
+     * Tests that a chunk rejected by the database is retried row by row, so
+     * only the failing row is reported.
+     */
+    @Test
+    void importDrivers_chunkRejected_retriesRowByRow() throws Exception {
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        when(driverRepository.saveAll(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(driverRepository.save(any(Driver.class))).thenAnswer(invocation -> {
+            Driver driver = invocation.getArgument(0);
+            if ("racer".equals(driver.getUsername())) {
+                throw new DataIntegrityViolationException("Duplicate entry 'racer'");
+            }
+            return driver;
+        });
+
+        DriverImportResult result = driverImportService.importDrivers(csv(HEADER
+                + "good,Ann,Lee,secret1,good@example.com,LIC-1,,,,\n"
+                + "racer,Ann,Lee,secret1,racer@example.com,LIC-2,,,,\n"), false);
+
+        assertEquals(1, result.getImportedRows());
+        assertEquals(1, result.getFailedRows());
+        assertEquals(3, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().contains("Duplicate entry 'racer'"));
+        verify(driverRepository, times(2)).save(any(Driver.class));
+    }
+
+    /**
+     * Tests that a file without the required columns is rejected up front.
+     */
+    @Test
+    void importDrivers_missingColumns_throwsException() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> driverImportService.importDrivers(csv("username,email\ndriver1,a@example.com\n"), false));
+
+        assertTrue(ex.getMessage().contains("password"));
+        verifyNoInteractions(driverRepository);
+    }
+
+    private InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,268 @@
+package com.cabbooking.service;
+
+import com.cabbooking.dto.DriverLeaderboardEntry;
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.DriverRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DriverLeaderboardServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Ranking drivers by Bayesian-adjusted rating after a rebuild
+ * - Per-car-type pages and the best driver cut-off
+ * - Moving, adding and removing drivers on live updates
+ * - Deferring updates until the transaction commits
+ * - Page validation and the not-yet-loaded state
+ */
+@ExtendWith(MockitoExtension.class)
+public class DriverLeaderboardServiceImplTest {
+
+    @Mock
+    private DriverRepository driverRepository;
+
+    @InjectMocks
+    private DriverLeaderboardServiceImpl driverLeaderboardService;
+
+    /**
+     * Loads four drivers: a 4.9 veteran with 200 ratings, a newcomer with two
+     * 5-star ratings, an unrated driver and a 3.0 driver with 100 ratings.
+     */
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1, "veteran", "Vera", "Long", "Sedan", 980L, 200 });
+        rows.add(new Object[] { 2, "newcomer", "Nick", "New", "SUV", 10L, 2 });
+        rows.add(new Object[] { 3, "average", "Ava", "Mid", "Sedan", 300L, 100 });
+        rows.add(new Object[] { 4, "unrated", "Una", "Rated", null, 0L, 0 });
+        lenient().when(driverRepository.findLeaderboardRowsAfter(eq(0), any())).thenReturn(rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Tests that a veteran with many high ratings outranks a newcomer with two
+     * 5-star ratings, and that the prior mean is the average of all ratings.
+     */
+    @Test
+    void rebuild_ranksByBayesianScore() {
+        driverLeaderboardService.rebuild();
+
+        List<DriverLeaderboardEntry> page = driverLeaderboardService.getLeaderboard(null, 0, 10);
+
+        assertEquals(List.of(1, 2, 4, 3), page.stream().map(DriverLeaderboardEntry::getDriverId).toList());
+        assertEquals(1, page.get(0).getRank());
+        assertEquals(4.9f, page.get(0).getAverageRating(), 0.001f);
+        assertNull(page.get(2).getAverageRating());
+        assertEquals(1290.0 / 302, (double) driverLeaderboardService.getStatus().get("priorMean"), 1e-9);
+    }
+
+    /**
+     * Tests that pages can be restricted to one car type and continue the
+     * rank numbering on later pages.
+     */
+    @Test
+    void getLeaderboard_byCarTypeAndPage() {
+        driverLeaderboardService.rebuild();
+
+        List<DriverLeaderboardEntry> sedans = driverLeaderboardService.getLeaderboard("Sedan", 0, 10);
+        List<DriverLeaderboardEntry> secondPage = driverLeaderboardService.getLeaderboard(null, 1, 2);
+
+        assertEquals(List.of(1, 3), sedans.stream().map(DriverLeaderboardEntry::getDriverId).toList());
+        assertEquals(List.of(4, 3), secondPage.stream().map(DriverLeaderboardEntry::getDriverId).toList());
+        assertEquals(3, secondPage.get(0).getRank());
+        assertTrue(driverLeaderboardService.getLeaderboard("Mini", 0, 10).isEmpty());
+    }
+
+    /**
+     * Tests that only drivers at or above the best driver score are returned
+     * as best drivers.
+     */
+    @Test
+    void getBestDrivers_cutsOffAtMinimumScore() {
+        driverLeaderboardService.rebuild();
+
+        assertEquals(List.of(1), driverLeaderboardService.getBestDriverIds());
+        assertEquals(1, driverLeaderboardService.getBestDrivers(null, 0, 10).size());
+        assertTrue(driverLeaderboardService.getBestDrivers("SUV", 0, 10).isEmpty());
+    }
+
+    /**
+     * Tests that enough 5-star ratings move the newcomer past the veteran.
+     */
+    @Test
+    void recordRating_movesDriver() {
+        driverLeaderboardService.rebuild();
+
+        for (int i = 0; i < 50; i++) {
+            driverLeaderboardService.recordRating(2, 5);
+        }
+
+        List<DriverLeaderboardEntry> page = driverLeaderboardService.getLeaderboard(null, 0, 2);
+        assertEquals(2, page.get(0).getDriverId());
+        assertEquals(52, page.get(0).getTotalRatings());
+        assertEquals(List.of(2, 1), driverLeaderboardService.getBestDriverIds());
+    }
+
+    /**
+     * Tests that a rating inside a transaction is only applied once the
+     * transaction commits.
+     */
+    @Test
+    void recordRating_inTransaction_appliedAfterCommit() {
+        driverLeaderboardService.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+
+        driverLeaderboardService.recordRating(3, 5);
+        assertEquals(100, driverLeaderboardService.getLeaderboard("Sedan", 0, 10).get(1).getTotalRatings());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(101, driverLeaderboardService.getLeaderboard("Sedan", 0, 10).get(1).getTotalRatings());
+    }
+
+    /**
+     * Tests that a rating of a driver the leaderboard does not know yet reads
+     * the driver from the database, with the rating already included.
+     */
+    @Test
+    void recordRating_unknownDriver_readsDriverRow() {
+        driverLeaderboardService.rebuild();
+        when(driverRepository.findLeaderboardRows(List.of(5)))
+                .thenReturn(List.<Object[]>of(new Object[] { 5, "fresh", "Fay", "Fresh", "SUV", 5L, 1 }));
+
+        driverLeaderboardService.recordRating(5, 5);
+
+        List<DriverLeaderboardEntry> suvs = driverLeaderboardService.getLeaderboard("SUV", 0, 10);
+        assertEquals(List.of(2, 5), suvs.stream().map(DriverLeaderboardEntry::getDriverId).toList());
+        assertEquals(1, suvs.get(1).getTotalRatings());
+    }
+
+    /**
+     * Tests that a rating committed while a rebuild reads the drivers is
+     * counted once, although the bulk load already contains it.
+     */
+    @Test
+    void recordRating_duringRebuild_countedOnce() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1, "veteran", "Vera", "Long", "Sedan", 980L, 200 });
+        rows.add(new Object[] { 2, "newcomer", "Nick", "New", "SUV", 15L, 3 });
+        when(driverRepository.findLeaderboardRowsAfter(eq(0), any())).thenAnswer(invocation -> {
+            // The rating commits while the batch is read, and the batch sees it
+            driverLeaderboardService.recordRating(2, 5);
+            return rows;
+        });
+        when(driverRepository.findLeaderboardRows(List.of(2)))
+                .thenReturn(List.<Object[]>of(new Object[] { 2, "newcomer", "Nick", "New", "SUV", 15L, 3 }));
+
+        driverLeaderboardService.rebuild();
+
+        assertEquals(3, driverLeaderboardService.getLeaderboard("SUV", 0, 10).get(0).getTotalRatings());
+    }
+
+    /**
+     * Tests that a rating whose transaction spans a rebuild re-reads the
+     * driver instead of adding the rating to a leaderboard that contains it.
+     */
+    @Test
+    void recordRating_committedAfterRebuild_rereadsDriver() {
+        driverLeaderboardService.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        driverLeaderboardService.recordRating(2, 5);
+
+        // The rating is committed before the next rebuild reads the drivers
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 2, "newcomer", "Nick", "New", "SUV", 15L, 3 });
+        when(driverRepository.findLeaderboardRowsAfter(eq(0), any())).thenReturn(rows);
+        when(driverRepository.findLeaderboardRows(List.of(2))).thenReturn(rows);
+        driverLeaderboardService.rebuild();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(3, driverLeaderboardService.getLeaderboard("SUV", 0, 10).get(0).getTotalRatings());
+        verify(driverRepository).findLeaderboardRows(List.of(2));
+    }
+
+    /**
+     * Tests that new drivers are added, cab changes move a driver to another
+     * car type and deleted drivers are removed.
+     */
+    @Test
+    void updateAndRemoveDriver_updatesRankings() {
+        driverLeaderboardService.rebuild();
+
+        driverLeaderboardService.updateDriver(driver(5, "fresh", "SUV"));
+        driverLeaderboardService.updateDriver(driver(1, "veteran", "SUV"));
+        driverLeaderboardService.removeDriver(2);
+
+        List<DriverLeaderboardEntry> suvs = driverLeaderboardService.getLeaderboard("SUV", 0, 10);
+        assertEquals(List.of(1, 5), suvs.stream().map(DriverLeaderboardEntry::getDriverId).toList());
+        // The veteran keeps the ratings counted by the leaderboard
+        assertEquals(200, suvs.get(0).getTotalRatings());
+        assertEquals(List.of(3), driverLeaderboardService.getLeaderboard("Sedan", 0, 10).stream()
+                .map(DriverLeaderboardEntry::getDriverId).toList());
+        assertEquals(4, driverLeaderboardService.getStatus().get("drivers"));
+    }
+
+    /**
+     * Tests that out-of-range pages and sizes are rejected.
+     */
+    @Test
+    void getLeaderboard_invalidPaging_throwsException() {
+        driverLeaderboardService.rebuild();
+
+        assertThrows(IllegalArgumentException.class, () -> driverLeaderboardService.getLeaderboard(null, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> driverLeaderboardService.getLeaderboard(null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> driverLeaderboardService.getLeaderboard(null, 0, 101));
+        assertThrows(IllegalArgumentException.class,
+                () -> driverLeaderboardService.getLeaderboard(null, Integer.MAX_VALUE, 100));
+    }
+
+    /**
+     * Tests that queries fail until the leaderboard has been built and that
+     * updates before the first build are ignored.
+     */
+    @Test
+    void getLeaderboard_notLoaded_throwsException() {
+        driverLeaderboardService.recordRating(1, 5);
+
+        assertThrows(IllegalStateException.class, () -> driverLeaderboardService.getLeaderboard(null, 0, 10));
+        assertThrows(IllegalStateException.class, () -> driverLeaderboardService.getBestDriverIds());
+        Map<String, Object> status = driverLeaderboardService.getStatus();
+        assertEquals(false, status.get("ready"));
+        assertEquals(0, status.get("drivers"));
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private Driver driver(int id, String username, String carType) {
+        Cab cab = new Cab();
+        cab.setCarType(carType);
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setUsername(username);
+        driver.setCab(cab);
+        return driver;
+    }
+}
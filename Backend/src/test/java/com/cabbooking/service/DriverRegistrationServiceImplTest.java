@@ -12,6 +12,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,6 +25,7 @@ import static org.mockito.Mockito.*;
  * - Successful registration with a new username/email
  * - Registration with duplicate username
  * - Registration with duplicate email
+ * - Registration with duplicate licence number
  *
  * Dependencies:
  * - DriverRepository: Mocked to simulate database operations
@@ -45,6 +47,22 @@ public class DriverRegistrationServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    // Mocked leaderboard service, kept up to date by the service
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    // Mocked fleet state, which the new driver joins
+    @Mock
+    private IFleetStateService fleetStateService;
+
+    // Mocked identity directory
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    // Mocked transaction manager for saving the user and its directory entry together
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     // Service under test with mocked dependencies injected
     @InjectMocks
     private DriverRegistrationServiceImpl driverRegistrationService;
@@ -83,15 +101,13 @@ public class DriverRegistrationServiceImplTest {
      * Tests successful registration of a new driver.
      *
      * Workflow:
-     * - Mocks repository to indicate username/email are not taken
+     * - Leaves the identity directory to accept the username and email
      * - Mocks password encoder to return encoded password
      * - Mocks repository save() methods to return Driver and Cab objects
      * - Verifies that both Driver and Cab are saved exactly once
      */
     @Test
     void registerDriver_validRequest_savesNewDriver() {
-        when(driverRepository.existsByUsername(anyString())).thenReturn(false);
-        when(driverRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
         when(cabRepository.save(any(Cab.class))).thenReturn(testCab);
@@ -106,13 +122,14 @@ public class DriverRegistrationServiceImplTest {
      * Tests registration failure due to duplicate username.
      *
      * Workflow:
-     * - Mocks repository to indicate username already exists
+     * - Mocks the identity directory to refuse the username
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that neither Driver nor Cab is saved
      */
     @Test
     void registerDriver_duplicateUsername_throwsException() {
-        when(driverRepository.existsByUsername("testdriver")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Username is already taken."))
+                .when(userDirectoryService).checkAvailable("testdriver", "driver@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> driverRegistrationService.registerDriver(testRequest));
         verify(driverRepository, never()).save(any(Driver.class));
@@ -123,17 +140,34 @@ public class DriverRegistrationServiceImplTest {
      * Tests registration failure due to duplicate email.
      *
      * Workflow:
-     * - Mocks repository to indicate email already exists while username is new
+     * - Mocks the identity directory to refuse the email
      * - Asserts that an IllegalArgumentException is thrown
      * - Verifies that neither Driver nor Cab is saved
      */
     @Test
     void registerDriver_duplicateEmail_throwsException() {
-        when(driverRepository.existsByUsername("testdriver")).thenReturn(false);
-        when(driverRepository.existsByEmail("driver@test.com")).thenReturn(true);
+        doThrow(new IllegalArgumentException("Email is already registered."))
+                .when(userDirectoryService).checkAvailable("testdriver", "driver@test.com");
 
         assertThrows(IllegalArgumentException.class, () -> driverRegistrationService.registerDriver(testRequest));
         verify(driverRepository, never()).save(any(Driver.class));
         verify(cabRepository, never()).save(any(Cab.class));
     }
+
+    /**
+     * Tests registration failure due to a duplicate licence number.
+     *
+     * Workflow:
+     * - Mocks repository to indicate the licence number already exists
+     * - Asserts that an IllegalArgumentException is thrown
+     * - Verifies that the drivers are not scanned and nothing is saved
+     */
+    @Test
+    void registerDriver_duplicateLicence_throwsException() {
+        when(driverRepository.existsByLicenceNo("LIC123")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> driverRegistrationService.registerDriver(testRequest));
+        verify(driverRepository, never()).findAll();
+        verify(driverRepository, never()).save(any(Driver.class));
+    }
 }
@@ -51,6 +51,14 @@ public class DriverServiceImplTest {
     @Mock
     private TripBookingRepository tripBookingRepository;
 
+    // Mocked leaderboard service ranking the best drivers
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    // Mocked fleet state, refreshed when a driver is verified
+    @Mock
+    private IFleetStateService fleetStateService;
+
     // Service under test with injected mocked dependencies
     @InjectMocks
     private DriverServiceImpl driverService;
@@ -68,31 +76,35 @@ public class DriverServiceImplTest {
         testDriver.setId(1);
         testDriver.setUsername("testDriver");
         testDriver.setIsAvailable(true);
-        testDriver.setRating(4.5f);
+        testDriver.setRatingSum(45L);
+        testDriver.setTotalRatings(10);
     }
 
     /**
-     * Tests that getBestDrivers() correctly filters and returns drivers
-     * with a rating above 4.5.
+     * Tests that getBestDrivers() returns the drivers the leaderboard ranks
+     * as best, in leaderboard order.
      *
      * Workflow:
-     * - Creates an additional driver with average rating (4.5)
-     * - Mocks repository to return both drivers
-     * - Asserts that only the higher-rated driver is returned
-     * - Verifies repository call
+     * - Mocks the leaderboard to rank a second driver ahead of the test driver
+     * - Mocks repository to return both drivers in ID order
+     * - Asserts that the drivers are returned in leaderboard order
+     * - Verifies that only the ranked drivers are loaded
      */
     @Test
-    void getBestDrivers_returnsFilteredList() {
-        Driver averageDriver = new Driver();
-        averageDriver.setRating(4.5f);
+    void getBestDrivers_returnsLeaderboardOrder() {
+        Driver topDriver = new Driver();
+        topDriver.setId(2);
+        topDriver.setUsername("topDriver");
 
-        when(driverRepository.findAll()).thenReturn(Arrays.asList(testDriver, averageDriver));
+        when(driverLeaderboardService.getBestDriverIds()).thenReturn(Arrays.asList(2, 1));
+        when(driverRepository.findAllWithCabByIdIn(Arrays.asList(2, 1))).thenReturn(Arrays.asList(testDriver, topDriver));
 
         List<Driver> bestDrivers = driverService.getBestDrivers();
 
-        assertEquals(1, bestDrivers.size());
-        assertEquals(testDriver.getUsername(), bestDrivers.get(0).getUsername());
-        verify(driverRepository, times(1)).findAll();
+        assertEquals(2, bestDrivers.size());
+        assertEquals("topDriver", bestDrivers.get(0).getUsername());
+        assertEquals(testDriver.getUsername(), bestDrivers.get(1).getUsername());
+        verify(driverRepository, never()).findAll();
     }
 
     /**
@@ -138,6 +150,7 @@ public class DriverServiceImplTest {
         assertTrue(testDriver.getVerified());
         verify(driverRepository, times(1)).findById(1);
         verify(driverRepository, times(1)).save(testDriver);
+        verify(fleetStateService, times(1)).updateDriver(testDriver);
     }
 
     /**
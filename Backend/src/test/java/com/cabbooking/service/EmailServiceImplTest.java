@@ -1,64 +1,214 @@
 package com.cabbooking.service;
 
-import org.junit.jupiter.api.BeforeEach;
+import com.cabbooking.model.OutboxEmail;
+import com.cabbooking.repository.OutboxEmailRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for EmailServiceImpl.
  *
- * Tests cover the functionality of sending simple emails.
+ * Tests cover:
+ * - sendSimpleEmail(): queueing an email in the outbox without contacting
+ *   the mail server
+ * - dispatch(): claiming due emails, sending them in one batch, deleting the
+ *   sent ones and rescheduling or giving up on the ones the mail server
+ *   refused; skipping emails another instance claimed first
+ * - getOutboxStats(): the queue depth
+ *
  * Dependencies:
- * - JavaMailSender: Mocked to simulate email sending without actually sending emails.
+ * - JavaMailSender: Mocked to simulate the mail server, including refused
+ *   messages and an unreachable server.
+ * - OutboxEmailRepository and the transaction manager are mocked.
  */
 @ExtendWith(MockitoExtension.class)
 public class EmailServiceImplTest {
 
-    // Mocked JavaMailSender to simulate email sending
     @Mock
     private JavaMailSender mailSender;
 
-    // Service under test with mocked dependency injected
+    @Mock
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private EmailServiceImpl emailService;
 
     /**
-     * Sets up common pre-test configurations if needed.
-     * Currently empty because no pre-setup is required.
+     * Tests that sendSimpleEmail() queues the email instead of sending it.
+     *
+     * Workflow:
+     * - Calls sendSimpleEmail() with recipient, subject, and body
+     * - Verifies that a pending, due outbox email with these details is saved
+     * - Verifies that the mail server is not contacted
      */
-    @BeforeEach
-    void setUp() {
-        // No setup required for this test
+    @Test
+    void sendSimpleEmail_queuesEmailWithoutSending() {
+        emailService.sendSimpleEmail("test@test.com", "Test Subject", "Test Body");
+
+        ArgumentCaptor<OutboxEmail> captor = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(outboxEmailRepository).save(captor.capture());
+        OutboxEmail queued = captor.getValue();
+        assertEquals("test@test.com", queued.getRecipient());
+        assertEquals("Test Subject", queued.getSubject());
+        assertEquals("Test Body", queued.getBody());
+        assertEquals(OutboxEmail.Status.PENDING, queued.getStatus());
+        assertEquals(queued.getCreatedAt(), queued.getNextAttemptAt());
+        verifyNoInteractions(mailSender);
     }
 
     /**
-     * Tests that sendSimpleEmail() sends an email with the correct details.
-     *
-     * Workflow:
-     * - Calls sendSimpleEmail() with recipient, subject, and body
-     * - Verifies that the mailSender.send() method is called exactly once
-     * - Optional: Can capture and assert the content of the sent email
+     * Tests that due emails are sent with one call of the mail sender and
+     * deleted afterwards.
+     */
+    @Test
+    void dispatch_dueEmails_sendsOneBatchAndDeletesThem() {
+        due(queued(1L, "a@test.com", 0), queued(2L, "b@test.com", 0));
+
+        assertEquals(2, emailService.dispatch());
+
+        verify(outboxEmailRepository).claim(eq(List.of(1L, 2L)), eq(OutboxEmail.Status.PENDING), anyString(),
+                any(LocalDateTime.class), any(LocalDateTime.class));
+        ArgumentCaptor<SimpleMailMessage[]> captor = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, times(1)).send(captor.capture());
+        assertEquals(2, captor.getValue().length);
+        assertArrayEquals(new String[] {"b@test.com"}, captor.getValue()[1].getTo());
+        verify(outboxEmailRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEmailRepository, never()).saveAll(anyIterable());
+    }
+
+    /**
+     * Tests that an email refused by the mail server is rescheduled with
+     * backoff while the rest of the batch counts as sent.
+     */
+    @Test
+    void dispatch_oneEmailRefused_reschedulesItWithBackoff() {
+        OutboxEmail accepted = queued(1L, "a@test.com", 0);
+        OutboxEmail refused = queued(2L, "bad@test.com", 0);
+        due(accepted, refused);
+        doAnswer(invocation -> {
+            // Varargs arrive as separate arguments; refuse the second message
+            SimpleMailMessage second = invocation.getArgument(1);
+            throw new MailSendException(Map.of(second, new IllegalStateException("550 Mailbox unavailable")));
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(1, emailService.dispatch());
+
+        verify(outboxEmailRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxEmailRepository).saveAll(anyIterable());
+        assertEquals(1, refused.getAttempts());
+        assertEquals(OutboxEmail.Status.PENDING, refused.getStatus());
+        assertEquals("550 Mailbox unavailable", refused.getLastError());
+        assertNull(refused.getClaimToken());
+        assertFalse(refused.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+        assertEquals(1L, emailService.getOutboxStats().get("retried"));
+    }
+
+    /**
+     * Tests that an email is marked FAILED once its last attempt fails,
+     * here because the mail server cannot be reached at all.
+     */
+    @Test
+    void dispatch_serverUnreachableOnLastAttempt_marksEmailFailed() {
+        OutboxEmail email = queued(1L, "a@test.com", 7);
+        due(email);
+        doThrow(new MailSendException("Connection refused")).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        assertEquals(0, emailService.dispatch());
+
+        assertEquals(8, email.getAttempts());
+        assertEquals(OutboxEmail.Status.FAILED, email.getStatus());
+        verify(outboxEmailRepository, never()).deleteAllByIdInBatch(anyIterable());
+        assertEquals(1L, emailService.getOutboxStats().get("gaveUp"));
+    }
+
+    /**
+     * Tests that nothing is sent when no email is due.
      */
     @Test
-    void sendSimpleEmail_sendsEmailWithCorrectDetails() {
-        String to = "test@test.com";
-        String subject = "Test Subject";
-        String text = "Test Body";
+    void dispatch_nothingDue_sendsNothing() {
+        when(outboxEmailRepository.findDueIds(eq(OutboxEmail.Status.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(0, emailService.dispatch());
+
+        verifyNoInteractions(mailSender, transactionManager);
+    }
 
-        // Call the method under test
-        emailService.sendSimpleEmail(to, subject, text);
+    /**
+     * Tests that due emails another instance claimed first are not sent, and
+     * that the dispatcher then looks for the next due emails.
+     */
+    @Test
+    void dispatch_claimedByAnotherInstance_sendsNothing() {
+        when(outboxEmailRepository.findDueIds(eq(OutboxEmail.Status.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L), List.of());
+        when(outboxEmailRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of());
 
-        // Verify that mailSender.send() was called once with any SimpleMailMessage
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        assertEquals(0, emailService.dispatch());
 
-       
+        verifyNoInteractions(mailSender);
+        verify(outboxEmailRepository, never()).deleteAllByIdInBatch(anyIterable());
+        assertEquals(1L, emailService.getOutboxStats().get("claimedElsewhere"));
+    }
+
+    /**
+     * Tests that the stats report the queue depth from the outbox table.
+     */
+    @Test
+    void getOutboxStats_reportsQueueDepth() {
+        when(outboxEmailRepository.countByStatus(OutboxEmail.Status.PENDING)).thenReturn(3L);
+        when(outboxEmailRepository.countByStatus(OutboxEmail.Status.FAILED)).thenReturn(1L);
+        when(outboxEmailRepository.findOldestCreatedAt(OutboxEmail.Status.PENDING))
+                .thenReturn(LocalDateTime.now().minusSeconds(90));
+
+        Map<String, Object> stats = emailService.getOutboxStats();
+
+        assertEquals(3L, stats.get("pending"));
+        assertEquals(1L, stats.get("failed"));
+        assertTrue((Long) stats.get("oldestPendingAgeSeconds") >= 90L);
+    }
+
+    /*
+     * Helper method to make emails due and claimable by the dispatcher.
+     */
+    private void due(OutboxEmail... emails) {
+        List<OutboxEmail> batch = List.of(emails);
+        when(outboxEmailRepository.findDueIds(eq(OutboxEmail.Status.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(batch.stream().map(OutboxEmail::getId).toList());
+        when(outboxEmailRepository.findByClaimTokenOrderByIdAsc(anyString())).thenReturn(batch);
+    }
+
+    /*
+     * Helper method to build a queued email with an ID and earlier attempts.
+     */
+    private OutboxEmail queued(Long id, String recipient, int attempts) {
+        OutboxEmail email = new OutboxEmail(recipient, "Subject", "Body", LocalDateTime.now().minusMinutes(1));
+        email.setId(id);
+        email.setAttempts(attempts);
+        return email;
     }
 }
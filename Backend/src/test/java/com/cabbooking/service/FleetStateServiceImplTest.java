@@ -0,0 +1,258 @@
+package com.cabbooking.service;
+
+import com.cabbooking.dto.FleetAvailabilityRow;
+import com.cabbooking.fleet.FleetMember;
+import com.cabbooking.fleet.FleetState;
+import com.cabbooking.fleet.FleetStateRegistry;
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.Driver;
+import com.cabbooking.repository.DriverRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FleetStateServiceImpl and the FleetStateRegistry.
+ *
+ * Covers scenarios for:
+ * - Deriving the state of every driver on load
+ * - Exclusive claims, confirmed on commit and undone on rollback
+ * - Guarding claims with the driver row, which another instance may have
+ *   taken already
+ * - Releasing drivers and writing the driver and cab flags
+ * - Freeing drivers another instance has released
+ * - Refreshing drivers without losing a trip in progress
+ * - Rejecting transitions that are not allowed
+ */
+@ExtendWith(MockitoExtension.class)
+public class FleetStateServiceImplTest {
+
+    @Mock
+    private DriverRepository driverRepository;
+
+    @Mock
+    private IOptimisticRetryService optimisticRetryService;
+
+    @InjectMocks
+    private FleetStateServiceImpl fleetStateService;
+
+    /**
+     * Loads four drivers: an available sedan driver, a sedan driver on a
+     * trip, an unverified driver and a driver without cab details.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        lenient().when(optimisticRetryService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(driverRepository.findFleetRowsAfter(eq(0), any())).thenReturn(List.of(
+                row(1, true, true, 101, "Sedan", 10f),
+                row(2, true, false, 102, "Sedan", 12f),
+                row(3, false, true, 103, "SUV", 20f),
+                row(4, true, true, 104, null, null)));
+        fleetStateService.load();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        fleetStateService.shutdown();
+    }
+
+    /**
+     * Tests that the states are derived from the profile and the stored flags.
+     */
+    @Test
+    void load_derivesStates() {
+        assertEquals(Map.of(FleetState.OFFLINE, 2, FleetState.AVAILABLE, 1, FleetState.OFFERED, 0,
+                FleetState.ON_TRIP, 1), fleetStateService.getStatus().get("states"));
+        assertEquals(List.of(1), driverIds(fleetStateService.getAvailableFleet("sedan")));
+        assertTrue(fleetStateService.getAvailableFleet("SUV").isEmpty());
+        assertEquals(Set.of(101), fleetStateService.getAvailableCabIds());
+    }
+
+    /**
+     * Tests that a driver can be claimed only once and that the claim marks
+     * the driver row unavailable right away and the cab once committed.
+     */
+    @Test
+    void claim_isExclusiveAndWritesBothFlags() throws Exception {
+        Driver driver = driver(1, true);
+        when(driverRepository.markUnavailable(1)).thenReturn(1);
+        when(driverRepository.findById(1)).thenReturn(Optional.of(driver));
+
+        assertTrue(fleetStateService.claim(1));
+        assertFalse(fleetStateService.claim(1));
+        fleetStateService.shutdown();
+
+        assertTrue(fleetStateService.getAvailableFleet(null).isEmpty());
+        verify(driverRepository, times(1)).markUnavailable(1);
+        assertFalse(driver.getCab().getIsAvailable());
+        verify(driverRepository, times(1)).save(driver);
+    }
+
+    /**
+     * Tests that a driver whose row is already taken, e.g. by a booking of
+     * another instance, is not claimed and stays available here.
+     */
+    @Test
+    void claim_driverRowTaken_failsAndKeepsDriverAvailable() {
+        TransactionSynchronizationManager.initSynchronization();
+        when(driverRepository.markUnavailable(1)).thenReturn(0);
+
+        assertFalse(fleetStateService.claim(1));
+
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        assertEquals(List.of(1), driverIds(fleetStateService.getAvailableFleet("Sedan")));
+        assertEquals(1L, fleetStateService.getStatus().get("takenElsewhere"));
+    }
+
+    /**
+     * Tests that a claim whose transaction rolls back makes the driver
+     * available again without writing anything.
+     */
+    @Test
+    void claim_rolledBack_makesDriverAvailableAgain() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        when(driverRepository.markUnavailable(1)).thenReturn(1);
+
+        assertTrue(fleetStateService.claim(1));
+        // Offered drivers are not matched
+        assertTrue(fleetStateService.getAvailableFleet("Sedan").isEmpty());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        fleetStateService.shutdown();
+
+        assertEquals(List.of(1), driverIds(fleetStateService.getAvailableFleet("Sedan")));
+        verify(driverRepository, never()).findById(any());
+    }
+
+    /**
+     * Tests that releasing a driver on a trip makes them available and that a
+     * second release changes nothing.
+     */
+    @Test
+    void release_makesDriverAvailableOnce() throws Exception {
+        Driver driver = driver(2, false);
+        when(driverRepository.markAvailable(2)).thenReturn(1, 0);
+        when(driverRepository.findById(2)).thenReturn(Optional.of(driver));
+
+        fleetStateService.release(2);
+        fleetStateService.release(2);
+        fleetStateService.shutdown();
+
+        assertEquals(List.of(1, 2), driverIds(fleetStateService.getAvailableFleet("Sedan")).stream().sorted().toList());
+        // The driver row is freed by the guarded update, not by the write-through
+        assertFalse(driver.getIsAvailable());
+        assertTrue(driver.getCab().getIsAvailable());
+        assertEquals(1L, fleetStateService.getStatus().get("completedWrites"));
+    }
+
+    /**
+     * Tests that the refresh frees a driver another instance has released,
+     * and only once.
+     */
+    @Test
+    void refreshBusy_driverReleasedElsewhere_makesDriverAvailable() throws Exception {
+        Driver driver = driver(2, true);
+        driver.getCab().setIsAvailable(false);
+        when(driverRepository.findAvailableIdsIn(List.of(2))).thenReturn(List.of(2));
+        when(driverRepository.findById(2)).thenReturn(Optional.of(driver));
+
+        fleetStateService.refreshBusy();
+        fleetStateService.refreshBusy();
+        fleetStateService.shutdown();
+
+        assertEquals(List.of(1, 2), driverIds(fleetStateService.getAvailableFleet("Sedan")).stream().sorted().toList());
+        assertTrue(driver.getCab().getIsAvailable());
+        assertEquals(1L, fleetStateService.getStatus().get("releasedElsewhere"));
+        verify(driverRepository, times(1)).findAvailableIdsIn(any());
+    }
+
+    /**
+     * Tests that completed cab details make a driver available, while a
+     * refresh of a driver on a trip keeps them on it.
+     */
+    @Test
+    void updateDriver_keepsTripAndAppliesCabDetails() {
+        Driver completed = driver(4, true);
+        Driver onTrip = driver(2, false);
+        lenient().when(driverRepository.findById(anyInt())).thenReturn(Optional.empty());
+
+        fleetStateService.updateDriver(completed);
+        fleetStateService.updateDriver(onTrip);
+        fleetStateService.recordRating(4, 5);
+
+        List<FleetAvailabilityRow> available = fleetStateService.getAvailableFleet(null);
+        assertEquals(List.of(1, 4), driverIds(available).stream().sorted().toList());
+        FleetAvailabilityRow row = available.stream().filter(r -> r.getDriverId() == 4).findFirst().orElseThrow();
+        assertEquals("Sedan", row.getCarType());
+        assertEquals(50L, row.getRatingSum());
+        assertEquals(11, row.getTotalRatings());
+    }
+
+    /**
+     * Tests that the registry rejects transitions that are not allowed.
+     */
+    @Test
+    void registry_rejectsInvalidTransitions() {
+        FleetStateRegistry registry = new FleetStateRegistry();
+        registry.put(new FleetMember(7, 70, "Sedan", 10f, 1.0, 1.0, 0L, 0, true, FleetState.OFFLINE));
+
+        assertThrows(IllegalStateException.class, () -> registry.transition(7, FleetState.ON_TRIP));
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.compareAndSet(7, FleetState.OFFLINE, FleetState.OFFERED));
+        assertThrows(IllegalStateException.class, () -> registry.transition(8, FleetState.AVAILABLE));
+        assertEquals(FleetState.AVAILABLE, registry.transition(7, FleetState.AVAILABLE).getState());
+        assertEquals(1, registry.available("SEDAN").size());
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private FleetAvailabilityRow row(int driverId, boolean verified, boolean available, int cabId, String carType,
+            Float perKmRate) {
+        return new FleetAvailabilityRow(driverId, 1.0, 1.0, 45L, 10, verified, available, cabId, carType, perKmRate);
+    }
+
+    private Driver driver(int driverId, boolean available) {
+        Cab cab = new Cab();
+        cab.setCabId(100 + driverId);
+        cab.setCarType("Sedan");
+        cab.setPerKmRate(10f);
+        cab.setIsAvailable(available);
+        Driver driver = new Driver();
+        driver.setId(driverId);
+        driver.setVerified(true);
+        driver.setIsAvailable(available);
+        driver.setLatitude(1.0);
+        driver.setLongitude(1.0);
+        driver.setRatingSum(45L);
+        driver.setTotalRatings(10);
+        driver.setCab(cab);
+        return driver;
+    }
+
+    private List<Integer> driverIds(List<FleetAvailabilityRow> rows) {
+        return rows.stream().map(FleetAvailabilityRow::getDriverId).toList();
+    }
+}
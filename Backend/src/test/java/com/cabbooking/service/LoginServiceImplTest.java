@@ -2,13 +2,11 @@ package com.cabbooking.service;
 
 import com.cabbooking.dto.LoginRequest;
 import com.cabbooking.dto.LoginResponse;
-import com.cabbooking.model.Admin;
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.Driver;
-import com.cabbooking.repository.AdminRepository;
-import com.cabbooking.repository.CustomerRepository;
-import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.exception.LoginThrottledException;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.security.DirectoryUserDetails;
 import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.LoginThrottle;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,6 +19,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.List;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -31,24 +32,26 @@ import static org.mockito.Mockito.*;
  * - login() by username and email
  * - Handling invalid credentials
  * - Handling users not found after authentication
+ * - Login throttling before and after authentication
  * - loadUserByUsername() for different user types
  *
  * Dependencies:
- * - AdminRepository, DriverRepository, CustomerRepository: Mocked to simulate database operations
+ * - IUserDirectoryService: Mocked to simulate the identity directory
+ * - LoginThrottle: Mocked to simulate admission control
  * - AuthenticationManager: Mocked to simulate authentication
  * - JwtUtil: Mocked to simulate JWT token generation
+ * - ITokenEpochService: Mocked to supply the token epoch embedded in tokens
  */
 @ExtendWith(MockitoExtension.class)
 public class LoginServiceImplTest {
 
-    @Mock
-    private AdminRepository adminRepository;
+    private static final String CLIENT_ADDRESS = "10.0.0.1";
 
     @Mock
-    private CustomerRepository customerRepository;
+    private IUserDirectoryService userDirectoryService;
 
     @Mock
-    private DriverRepository driverRepository;
+    private LoginThrottle loginThrottle;
 
     @Mock
     private AuthenticationManager authenticationManager;
@@ -56,17 +59,20 @@ public class LoginServiceImplTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private ITokenEpochService tokenEpochService;
+
     @InjectMocks
     private LoginServiceImpl loginService;
 
     private LoginRequest validLoginRequest;
-    private Admin testAdmin;
-    private Driver testDriver;
-    private Customer testCustomer;
+    private UserIdentity testAdmin;
+    private UserIdentity testDriver;
+    private UserIdentity testCustomer;
 
     /**
      * Sets up common test data before each test.
-     * Initializes sample Admin, Driver, and Customer objects along with a valid login request.
+     * Initializes directory entries of a sample Admin, Driver, and Customer along with a valid login request.
      */
     @BeforeEach
     void setUp() {
@@ -74,101 +80,84 @@ public class LoginServiceImplTest {
         validLoginRequest.setUsername("testuser");
         validLoginRequest.setPassword("password123");
 
-        testAdmin = new Admin();
-        testAdmin.setId(1);
-        testAdmin.setUsername("testadmin");
-        testAdmin.setPassword("hashedPassword");
-
-        testDriver = new Driver();
-        testDriver.setId(2);
-        testDriver.setUsername("testdriver");
-        testDriver.setPassword("hashedPassword");
-
-        testCustomer = new Customer();
-        testCustomer.setId(3);
-        testCustomer.setUsername("testcustomer");
-        testCustomer.setPassword("hashedPassword");
+        testAdmin = new UserIdentity("Admin", 1, "testadmin", "testadmin", "testadmin@test.com", "hashedPassword", true);
+        testDriver = new UserIdentity("Driver", 2, "testdriver", "testdriver", "testdriver@test.com", "hashedPassword", true);
+        testCustomer = new UserIdentity("Customer", 3, "testcustomer", "testcustomer", "testcustomer@test.com",
+                "hashedPassword", false);
     }
 
     /**
      * Tests successful admin login by username.
      *
      * Workflow:
-     * - Mocks authentication manager to pass authentication
-     * - Mocks admin repository to find the admin by username
-     * - Mocks JwtUtil to generate a token
+     * - Mocks authentication manager to return the principal loaded from the directory
+     * - Mocks JwtUtil to generate a token carrying the admin's ID and current token epoch
      * - Asserts LoginResponse fields
-     * - Verifies repository call
+     * - Verifies the directory is not queried again after authentication
      */
     @Test
     void login_adminLoginByUsername_returnsSuccessResponse() {
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(null);
-        when(adminRepository.findByUsername("testuser")).thenReturn(testAdmin);
-        when(jwtUtil.generateToken(testAdmin.getUsername(), "Admin")).thenReturn("admin-token");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenReturn(authenticated(testAdmin));
+        when(tokenEpochService.currentEpoch("Admin", 1)).thenReturn(2);
+        when(jwtUtil.generateToken("testadmin", "Admin", 1, 2)).thenReturn("admin-token");
 
-        LoginResponse response = loginService.login(validLoginRequest);
+        LoginResponse response = loginService.login(validLoginRequest, CLIENT_ADDRESS);
 
         assertNotNull(response);
         assertTrue(response.getSuccess());
         assertEquals("Admin", response.getUserType());
+        assertEquals(1, response.getUserId());
         assertEquals("admin-token", response.getToken());
-        verify(adminRepository, times(1)).findByUsername("testuser");
+        verifyNoInteractions(userDirectoryService);
+        verify(loginThrottle).admit("testuser", CLIENT_ADDRESS);
+        verify(loginThrottle).recordSuccess("testuser");
     }
 
     /**
      * Tests successful driver login by username.
      *
      * Workflow:
-     * - Mocks authentication to pass
-     * - Mocks admin repository to return null
-     * - Mocks driver repository to return the driver
+     * - Mocks authentication to return the driver's principal
      * - Mocks JwtUtil to generate token
-     * - Asserts LoginResponse fields and verifies repository calls
+     * - Asserts LoginResponse fields
      */
     @Test
     void login_driverLoginByUsername_returnsSuccessResponse() {
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(null);
-        when(adminRepository.findByUsername("testuser")).thenReturn(null);
-        when(driverRepository.findByUsername("testuser")).thenReturn(testDriver);
-        when(jwtUtil.generateToken(testDriver.getUsername(), "Driver")).thenReturn("driver-token");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenReturn(authenticated(testDriver));
+        when(jwtUtil.generateToken("testdriver", "Driver", 2, 0)).thenReturn("driver-token");
 
-        LoginResponse response = loginService.login(validLoginRequest);
+        LoginResponse response = loginService.login(validLoginRequest, CLIENT_ADDRESS);
 
         assertNotNull(response);
         assertTrue(response.getSuccess());
         assertEquals("Driver", response.getUserType());
         assertEquals("driver-token", response.getToken());
-        verify(adminRepository, times(1)).findByUsername("testuser");
-        verify(driverRepository, times(1)).findByUsername("testuser");
     }
 
     /**
-     * Tests successful customer login by username.
+     * Tests successful customer login when the authentication carries no directory entry.
      *
      * Workflow:
-     * - Mocks authentication to pass
-     * - Mocks admin and driver repositories to return null
-     * - Mocks customer repository to return the customer
+     * - Mocks authentication to pass without a principal
+     * - Mocks the directory to find the customer
      * - Mocks JwtUtil to generate token
-     * - Asserts LoginResponse fields and verifies repository calls
+     * - Asserts LoginResponse fields and verifies the directory lookup
      */
     @Test
     void login_customerLoginByUsername_returnsSuccessResponse() {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(null);
-        when(adminRepository.findByUsername("testuser")).thenReturn(null);
-        when(driverRepository.findByUsername("testuser")).thenReturn(null);
-        when(customerRepository.findByUsername("testuser")).thenReturn(testCustomer);
-        when(jwtUtil.generateToken(testCustomer.getUsername(), "Customer")).thenReturn("customer-token");
+        when(userDirectoryService.find("testuser")).thenReturn(Optional.of(testCustomer));
+        when(jwtUtil.generateToken("testcustomer", "Customer", 3, 0)).thenReturn("customer-token");
 
-        LoginResponse response = loginService.login(validLoginRequest);
+        LoginResponse response = loginService.login(validLoginRequest, CLIENT_ADDRESS);
 
         assertNotNull(response);
         assertTrue(response.getSuccess());
         assertEquals("Customer", response.getUserType());
         assertEquals("customer-token", response.getToken());
-        verify(adminRepository, times(1)).findByUsername("testuser");
-        verify(driverRepository, times(1)).findByUsername("testuser");
-        verify(customerRepository, times(1)).findByUsername("testuser");
+        verify(userDirectoryService, times(1)).find("testuser");
     }
 
     /**
@@ -177,8 +166,8 @@ public class LoginServiceImplTest {
      * Workflow:
      * - Sets email in login request
      * - Mocks authentication to pass
-     * - Mocks admin repository to find admin by email
-     * - Mocks JwtUtil to generate token
+     * - Mocks the directory to find the admin by email
+     * - Mocks JwtUtil to generate token with the registered username
      * - Asserts LoginResponse fields
      */
     @Test
@@ -187,10 +176,10 @@ public class LoginServiceImplTest {
         validLoginRequest.setEmail("testadmin@test.com");
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(null);
-        when(adminRepository.findByEmail("testadmin@test.com")).thenReturn(testAdmin);
-        when(jwtUtil.generateToken(testAdmin.getUsername(), "Admin")).thenReturn("admin-token");
+        when(userDirectoryService.find("testadmin@test.com")).thenReturn(Optional.of(testAdmin));
+        when(jwtUtil.generateToken("testadmin", "Admin", 1, 0)).thenReturn("admin-token");
 
-        LoginResponse response = loginService.login(validLoginRequest);
+        LoginResponse response = loginService.login(validLoginRequest, CLIENT_ADDRESS);
 
         assertNotNull(response);
         assertTrue(response.getSuccess());
@@ -209,7 +198,25 @@ public class LoginServiceImplTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
             .thenThrow(new BadCredentialsException("Invalid credentials"));
 
-        assertThrows(UsernameNotFoundException.class, () -> loginService.login(validLoginRequest));
+        assertThrows(UsernameNotFoundException.class, () -> loginService.login(validLoginRequest, CLIENT_ADDRESS));
+        verify(loginThrottle).recordFailure("testuser", CLIENT_ADDRESS);
+    }
+
+    /**
+     * Tests that a throttled login is refused before the password is checked.
+     *
+     * Workflow:
+     * - Mocks the throttle to refuse the attempt
+     * - Asserts that LoginThrottledException is thrown
+     * - Verifies that authentication was not attempted
+     */
+    @Test
+    void login_throttled_refusedBeforeAuthentication() {
+        doThrow(new LoginThrottledException("Too many failed logins", 300))
+            .when(loginThrottle).admit("testuser", CLIENT_ADDRESS);
+
+        assertThrows(LoginThrottledException.class, () -> loginService.login(validLoginRequest, CLIENT_ADDRESS));
+        verifyNoInteractions(authenticationManager, userDirectoryService);
     }
 
     /**
@@ -217,47 +224,45 @@ public class LoginServiceImplTest {
      *
      * Workflow:
      * - Mocks authentication to pass
-     * - Mocks admin, driver, and customer repositories to return null
+     * - Mocks the directory to find nobody
      * - Asserts that UsernameNotFoundException is thrown
      */
     @Test
     void login_userNotFoundAfterAuthentication_throwsException() {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(null);
-        when(adminRepository.findByUsername("testuser")).thenReturn(null);
-        when(driverRepository.findByUsername("testuser")).thenReturn(null);
-        when(customerRepository.findByUsername("testuser")).thenReturn(null);
+        when(userDirectoryService.find("testuser")).thenReturn(Optional.empty());
 
-        assertThrows(UsernameNotFoundException.class, () -> loginService.login(validLoginRequest));
+        assertThrows(UsernameNotFoundException.class, () -> loginService.login(validLoginRequest, CLIENT_ADDRESS));
     }
 
     /**
      * Tests loadUserByUsername() for Admin.
      *
      * Workflow:
-     * - Mocks admin repository to find admin
-     * - Asserts returned UserDetails username
+     * - Mocks the directory to find the admin
+     * - Asserts returned UserDetails username, password and directory entry
      */
     @Test
     void loadUserByUsername_adminFound_returnsUserDetails() {
-        when(adminRepository.findByUsername("testadmin")).thenReturn(testAdmin);
+        when(userDirectoryService.find("testadmin")).thenReturn(Optional.of(testAdmin));
         UserDetails userDetails = loginService.loadUserByUsername("testadmin");
 
         assertNotNull(userDetails);
         assertEquals("testadmin", userDetails.getUsername());
+        assertEquals("hashedPassword", userDetails.getPassword());
+        assertSame(testAdmin, ((DirectoryUserDetails) userDetails).getIdentity());
     }
 
     /**
      * Tests loadUserByUsername() for Driver.
      *
      * Workflow:
-     * - Mocks admin repository to return null
-     * - Mocks driver repository to return driver
+     * - Mocks the directory to find the driver
      * - Asserts returned UserDetails username
      */
     @Test
     void loadUserByUsername_driverFound_returnsUserDetails() {
-        when(adminRepository.findByUsername("testdriver")).thenReturn(null);
-        when(driverRepository.findByUsername("testdriver")).thenReturn(testDriver);
+        when(userDirectoryService.find("testdriver")).thenReturn(Optional.of(testDriver));
         UserDetails userDetails = loginService.loadUserByUsername("testdriver");
 
         assertNotNull(userDetails);
@@ -268,15 +273,12 @@ public class LoginServiceImplTest {
      * Tests loadUserByUsername() for Customer.
      *
      * Workflow:
-     * - Mocks admin and driver repositories to return null
-     * - Mocks customer repository to return customer
+     * - Mocks the directory to find the customer
      * - Asserts returned UserDetails username
      */
     @Test
     void loadUserByUsername_customerFound_returnsUserDetails() {
-        when(adminRepository.findByUsername("testcustomer")).thenReturn(null);
-        when(driverRepository.findByUsername("testcustomer")).thenReturn(null);
-        when(customerRepository.findByUsername("testcustomer")).thenReturn(testCustomer);
+        when(userDirectoryService.find("testcustomer")).thenReturn(Optional.of(testCustomer));
         UserDetails userDetails = loginService.loadUserByUsername("testcustomer");
 
         assertNotNull(userDetails);
@@ -287,15 +289,21 @@ public class LoginServiceImplTest {
      * Tests loadUserByUsername() throws exception when user is not found.
      *
      * Workflow:
-     * - Mocks all repositories to return null
+     * - Mocks the directory to find nobody
      * - Asserts UsernameNotFoundException is thrown
      */
     @Test
     void loadUserByUsername_userNotFound_throwsException() {
-        when(adminRepository.findByUsername("nonexistent")).thenReturn(null);
-        when(driverRepository.findByUsername("nonexistent")).thenReturn(null);
-        when(customerRepository.findByUsername("nonexistent")).thenReturn(null);
+        when(userDirectoryService.find("nonexistent")).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class, () -> loginService.loadUserByUsername("nonexistent"));
     }
+
+    /*
+     * Helper method to build the authentication the DaoAuthenticationProvider returns.
+     */
+    private UsernamePasswordAuthenticationToken authenticated(UserIdentity identity) {
+        DirectoryUserDetails details = new DirectoryUserDetails(identity);
+        return new UsernamePasswordAuthenticationToken(details, null, List.of());
+    }
 }
@@ -1,62 +1,95 @@
 package com.cabbooking.service;
 
-import com.cabbooking.model.BlacklistedToken;
-import com.cabbooking.repository.BlacklistedTokenRepository;
-import org.junit.jupiter.api.BeforeEach;
+import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.VerifiedToken;
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for LogoutServiceImpl.
  *
- * Tests cover token blacklisting functionality:
- * - blacklistToken(): Ensures a JWT token is saved to the BlacklistedToken repository
+ * Tests cover token revocation on logout:
+ * - blacklistToken(): Raises the token epoch of the token's user
+ * - blacklistToken(): Blacklists tokens issued without a user ID
+ * - blacklistToken(): Ignores invalid tokens
  *
  * Dependencies:
- * - BlacklistedTokenRepository: Mocked to simulate database save operation
+ * - ITokenEpochService: Mocked to simulate the token epochs
+ * - ITokenBlacklistService: Mocked to simulate the blacklist
+ * - JwtUtil: Mocked to simulate token verification
  */
 @ExtendWith(MockitoExtension.class)
 public class LogoutServiceImplTest {
 
-    // Mocked repository to simulate saving blacklisted tokens
+    // Mocked service holding the token epochs
+    @Mock
+    private ITokenEpochService tokenEpochService;
+
+    // Mocked service holding the blacklisted tokens
+    @Mock
+    private ITokenBlacklistService tokenBlacklistService;
+
     @Mock
-    private BlacklistedTokenRepository blacklistedTokenRepository;
+    private JwtUtil jwtUtil;
 
-    // Service under test with mocked dependency injected
+    // Service under test with mocked dependencies injected
     @InjectMocks
     private LogoutServiceImpl logoutService;
 
     /**
-     * Sets up common test environment.
-     * Currently, no pre-setup is required.
+     * Tests that logging out with a token naming its user revokes the user's tokens.
+     *
+     * Workflow:
+     * - Mocks JwtUtil to verify a token of customer 7
+     * - Verifies that the epoch of customer 7 is raised and nothing is blacklisted
      */
-    @BeforeEach
-    void setUp() {
-        // No specific setup needed for these tests
+    @Test
+    void blacklistToken_tokenWithUserId_revokesUserTokens() {
+        when(jwtUtil.verify("test-jwt-token")).thenReturn(
+                new VerifiedToken("customer", List.of(), Instant.now().plusSeconds(3600), "Customer", 7, 0));
+
+        logoutService.blacklistToken("test-jwt-token");
+
+        verify(tokenEpochService, times(1)).revoke("Customer", 7);
+        verifyNoInteractions(tokenBlacklistService);
     }
 
     /**
-     * Tests that blacklistToken() successfully saves a token to the repository.
+     * Tests that a token issued without a user ID is handed to the blacklist.
      *
      * Workflow:
-     * - Calls blacklistToken() with a sample JWT string
-     * - Verifies that BlacklistedTokenRepository.save() is called exactly once with any BlacklistedToken object
+     * - Mocks JwtUtil to verify a token without a user ID
+     * - Verifies that ITokenBlacklistService.blacklist() is called exactly once with that token
      */
     @Test
-    void blacklistToken_savesTokenToRepository() {
+    void blacklistToken_tokenWithoutUserId_addsTokenToBlacklist() {
         String token = "test-jwt-token";
+        when(jwtUtil.verify(token)).thenReturn(new VerifiedToken("customer", List.of(), Instant.now().plusSeconds(3600)));
 
-        // Call method under test
         logoutService.blacklistToken(token);
 
-        // Verify that repository save() was invoked once
-        verify(blacklistedTokenRepository, times(1)).save(any(BlacklistedToken.class));
+        verify(tokenBlacklistService, times(1)).blacklist(token);
+        verifyNoInteractions(tokenEpochService);
+    }
+
+    /**
+     * Tests that an invalid token is ignored.
+     */
+    @Test
+    void blacklistToken_invalidToken_isIgnored() {
+        when(jwtUtil.verify("bad")).thenThrow(new MalformedJwtException("Malformed"));
+
+        logoutService.blacklistToken("bad");
+
+        verifyNoInteractions(tokenEpochService, tokenBlacklistService);
     }
 }
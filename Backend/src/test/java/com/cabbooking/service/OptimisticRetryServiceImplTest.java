@@ -0,0 +1,169 @@
+package com.cabbooking.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OptimisticRetryServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Re-running an operation in a new transaction after a conflict
+ * - Giving up after the maximum number of attempts
+ * - Passing other exceptions on without retrying
+ * - Joining the caller's transaction without retrying
+ * - The conflict counters per operation
+ */
+@ExtendWith(MockitoExtension.class)
+public class OptimisticRetryServiceImplTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OptimisticRetryServiceImpl optimisticRetryService;
+
+    /**
+     * Allows three attempts without waiting between them.
+     */
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(optimisticRetryService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(optimisticRetryService, "backoffMillis", 0L);
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    /**
+     * Tests that a conflicting attempt is rolled back and the operation run
+     * again in a new transaction.
+     */
+    @Test
+    void execute_conflictThenSuccess_retriesInNewTransaction() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetryService.execute("trip.complete", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("TripBooking", 1);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        Map<String, Object> stats = operationStats("trip.complete");
+        assertEquals(1L, stats.get("executions"));
+        assertEquals(1L, stats.get("conflicts"));
+        assertEquals(1L, stats.get("retries"));
+        assertEquals(0L, stats.get("exhausted"));
+        assertEquals(1.0, stats.get("conflictRate"));
+    }
+
+    /**
+     * Tests that a conflict raised on commit, wrapped in another exception,
+     * is recognised and retried.
+     */
+    @Test
+    void execute_conflictOnCommit_retries() {
+        doThrow(new TransactionSystemException("Commit failed", new OptimisticLockException("stale")))
+                .doNothing()
+                .when(transactionManager).commit(any());
+
+        assertEquals(1, optimisticRetryService.execute("trip.rate", () -> 1));
+
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(1L, operationStats("trip.rate").get("retries"));
+    }
+
+    /**
+     * Tests that the last conflict is thrown once every attempt failed.
+     */
+    @Test
+    void execute_conflictOnEveryAttempt_givesUp() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> optimisticRetryService.execute("trip.book", () -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Driver", 7);
+                }));
+
+        assertEquals(3, attempts.get());
+        Map<String, Object> stats = operationStats("trip.book");
+        assertEquals(3L, stats.get("conflicts"));
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(1L, stats.get("exhausted"));
+    }
+
+    /**
+     * Tests that exceptions other than conflicts are not retried.
+     */
+    @Test
+    void execute_otherException_notRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class,
+                () -> optimisticRetryService.execute("trip.updateStatus", () -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("A completed trip cannot be changed.");
+                }));
+
+        assertEquals(1, attempts.get());
+        verify(transactionManager, times(1)).rollback(any());
+        assertEquals(0L, operationStats("trip.updateStatus").get("conflicts"));
+    }
+
+    /**
+     * Tests that an operation called inside a running transaction joins it
+     * and is not retried.
+     */
+    @Test
+    void execute_insideTransaction_joinsWithoutRetry() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> optimisticRetryService.execute("profile.update", () -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Driver", 7);
+                }));
+
+        assertEquals(1, attempts.get());
+        verifyNoInteractions(transactionManager);
+        assertEquals(1L, operationStats("profile.update").get("exhausted"));
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> operationStats(String operation) {
+        Map<String, Object> operations = (Map<String, Object>) optimisticRetryService.getConflictStats().get("operations");
+        return (Map<String, Object>) operations.get(operation);
+    }
+}
@@ -1,21 +1,29 @@
 package com.cabbooking.service;
 
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.PasswordResetToken;
+import com.cabbooking.model.UserIdentity;
 import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
-import com.cabbooking.repository.PasswordResetTokenRepository;
+import com.cabbooking.security.ActionToken;
+import com.cabbooking.security.ActionTokenSigner;
+import com.cabbooking.security.ConsumedTokenGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import java.time.LocalDateTime;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.Duration;
+import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -23,15 +31,18 @@ import static org.mockito.Mockito.*;
  * Unit tests for PasswordResetServiceImpl.
  *
  * Tests cover functionality for password reset flows:
- * - Creating and sending password reset tokens
+ * - Creating and sending signed password reset tokens
  * - Handling invalid or non-existent emails
- * - Resetting passwords with valid, invalid, and expired tokens
+ * - Resetting passwords with valid, invalid, expired and used tokens
  *
  * Dependencies:
- * - AdminRepository, DriverRepository, CustomerRepository: Mocked to simulate database lookups
- * - PasswordResetTokenRepository: Mocked to simulate token creation, lookup, and deletion
+ * - AdminRepository, DriverRepository, CustomerRepository: Mocked to simulate the password update
+ * - IUserDirectoryService: Mocked to simulate finding the user
  * - IEmailService: Mocked to simulate sending password reset emails
  * - PasswordEncoder: Mocked to simulate password hashing
+ * - ConsumedTokenGuard: Mocked to simulate recording used tokens
+ * - PlatformTransactionManager: Mocked to check what runs in the reset transaction
+ * - ActionTokenSigner is real
  */
 @ExtendWith(MockitoExtension.class)
 public class PasswordResetServiceImplTest {
@@ -45,71 +56,78 @@ public class PasswordResetServiceImplTest {
     @Mock
     private DriverRepository driverRepository;
 
-    @Mock
-    private PasswordResetTokenRepository tokenRepository;
-
     @Mock
     private IEmailService emailService;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    @Spy
+    private ActionTokenSigner actionTokenSigner = new ActionTokenSigner();
+
+    @Mock
+    private ConsumedTokenGuard consumedTokenGuard;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private PasswordResetServiceImpl passwordResetService;
 
-    private Customer testCustomer;
+    private UserIdentity testCustomer;
 
     /**
      * Sets up common test data before each test.
-     * Initializes a Customer object with email and password.
+     * Initializes the signing key and a customer with a password hash.
      */
     @BeforeEach
     void setUp() {
-        testCustomer = new Customer();
-        testCustomer.setEmail("test@test.com");
-        testCustomer.setPassword("oldHashedPassword");
+        actionTokenSigner.init();
+        testCustomer = new UserIdentity("Customer", 3, "customer", "customer", "test@test.com",
+                "oldHashedPassword", true);
     }
 
     /**
      * Tests creating and sending a password reset token for a valid email.
      *
      * Workflow:
-     * - Mocks customer repository to return a test customer
-     * - Mocks email service to do nothing when sending email
+     * - Mocks the directory to return the test customer
      * - Calls createAndSendPasswordResetToken() with a valid email
-     * - Verifies that customer lookup, token saving, and email sending are performed
+     * - Verifies the email holds a reset token for the customer
      */
     @Test
-    void createAndSendPasswordResetToken_validEmail_sendsEmailAndSavesToken() {
-        when(customerRepository.findByEmail(anyString())).thenReturn(testCustomer);
-        doNothing().when(emailService).sendSimpleEmail(anyString(), anyString(), anyString());
+    void createAndSendPasswordResetToken_validEmail_sendsSignedToken() {
+        when(userDirectoryService.findByEmail("test@test.com")).thenReturn(Optional.of(testCustomer));
 
         passwordResetService.createAndSendPasswordResetToken("test@test.com");
 
-        verify(customerRepository, times(1)).findByEmail("test@test.com");
-        verify(tokenRepository, times(1)).save(any(PasswordResetToken.class));
-        verify(emailService, times(1)).sendSimpleEmail(anyString(), anyString(), anyString());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(emailService, times(1)).sendSimpleEmail(eq("test@test.com"), anyString(), message.capture());
+        String token = message.getValue().substring(message.getValue().indexOf("token=") + "token=".length());
+        ActionToken verified = actionTokenSigner.verify(token, ActionToken.Purpose.PASSWORD_RESET).orElseThrow();
+        assertEquals(3, verified.getUserId());
+        assertEquals(ActionTokenSigner.fingerprint("oldHashedPassword"), verified.getFingerprint());
     }
 
     /**
      * Tests that creating a password reset token for a non-existent email throws an exception.
      *
      * Workflow:
-     * - Mocks all repositories to return null for the given email
+     * - Mocks the directory to find nobody
      * - Asserts that createAndSendPasswordResetToken() throws IllegalStateException
-     * - Verifies that token saving and email sending are never performed
+     * - Verifies that no email is sent
      */
     @Test
     void createAndSendPasswordResetToken_emailNotFound_throwsIllegalStateException() {
-        when(customerRepository.findByEmail(anyString())).thenReturn(null);
-        when(adminRepository.findByEmail(anyString())).thenReturn(null);
-        when(driverRepository.findByEmail(anyString())).thenReturn(null);
+        when(userDirectoryService.findByEmail(anyString())).thenReturn(Optional.empty());
 
-        assertThrows(IllegalStateException.class, () -> 
+        assertThrows(IllegalStateException.class, () ->
             passwordResetService.createAndSendPasswordResetToken("nonexistent@test.com")
         );
 
-        verify(tokenRepository, never()).save(any(PasswordResetToken.class));
         verify(emailService, never()).sendSimpleEmail(anyString(), anyString(), anyString());
     }
 
@@ -117,61 +135,137 @@ public class PasswordResetServiceImplTest {
      * Tests resetting password with a valid, non-expired token.
      *
      * Workflow:
-     * - Mocks token repository to return a valid token
-     * - Mocks customer repository to return the test customer
+     * - Signs a token bound to the current password hash
      * - Mocks password encoder to return hashed new password
      * - Calls resetPassword() with valid token and new password
-     * - Asserts that password is updated, method returns true, and repositories are updated
+     * - Asserts the token is used up and the password is updated by ID in the
+     *   user table and the directory, all in one transaction
      */
     @Test
     void resetPassword_validToken_resetsPassword() {
-        PasswordResetToken validToken = new PasswordResetToken("validToken", LocalDateTime.now().plusHours(1), "test@test.com");
-        when(tokenRepository.findByToken("validToken")).thenReturn(validToken);
-        when(customerRepository.findByEmail("test@test.com")).thenReturn(testCustomer);
+        when(userDirectoryService.get("Customer", 3)).thenReturn(Optional.of(testCustomer));
         when(passwordEncoder.encode("newPassword")).thenReturn("newHashedPassword");
+        when(customerRepository.updatePassword(3, "newHashedPassword")).thenReturn(1);
 
-        boolean success = passwordResetService.resetPassword("validToken", "newPassword");
+        boolean success = passwordResetService.resetPassword(sign("oldHashedPassword", Duration.ofHours(1)), "newPassword");
 
         assertTrue(success);
-        assertEquals("newHashedPassword", testCustomer.getPassword());
-        verify(customerRepository, times(1)).save(testCustomer);
-        verify(tokenRepository, times(1)).delete(validToken);
+        InOrder inOrder = inOrder(passwordEncoder, transactionManager, consumedTokenGuard, customerRepository,
+                userDirectoryService);
+        inOrder.verify(passwordEncoder).encode("newPassword");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(consumedTokenGuard).consumeInTransaction(any(ActionToken.class));
+        inOrder.verify(customerRepository).updatePassword(3, "newHashedPassword");
+        inOrder.verify(userDirectoryService).updatePassword("Customer", 3, "newHashedPassword");
+        inOrder.verify(transactionManager).commit(any());
     }
 
     /**
-     * Tests resetting password with an invalid token.
+     * Tests that a failed password update leaves the token unused.
+     *
+     * Workflow:
+     * - Makes the password update fail after the token was marked as used
+     * - Asserts the failure is passed on and the whole transaction, with the
+     *   token's use, is rolled back
+     */
+    @Test
+    void resetPassword_updateFails_rollsBackTokenUse() {
+        when(userDirectoryService.get("Customer", 3)).thenReturn(Optional.of(testCustomer));
+        when(passwordEncoder.encode("newPassword")).thenReturn("newHashedPassword");
+        when(customerRepository.updatePassword(3, "newHashedPassword")).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () ->
+                passwordResetService.resetPassword(sign("oldHashedPassword", Duration.ofHours(1)), "newPassword"));
+
+        verify(consumedTokenGuard, times(1)).consumeInTransaction(any(ActionToken.class));
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    /**
+     * Tests resetting password twice with the same token.
+     *
+     * Workflow:
+     * - Resets the password once
+     * - Calls resetPassword() again with the same token
+     * - Asserts it returns false and the password is updated only once
+     */
+    @Test
+    void resetPassword_usedToken_returnsFalse() {
+        String token = sign("oldHashedPassword", Duration.ofHours(1));
+        when(userDirectoryService.get("Customer", 3)).thenReturn(Optional.of(testCustomer));
+        when(passwordEncoder.encode("newPassword")).thenReturn("newHashedPassword");
+        when(customerRepository.updatePassword(3, "newHashedPassword")).thenReturn(1);
+        // The unique key refuses the second use of the token
+        doNothing().doThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .when(consumedTokenGuard).consumeInTransaction(any(ActionToken.class));
+        passwordResetService.resetPassword(token, "newPassword");
+
+        boolean success = passwordResetService.resetPassword(token, "newPassword");
+
+        assertFalse(success);
+        verify(customerRepository, times(1)).updatePassword(anyInt(), anyString());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    /**
+     * Tests resetting password with a token issued before the password changed.
      *
      * Workflow:
-     * - Mocks token repository to return null for invalid token
+     * - Signs a token bound to an older password hash
      * - Calls resetPassword() and asserts it returns false
-     * - Verifies that customer is not saved
+     * - Verifies that the password is not updated
      */
     @Test
-    void resetPassword_invalidToken_returnsFalse() {
-        when(tokenRepository.findByToken("invalidToken")).thenReturn(null);
+    void resetPassword_passwordChangedSinceIssued_returnsFalse() {
+        when(userDirectoryService.get("Customer", 3)).thenReturn(Optional.of(testCustomer));
 
-        boolean success = passwordResetService.resetPassword("invalidToken", "newPassword");
+        boolean success = passwordResetService.resetPassword(sign("olderHashedPassword", Duration.ofHours(1)), "newPassword");
 
         assertFalse(success);
-        verify(customerRepository, never()).save(any(Customer.class));
+        verify(customerRepository, never()).updatePassword(anyInt(), anyString());
+    }
+
+    /**
+     * Tests resetting password with an invalid token.
+     *
+     * Workflow:
+     * - Calls resetPassword() with a token that is not signed, and with an
+     *   email verification token
+     * - Asserts it returns false
+     * - Verifies that the password is not updated
+     */
+    @Test
+    void resetPassword_invalidToken_returnsFalse() {
+        String verificationToken = actionTokenSigner.sign(ActionToken.Purpose.EMAIL_VERIFICATION, "Customer", 3,
+                null, Duration.ofHours(1));
+
+        assertFalse(passwordResetService.resetPassword("invalidToken", "newPassword"));
+        assertFalse(passwordResetService.resetPassword(verificationToken, "newPassword"));
+        verify(customerRepository, never()).updatePassword(anyInt(), anyString());
     }
 
     /**
      * Tests resetting password with an expired token.
      *
      * Workflow:
-     * - Mocks token repository to return an expired token
+     * - Signs a token that expired an hour ago
      * - Calls resetPassword() and asserts it returns false
-     * - Verifies that customer is not saved
+     * - Verifies that the password is not updated
      */
     @Test
     void resetPassword_expiredToken_returnsFalse() {
-        PasswordResetToken expiredToken = new PasswordResetToken("expiredToken", LocalDateTime.now().minusHours(1), "test@test.com");
-        when(tokenRepository.findByToken("expiredToken")).thenReturn(expiredToken);
-
-        boolean success = passwordResetService.resetPassword("expiredToken", "newPassword");
+        boolean success = passwordResetService.resetPassword(sign("oldHashedPassword", Duration.ofHours(-1)), "newPassword");
 
         assertFalse(success);
-        verify(customerRepository, never()).save(any(Customer.class));
+        verify(customerRepository, never()).updatePassword(anyInt(), anyString());
+    }
+
+    /*
+     * Helper method to sign a reset token for customer 3, bound to a password hash.
+     */
+    private String sign(String passwordHash, Duration validity) {
+        return actionTokenSigner.sign(ActionToken.Purpose.PASSWORD_RESET, "Customer", 3,
+                ActionTokenSigner.fingerprint(passwordHash), validity);
     }
 }
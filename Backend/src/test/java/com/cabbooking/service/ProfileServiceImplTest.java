@@ -14,7 +14,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -24,10 +26,11 @@ import static org.mockito.Mockito.*;
  * Tests cover user profile retrieval and update functionality:
  * - Retrieving profiles by username for Admin, Customer, and Driver
  * - Updating profiles for Customer and Driver
- * - Checking username availability across all repositories
+ * - Checking username availability and suggestions through the identity directory
  *
  * Dependencies:
  * - AdminRepository, CustomerRepository, DriverRepository: Mocked for database operations
+ * - IUserDirectoryService: Mocked to simulate the in-memory name index
  */
 @ExtendWith(MockitoExtension.class)
 public class ProfileServiceImplTest {
@@ -41,6 +44,12 @@ public class ProfileServiceImplTest {
     @Mock
     private DriverRepository driverRepository;
 
+    @Mock
+    private IOptimisticRetryService optimisticRetryService;
+
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
     @InjectMocks
     private ProfileServiceImpl profileService;
 
@@ -55,6 +64,10 @@ public class ProfileServiceImplTest {
      */
     @BeforeEach
     void setUp() {
+        // Runs every operation once, in place of the retrying transaction
+        lenient().when(optimisticRetryService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         testCustomer = new Customer();
         testCustomer.setId(1);
         testCustomer.setUsername("customeruser");
@@ -217,53 +230,33 @@ public class ProfileServiceImplTest {
     }
 
     /**
-     * Tests username existence in admin repository.
-     */
-    @Test
-    void isUsernameTaken_usernameExistsInAdminRepo_returnsTrue() {
-        when(adminRepository.existsByUsername("adminuser")).thenReturn(true);
-        boolean exists = profileService.isUsernameTaken("adminuser");
-        assertTrue(exists);
-        verify(adminRepository, times(1)).existsByUsername("adminuser");
-    }
-
-    /**
-     * Tests username existence in customer repository when not in admin.
+     * Tests that a taken username is answered by the identity directory without querying the user tables.
      */
     @Test
-    void isUsernameTaken_usernameExistsInCustomerRepo_returnsTrue() {
-        when(adminRepository.existsByUsername("customeruser")).thenReturn(false);
-        when(customerRepository.existsByUsername("customeruser")).thenReturn(true);
-        boolean exists = profileService.isUsernameTaken("customeruser");
+    void isUsernameTaken_usernameInDirectory_returnsTrueWithoutQuery() {
+        when(userDirectoryService.isUsernameTaken("driveruser")).thenReturn(true);
+        boolean exists = profileService.isUsernameTaken("driveruser");
         assertTrue(exists);
-        verify(adminRepository, times(1)).existsByUsername("customeruser");
-        verify(customerRepository, times(1)).existsByUsername("customeruser");
+        verifyNoInteractions(adminRepository, customerRepository, driverRepository);
     }
 
     /**
-     * Tests username existence in driver repository when not in admin or customer.
+     * Tests username not taken by any user.
      */
     @Test
-    void isUsernameTaken_usernameExistsInDriverRepo_returnsTrue() {
-        when(adminRepository.existsByUsername("driveruser")).thenReturn(false);
-        when(customerRepository.existsByUsername("driveruser")).thenReturn(false);
-        when(driverRepository.existsByUsername("driveruser")).thenReturn(true);
-        boolean exists = profileService.isUsernameTaken("driveruser");
-        assertTrue(exists);
-        verify(adminRepository, times(1)).existsByUsername("driveruser");
-        verify(customerRepository, times(1)).existsByUsername("driveruser");
-        verify(driverRepository, times(1)).existsByUsername("driveruser");
+    void isUsernameTaken_usernameDoesNotExist_returnsFalse() {
+        when(userDirectoryService.isUsernameTaken("newuser")).thenReturn(false);
+        boolean exists = profileService.isUsernameTaken("newuser");
+        assertFalse(exists);
     }
 
     /**
-     * Tests username not taken in any repository.
+     * Tests that username suggestions come from the identity directory.
      */
     @Test
-    void isUsernameTaken_usernameDoesNotExist_returnsFalse() {
-        when(adminRepository.existsByUsername("newuser")).thenReturn(false);
-        when(customerRepository.existsByUsername("newuser")).thenReturn(false);
-        when(driverRepository.existsByUsername("newuser")).thenReturn(false);
-        boolean exists = profileService.isUsernameTaken("newuser");
-        assertFalse(exists);
+    void suggestUsernames_delegatesToDirectory() {
+        when(userDirectoryService.suggestUsernames("driveruser", 3))
+                .thenReturn(List.of("driveruser1", "driveruser2", "driveruser3"));
+        assertEquals(List.of("driveruser1", "driveruser2", "driveruser3"), profileService.suggestUsernames("driveruser", 3));
     }
 }
@@ -0,0 +1,316 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.Cab;
+import com.cabbooking.model.DailyCarTypeRollup;
+import com.cabbooking.model.DailyDriverRollup;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.DailyCarTypeRollupRepository;
+import com.cabbooking.repository.DailyDriverRollupRepository;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RevenueRollupServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Creating missing rollup rows and incrementing them on trip completion
+ * - Skipping the existence check for rows already known to exist
+ * - Tolerating concurrent creation of the same rollup row
+ * - Adding ratings to the rollups
+ * - Re-creating a cached row that was deleted and retrying the increment
+ * - Rebuilding the rollups day by day from the live and archive aggregate
+ *   queries, with upserts instead of deletes
+ * - Skipping the rebuild while another instance holds its lock
+ */
+@ExtendWith(MockitoExtension.class)
+public class RevenueRollupServiceImplTest {
+
+    @Mock
+    private DailyCarTypeRollupRepository carTypeRollupRepository;
+    @Mock
+    private DailyDriverRollupRepository driverRollupRepository;
+    @Mock
+    private TripBookingRepository tripBookingRepository;
+    @Mock
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private IJobLockService jobLockService;
+
+    @InjectMocks
+    private RevenueRollupServiceImpl revenueRollupService;
+
+    private TripBooking completedTrip;
+    private LocalDate day;
+
+    /**
+     * Initializes a completed trip with a driver and a cab.
+     */
+    @BeforeEach
+    void setUp() {
+        Cab cab = new Cab();
+        cab.setCabId(1);
+        cab.setCarType("Sedan");
+
+        Driver driver = new Driver();
+        driver.setId(7);
+        driver.setCab(cab);
+
+        completedTrip = new TripBooking();
+        completedTrip.setTripBookingId(1);
+        completedTrip.setDriver(driver);
+        completedTrip.setCab(cab);
+        completedTrip.setCarType("Sedan");
+        completedTrip.setStatus(TripStatus.COMPLETED);
+        completedTrip.setDistanceInKm(12.0f);
+        completedTrip.setBill(120.0f);
+        completedTrip.setToDateTime(LocalDateTime.of(2025, 3, 14, 18, 30));
+
+        day = LocalDate.of(2025, 3, 14);
+    }
+
+    /**
+     * Tests that the first completion of the day creates both rollup rows and
+     * then increments them.
+     */
+    @Test
+    void recordCompletedTrip_firstTripOfDay_createsRowsAndIncrements() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(false);
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(false);
+        stubCompletedTripUpdates(1);
+
+        revenueRollupService.recordCompletedTrip(completedTrip);
+
+        verify(carTypeRollupRepository, times(1)).saveAndFlush(any(DailyCarTypeRollup.class));
+        verify(driverRollupRepository, times(1)).saveAndFlush(any(DailyDriverRollup.class));
+        verify(carTypeRollupRepository, times(1)).addCompletedTrip(day, "Sedan", 120.0, 12.0);
+        verify(driverRollupRepository, times(1)).addCompletedTrip(day, 7, 120.0, 12.0);
+    }
+
+    /**
+     * Tests that rows known to exist are not checked again for later trips.
+     */
+    @Test
+    void recordCompletedTrip_secondTripOfDay_skipsExistenceCheck() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(true);
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(true);
+        stubCompletedTripUpdates(1);
+
+        revenueRollupService.recordCompletedTrip(completedTrip);
+        revenueRollupService.recordCompletedTrip(completedTrip);
+
+        verify(carTypeRollupRepository, times(1)).existsByRollupDateAndCarType(day, "Sedan");
+        verify(driverRollupRepository, times(1)).existsByRollupDateAndDriverId(day, 7);
+        verify(carTypeRollupRepository, never()).saveAndFlush(any(DailyCarTypeRollup.class));
+        verify(carTypeRollupRepository, times(2)).addCompletedTrip(day, "Sedan", 120.0, 12.0);
+        verify(driverRollupRepository, times(2)).addCompletedTrip(day, 7, 120.0, 12.0);
+    }
+
+    /**
+     * Tests that a duplicate key from a concurrent creation does not fail the
+     * completion.
+     */
+    @Test
+    void recordCompletedTrip_rowCreatedConcurrently_stillIncrements() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(false);
+        when(carTypeRollupRepository.saveAndFlush(any(DailyCarTypeRollup.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(true);
+        stubCompletedTripUpdates(1);
+
+        assertDoesNotThrow(() -> revenueRollupService.recordCompletedTrip(completedTrip));
+
+        verify(carTypeRollupRepository, times(1)).addCompletedTrip(day, "Sedan", 120.0, 12.0);
+        verify(driverRollupRepository, times(1)).addCompletedTrip(day, 7, 120.0, 12.0);
+    }
+
+    /**
+     * Tests that a rating is added to the rollups of the completion day.
+     */
+    @Test
+    void recordRating_addsRatingToBothRollups() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(true);
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(true);
+        when(carTypeRollupRepository.addRating(day, "Sedan", 4)).thenReturn(1);
+        when(driverRollupRepository.addRating(day, 7, 4)).thenReturn(1);
+
+        revenueRollupService.recordRating(completedTrip, 4);
+
+        verify(carTypeRollupRepository, times(1)).addRating(day, "Sedan", 4);
+        verify(driverRollupRepository, times(1)).addRating(day, 7, 4);
+    }
+
+    /**
+     * Tests that a cached row deleted in the meantime (e.g. removed by hand)
+     * is created again and the increment retried.
+     */
+    @Test
+    void recordCompletedTrip_cachedRowDeleted_recreatesRowAndRetries() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(true, false);
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(true);
+        when(carTypeRollupRepository.addCompletedTrip(day, "Sedan", 120.0, 12.0)).thenReturn(1, 0, 1);
+        when(driverRollupRepository.addCompletedTrip(day, 7, 120.0, 12.0)).thenReturn(1);
+
+        revenueRollupService.recordCompletedTrip(completedTrip);
+        revenueRollupService.recordCompletedTrip(completedTrip);
+
+        verify(carTypeRollupRepository, times(2)).existsByRollupDateAndCarType(day, "Sedan");
+        verify(carTypeRollupRepository, times(1)).saveAndFlush(any(DailyCarTypeRollup.class));
+        verify(carTypeRollupRepository, times(3)).addCompletedTrip(day, "Sedan", 120.0, 12.0);
+        verify(driverRollupRepository, times(1)).existsByRollupDateAndDriverId(day, 7);
+        verify(driverRollupRepository, times(2)).addCompletedTrip(day, 7, 120.0, 12.0);
+    }
+
+    /**
+     * Tests that an increment which still updates no row after the retry does
+     * not fail the rating and is not retried again.
+     */
+    @Test
+    void recordRating_rowStillMissingAfterRetry_doesNotFail() {
+        when(carTypeRollupRepository.existsByRollupDateAndCarType(day, "Sedan")).thenReturn(true);
+        when(driverRollupRepository.existsByRollupDateAndDriverId(day, 7)).thenReturn(true);
+        when(carTypeRollupRepository.addRating(day, "Sedan", 4)).thenReturn(0);
+        when(driverRollupRepository.addRating(day, 7, 4)).thenReturn(1);
+
+        assertDoesNotThrow(() -> revenueRollupService.recordRating(completedTrip, 4));
+
+        verify(carTypeRollupRepository, times(2)).existsByRollupDateAndCarType(day, "Sedan");
+        verify(carTypeRollupRepository, times(2)).addRating(day, "Sedan", 4);
+        verify(driverRollupRepository, times(1)).addRating(day, 7, 4);
+    }
+
+    /**
+     * Tests that the rebuild overwrites the rows of each day with the
+     * aggregated figures of live and archived trips, zeroes rows without
+     * trips and inserts missing rows, without deleting any.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildRollups_upsertsRowsWithLiveAndArchivedAggregates() {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        runRebuildJob(true);
+        DailyCarTypeRollup staleSuv = new DailyCarTypeRollup(day, "SUV");
+        staleSuv.setTripCount(5);
+        staleSuv.setTotalBill(500.0);
+        DailyDriverRollup staleDriver = new DailyDriverRollup(day, 7);
+        staleDriver.setTripCount(9);
+        staleDriver.setRatingSum(40);
+        when(tripBookingRepository.findCompletionDays(TripStatus.COMPLETED)).thenReturn(List.of(day));
+        when(tripBookingArchiveRepository.findCompletionDays(TripStatus.COMPLETED)).thenReturn(List.of(day));
+        when(carTypeRollupRepository.findRollupDates()).thenReturn(List.of(day));
+        when(driverRollupRepository.findRollupDates()).thenReturn(List.of(day));
+        when(carTypeRollupRepository.findByRollupDate(day)).thenReturn(List.of(staleSuv));
+        when(driverRollupRepository.findByRollupDate(day)).thenReturn(List.of(staleDriver));
+        Object[] liveCarTypeRow = {day, "Sedan", 3L, 360.0, 36.0, 9L, 2L};
+        Object[] archivedCarTypeRow = {day, "Sedan", 1L, 40.0, 4.0, 3L, 1L};
+        Object[] driverRow = {day, 7, 3L, 360.0, 36.0, null, 0L};
+        when(tripBookingRepository.aggregateByDayAndCarType(TripStatus.COMPLETED, from, to))
+                .thenReturn(Collections.singletonList(liveCarTypeRow));
+        when(tripBookingArchiveRepository.aggregateByDayAndCarType(TripStatus.COMPLETED, from, to))
+                .thenReturn(Collections.singletonList(archivedCarTypeRow));
+        when(tripBookingRepository.aggregateByDayAndDriver(TripStatus.COMPLETED, from, to))
+                .thenReturn(Collections.singletonList(driverRow));
+
+        assertTrue(revenueRollupService.rebuildRollups());
+
+        verify(carTypeRollupRepository, never()).deleteAllInBatch();
+        verify(driverRollupRepository, never()).deleteAllInBatch();
+        verify(carTypeRollupRepository, times(1)).findByRollupDate(day);
+
+        ArgumentCaptor<Iterable<DailyCarTypeRollup>> carTypeCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(carTypeRollupRepository).saveAll(carTypeCaptor.capture());
+        List<DailyCarTypeRollup> carTypeRollups = new ArrayList<>();
+        carTypeCaptor.getValue().forEach(carTypeRollups::add);
+        assertEquals(2, carTypeRollups.size());
+        assertSame(staleSuv, carTypeRollups.get(0));
+        assertEquals(0L, staleSuv.getTripCount());
+        assertEquals(0.0, staleSuv.getTotalBill());
+        DailyCarTypeRollup carTypeRollup = carTypeRollups.get(1);
+        assertEquals("Sedan", carTypeRollup.getCarType());
+        assertEquals(4L, carTypeRollup.getTripCount());
+        assertEquals(400.0, carTypeRollup.getTotalBill());
+        assertEquals(4.0, carTypeRollup.getAverageRating());
+
+        ArgumentCaptor<Iterable<DailyDriverRollup>> driverCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(driverRollupRepository).saveAll(driverCaptor.capture());
+        DailyDriverRollup driverRollup = driverCaptor.getValue().iterator().next();
+        assertSame(staleDriver, driverRollup);
+        assertEquals(3L, driverRollup.getTripCount());
+        assertEquals(0L, driverRollup.getRatingSum());
+        assertEquals(0.0, driverRollup.getAverageRating());
+    }
+
+    /**
+     * Tests that a day whose row was created concurrently is rebuilt again.
+     */
+    @Test
+    void rebuildRollups_rowCreatedConcurrently_rebuildsDayAgain() {
+        runRebuildJob(true);
+        when(tripBookingRepository.findCompletionDays(TripStatus.COMPLETED)).thenReturn(List.of(day));
+        when(carTypeRollupRepository.saveAll(anyCollection()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(List.of());
+
+        assertTrue(revenueRollupService.rebuildRollups());
+
+        verify(carTypeRollupRepository, times(2)).findByRollupDate(day);
+        verify(driverRollupRepository, times(1)).saveAll(anyCollection());
+    }
+
+    /**
+     * Tests that the rebuild is skipped while another instance holds its
+     * lock.
+     */
+    @Test
+    void rebuildRollups_lockedElsewhere_skipsRebuild() {
+        runRebuildJob(false);
+
+        assertFalse(revenueRollupService.rebuildRollups());
+
+        verifyNoInteractions(tripBookingRepository, tripBookingArchiveRepository);
+        verify(carTypeRollupRepository, never()).saveAll(any());
+    }
+
+    /*
+     * Helper method to make the job lock run the rebuild, or refuse it as if
+     * another instance held the lock.
+     */
+    private void runRebuildJob(boolean lockFree) {
+        when(jobLockService.runExclusively(eq("rollup.rebuild"), any(), any(), any())).thenAnswer(invocation -> {
+            if (lockFree) {
+                invocation.<Runnable>getArgument(3).run();
+            }
+            return lockFree;
+        });
+    }
+
+    /*
+     * Helper method to make the completion increments update the given
+     * number of rows.
+     */
+    private void stubCompletedTripUpdates(int rows) {
+        when(carTypeRollupRepository.addCompletedTrip(day, "Sedan", 120.0, 12.0)).thenReturn(rows);
+        when(driverRollupRepository.addCompletedTrip(day, 7, 120.0, 12.0)).thenReturn(rows);
+    }
+}
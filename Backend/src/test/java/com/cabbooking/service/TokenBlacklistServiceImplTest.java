@@ -0,0 +1,160 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.BlacklistedToken;
+import com.cabbooking.repository.BlacklistedTokenRepository;
+import com.cabbooking.security.JwtUtil;
+import com.cabbooking.security.TokenDigest;
+import com.cabbooking.security.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenBlacklistServiceImpl.
+ *
+ * Tests cover:
+ * - load(): unexpired rows are loaded and old rows converted to digests
+ * - blacklist(): the token is rejected at once and saved
+ * - sync(): tokens blacklisted by other instances are picked up
+ * - purgeExpired(): expired rows are deleted
+ *
+ * Dependencies:
+ * - BlacklistedTokenRepository and JwtUtil are mocked.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenBlacklistServiceImplTest {
+
+    @Mock
+    private BlacklistedTokenRepository blacklistedTokenRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private TokenBlacklistServiceImpl tokenBlacklistService;
+
+    @BeforeEach
+    void setUp() {
+        when(blacklistedTokenRepository.findByTokenHashIsNull()).thenReturn(List.of());
+    }
+
+    /**
+     * Test: load
+     * Scenario: The table holds an unexpired token
+     * Expected: The token is blacklisted from startup
+     */
+    @Test
+    void load_unexpiredRow_isBlacklisted() {
+        String digest = TokenDigest.of("a.b.c");
+        when(blacklistedTokenRepository.findByExpiresAtAfter(any()))
+                .thenReturn(List.of(new BlacklistedToken(digest, LocalDateTime.now().plusHours(1), LocalDateTime.now())));
+
+        tokenBlacklistService.load();
+
+        assertTrue(tokenBlacklistService.isBlacklisted(digest));
+        assertFalse(tokenBlacklistService.isBlacklisted(TokenDigest.of("a.b.d")));
+    }
+
+    /**
+     * Test: load
+     * Scenario: A row written before tokens were stored as digests
+     * Expected: The token is replaced by its digest and kept for the full token lifetime
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void load_legacyRow_isConvertedToDigest() {
+        BlacklistedToken legacy = new BlacklistedToken();
+        legacy.setToken("a.b.c");
+        when(blacklistedTokenRepository.findByTokenHashIsNull()).thenReturn(List.of(legacy));
+        when(jwtUtil.getExpirationInMs()).thenReturn(3_600_000L);
+
+        tokenBlacklistService.load();
+
+        ArgumentCaptor<List<BlacklistedToken>> captor = ArgumentCaptor.forClass(List.class);
+        verify(blacklistedTokenRepository).saveAll(captor.capture());
+        BlacklistedToken converted = captor.getValue().get(0);
+        assertNull(converted.getToken());
+        assertEquals(TokenDigest.of("a.b.c"), converted.getTokenHash());
+        assertTrue(converted.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(59)));
+    }
+
+    /**
+     * Test: blacklist
+     * Scenario: A valid token is logged out
+     * Expected: It is blacklisted at once and saved with its digest and expiry
+     */
+    @Test
+    void blacklist_validToken_isBlacklistedAndSaved() {
+        tokenBlacklistService.load();
+        when(jwtUtil.verify("a.b.c")).thenReturn(new VerifiedToken("user", List.of(), Instant.now().plusSeconds(3600)));
+
+        tokenBlacklistService.blacklist("a.b.c");
+
+        assertTrue(tokenBlacklistService.isBlacklisted(TokenDigest.of("a.b.c")));
+        ArgumentCaptor<BlacklistedToken> captor = ArgumentCaptor.forClass(BlacklistedToken.class);
+        verify(blacklistedTokenRepository).save(captor.capture());
+        assertEquals(TokenDigest.of("a.b.c"), captor.getValue().getTokenHash());
+        assertNull(captor.getValue().getToken());
+        assertNotNull(captor.getValue().getExpiresAt());
+    }
+
+    /**
+     * Test: blacklist
+     * Scenario: The token has already expired
+     * Expected: Nothing is saved
+     */
+    @Test
+    void blacklist_expiredToken_isIgnored() {
+        tokenBlacklistService.load();
+        when(jwtUtil.verify("a.b.c")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+
+        tokenBlacklistService.blacklist("a.b.c");
+
+        verify(blacklistedTokenRepository, never()).save(any());
+    }
+
+    /**
+     * Test: sync
+     * Scenario: Another instance blacklisted a token after startup
+     * Expected: The token is blacklisted here after the next poll
+     */
+    @Test
+    void sync_rowFromOtherInstance_isBlacklisted() {
+        tokenBlacklistService.load();
+        String digest = TokenDigest.of("a.b.c");
+        when(blacklistedTokenRepository.findByBlacklistedAtGreaterThanEqual(any()))
+                .thenReturn(List.of(new BlacklistedToken(digest, LocalDateTime.now().plusHours(1), LocalDateTime.now())));
+
+        assertFalse(tokenBlacklistService.isBlacklisted(digest));
+        tokenBlacklistService.sync();
+
+        assertTrue(tokenBlacklistService.isBlacklisted(digest));
+    }
+
+    /**
+     * Test: purgeExpired
+     * Scenario: The table holds expired rows
+     * Expected: They are deleted and the count is returned
+     */
+    @Test
+    void purgeExpired_deletesExpiredRows() {
+        tokenBlacklistService.load();
+        when(blacklistedTokenRepository.deleteExpired(any())).thenReturn(3);
+
+        assertEquals(3, tokenBlacklistService.purgeExpired());
+        assertEquals(0, tokenBlacklistService.getStatus().get("tokens"));
+    }
+}
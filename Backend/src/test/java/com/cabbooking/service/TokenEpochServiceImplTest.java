@@ -0,0 +1,224 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.TokenEpoch;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.repository.TokenEpochRepository;
+import com.cabbooking.security.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenEpochServiceImpl.
+ *
+ * Tests cover:
+ * - load(): stored epochs revoke older tokens from startup
+ * - revoke(): the epoch is raised with one update, a missing row is created
+ *   first, and the map is updated only once the transaction commits
+ * - currentEpoch(): the epoch is read from the table, not only from memory
+ * - isRevoked(): tokens at the current epoch and tokens without a user ID pass
+ * - sync(): epochs raised by other instances are picked up
+ *
+ * Dependencies:
+ * - TokenEpochRepository and PlatformTransactionManager are mocked.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenEpochServiceImplTest {
+
+    @Mock
+    private TokenEpochRepository tokenEpochRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TokenEpochServiceImpl tokenEpochService;
+
+    /**
+     * Test: load
+     * Scenario: The table holds epoch 2 for a driver
+     * Expected: The driver's tokens below epoch 2 are revoked, other users' tokens are not
+     */
+    @Test
+    void load_storedEpoch_revokesOlderTokens() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of(new TokenEpoch("Driver", 5, 2, LocalDateTime.now())));
+
+        tokenEpochService.load();
+
+        assertTrue(tokenEpochService.isRevoked(token("Driver", 5, 1)));
+        assertFalse(tokenEpochService.isRevoked(token("Driver", 5, 2)));
+        assertFalse(tokenEpochService.isRevoked(token("Customer", 5, 0)));
+    }
+
+    /**
+     * Test: revoke
+     * Scenario: A user whose tokens were never revoked logs out
+     * Expected: A row is created at epoch 0, raised to 1, and the epoch is 1 at once
+     */
+    @Test
+    void revoke_newUser_createsRowAndRaisesEpoch() {
+        UserIdentity.Key key = new UserIdentity.Key("Customer", 7);
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.raise(eq("Customer"), eq(7), eq(0), any(LocalDateTime.class))).thenReturn(0, 1);
+        when(tokenEpochRepository.findById(key))
+                .thenReturn(Optional.of(new TokenEpoch("Customer", 7, 1, LocalDateTime.now())));
+        tokenEpochService.load();
+
+        int epoch = tokenEpochService.revoke("Customer", 7);
+
+        assertEquals(1, epoch);
+        assertTrue(tokenEpochService.isRevoked(token("Customer", 7, 0)));
+        ArgumentCaptor<TokenEpoch> captor = ArgumentCaptor.forClass(TokenEpoch.class);
+        verify(tokenEpochRepository).saveAndFlush(captor.capture());
+        assertEquals(0, captor.getValue().getEpoch());
+        assertTrue(captor.getValue().isNew());
+        verify(tokenEpochRepository, times(2)).raise(eq("Customer"), eq(7), eq(0), any(LocalDateTime.class));
+    }
+
+    /**
+     * Test: revoke
+     * Scenario: Another revocation creates the user's row at the same time
+     * Expected: The duplicate key is ignored and the existing row is raised
+     */
+    @Test
+    void revoke_rowCreatedConcurrently_raisesExistingRow() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.raise(eq("Driver"), eq(3), eq(0), any(LocalDateTime.class))).thenReturn(0, 1);
+        when(tokenEpochRepository.saveAndFlush(any(TokenEpoch.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(tokenEpochRepository.findById(new UserIdentity.Key("Driver", 3)))
+                .thenReturn(Optional.of(new TokenEpoch("Driver", 3, 2, LocalDateTime.now())));
+        tokenEpochService.load();
+
+        assertEquals(2, tokenEpochService.revoke("Driver", 3));
+        assertEquals(2, tokenEpochService.currentEpoch("Driver", 3));
+    }
+
+    /**
+     * Test: revoke
+     * Scenario: The stored epoch is ahead of the one in memory
+     * Expected: The new epoch is the one stored by the update
+     */
+    @Test
+    void revoke_storedEpochAhead_raisesAboveStored() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.raise(eq("Admin"), eq(1), eq(0), any(LocalDateTime.class))).thenReturn(1);
+        when(tokenEpochRepository.findById(any()))
+                .thenReturn(Optional.of(new TokenEpoch("Admin", 1, 5, LocalDateTime.now())));
+        tokenEpochService.load();
+
+        assertEquals(5, tokenEpochService.revoke("Admin", 1));
+        assertEquals(5, tokenEpochService.currentEpoch("Admin", 1));
+        verify(tokenEpochRepository, never()).saveAndFlush(any(TokenEpoch.class));
+    }
+
+    /**
+     * Test: revoke
+     * Scenario: The revocation runs in a transaction
+     * Expected: The epoch in memory is only raised after the commit
+     */
+    @Test
+    void revoke_inTransaction_updatesMapAfterCommit() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.raise(eq("Customer"), eq(8), eq(0), any(LocalDateTime.class))).thenReturn(1);
+        when(tokenEpochRepository.findById(any()))
+                .thenReturn(Optional.of(new TokenEpoch("Customer", 8, 3, LocalDateTime.now())));
+        tokenEpochService.load();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenEpochService.revoke("Customer", 8);
+            assertFalse(tokenEpochService.isRevoked(token("Customer", 8, 2)));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(tokenEpochService.isRevoked(token("Customer", 8, 2)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test: currentEpoch
+     * Scenario: Another instance raised a driver's epoch, and this instance has not polled it yet
+     * Expected: The stored epoch is returned and revokes older tokens here at once
+     */
+    @Test
+    void currentEpoch_epochRaisedElsewhere_readsStoredEpoch() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.findById(new UserIdentity.Key("Driver", 4)))
+                .thenReturn(Optional.of(new TokenEpoch("Driver", 4, 3, LocalDateTime.now())));
+        tokenEpochService.load();
+
+        assertEquals(3, tokenEpochService.currentEpoch("Driver", 4));
+        assertTrue(tokenEpochService.isRevoked(token("Driver", 4, 2)));
+    }
+
+    /**
+     * Test: currentEpoch
+     * Scenario: A user whose tokens were never revoked logs in
+     * Expected: The epoch is 0
+     */
+    @Test
+    void currentEpoch_noRow_returnsZero() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        when(tokenEpochRepository.findById(new UserIdentity.Key("Customer", 6))).thenReturn(Optional.empty());
+        tokenEpochService.load();
+
+        assertEquals(0, tokenEpochService.currentEpoch("Customer", 6));
+    }
+
+    /**
+     * Test: isRevoked
+     * Scenario: A token issued without a user ID
+     * Expected: It is never revoked by epoch
+     */
+    @Test
+    void isRevoked_tokenWithoutUserId_returnsFalse() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        tokenEpochService.load();
+
+        assertFalse(tokenEpochService.isRevoked(
+                new VerifiedToken("customer", List.of(), Instant.now().plusSeconds(3600))));
+    }
+
+    /**
+     * Test: sync
+     * Scenario: Another instance raised the epoch of a customer
+     * Expected: The customer's older tokens are revoked on this instance too
+     */
+    @Test
+    void sync_epochRaisedElsewhere_isPickedUp() {
+        when(tokenEpochRepository.findAll()).thenReturn(List.of());
+        tokenEpochService.load();
+        when(tokenEpochRepository.findByChangedAtGreaterThanEqual(any()))
+                .thenReturn(List.of(new TokenEpoch("Customer", 9, 1, LocalDateTime.now())));
+
+        tokenEpochService.sync();
+
+        assertTrue(tokenEpochService.isRevoked(token("Customer", 9, 0)));
+    }
+
+    /*
+     * Helper method to build a verified token of a user at an epoch.
+     */
+    private VerifiedToken token(String userType, Integer userId, int epoch) {
+        return new VerifiedToken("user", List.of(), Instant.now().plusSeconds(3600), userType, userId, epoch);
+    }
+}
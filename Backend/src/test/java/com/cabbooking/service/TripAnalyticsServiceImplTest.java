@@ -0,0 +1,210 @@
+package com.cabbooking.service;
+
+import com.cabbooking.analytics.AnalyticsDimension;
+import com.cabbooking.dto.TripAnalyticsQuery;
+import com.cabbooking.dto.TripAnalyticsResult;
+import com.cabbooking.dto.TripAnalyticsRow;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TripAnalyticsServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Loading the column store from projection rows
+ * - Filtering and grouping by one and two dimensions
+ * - Live updates (completion followed by rating) without duplicates
+ * - Rejecting queries before the store is loaded and invalid groupings
+ */
+@ExtendWith(MockitoExtension.class)
+public class TripAnalyticsServiceImplTest {
+
+    @Mock
+    private TripBookingRepository tripBookingRepository;
+    @Mock
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+    @Mock
+    private ITripArchiveService tripArchiveService;
+
+    @InjectMocks
+    private TripAnalyticsServiceImpl tripAnalyticsService;
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    private static Object[] row(int id, int hour, TripStatus status, String carType, Integer driverId,
+            float bill, Integer rating) {
+        return new Object[] {id, DAY.atTime(hour, 15), status, carType, driverId, bill, 10.0f, rating};
+    }
+
+    /*
+     * Helper method to load the store with a fixed set of trips.
+     */
+    private void loadStore() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1, 8, TripStatus.COMPLETED, "Sedan", 1, 100f, 5));
+        rows.add(row(2, 8, TripStatus.COMPLETED, "Sedan", 2, 150f, 3));
+        rows.add(row(3, 9, TripStatus.COMPLETED, "SUV", 1, 300f, null));
+        rows.add(row(4, 9, TripStatus.CANCELLED, "Sedan", null, 0f, null));
+        when(tripArchiveService.getArchiveCutoff()).thenReturn(DAY.minusDays(180).atStartOfDay());
+        when(tripBookingRepository.findAnalyticsRowsAfter(eq(0), anyCollection(), any(Pageable.class)))
+                .thenReturn(rows);
+        tripAnalyticsService.reload();
+    }
+
+    private TripAnalyticsQuery query(AnalyticsDimension... groupBy) {
+        TripAnalyticsQuery query = new TripAnalyticsQuery();
+        query.setFrom(DAY);
+        query.setTo(DAY);
+        query.setGroupBy(List.of(groupBy));
+        return query;
+    }
+
+    /**
+     * Tests a query without grouping returns the totals of all trips.
+     */
+    @Test
+    void query_noGrouping_returnsTotals() {
+        loadStore();
+
+        TripAnalyticsResult result = tripAnalyticsService.query(query());
+
+        assertEquals(1, result.getRows().size());
+        TripAnalyticsRow total = result.getRows().get(0);
+        assertEquals(4, total.getTripCount());
+        assertEquals(550.0, total.getTotalBill(), 0.001);
+        assertEquals(4.0, total.getAverageRating(), 0.001);
+        assertEquals(4, result.getScannedTrips());
+    }
+
+    /**
+     * Tests filtering by status and grouping by car type and hour.
+     */
+    @Test
+    void query_completedByCarTypeAndHour_groupsCorrectly() {
+        loadStore();
+        TripAnalyticsQuery query = query(AnalyticsDimension.CAR_TYPE, AnalyticsDimension.HOUR);
+        query.setStatuses(List.of(TripStatus.COMPLETED));
+
+        TripAnalyticsResult result = tripAnalyticsService.query(query);
+
+        assertEquals(2, result.getRows().size());
+        TripAnalyticsRow sedan = result.getRows().get(0);
+        assertEquals("Sedan", sedan.getGroup().get("CAR_TYPE"));
+        assertEquals("08:00", sedan.getGroup().get("HOUR"));
+        assertEquals(2, sedan.getTripCount());
+        TripAnalyticsRow suv = result.getRows().get(1);
+        assertEquals("SUV", suv.getGroup().get("CAR_TYPE"));
+        assertNull(suv.getAverageRating());
+    }
+
+    /**
+     * Tests that the car type filter is case-insensitive and the driver filter applies.
+     */
+    @Test
+    void query_carTypeAndDriverFilter_matchesOnlyThoseTrips() {
+        loadStore();
+        TripAnalyticsQuery query = query(AnalyticsDimension.DRIVER);
+        query.setCarTypes(List.of("sedan"));
+        query.setDriverId(1);
+
+        TripAnalyticsResult result = tripAnalyticsService.query(query);
+
+        assertEquals(1, result.getRows().size());
+        assertEquals("1", result.getRows().get(0).getGroup().get("DRIVER"));
+        assertEquals(1, result.getRows().get(0).getTripCount());
+    }
+
+    /**
+     * Tests that a completed trip and its later rating end up as one row.
+     */
+    @Test
+    void recordTrip_completionThenRating_updatesSingleRow() {
+        loadStore();
+        Driver driver = new Driver();
+        driver.setId(3);
+        TripBooking trip = new TripBooking();
+        trip.setTripBookingId(5);
+        trip.setDriver(driver);
+        trip.setCarType("Sedan");
+        trip.setStatus(TripStatus.COMPLETED);
+        trip.setFromDateTime(DAY.atTime(10, 0));
+        trip.setToDateTime(DAY.atTime(10, 30));
+        trip.setBill(200f);
+
+        tripAnalyticsService.recordTrip(trip);
+        trip.setCustomerRating(4);
+        tripAnalyticsService.recordTrip(trip);
+
+        TripAnalyticsQuery query = query();
+        query.setDriverId(3);
+        TripAnalyticsResult result = tripAnalyticsService.query(query);
+
+        assertEquals(1, result.getRows().get(0).getTripCount());
+        assertEquals(4.0, result.getRows().get(0).getAverageRating(), 0.001);
+    }
+
+    /**
+     * Tests that queries are rejected until the first load has completed.
+     */
+    @Test
+    void query_beforeLoad_throwsIllegalState() {
+        assertThrows(IllegalStateException.class, () -> tripAnalyticsService.query(query()));
+    }
+
+    /**
+     * Tests that more than two group-by dimensions are rejected.
+     */
+    @Test
+    void query_tooManyDimensions_throwsIllegalArgument() {
+        when(tripArchiveService.getArchiveCutoff()).thenReturn(DAY.minusDays(180).atStartOfDay());
+        when(tripBookingRepository.findAnalyticsRowsAfter(eq(0), anyCollection(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        tripAnalyticsService.reload();
+
+        assertThrows(IllegalArgumentException.class, () -> tripAnalyticsService.query(
+                query(AnalyticsDimension.CAR_TYPE, AnalyticsDimension.HOUR, AnalyticsDimension.DAY)));
+    }
+
+    /**
+     * Tests that archived trips are loaded, and an old trip found in both the
+     * live and the archive table (moved during the load) is counted once.
+     */
+    @Test
+    void reload_includesArchivedTripsWithoutDuplicates() {
+        LocalDate oldDay = DAY.minusDays(200);
+        Object[] oldLiveRow = {10, oldDay.atTime(12, 0), TripStatus.COMPLETED, "Sedan", 1, 80f, 5.0f, null};
+        List<Object[]> archivedRows = List.of(
+                new Object[] {10, oldDay.atTime(12, 0), TripStatus.COMPLETED, "Sedan", 1, 80f, 5.0f, null},
+                new Object[] {11, oldDay.atTime(13, 0), TripStatus.COMPLETED, "Sedan", 2, 90f, 5.0f, 4});
+        when(tripArchiveService.getArchiveCutoff()).thenReturn(DAY.minusDays(180).atStartOfDay());
+        when(tripBookingRepository.findAnalyticsRowsAfter(eq(0), anyCollection(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(oldLiveRow));
+        when(tripBookingArchiveRepository.findAnalyticsRowsAfter(eq(0), any(Pageable.class)))
+                .thenReturn(archivedRows);
+        tripAnalyticsService.reload();
+
+        TripAnalyticsQuery query = new TripAnalyticsQuery();
+        query.setFrom(oldDay);
+        query.setTo(oldDay);
+        TripAnalyticsResult result = tripAnalyticsService.query(query);
+
+        assertEquals(2, result.getRows().get(0).getTripCount());
+        assertEquals(170.0, result.getRows().get(0).getTotalBill(), 0.001);
+    }
+}
@@ -0,0 +1,160 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripBookingArchive;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripBookingArchiveRepository;
+import com.cabbooking.repository.TripBookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TripArchiveServiceImpl.
+ *
+ * Covers scenarios for:
+ * - Moving a batch of old trips into the archive with denormalized names
+ * - Continuing with the next batch while batches are full
+ * - Leaving a trip that changed while being archived in the live table
+ * - Doing nothing when no trip is old enough
+ */
+@ExtendWith(MockitoExtension.class)
+public class TripArchiveServiceImplTest {
+
+    @Mock
+    private TripBookingRepository tripBookingRepository;
+    @Mock
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TripArchiveServiceImpl tripArchiveService;
+
+    private TripBooking oldTrip(int id) {
+        Customer customer = new Customer();
+        customer.setId(1);
+        customer.setFirstName("Asha");
+        Driver driver = new Driver();
+        driver.setId(2);
+        driver.setFirstName("Ravi");
+
+        TripBooking trip = new TripBooking();
+        trip.setTripBookingId(id);
+        trip.setCustomer(customer);
+        trip.setDriver(driver);
+        trip.setStatus(TripStatus.COMPLETED);
+        trip.setFromDateTime(LocalDateTime.now().minusDays(400));
+        trip.setBill(120f);
+        trip.setVersion(3L);
+        return trip;
+    }
+
+    /**
+     * Tests that one partial batch is archived and deleted from the live table.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiveOldTrips_singleBatch_movesTrips() {
+        List<Integer> ids = List.of(5, 6);
+        when(tripBookingRepository.findArchivableIds(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(ids);
+        when(tripBookingRepository.findAllWithPartiesByIdIn(ids)).thenReturn(List.of(oldTrip(5), oldTrip(6)));
+        when(tripBookingRepository.deleteIfUnchanged(anyInt(), anyLong())).thenReturn(1);
+
+        int archived = tripArchiveService.archiveOldTrips();
+
+        assertEquals(2, archived);
+        ArgumentCaptor<Iterable<TripBookingArchive>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(tripBookingArchiveRepository).saveAll(captor.capture());
+        TripBookingArchive first = captor.getValue().iterator().next();
+        assertEquals(5, first.getTripBookingId());
+        assertEquals(1, first.getCustomerId());
+        assertEquals("Asha", first.getCustomerFirstName());
+        assertEquals(2, first.getDriverId());
+        assertEquals("Ravi", first.getDriverFirstName());
+        assertTrue(first.isNew());
+        verify(tripBookingRepository).deleteIfUnchanged(5, 3L);
+        verify(tripBookingRepository).deleteIfUnchanged(6, 3L);
+    }
+
+    /**
+     * Tests that a trip whose version changed after it was loaded is neither
+     * deleted nor archived, while the rest of the batch is.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiveOldTrips_tripChangedConcurrently_isSkipped() {
+        List<Integer> ids = List.of(5, 6);
+        when(tripBookingRepository.findArchivableIds(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(ids);
+        when(tripBookingRepository.findAllWithPartiesByIdIn(ids)).thenReturn(List.of(oldTrip(5), oldTrip(6)));
+        when(tripBookingRepository.deleteIfUnchanged(5, 3L)).thenReturn(1);
+        when(tripBookingRepository.deleteIfUnchanged(6, 3L)).thenReturn(0);
+
+        int archived = tripArchiveService.archiveOldTrips();
+
+        assertEquals(1, archived);
+        ArgumentCaptor<Iterable<TripBookingArchive>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(tripBookingArchiveRepository).saveAll(captor.capture());
+        List<Integer> archivedIds = new ArrayList<>();
+        captor.getValue().forEach(trip -> archivedIds.add(trip.getTripBookingId()));
+        assertEquals(List.of(5), archivedIds);
+    }
+
+    /**
+     * Tests that a full batch is followed by another one until a batch is short.
+     */
+    @Test
+    void archiveOldTrips_fullBatch_continuesWithNextBatch() {
+        ReflectionTestUtils.setField(tripArchiveService, "batchSize", 2);
+        when(tripBookingRepository.findArchivableIds(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1, 2), List.of(3));
+        when(tripBookingRepository.findAllWithPartiesByIdIn(anyCollection()))
+                .thenReturn(List.of(oldTrip(1), oldTrip(2)), List.of(oldTrip(3)));
+        when(tripBookingRepository.deleteIfUnchanged(anyInt(), anyLong())).thenReturn(1);
+
+        int archived = tripArchiveService.archiveOldTrips();
+
+        assertEquals(3, archived);
+        verify(tripBookingRepository, times(2)).findArchivableIds(anyCollection(), any(LocalDateTime.class),
+                any(Pageable.class));
+        verify(tripBookingRepository, times(3)).deleteIfUnchanged(anyInt(), anyLong());
+    }
+
+    /**
+     * Tests that nothing is written when no trip is old enough.
+     */
+    @Test
+    void archiveOldTrips_nothingToArchive_returnsZero() {
+        when(tripBookingRepository.findArchivableIds(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(0, tripArchiveService.archiveOldTrips());
+        verifyNoInteractions(tripBookingArchiveRepository);
+    }
+
+    /**
+     * Tests that the cutoff is the start of the day archive-age days ago.
+     */
+    @Test
+    void getArchiveCutoff_isStartOfDayAgeDaysAgo() {
+        assertEquals(LocalDate.now().minusDays(180).atStartOfDay(), tripArchiveService.getArchiveCutoff());
+    }
+}
@@ -1,26 +1,36 @@
 package com.cabbooking.service;
 
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.dto.RatingRequest;
 import com.cabbooking.dto.TripBookingRequest;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Customer;
 import com.cabbooking.model.Driver;
+import com.cabbooking.dto.TripHistoryResponse;
 import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripBookingArchive;
 import com.cabbooking.model.TripStatus;
 import com.cabbooking.repository.CabRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.repository.TripBookingArchiveRepository;
 import com.cabbooking.repository.TripBookingRepository;
+import com.cabbooking.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -30,8 +40,12 @@ import static org.mockito.Mockito.*;
  * Covers scenarios for:
  * - Booking trips (immediate and scheduled)
  * - Updating trip status (progress, cancellation, completion)
+ * - Running bookings and trip updates through the optimistic retry service
+ * - Claiming and releasing drivers through the fleet state
  * - Rating trips and updating driver ratings
- * - Access control for drivers updating trips
+ * - Feeding completions and ratings into the revenue rollups
+ * - Reading trip history across live and archived trips
+ * - Access control for drivers updating trips, by the user ID from the JWT
  */
 @ExtendWith(MockitoExtension.class)
 public class TripBookingServiceImplTest {
@@ -44,6 +58,22 @@ public class TripBookingServiceImplTest {
     private DriverRepository driverRepository;
     @Mock
     private CabRepository cabRepository;
+    @Mock
+    private IRevenueRollupService revenueRollupService;
+    @Mock
+    private ITripAnalyticsService tripAnalyticsService;
+    @Mock
+    private TripBookingArchiveRepository tripBookingArchiveRepository;
+    @Mock
+    private ITripArchiveService tripArchiveService;
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+    @Mock
+    private IOptimisticRetryService optimisticRetryService;
+    @Mock
+    private IFleetStateService fleetStateService;
+    @Mock
+    private ITripEventService tripEventService;
 
     @InjectMocks
     private TripBookingServiceImpl tripBookingService;
@@ -55,12 +85,19 @@ public class TripBookingServiceImplTest {
     private TripBookingRequest testRequest;
     private RatingRequest ratingRequest;
 
+    private static final AuthenticatedUser DRIVER = new AuthenticatedUser("driver", "Driver", 1);
+    private static final AuthenticatedUser CUSTOMER = new AuthenticatedUser("customer", "Customer", 1);
+
     /**
      * Initializes test data for Customer, Driver, Cab, TripBooking,
      * TripBookingRequest, and RatingRequest.
      */
     @BeforeEach
     void setUp() {
+        // Runs every operation once, in place of the retrying transaction
+        lenient().when(optimisticRetryService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         testCustomer = new Customer();
         testCustomer.setId(1);
         testCustomer.setUsername("customer");
@@ -79,7 +116,7 @@ public class TripBookingServiceImplTest {
         testDriver.setCab(testCab);
         testDriver.setLatitude(1.0);
         testDriver.setLongitude(1.0);
-        testDriver.setRating(4.5f);
+        testDriver.setRatingSum(45L);
         testDriver.setTotalRatings(10);
 
         testTrip = new TripBooking();
@@ -108,13 +145,16 @@ public class TripBookingServiceImplTest {
      * Tests immediate trip booking.
      * Workflow:
      * - Find customer by ID
-     * - Assign an available driver
-     * - Save trip and update driver/cab availability
+     * - Claim an available driver in the fleet state
+     * - Save trip without writing the driver or cab
      */
     @Test
     void bookTrip_immediateBooking_findsAndAssignsDriver() {
         when(customerRepository.findById(1)).thenReturn(Optional.of(testCustomer));
-        when(driverRepository.findAll()).thenReturn(Collections.singletonList(testDriver));
+        when(fleetStateService.getAvailableFleet("Sedan")).thenReturn(Collections.singletonList(fleetRowOf(testDriver)));
+        when(fleetStateService.claim(1)).thenReturn(true);
+        when(driverRepository.getReferenceById(1)).thenReturn(testDriver);
+        when(cabRepository.getReferenceById(1)).thenReturn(testCab);
         when(tripBookingRepository.save(any(TripBooking.class))).thenReturn(testTrip);
 
         TripBooking bookedTrip = tripBookingService.bookTrip(testRequest);
@@ -122,10 +162,61 @@ public class TripBookingServiceImplTest {
         assertNotNull(bookedTrip);
         assertEquals(TripStatus.CONFIRMED, bookedTrip.getStatus());
         assertEquals(testDriver, bookedTrip.getDriver());
-        assertFalse(testDriver.getIsAvailable());
-        assertFalse(testCab.getIsAvailable());
-        verify(driverRepository, times(1)).save(testDriver);
+        verify(fleetStateService, times(1)).claim(1);
+        verify(driverRepository, never()).save(any(Driver.class));
         verify(tripBookingRepository, times(1)).save(any(TripBooking.class));
+        verify(tripEventService, times(1)).record(testTrip, null);
+    }
+
+    /**
+     * Tests that a driver claimed by a concurrent booking is skipped and the
+     * next best driver is assigned.
+     */
+    @Test
+    void bookTrip_bestDriverClaimedConcurrently_assignsNextDriver() {
+        Cab otherCab = new Cab();
+        otherCab.setCabId(2);
+        otherCab.setCarType("Sedan");
+        otherCab.setPerKmRate(12.0f);
+        Driver otherDriver = new Driver();
+        otherDriver.setId(2);
+        otherDriver.setCab(otherCab);
+        otherDriver.setLatitude(1.0);
+        otherDriver.setLongitude(1.0);
+        otherDriver.setRatingSum(40L);
+        otherDriver.setTotalRatings(10);
+        otherDriver.setVerified(true);
+        otherDriver.setIsAvailable(true);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(testCustomer));
+        when(fleetStateService.getAvailableFleet("Sedan"))
+                .thenReturn(List.of(fleetRowOf(otherDriver), fleetRowOf(testDriver)));
+        when(fleetStateService.claim(1)).thenReturn(false);
+        when(fleetStateService.claim(2)).thenReturn(true);
+        when(driverRepository.getReferenceById(2)).thenReturn(otherDriver);
+        when(cabRepository.getReferenceById(2)).thenReturn(otherCab);
+        when(tripBookingRepository.save(any(TripBooking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TripBooking bookedTrip = tripBookingService.bookTrip(testRequest);
+
+        assertEquals(otherDriver, bookedTrip.getDriver());
+        assertEquals(otherCab, bookedTrip.getCab());
+        // The best rated driver was tried first
+        verify(fleetStateService).claim(1);
+    }
+
+    /**
+     * Tests that a booking fails when every nearby driver is taken.
+     */
+    @Test
+    void bookTrip_noDriverClaimable_throwsException() {
+        when(customerRepository.findById(1)).thenReturn(Optional.of(testCustomer));
+        when(fleetStateService.getAvailableFleet("Sedan")).thenReturn(List.of(fleetRowOf(testDriver)));
+        when(fleetStateService.claim(1)).thenReturn(false);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> tripBookingService.bookTrip(testRequest));
+
+        assertEquals("No 'Sedan' drivers are available nearby at the moment.", exception.getMessage());
+        verify(tripBookingRepository, never()).save(any(TripBooking.class));
     }
 
     /**
@@ -151,45 +242,100 @@ public class TripBookingServiceImplTest {
 
     /**
      * Tests updating trip status from CONFIRMED to IN_PROGRESS.
+     * Workflow:
+     * - Move the trip with one guarded update, without reading it first
+     * - Load the updated trip for the response and the lifecycle log
      */
     @Test
     void updateTripStatus_confirmedToInProgress_succeeds() {
-        testTrip.setStatus(TripStatus.CONFIRMED);
+        when(tripBookingRepository.transition(1, List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, 1))
+                .thenAnswer(moveTo(TripStatus.IN_PROGRESS));
         when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
-        when(tripBookingRepository.save(any(TripBooking.class))).thenReturn(testTrip);
-        when(driverRepository.findByUsername("driver")).thenReturn(testDriver);
 
-        TripBooking updatedTrip = tripBookingService.updateTripStatus(1, "IN_PROGRESS", "driver");
+        TripBooking updatedTrip = tripBookingService.updateTripStatus(1, "IN_PROGRESS", DRIVER);
 
         assertNotNull(updatedTrip);
         assertEquals(TripStatus.IN_PROGRESS, updatedTrip.getStatus());
+        verify(tripBookingRepository, never()).save(any(TripBooking.class));
+        verify(tripEventService, times(1)).record(testTrip, TripStatus.CONFIRMED);
     }
 
     /**
      * Tests cancelling an IN_PROGRESS trip.
      * Workflow:
+     * - One guarded update accepts every status a trip can be cancelled from
      * - Release driver and cab availability
-     * - Update trip status to CANCELLED
+     * - Record the cancellation with the status the update recorded,
+     *   IN_PROGRESS, as the previous status
      */
     @Test
     void updateTripStatus_inProgressToCancelled_succeedsAndReleasesResources() {
         testTrip.setStatus(TripStatus.IN_PROGRESS);
-        testDriver.setIsAvailable(false);
-        testCab.setIsAvailable(false);
+        when(tripBookingRepository.transition(1,
+                List.of(TripStatus.SCHEDULED, TripStatus.CONFIRMED, TripStatus.IN_PROGRESS), TripStatus.CANCELLED, 1))
+                .thenAnswer(moveTo(TripStatus.CANCELLED));
         when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
-        when(tripBookingRepository.save(any(TripBooking.class))).thenReturn(testTrip);
-        when(driverRepository.findByUsername("driver")).thenReturn(testDriver);
-        when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
-        when(cabRepository.save(any(Cab.class))).thenReturn(testCab);
 
-        TripBooking updatedTrip = tripBookingService.updateTripStatus(1, "CANCELLED", "driver");
+        TripBooking updatedTrip = tripBookingService.updateTripStatus(1, "CANCELLED", DRIVER);
 
         assertNotNull(updatedTrip);
         assertEquals(TripStatus.CANCELLED, updatedTrip.getStatus());
-        assertTrue(testDriver.getIsAvailable());
-        assertTrue(testCab.getIsAvailable());
-        verify(driverRepository, times(1)).save(testDriver);
-        verify(cabRepository, times(1)).save(testCab);
+        verify(tripBookingRepository, times(1)).transition(any(), any(), any(), any());
+        verify(fleetStateService, times(1)).release(1);
+        verify(driverRepository, never()).save(any(Driver.class));
+        verify(cabRepository, never()).save(any(Cab.class));
+        verify(revenueRollupService, never()).recordCompletedTrip(any(TripBooking.class));
+        verify(tripAnalyticsService, times(1)).recordTrip(testTrip);
+        verify(tripEventService, times(1)).record(testTrip, TripStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Tests that a completed trip cannot be changed.
+     * Workflow:
+     * - No guarded update matches
+     * - The trip is read once to report its status
+     */
+    @Test
+    void updateTripStatus_completedTrip_throwsIllegalStateException() {
+        testTrip.setStatus(TripStatus.COMPLETED);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> tripBookingService.updateTripStatus(1, "CANCELLED", DRIVER));
+
+        assertEquals("A completed trip cannot be changed.", exception.getMessage());
+        verify(fleetStateService, never()).release(any());
+        verifyNoInteractions(tripEventService);
+    }
+
+    /**
+     * Tests that a driver cannot move a trip back to CONFIRMED or complete it
+     * through a status update.
+     */
+    @Test
+    void updateTripStatus_inProgressToConfirmed_throwsIllegalStateException() {
+        testTrip.setStatus(TripStatus.IN_PROGRESS);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> tripBookingService.updateTripStatus(1, "CONFIRMED", DRIVER));
+
+        assertEquals("An in progress trip can only be moved to CANCELLED.", exception.getMessage());
+        verify(tripBookingRepository, never()).transition(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a trip whose guarded update did not match, but which has
+     * meanwhile reached a status the transition is allowed from, is reported
+     * as a conflict, so the update is retried.
+     */
+    @Test
+    void updateTripStatus_statusChangedConcurrently_throwsOptimisticLockingFailure() {
+        testTrip.setStatus(TripStatus.IN_PROGRESS);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> tripBookingService.updateTripStatus(1, "CANCELLED", DRIVER));
     }
 
     /**
@@ -199,11 +345,42 @@ public class TripBookingServiceImplTest {
     void updateTripStatus_unauthorizedDriver_throwsAccessDeniedException() {
         testTrip.setStatus(TripStatus.CONFIRMED);
         Driver anotherDriver = new Driver();
+        anotherDriver.setId(2);
         anotherDriver.setUsername("anotherDriver");
         testTrip.setDriver(anotherDriver);
         when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
 
-        assertThrows(AccessDeniedException.class, () -> tripBookingService.updateTripStatus(1, "IN_PROGRESS", "driver"));
+        assertThrows(AccessDeniedException.class, () -> tripBookingService.updateTripStatus(1, "IN_PROGRESS", DRIVER));
+        verify(tripBookingRepository, times(1)).transition(1, List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, 1);
+    }
+
+    /**
+     * Tests that a customer whose ID equals the trip's driver ID cannot update it,
+     * since user IDs are compared together with the user type.
+     */
+    @Test
+    void updateTripStatus_customerWithDriverId_throwsAccessDeniedException() {
+        testTrip.setStatus(TripStatus.CONFIRMED);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        assertThrows(AccessDeniedException.class, () -> tripBookingService.updateTripStatus(1, "IN_PROGRESS", CUSTOMER));
+        verify(tripBookingRepository, never()).transition(any(), any(), any(), any());
+    }
+
+    /**
+     * Tests that a token issued without a user ID is still matched by username.
+     */
+    @Test
+    void updateTripStatus_tokenWithoutUserId_matchesByUsername() {
+        when(driverRepository.findByUsername("driver")).thenReturn(testDriver);
+        when(tripBookingRepository.transition(1, List.of(TripStatus.CONFIRMED), TripStatus.IN_PROGRESS, 1))
+                .thenAnswer(moveTo(TripStatus.IN_PROGRESS));
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        TripBooking updatedTrip = tripBookingService.updateTripStatus(1, "IN_PROGRESS",
+                new AuthenticatedUser("driver", null, null));
+
+        assertEquals(TripStatus.IN_PROGRESS, updatedTrip.getStatus());
     }
 
     /**
@@ -216,23 +393,40 @@ public class TripBookingServiceImplTest {
     @Test
     void completeTrip_validRequest_succeedsAndCalculatesBill() {
         testTrip.setStatus(TripStatus.IN_PROGRESS);
-        testDriver.setIsAvailable(false);
-        testCab.setIsAvailable(false);
         when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
         when(tripBookingRepository.save(any(TripBooking.class))).thenReturn(testTrip);
-        when(driverRepository.findByUsername("driver")).thenReturn(testDriver);
-        when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
-        when(cabRepository.save(any(Cab.class))).thenReturn(testCab);
 
-        TripBooking completedTrip = tripBookingService.completeTrip(1, "driver");
+        TripBooking completedTrip = tripBookingService.completeTrip(1, DRIVER);
 
         assertNotNull(completedTrip);
         assertEquals(TripStatus.COMPLETED, completedTrip.getStatus());
         assertTrue(completedTrip.getBill() > 0);
-        assertTrue(testDriver.getIsAvailable());
-        assertTrue(testCab.getIsAvailable());
-        verify(driverRepository, times(1)).save(testDriver);
-        verify(cabRepository, times(1)).save(testCab);
+        verify(fleetStateService, times(1)).release(1);
+        verify(driverRepository, never()).save(any(Driver.class));
+        verify(cabRepository, never()).save(any(Cab.class));
+        verify(revenueRollupService, times(1)).recordCompletedTrip(testTrip);
+        verify(tripAnalyticsService, times(1)).recordTrip(testTrip);
+        verify(optimisticRetryService).execute(eq("trip.complete"), any());
+        verify(tripEventService, times(1)).record(testTrip, TripStatus.IN_PROGRESS);
+    }
+
+    /**
+     * Tests that a trip completed in the meantime (e.g. by a completion
+     * retried after a conflict) is not completed, billed or counted again.
+     */
+    @Test
+    void completeTrip_alreadyCompleted_throwsException() {
+        testTrip.setStatus(TripStatus.COMPLETED);
+        testTrip.setBill(100.0f);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> tripBookingService.completeTrip(1, DRIVER));
+
+        assertEquals("A completed trip cannot be completed.", exception.getMessage());
+        assertEquals(100.0f, testTrip.getBill());
+        verify(tripBookingRepository, never()).save(any(TripBooking.class));
+        verify(revenueRollupService, never()).recordCompletedTrip(any());
     }
 
     /**
@@ -246,15 +440,87 @@ public class TripBookingServiceImplTest {
         testTrip.setStatus(TripStatus.COMPLETED);
         when(tripBookingRepository.findById(1)).thenReturn(Optional.of(testTrip));
         when(tripBookingRepository.save(any(TripBooking.class))).thenReturn(testTrip);
-        when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
-        when(customerRepository.findByUsername("customer")).thenReturn(testCustomer);
 
-        TripBooking ratedTrip = tripBookingService.rateTrip(1, ratingRequest, "customer");
+        TripBooking ratedTrip = tripBookingService.rateTrip(1, ratingRequest, CUSTOMER);
 
         assertNotNull(ratedTrip);
         assertEquals(5, ratedTrip.getCustomerRating());
-        // Verify driver rating update is saved
-        verify(driverRepository, times(1)).save(any(Driver.class));
+        // Verify the rating is added atomically instead of rewriting the driver
+        verify(driverRepository, times(1)).addRating(testDriver.getId(), 5);
+        verify(driverRepository, never()).save(any(Driver.class));
         verify(tripBookingRepository, times(1)).save(any(TripBooking.class));
+        verify(revenueRollupService, times(1)).recordRating(testTrip, 5);
+        verify(driverLeaderboardService, times(1)).recordRating(1, 5);
+        verify(fleetStateService, times(1)).recordRating(1, 5);
+    }
+
+    /**
+     * Tests that a customer's history merges live and archived trips in ID order.
+     */
+    @Test
+    void getAllTripsCustomer_mergesLiveAndArchivedTrips() {
+        TripBookingArchive archivedTrip = new TripBookingArchive();
+        archivedTrip.setTripBookingId(0);
+        archivedTrip.setCustomerId(1);
+        archivedTrip.setStatus(TripStatus.COMPLETED);
+        when(tripBookingRepository.findByCustomer_Id(1)).thenReturn(List.of(testTrip));
+        when(tripBookingArchiveRepository.findByCustomerId(1)).thenReturn(List.of(archivedTrip));
+
+        List<TripHistoryResponse> history = tripBookingService.getAllTripsCustomer(1);
+
+        assertEquals(2, history.size());
+        assertEquals(0, history.get(0).getTripBookingId());
+        assertEquals(testTrip.getTripBookingId(), history.get(1).getTripBookingId());
+    }
+
+    /**
+     * Tests that a day after the archive cutoff is served from the live table only.
+     */
+    @Test
+    void getTripsByDate_recentDay_doesNotReadArchive() {
+        LocalDate today = LocalDate.now();
+        when(tripArchiveService.getArchiveCutoff()).thenReturn(today.minusDays(180).atStartOfDay());
+        when(tripBookingRepository.findByFromDateTimeBetween(any(), any())).thenReturn(Collections.emptyList());
+
+        tripBookingService.getTripsByDate(today);
+
+        verifyNoInteractions(tripBookingArchiveRepository);
+    }
+
+    /**
+     * Tests that a day before the archive cutoff also reads the archive.
+     */
+    @Test
+    void getTripsByDate_oldDay_readsArchive() {
+        LocalDate oldDay = LocalDate.now().minusDays(365);
+        when(tripArchiveService.getArchiveCutoff()).thenReturn(LocalDate.now().minusDays(180).atStartOfDay());
+        when(tripBookingRepository.findByFromDateTimeBetween(any(), any())).thenReturn(Collections.emptyList());
+        when(tripBookingArchiveRepository.findByFromDateTimeBetween(any(), any())).thenReturn(Collections.emptyList());
+
+        tripBookingService.getTripsByDate(oldDay);
+
+        verify(tripBookingArchiveRepository, times(1)).findByFromDateTimeBetween(any(), any());
+    }
+
+    /*
+     * Builds the fleet row the fleet state returns for a driver.
+     */
+    private FleetAvailabilityRow fleetRowOf(Driver driver) {
+        Cab cab = driver.getCab();
+        return new FleetAvailabilityRow(driver.getId(), driver.getLatitude(), driver.getLongitude(),
+                driver.getRatingSum(), driver.getTotalRatings(), driver.getVerified(), driver.getIsAvailable(),
+                cab.getCabId(), cab.getCarType(), cab.getPerKmRate());
+    }
+
+    /*
+     * Builds the answer of a guarded update that matched: the trip read
+     * afterwards has the new status and the old one as its previous status.
+     */
+    private Answer<Integer> moveTo(TripStatus status) {
+        return invocation -> {
+            testTrip.setPreviousStatus(testTrip.getStatus());
+            testTrip.setStatus(status);
+            return 1;
+        };
     }
 }
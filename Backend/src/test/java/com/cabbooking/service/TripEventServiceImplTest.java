@@ -0,0 +1,177 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.TripBooking;
+import com.cabbooking.model.TripEvent;
+import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.TripEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TripEventServiceImpl and the TripLifecycleProjection.
+ *
+ * Covers scenarios for:
+ * - Appending an event with the parties of the trip
+ * - Catching up in batches, in occurrence order, up to the settle time
+ * - Funnel metrics, open trips and bounded driver timelines
+ */
+@ExtendWith(MockitoExtension.class)
+public class TripEventServiceImplTest {
+
+    @Mock
+    private TripEventRepository tripEventRepository;
+
+    @InjectMocks
+    private TripEventServiceImpl tripEventService;
+
+    private final LocalDateTime settled = LocalDateTime.now().minusMinutes(1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tripEventService, "batchSize", 2);
+        ReflectionTestUtils.setField(tripEventService, "timelineSize", 2);
+        tripEventService.init();
+    }
+
+    /**
+     * Tests that an event records the new and previous status and the IDs of
+     * the trip, customer and driver.
+     */
+    @Test
+    void record_appendsEventWithTripParties() {
+        Customer customer = new Customer();
+        customer.setId(3);
+        Driver driver = new Driver();
+        driver.setId(7);
+        TripBooking trip = new TripBooking();
+        trip.setTripBookingId(11);
+        trip.setCustomer(customer);
+        trip.setDriver(driver);
+        trip.setCarType("Sedan");
+        trip.setStatus(TripStatus.IN_PROGRESS);
+
+        tripEventService.record(trip, TripStatus.CONFIRMED);
+
+        ArgumentCaptor<TripEvent> captor = ArgumentCaptor.forClass(TripEvent.class);
+        verify(tripEventRepository).save(captor.capture());
+        TripEvent event = captor.getValue();
+        assertEquals(11, event.getTripBookingId());
+        assertEquals(TripStatus.IN_PROGRESS, event.getStatus());
+        assertEquals(TripStatus.CONFIRMED, event.getPreviousStatus());
+        assertEquals(3, event.getCustomerId());
+        assertEquals(7, event.getDriverId());
+        assertEquals("Sedan", event.getCarType());
+        assertNotNull(event.getOccurredAt());
+    }
+
+    /**
+     * Tests that a catch-up reads the log in batches, only up to the settle
+     * time, and continues after the last applied event on the next run.
+     */
+    @Test
+    void catchUp_appliesSettledEventsInBatches() {
+        LocalDateTime start = LocalDateTime.of(1970, 1, 1, 0, 0);
+        when(tripEventRepository.findSettledAfter(eq(start), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(
+                        event(1L, 1, TripStatus.CONFIRMED, null, 7, settled),
+                        event(2L, 1, TripStatus.IN_PROGRESS, TripStatus.CONFIRMED, 7, settled)));
+        when(tripEventRepository.findSettledAfter(eq(settled), eq(2L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(event(3L, 1, TripStatus.COMPLETED, TripStatus.IN_PROGRESS, 7, settled)));
+        when(tripEventRepository.findSettledAfter(eq(settled), eq(3L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(3, tripEventService.catchUp());
+        assertEquals(0, tripEventService.catchUp());
+
+        Map<String, Object> funnel = tripEventService.getFunnel();
+        assertEquals(3L, funnel.get("appliedEvents"));
+        assertEquals(3L, funnel.get("lastEventId"));
+        assertEquals(1.0, funnel.get("completionRate"));
+        ArgumentCaptor<LocalDateTime> settledBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tripEventRepository).findSettledAfter(eq(settled), eq(3L), settledBefore.capture(), any(Pageable.class));
+        assertTrue(settledBefore.getValue().isBefore(LocalDateTime.now().minusSeconds(4)));
+    }
+
+    /**
+     * Tests that events are applied in the order they occurred, even when an
+     * instance that took a higher block of IDs appended first, and that the
+     * next run continues from the time of the last event, not its ID.
+     */
+    @Test
+    void catchUp_idsFromOtherInstances_followsOccurrenceOrder() {
+        LocalDateTime start = LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime later = settled.plusSeconds(1);
+        when(tripEventRepository.findSettledAfter(eq(start), eq(0L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(
+                        event(51L, 1, TripStatus.CONFIRMED, null, 7, settled),
+                        event(2L, 1, TripStatus.IN_PROGRESS, TripStatus.CONFIRMED, 7, later)));
+        when(tripEventRepository.findSettledAfter(eq(later), eq(2L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(2, tripEventService.catchUp());
+
+        assertEquals(List.of(51L, 2L), tripEventService.getDriverTimeline(7).stream().map(TripEvent::getId).toList());
+        assertEquals(Map.of(TripStatus.SCHEDULED, 0, TripStatus.CONFIRMED, 0, TripStatus.IN_PROGRESS, 1),
+                tripEventService.getFunnel().get("openTrips"));
+    }
+
+    /**
+     * Tests the funnel counts, the open trips per status and that driver
+     * timelines keep only the most recent events.
+     */
+    @Test
+    void projection_buildsFunnelOpenTripsAndTimelines() {
+        when(tripEventRepository.findSettledAfter(any(LocalDateTime.class), eq(0L), any(LocalDateTime.class),
+                any(Pageable.class))).thenReturn(List.of(
+                        event(1L, 1, TripStatus.SCHEDULED, null, null, settled),
+                        event(2L, 2, TripStatus.CONFIRMED, null, 7, settled)));
+        when(tripEventRepository.findSettledAfter(eq(settled), eq(2L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(
+                        event(3L, 2, TripStatus.IN_PROGRESS, TripStatus.CONFIRMED, 7, settled),
+                        event(4L, 2, TripStatus.CANCELLED, TripStatus.IN_PROGRESS, 7, settled)));
+        when(tripEventRepository.findSettledAfter(eq(settled), eq(4L), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        tripEventService.catchUp();
+
+        Map<String, Object> funnel = tripEventService.getFunnel();
+        assertEquals(2L, funnel.get("booked"));
+        assertEquals(1L, ((Map<?, ?>) funnel.get("reached")).get(TripStatus.IN_PROGRESS));
+        assertEquals(1L, ((Map<?, ?>) funnel.get("cancelledFrom")).get(TripStatus.IN_PROGRESS));
+        assertEquals(0L, ((Map<?, ?>) funnel.get("cancelledFrom")).get(TripStatus.CONFIRMED));
+        assertEquals(0.5, funnel.get("cancellationRate"));
+        assertEquals(Map.of(TripStatus.SCHEDULED, 1, TripStatus.CONFIRMED, 0, TripStatus.IN_PROGRESS, 0),
+                funnel.get("openTrips"));
+
+        List<TripEvent> timeline = tripEventService.getDriverTimeline(7);
+        assertEquals(List.of(3L, 4L), timeline.stream().map(TripEvent::getId).toList());
+        assertTrue(tripEventService.getDriverTimeline(8).isEmpty());
+    }
+
+    /* ==============
+     * HELPER METHODS
+     * ==============
+     */
+
+    private TripEvent event(Long id, Integer tripId, TripStatus status, TripStatus previousStatus, Integer driverId,
+            LocalDateTime occurredAt) {
+        TripEvent event = new TripEvent(tripId, status, previousStatus, 1, driverId, "Sedan", occurredAt);
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+}
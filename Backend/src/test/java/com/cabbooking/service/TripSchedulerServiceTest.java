@@ -1,9 +1,11 @@
 package com.cabbooking.service;
 
+import com.cabbooking.dto.FleetAvailabilityRow;
 import com.cabbooking.model.Cab;
 import com.cabbooking.model.Driver;
 import com.cabbooking.model.TripBooking;
 import com.cabbooking.model.TripStatus;
+import com.cabbooking.repository.CabRepository;
 import com.cabbooking.repository.DriverRepository;
 import com.cabbooking.repository.TripBookingRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Supplier;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +29,7 @@ import static org.mockito.Mockito.*;
  * Scenarios covered:
  * - Scheduled trips with available drivers
  * - No scheduled trips available
+ * - Drivers booked and trips cancelled after they were read
  */
 @ExtendWith(MockitoExtension.class)
 public class TripSchedulerServiceTest {
@@ -35,6 +40,18 @@ public class TripSchedulerServiceTest {
     @Mock
     private DriverRepository driverRepository;
 
+    @Mock
+    private CabRepository cabRepository;
+
+    @Mock
+    private IOptimisticRetryService optimisticRetryService;
+
+    @Mock
+    private IFleetStateService fleetStateService;
+
+    @Mock
+    private ITripEventService tripEventService;
+
     @InjectMocks
     private TripSchedulerService tripSchedulerService;
 
@@ -49,6 +66,10 @@ public class TripSchedulerServiceTest {
      */
     @BeforeEach
     void setUp() {
+        // Runs every operation once, in place of the retrying transaction
+        lenient().when(optimisticRetryService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         // Create an available cab
         availableCab = new Cab();
         availableCab.setCabId(1);
@@ -59,7 +80,8 @@ public class TripSchedulerServiceTest {
         availableDriver = new Driver();
         availableDriver.setId(1);
         availableDriver.setUsername("testdriver");
-        availableDriver.setRating(5.0f);
+        availableDriver.setRatingSum(50L);
+        availableDriver.setTotalRatings(10);
         availableDriver.setCab(availableCab);
         availableDriver.setVerified(true);
         availableDriver.setIsAvailable(true);
@@ -82,33 +104,39 @@ public class TripSchedulerServiceTest {
      *
      * Workflow:
      * 1. Mock all scheduled trips from repository
-     * 2. Mock all available drivers
+     * 2. Mock all available drivers in the fleet state
      * 3. Invoke scheduler method
      * 4. Verify trip status is updated to CONFIRMED
-     * 5. Verify driver and cab availability is set to false
+     * 5. Verify the driver is claimed in the fleet state
      * 6. Verify repository save calls
      */
     @Test
     void assignDriversToScheduledTrips_assignsDriverToDueTrip() {
         // Mock repository to return the scheduled trip
-        when(tripBookingRepository.findAll()).thenReturn(Arrays.asList(scheduledTrip));
+        when(tripBookingRepository.findByStatusAndFromDateTimeBefore(eq(TripStatus.SCHEDULED), any(LocalDateTime.class))).thenReturn(Arrays.asList(scheduledTrip));
 
-        // Mock repository to return the available driver
-        when(driverRepository.findAll()).thenReturn(Arrays.asList(availableDriver));
+        // Mock the fleet state to return the available driver's fleet row
+        when(fleetStateService.getAvailableFleet("Sedan")).thenReturn(Arrays.asList(fleetRowOf(availableDriver)));
+        when(fleetStateService.claim(1)).thenReturn(true);
+        when(driverRepository.getReferenceById(1)).thenReturn(availableDriver);
+        when(cabRepository.getReferenceById(1)).thenReturn(availableCab);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(scheduledTrip));
 
         // Invoke the method under test
         tripSchedulerService.assignDriversToScheduledTrips();
 
-        // Verify that driver repository save was called to update availability
-        verify(driverRepository, times(1)).save(availableDriver);
+        // Verify that the driver was claimed instead of writing their availability
+        verify(fleetStateService, times(1)).claim(1);
+        verify(driverRepository, never()).save(any(Driver.class));
 
         // Verify that trip repository save was called to update trip status
         verify(tripBookingRepository, times(1)).save(scheduledTrip);
+        verify(tripEventService, times(1)).record(scheduledTrip, TripStatus.SCHEDULED);
 
         // Assertions to confirm state changes
         assertEquals(TripStatus.CONFIRMED, scheduledTrip.getStatus());
-        assertFalse(availableDriver.getIsAvailable());
-        assertFalse(availableCab.getIsAvailable());
+        assertSame(availableDriver, scheduledTrip.getDriver());
+        assertSame(availableCab, scheduledTrip.getCab());
     }
 
     /**
@@ -123,7 +151,7 @@ public class TripSchedulerServiceTest {
     @Test
     void assignDriversToScheduledTrips_noDueTrips_doesNothing() {
         // Mock repository to return empty list (no scheduled trips)
-        when(tripBookingRepository.findAll()).thenReturn(Collections.emptyList());
+        when(tripBookingRepository.findByStatusAndFromDateTimeBefore(eq(TripStatus.SCHEDULED), any(LocalDateTime.class))).thenReturn(Collections.emptyList());
 
         // Invoke the method under test
         tripSchedulerService.assignDriversToScheduledTrips();
@@ -134,4 +162,113 @@ public class TripSchedulerServiceTest {
         // Verify that trip repository save was never called
         verify(tripBookingRepository, never()).save(any(TripBooking.class));
     }
+
+    /**
+     * Test scenario:
+     * Two due trips compete for the only available driver.
+     *
+     * Workflow:
+     * 1. Mock two due trips and one available driver
+     * 2. Invoke scheduler method
+     * 3. Verify the driver is assigned to the first trip only
+     */
+    @Test
+    void assignDriversToScheduledTrips_assignsEachDriverOnce() {
+        TripBooking secondTrip = new TripBooking();
+        secondTrip.setTripBookingId(2);
+        secondTrip.setStatus(TripStatus.SCHEDULED);
+        secondTrip.setCarType("Sedan");
+        secondTrip.setFromDateTime(LocalDateTime.now().plusMinutes(5));
+        secondTrip.setFromLatitude(1.0001);
+        secondTrip.setFromLongitude(1.0001);
+        when(tripBookingRepository.findByStatusAndFromDateTimeBefore(eq(TripStatus.SCHEDULED), any(LocalDateTime.class))).thenReturn(Arrays.asList(scheduledTrip, secondTrip));
+        when(fleetStateService.getAvailableFleet("Sedan")).thenReturn(Arrays.asList(fleetRowOf(availableDriver)));
+        // The first claim takes the driver, so the second fails
+        when(fleetStateService.claim(1)).thenReturn(true, false);
+        when(driverRepository.getReferenceById(1)).thenReturn(availableDriver);
+        when(cabRepository.getReferenceById(1)).thenReturn(availableCab);
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(scheduledTrip));
+        when(tripBookingRepository.findById(2)).thenReturn(Optional.of(secondTrip));
+
+        tripSchedulerService.assignDriversToScheduledTrips();
+
+        assertEquals(TripStatus.CONFIRMED, scheduledTrip.getStatus());
+        assertEquals(TripStatus.SCHEDULED, secondTrip.getStatus());
+        verify(fleetStateService, times(2)).claim(1);
+        verify(tripBookingRepository, never()).save(secondTrip);
+    }
+
+    /**
+     * Test scenario:
+     * The best driver was booked after the fleet was read, e.g. by a
+     * concurrent immediate booking.
+     *
+     * Workflow:
+     * 1. Mock two fleet rows, the better rated driver no longer claimable
+     * 2. Invoke scheduler method
+     * 3. Verify the trip goes to the other driver
+     */
+    @Test
+    void assignDriversToScheduledTrips_skipsDriverBookedMeanwhile() {
+        Driver otherDriver = new Driver();
+        otherDriver.setId(2);
+        otherDriver.setRatingSum(40L);
+        otherDriver.setTotalRatings(10);
+        otherDriver.setVerified(true);
+        otherDriver.setIsAvailable(true);
+        otherDriver.setLatitude(1.0);
+        otherDriver.setLongitude(1.0);
+        Cab otherCab = new Cab();
+        otherCab.setCabId(2);
+        otherCab.setCarType("Sedan");
+        otherCab.setIsAvailable(true);
+        otherDriver.setCab(otherCab);
+        when(tripBookingRepository.findByStatusAndFromDateTimeBefore(eq(TripStatus.SCHEDULED), any(LocalDateTime.class))).thenReturn(Arrays.asList(scheduledTrip));
+        when(fleetStateService.getAvailableFleet("Sedan")).thenReturn(Arrays.asList(fleetRowOf(otherDriver), fleetRowOf(availableDriver)));
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(scheduledTrip));
+        when(fleetStateService.claim(1)).thenReturn(false);
+        when(fleetStateService.claim(2)).thenReturn(true);
+        when(driverRepository.getReferenceById(2)).thenReturn(otherDriver);
+        when(cabRepository.getReferenceById(2)).thenReturn(otherCab);
+
+        tripSchedulerService.assignDriversToScheduledTrips();
+
+        assertEquals(TripStatus.CONFIRMED, scheduledTrip.getStatus());
+        assertSame(otherDriver, scheduledTrip.getDriver());
+        assertSame(otherCab, scheduledTrip.getCab());
+        verify(driverRepository, never()).getReferenceById(1);
+    }
+
+    /**
+     * Test scenario:
+     * A due trip was cancelled after the due trips were read.
+     *
+     * Workflow:
+     * 1. Mock the trip as cancelled when it is read again
+     * 2. Invoke scheduler method
+     * 3. Verify no driver is assigned
+     */
+    @Test
+    void assignDriversToScheduledTrips_skipsTripNoLongerScheduled() {
+        TripBooking cancelledTrip = new TripBooking();
+        cancelledTrip.setTripBookingId(1);
+        cancelledTrip.setStatus(TripStatus.CANCELLED);
+        when(tripBookingRepository.findByStatusAndFromDateTimeBefore(eq(TripStatus.SCHEDULED), any(LocalDateTime.class))).thenReturn(Arrays.asList(scheduledTrip));
+        when(tripBookingRepository.findById(1)).thenReturn(Optional.of(cancelledTrip));
+
+        tripSchedulerService.assignDriversToScheduledTrips();
+
+        verify(fleetStateService, never()).claim(any());
+        verify(tripBookingRepository, never()).save(any(TripBooking.class));
+    }
+
+    /*
+     * Builds the fleet row the fleet state returns for a driver.
+     */
+    private FleetAvailabilityRow fleetRowOf(Driver driver) {
+        Cab cab = driver.getCab();
+        return new FleetAvailabilityRow(driver.getId(), driver.getLatitude(), driver.getLongitude(),
+                driver.getRatingSum(), driver.getTotalRatings(), driver.getVerified(), driver.getIsAvailable(),
+                cab.getCabId(), cab.getCarType(), cab.getPerKmRate());
+    }
 }
@@ -37,6 +37,21 @@ public class UserDeletionServiceImplTest {
     @Mock
     private IFileUploadService fileUploadService;
 
+    // Mocked leaderboard service, kept up to date by the service
+    @Mock
+    private IDriverLeaderboardService driverLeaderboardService;
+
+    // Mocked fleet state, from which deleted drivers are removed
+    @Mock
+    private IFleetStateService fleetStateService;
+
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    // Mocked token epochs, raised for deleted users
+    @Mock
+    private ITokenEpochService tokenEpochService;
+
     @InjectMocks
     private UserDeletionServiceImpl userDeletionService;
 
@@ -0,0 +1,364 @@
+package com.cabbooking.service;
+
+import com.cabbooking.model.Admin;
+import com.cabbooking.model.Customer;
+import com.cabbooking.model.Driver;
+import com.cabbooking.model.UserIdentity;
+import com.cabbooking.repository.AdminRepository;
+import com.cabbooking.repository.CustomerRepository;
+import com.cabbooking.repository.DriverRepository;
+import com.cabbooking.repository.UserIdentityRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserDirectoryServiceImpl.
+ *
+ * Tests cover:
+ * - find(): normalized lookups and the precedence between matching users
+ * - index() and remove(): entries built from and keyed by the user, names
+ *   in memory changed only after the caller's transaction commits
+ * - verifyOnStartup(): rebuilding a directory that is out of step
+ * - isUsernameTaken(), suggestUsernames() and checkAvailable(): answered from
+ *   the in-memory name index, confirmed by a query before registration
+ *
+ * Dependencies:
+ * - UserIdentityRepository and the three user repositories are mocked.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserDirectoryServiceImplTest {
+
+    @Mock
+    private UserIdentityRepository userIdentityRepository;
+
+    @Mock
+    private AdminRepository adminRepository;
+
+    @Mock
+    private DriverRepository driverRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @InjectMocks
+    private UserDirectoryServiceImpl userDirectoryService;
+
+    /**
+     * Test: find
+     * Scenario: The identifier has upper-case letters and surrounding spaces
+     * Expected: The directory is queried with the trimmed, lower-case key
+     */
+    @Test
+    void find_mixedCaseIdentifier_queriesNormalizedKey() {
+        UserIdentity customer = identity("Customer", 3, "Rider", "rider@test.com");
+        when(userIdentityRepository.findByLookupKey("rider")).thenReturn(List.of(customer));
+
+        assertSame(customer, userDirectoryService.find("  Rider ").orElseThrow());
+    }
+
+    /**
+     * Test: find
+     * Scenario: The identifier is a customer's username and an admin's email
+     * Expected: The admin wins, as with the previous lookup order
+     */
+    @Test
+    void find_sharedIdentifier_prefersAdmin() {
+        UserIdentity customer = identity("Customer", 3, "boss@test.com", "other@test.com");
+        UserIdentity admin = identity("Admin", 1, "boss", "boss@test.com");
+        when(userIdentityRepository.findByLookupKey("boss@test.com")).thenReturn(List.of(customer, admin));
+
+        assertSame(admin, userDirectoryService.find("boss@test.com").orElseThrow());
+    }
+
+    /**
+     * Test: find
+     * Scenario: Blank identifier
+     * Expected: Empty, without a query
+     */
+    @Test
+    void find_blankIdentifier_returnsEmpty() {
+        assertEquals(Optional.empty(), userDirectoryService.find(" "));
+        verifyNoInteractions(userIdentityRepository);
+    }
+
+    /**
+     * Test: findByEmail
+     * Scenario: A mixed-case email shared by a customer and a driver (old data)
+     * Expected: The normalized email key is queried and the driver wins
+     */
+    @Test
+    void findByEmail_sharedEmail_queriesKeyAndPrefersDriver() {
+        UserIdentity customer = identity("Customer", 3, "rider", "same@test.com");
+        UserIdentity driver = identity("Driver", 4, "speedy", "same@test.com");
+        when(userIdentityRepository.findByEmailKey("same@test.com")).thenReturn(List.of(customer, driver));
+
+        assertSame(driver, userDirectoryService.findByEmail(" Same@Test.com").orElseThrow());
+    }
+
+    /**
+     * Test: index
+     * Scenario: A driver was saved
+     * Expected: Its entry holds the type, ID, keys, password hash and verification
+     */
+    @Test
+    void index_driver_savesEntry() {
+        Driver driver = new Driver();
+        driver.setId(7);
+        driver.setUsername("Speedy");
+        driver.setEmail("Speedy@Test.com");
+        driver.setPassword("hash");
+        driver.setEmailVerified(true);
+
+        userDirectoryService.index(driver);
+
+        ArgumentCaptor<UserIdentity> captor = ArgumentCaptor.forClass(UserIdentity.class);
+        verify(userIdentityRepository).save(captor.capture());
+        UserIdentity saved = captor.getValue();
+        assertEquals("Driver", saved.getUserType());
+        assertEquals(7, saved.getUserId());
+        assertEquals("Speedy", saved.getUsername());
+        assertEquals("speedy", saved.getUsernameKey());
+        assertEquals("speedy@test.com", saved.getEmailKey());
+        assertEquals("hash", saved.getPassword());
+        assertTrue(saved.getEmailVerified());
+    }
+
+    /**
+     * Test: remove
+     * Scenario: A customer was deleted
+     * Expected: The entry with the customer's type and ID is deleted
+     */
+    @Test
+    void remove_customer_deletesEntry() {
+        Customer customer = new Customer();
+        customer.setId(3);
+
+        userDirectoryService.remove(customer);
+
+        verify(userIdentityRepository).deleteById(new UserIdentity.Key("Customer", 3));
+    }
+
+    /**
+     * Test: verifyOnStartup
+     * Scenario: The directory is empty but there is one admin
+     * Expected: The directory is rebuilt from the user tables
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void verifyOnStartup_missingEntries_rebuilds() {
+        Admin admin = new Admin();
+        admin.setId(1);
+        admin.setUsername("admin");
+        admin.setEmail("admin@test.com");
+        admin.setPassword("hash");
+        when(adminRepository.count()).thenReturn(1L);
+        when(userIdentityRepository.count()).thenReturn(0L);
+        when(adminRepository.findAll()).thenReturn(List.of(admin));
+
+        userDirectoryService.verifyOnStartup();
+
+        verify(userIdentityRepository).deleteAllInBatch();
+        ArgumentCaptor<List<UserIdentity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userIdentityRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals("Admin", captor.getValue().get(0).getUserType());
+    }
+
+    /**
+     * Test: verifyOnStartup
+     * Scenario: One entry per user
+     * Expected: Nothing is rebuilt
+     */
+    @Test
+    void verifyOnStartup_inStep_doesNothing() {
+        when(driverRepository.count()).thenReturn(2L);
+        when(userIdentityRepository.count()).thenReturn(2L);
+
+        userDirectoryService.verifyOnStartup();
+
+        verify(userIdentityRepository, never()).deleteAllInBatch();
+    }
+
+    /**
+     * Test: isUsernameTaken / isEmailTaken
+     * Scenario: The directory was loaded on startup with one admin
+     * Expected: Their names are taken in any case, answered without a query
+     */
+    @Test
+    void isUsernameTaken_loadedOnStartup_answersFromMemory() {
+        when(userIdentityRepository.findAll()).thenReturn(List.of(identity("Admin", 1, "Boss", "boss@test.com")));
+        userDirectoryService.verifyOnStartup();
+        clearInvocations(userIdentityRepository);
+
+        assertTrue(userDirectoryService.isUsernameTaken(" BOSS"));
+        assertTrue(userDirectoryService.isEmailTaken("Boss@Test.com"));
+        assertFalse(userDirectoryService.isUsernameTaken("boss2"));
+        verifyNoInteractions(userIdentityRepository);
+    }
+
+    /**
+     * Test: isUsernameTaken
+     * Scenario: A customer is indexed and then removed
+     * Expected: The username is taken in between and free afterwards
+     */
+    @Test
+    void isUsernameTaken_indexedThenRemoved_isFreedAgain() {
+        Customer customer = new Customer();
+        customer.setId(3);
+        customer.setUsername("rider");
+        customer.setEmail("rider@test.com");
+        customer.setPassword("hash");
+
+        userDirectoryService.index(customer);
+        assertTrue(userDirectoryService.isUsernameTaken("Rider"));
+
+        userDirectoryService.remove(customer);
+        assertFalse(userDirectoryService.isUsernameTaken("rider"));
+        assertFalse(userDirectoryService.isEmailTaken("rider@test.com"));
+    }
+
+    /**
+     * Test: index / remove
+     * Scenario: A customer is indexed and later removed, each in a transaction
+     * Expected: The names in memory only change once the transaction commits
+     */
+    @Test
+    void index_inTransaction_updatesNamesAfterCommit() {
+        Customer customer = new Customer();
+        customer.setId(3);
+        customer.setUsername("rider");
+        customer.setEmail("rider@test.com");
+        customer.setPassword("hash");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userDirectoryService.index(customer);
+            assertFalse(userDirectoryService.isUsernameTaken("rider"));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(userDirectoryService.isUsernameTaken("rider"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userDirectoryService.remove(customer);
+            assertTrue(userDirectoryService.isUsernameTaken("rider"));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertFalse(userDirectoryService.isUsernameTaken("rider"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Test: index
+     * Scenario: The transaction that saved the customer rolls back
+     * Expected: The username never becomes taken in memory
+     */
+    @Test
+    void index_rolledBack_leavesNamesAlone() {
+        Customer customer = new Customer();
+        customer.setId(3);
+        customer.setUsername("rider");
+        customer.setEmail("rider@test.com");
+        customer.setPassword("hash");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userDirectoryService.index(customer);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(userDirectoryService.isUsernameTaken("rider"));
+        assertFalse(userDirectoryService.isEmailTaken("rider@test.com"));
+    }
+
+    /**
+     * Test: suggestUsernames
+     * Scenario: "rider" and "rider1" are taken
+     * Expected: Numbered alternatives that are free, keeping the case typed
+     */
+    @Test
+    void suggestUsernames_takenName_returnsFreeAlternatives() {
+        when(userIdentityRepository.findAll()).thenReturn(List.of(
+                identity("Customer", 3, "rider", "rider@test.com"),
+                identity("Customer", 4, "rider1", "rider1@test.com")));
+        userDirectoryService.verifyOnStartup();
+
+        assertEquals(List.of("Rider2", "Rider3"), userDirectoryService.suggestUsernames(" Rider ", 2));
+        assertEquals(List.of(), userDirectoryService.suggestUsernames(" ", 2));
+    }
+
+    /**
+     * Test: suggestUsernames
+     * Scenario: "existinguser" is taken and two suggestions are asked for, then
+     * no suggestion and more than the cap
+     * Expected: The first two free names, none, and at most 20
+     */
+    @Test
+    void suggestUsernames_takenUsername_respectsLimit() {
+        when(userIdentityRepository.findAll()).thenReturn(List.of(
+                identity("Customer", 3, "existinguser", "existing@test.com")));
+        userDirectoryService.verifyOnStartup();
+
+        assertEquals(List.of("existinguser1", "existinguser2"), userDirectoryService.suggestUsernames("existinguser", 2));
+        assertEquals(List.of(), userDirectoryService.suggestUsernames("existinguser", 0));
+        assertEquals(20, userDirectoryService.suggestUsernames("existinguser", 100).size());
+    }
+
+    /**
+     * Test: checkAvailable
+     * Scenario: The username is taken in memory
+     * Expected: Refused without a query
+     */
+    @Test
+    void checkAvailable_usernameTakenInMemory_throwsWithoutQuery() {
+        when(userIdentityRepository.findAll()).thenReturn(List.of(identity("Driver", 7, "speedy", "speedy@test.com")));
+        userDirectoryService.verifyOnStartup();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userDirectoryService.checkAvailable("Speedy", "new@test.com"));
+        assertEquals("Username is already taken.", e.getMessage());
+        verify(userIdentityRepository, never()).existsByUsernameKey(anyString());
+    }
+
+    /**
+     * Test: checkAvailable
+     * Scenario: The email was registered by another instance, so it is not in memory
+     * Expected: Refused after the confirming query
+     */
+    @Test
+    void checkAvailable_emailRegisteredElsewhere_throws() {
+        when(userIdentityRepository.existsByEmailKey("taken@test.com")).thenReturn(true);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userDirectoryService.checkAvailable("newuser", "Taken@test.com"));
+        assertEquals("Email is already registered.", e.getMessage());
+        verify(userIdentityRepository).existsByUsernameKey("newuser");
+    }
+
+    /*
+     * Helper method to build a directory entry.
+     */
+    private UserIdentity identity(String type, int id, String username, String email) {
+        return new UserIdentity(type, id, username, username.toLowerCase(), email.toLowerCase(), "hash", true);
+    }
+}
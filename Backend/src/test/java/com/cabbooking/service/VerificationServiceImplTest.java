@@ -1,39 +1,40 @@
 package com.cabbooking.service;
 
-import com.cabbooking.model.Admin;
-import com.cabbooking.model.Customer;
-import com.cabbooking.model.Driver;
-import com.cabbooking.model.VerificationToken;
+import com.cabbooking.model.UserIdentity;
 import com.cabbooking.repository.AdminRepository;
 import com.cabbooking.repository.CustomerRepository;
 import com.cabbooking.repository.DriverRepository;
-import com.cabbooking.repository.VerificationTokenRepository;
+import com.cabbooking.security.ActionToken;
+import com.cabbooking.security.ActionTokenSigner;
+import com.cabbooking.security.ConsumedTokenGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for VerificationServiceImpl.
  *
- * Covers sending verification links, handling already verified users, 
- * verifying tokens, and edge cases like expired or invalid tokens.
+ * Covers sending verification links, handling already verified users,
+ * verifying tokens, and edge cases like expired, forged or reused tokens.
+ *
+ * The token signer is real; the used token guard, the directory and the
+ * user repositories are mocked.
  */
 @ExtendWith(MockitoExtension.class)
 public class VerificationServiceImplTest {
 
-    @Mock
-    private VerificationTokenRepository tokenRepository;
-
     @Mock
     private IEmailService emailService;
 
@@ -46,40 +47,30 @@ public class VerificationServiceImplTest {
     @Mock
     private DriverRepository driverRepository;
 
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
+    @Spy
+    private ActionTokenSigner actionTokenSigner = new ActionTokenSigner();
+
+    @Mock
+    private ConsumedTokenGuard consumedTokenGuard;
+
     @InjectMocks
     private VerificationServiceImpl verificationService;
 
-    private Admin testAdmin;
-    private Customer testCustomer;
-    private Driver testDriver;
-    private VerificationToken testToken;
+    private UserIdentity testCustomer;
 
     /**
      * Initialize reusable test data:
-     * - Admin, Customer, Driver (all unverified)
-     * - A sample verification token
+     * - The signing key
+     * - An unverified customer in the identity directory
      */
     @BeforeEach
     void setUp() {
-        testAdmin = new Admin();
-        testAdmin.setEmail("admin@test.com");
-        testAdmin.setEmailVerified(false);
-        testAdmin.setUsername("adminuser");
-
-        testCustomer = new Customer();
-        testCustomer.setEmail("customer@test.com");
-        testCustomer.setEmailVerified(false);
-        testCustomer.setUsername("customeruser");
-
-        testDriver = new Driver();
-        testDriver.setEmail("driver@test.com");
-        testDriver.setEmailVerified(false);
-        testDriver.setUsername("driveruser");
-
-        testToken = new VerificationToken();
-        testToken.setToken("valid-token");
-        testToken.setExpiryDate(LocalDateTime.now().plusHours(24));
-        testToken.setUserEmail("test@test.com");
+        actionTokenSigner.init();
+        testCustomer = new UserIdentity("Customer", 7, "customeruser", "customeruser", "customer@test.com",
+                "hash", false);
     }
 
     /**
@@ -87,77 +78,22 @@ public class VerificationServiceImplTest {
      * Send verification link for a valid Customer email.
      *
      * Workflow:
-     * - Mock repositories to return the customer
-     * - Mock UUID generation for deterministic token
-     * - Call sendVerificationLink
-     * - Verify token is saved and email is sent
-     */
-    @Test
-    void sendVerificationLink_validEmailForCustomer_savesTokenAndSendsEmail() {
-        when(adminRepository.findByEmail(anyString())).thenReturn(null);
-        when(customerRepository.findByEmail("customer@test.com")).thenReturn(testCustomer);
-        doNothing().when(emailService).sendSimpleEmail(anyString(), anyString(), anyString());
-
-        try (MockedStatic<UUID> mockedUuid = mockStatic(UUID.class)) {
-            mockedUuid.when(UUID::randomUUID).thenReturn(UUID.fromString("12345678-1234-1234-1234-1234567890ab"));
-            
-            verificationService.sendVerificationLink("customer@test.com");
-            
-            verify(tokenRepository, times(1)).save(any(VerificationToken.class));
-            verify(emailService, times(1)).sendSimpleEmail(eq("customer@test.com"), anyString(), anyString());
-        }
-    }
-
-    /**
-     * Test scenario:
-     * Send verification link for a valid Admin email.
-     *
-     * Workflow:
-     * - Mock repositories to return the admin
-     * - Mock UUID generation
-     * - Call sendVerificationLink
-     * - Verify token save and email send
-     */
-    @Test
-    void sendVerificationLink_validEmailForAdmin_savesTokenAndSendsEmail() {
-        when(adminRepository.findByEmail("admin@test.com")).thenReturn(testAdmin);
-        doNothing().when(emailService).sendSimpleEmail(anyString(), anyString(), anyString());
-
-        try (MockedStatic<UUID> mockedUuid = mockStatic(UUID.class)) {
-            mockedUuid.when(UUID::randomUUID).thenReturn(UUID.fromString("12345678-1234-1234-1234-1234567890ab"));
-
-            verificationService.sendVerificationLink("admin@test.com");
-
-            verify(tokenRepository, times(1)).save(any(VerificationToken.class));
-            verify(emailService, times(1)).sendSimpleEmail(eq("admin@test.com"), anyString(), anyString());
-        }
-    }
-
-    /**
-     * Test scenario:
-     * Send verification link for a valid Driver email.
-     *
-     * Workflow:
-     * - Mock repositories to return the driver
-     * - Mock UUID generation
+     * - Mock the directory to return the customer
      * - Call sendVerificationLink
-     * - Verify token save and email send
+     * - Verify the email is sent with a token that verifies as the customer
      */
     @Test
-    void sendVerificationLink_validEmailForDriver_savesTokenAndSendsEmail() {
-        when(adminRepository.findByEmail("driver@test.com")).thenReturn(null);
-        when(customerRepository.findByEmail("driver@test.com")).thenReturn(null);
-        when(driverRepository.findByEmail("driver@test.com")).thenReturn(testDriver);
-        doNothing().when(emailService).sendSimpleEmail(anyString(), anyString(), anyString());
-
-        try (MockedStatic<UUID> mockedUuid = mockStatic(UUID.class)) {
-            mockedUuid.when(UUID::randomUUID).thenReturn(UUID.fromString("12345678-1234-1234-1234-1234567890ab"));
+    void sendVerificationLink_validEmailForCustomer_sendsSignedToken() {
+        when(userDirectoryService.findByEmail("customer@test.com")).thenReturn(Optional.of(testCustomer));
 
-            verificationService.sendVerificationLink("driver@test.com");
+        verificationService.sendVerificationLink("customer@test.com");
 
-            verify(tokenRepository, times(1)).save(any(VerificationToken.class));
-            verify(emailService, times(1)).sendSimpleEmail(eq("driver@test.com"), anyString(), anyString());
-        }
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(emailService, times(1)).sendSimpleEmail(eq("customer@test.com"), anyString(), message.capture());
+        String token = message.getValue().substring(message.getValue().indexOf("token=") + "token=".length());
+        ActionToken verified = actionTokenSigner.verify(token, ActionToken.Purpose.EMAIL_VERIFICATION).orElseThrow();
+        assertEquals("Customer", verified.getUserType());
+        assertEquals(7, verified.getUserId());
     }
 
     /**
@@ -165,18 +101,15 @@ public class VerificationServiceImplTest {
      * Attempt to send verification link for a nonexistent user.
      *
      * Workflow:
-     * - Mock all repositories to return null
+     * - Mock the directory to find nobody
      * - Expect IllegalArgumentException
-     * - Verify token save and email send never occur
+     * - Verify no email is sent
      */
     @Test
     void sendVerificationLink_userNotFound_throwsIllegalArgumentException() {
-        when(adminRepository.findByEmail(anyString())).thenReturn(null);
-        when(customerRepository.findByEmail(anyString())).thenReturn(null);
-        when(driverRepository.findByEmail(anyString())).thenReturn(null);
+        when(userDirectoryService.findByEmail(anyString())).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> verificationService.sendVerificationLink("nonexistent@test.com"));
-        verify(tokenRepository, never()).save(any(VerificationToken.class));
         verify(emailService, never()).sendSimpleEmail(anyString(), anyString(), anyString());
     }
 
@@ -187,15 +120,14 @@ public class VerificationServiceImplTest {
      * Workflow:
      * - Set customer's emailVerified to true
      * - Expect IllegalStateException
-     * - Verify token save and email send never occur
+     * - Verify no email is sent
      */
     @Test
     void sendVerificationLink_userAlreadyVerified_throwsIllegalStateException() {
         testCustomer.setEmailVerified(true);
-        when(customerRepository.findByEmail("customer@test.com")).thenReturn(testCustomer);
+        when(userDirectoryService.findByEmail("customer@test.com")).thenReturn(Optional.of(testCustomer));
 
         assertThrows(IllegalStateException.class, () -> verificationService.sendVerificationLink("customer@test.com"));
-        verify(tokenRepository, never()).save(any(VerificationToken.class));
         verify(emailService, never()).sendSimpleEmail(anyString(), anyString(), anyString());
     }
 
@@ -204,43 +136,62 @@ public class VerificationServiceImplTest {
      * Verify a valid token successfully.
      *
      * Workflow:
-     * - Mock token repository to return a valid token
-     * - Mock customer repository to return the user
+     * - Sign a token for a driver
      * - Call verifyToken
-     * - Expect user emailVerified to be true and token deleted
+     * - Expect one update of the driver by ID and of their directory entry
      */
     @Test
     void verifyToken_validToken_verifiesUserAndReturnsTrue() {
-        VerificationToken validToken = new VerificationToken("valid-token", LocalDateTime.now().plusHours(1), "customer@test.com");
-        when(tokenRepository.findByToken("valid-token")).thenReturn(validToken);
-        when(customerRepository.findByEmail("customer@test.com")).thenReturn(testCustomer);
+        String token = sign(ActionToken.Purpose.EMAIL_VERIFICATION, Duration.ofHours(1));
+        when(consumedTokenGuard.consume(any(ActionToken.class))).thenReturn(true);
+        when(driverRepository.markEmailVerified(5)).thenReturn(1);
 
-        boolean isVerified = verificationService.verifyToken("valid-token");
+        boolean isVerified = verificationService.verifyToken(token);
 
         assertTrue(isVerified);
-        assertTrue(testCustomer.getEmailVerified());
-        verify(customerRepository, times(1)).save(testCustomer);
-        verify(tokenRepository, times(1)).delete(validToken);
+        verify(driverRepository, times(1)).markEmailVerified(5);
+        verify(userDirectoryService, times(1)).markEmailVerified("Driver", 5);
     }
 
     /**
      * Test scenario:
-     * Verify an invalid token.
+     * Verify a token that was already used.
      *
      * Workflow:
-     * - Mock token repository to return null
-     * - Call verifyToken
-     * - Expect false, no user updates or token deletion
+     * - Verify a token once
+     * - Call verifyToken again with the same token
+     * - Expect false and no second update
      */
     @Test
-    void verifyToken_invalidToken_returnsFalse() {
-        when(tokenRepository.findByToken("invalid-token")).thenReturn(null);
+    void verifyToken_usedToken_returnsFalse() {
+        String token = sign(ActionToken.Purpose.EMAIL_VERIFICATION, Duration.ofHours(1));
+        when(consumedTokenGuard.consume(any(ActionToken.class))).thenReturn(true, false);
+        when(driverRepository.markEmailVerified(5)).thenReturn(1);
+        verificationService.verifyToken(token);
 
-        boolean isVerified = verificationService.verifyToken("invalid-token");
+        boolean isVerified = verificationService.verifyToken(token);
 
         assertFalse(isVerified);
-        verify(customerRepository, never()).save(any(Customer.class));
-        verify(tokenRepository, never()).delete(any(VerificationToken.class));
+        verify(driverRepository, times(1)).markEmailVerified(5);
+    }
+
+    /**
+     * Test scenario:
+     * Verify an invalid token.
+     *
+     * Workflow:
+     * - Call verifyToken with a forged token and with a password reset token
+     * - Expect false and no user updates
+     */
+    @Test
+    void verifyToken_invalidToken_returnsFalse() {
+        String token = sign(ActionToken.Purpose.EMAIL_VERIFICATION, Duration.ofHours(1));
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertFalse(verificationService.verifyToken("invalid-token"));
+        assertFalse(verificationService.verifyToken(forged));
+        assertFalse(verificationService.verifyToken(sign(ActionToken.Purpose.PASSWORD_RESET, Duration.ofHours(1))));
+        verify(driverRepository, never()).markEmailVerified(anyInt());
     }
 
     /**
@@ -248,42 +199,43 @@ public class VerificationServiceImplTest {
      * Verify an expired token.
      *
      * Workflow:
-     * - Mock token repository to return an expired token
+     * - Sign a token that expired an hour ago
      * - Call verifyToken
-     * - Expect false, no user updates or token deletion
+     * - Expect false and no user updates
      */
     @Test
     void verifyToken_expiredToken_returnsFalse() {
-        VerificationToken expiredToken = new VerificationToken("expired-token", LocalDateTime.now().minusHours(1), "customer@test.com");
-        when(tokenRepository.findByToken("expired-token")).thenReturn(expiredToken);
+        String token = sign(ActionToken.Purpose.EMAIL_VERIFICATION, Duration.ofHours(-1));
 
-        boolean isVerified = verificationService.verifyToken("expired-token");
+        boolean isVerified = verificationService.verifyToken(token);
 
         assertFalse(isVerified);
-        verify(customerRepository, never()).save(any(Customer.class));
-        verify(tokenRepository, never()).delete(any(VerificationToken.class));
+        verify(driverRepository, never()).markEmailVerified(anyInt());
     }
 
     /**
      * Test scenario:
-     * Verify a valid token but the user does not exist.
+     * Verify a valid token but the user does not exist any more.
      *
      * Workflow:
-     * - Mock token repository to return a valid token
-     * - Mock all repositories to return null for user email
+     * - The update of the driver finds no row
      * - Expect IllegalArgumentException
-     * - Verify no repository saves or token deletions occur
+     * - Verify the directory is not updated
      */
     @Test
-    void verifyToken_userNotFoundForTokenEmail_throwsIllegalArgumentException() {
-        VerificationToken validToken = new VerificationToken("valid-token", LocalDateTime.now().plusHours(1), "nonexistent@test.com");
-        when(tokenRepository.findByToken("valid-token")).thenReturn(validToken);
-        when(adminRepository.findByEmail("nonexistent@test.com")).thenReturn(null);
-        when(customerRepository.findByEmail("nonexistent@test.com")).thenReturn(null);
-        when(driverRepository.findByEmail("nonexistent@test.com")).thenReturn(null);
-
-        assertThrows(IllegalArgumentException.class, () -> verificationService.verifyToken("valid-token"));
-        verify(customerRepository, never()).save(any(Customer.class));
-        verify(tokenRepository, never()).delete(any(VerificationToken.class));
+    void verifyToken_userNotFound_throwsIllegalArgumentException() {
+        String token = sign(ActionToken.Purpose.EMAIL_VERIFICATION, Duration.ofHours(1));
+        when(consumedTokenGuard.consume(any(ActionToken.class))).thenReturn(true);
+        when(driverRepository.markEmailVerified(5)).thenReturn(0);
+
+        assertThrows(IllegalArgumentException.class, () -> verificationService.verifyToken(token));
+        verify(userDirectoryService, never()).markEmailVerified(anyString(), anyInt());
+    }
+
+    /*
+     * Helper method to sign a token for driver 5.
+     */
+    private String sign(ActionToken.Purpose purpose, Duration validity) {
+        return actionTokenSigner.sign(purpose, "Driver", 5, null, validity);
     }
 }
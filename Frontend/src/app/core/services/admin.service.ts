@@ -2,6 +2,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpEvent, HttpRequest } from '@angular/common/http';
 import { Observable } from 'rxjs';
+import { map } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
 
 export interface Customer {
@@ -39,6 +40,15 @@ export interface Admin {
   emailVerified?: boolean;
 }
 
+// One page of an admin user listing (UserSummaryPage on the backend)
+export interface UserSummaryPage<T> {
+  content: T[];
+  page: number;
+  size: number;
+  hasNext: boolean;
+  totalElements: number | null;
+}
+
 @Injectable({ providedIn: 'root' })
 export class AdminService {
   private apiUrl = `${environment.apiUrl}`;
@@ -80,24 +90,28 @@ export class AdminService {
   } // Matches your VehicleComponent buildImageUrl logic [22][23]
 
   // Existing admin APIs
-  getAllCustomers(): Observable<Customer[]> {
-    return this.http.get<Customer[]>(`${this.apiUrl}/api/admin/customers`);
+  getAllCustomers(page = 0, size = 100): Observable<Customer[]> {
+    return this.http.get<UserSummaryPage<Customer>>(`${this.apiUrl}/api/admin/customers`, { params: { page, size } })
+      .pipe(map(result => result.content));
   } // For stats counts [21]
 
-  getAllDrivers(): Observable<Driver[]> {
-    return this.http.get<Driver[]>(`${this.apiUrl}/api/admin/drivers`);
+  getAllDrivers(page = 0, size = 100): Observable<Driver[]> {
+    return this.http.get<UserSummaryPage<Driver>>(`${this.apiUrl}/api/admin/drivers`, { params: { page, size } })
+      .pipe(map(result => result.content));
   } // For stats counts and verified filter [21]
 
-  getUnverifiedDrivers(): Observable<Driver[]> {
-    return this.http.get<Driver[]>(`${this.apiUrl}/api/admin/unverified/drivers`);
+  getUnverifiedDrivers(page = 0, size = 100): Observable<Driver[]> {
+    return this.http.get<UserSummaryPage<Driver>>(`${this.apiUrl}/api/admin/unverified/drivers`, { params: { page, size } })
+      .pipe(map(result => result.content));
   } // For verification queues [21]
 
   verifyDriver(driverId: number): Observable<any> {
     return this.http.post(`${this.apiUrl}/api/admin/verify/drivers/${driverId}`, {});
   } // Verify driver [21]
 
-  getUnverifiedAdmins(): Observable<Admin[]> {
-    return this.http.get<Admin[]>(`${this.apiUrl}/api/admin/unverified/admins`);
+  getUnverifiedAdmins(page = 0, size = 100): Observable<Admin[]> {
+    return this.http.get<UserSummaryPage<Admin & { userId: number }>>(`${this.apiUrl}/api/admin/unverified/admins`, { params: { page, size } })
+      .pipe(map(result => result.content.map(admin => ({ ...admin, id: admin.userId }))));
   } // For admin verification flows [21]
 
   deleteUser(username: string): Observable<string> {